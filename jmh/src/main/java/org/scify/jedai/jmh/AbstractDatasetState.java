@@ -0,0 +1,154 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.jmh;
+
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.blockprocessing.blockcleaning.BlockFiltering;
+import org.scify.jedai.blockprocessing.comparisoncleaning.WeightedEdgePruning;
+import org.scify.jedai.datagenerator.SyntheticDataGenerator;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.entitymatching.ProfileMatcher;
+import org.scify.jedai.jmh.BenchmarkInput.Stage;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+import com.esotericsoftware.minlog.Log;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * The input of every benchmark: the entity profiles of a bundled dataset or
+ * of a larger synthetic dataset that it seeds, along with the outputs of the
+ * default workflow stages up to the one declared by the BenchmarkInput of the
+ * benchmark class. They are all computed in the trial setup, so that no
+ * measured operation includes them.
+ *
+ * The data directory is read from the system property jedai.data.dir and
+ * defaults to the data folder of the working directory.
+ *
+ * @author G.A.P. II
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractDatasetState {
+
+    protected static final String DATA_DIR = System.getProperty("jedai.data.dir", "data");
+
+    // the size of the synthetic datasets relative to the original ones, which seed them; 1 uses the original datasets
+    @Param({"1", "4"})
+    public int scale;
+
+    protected List<EntityProfile> profilesD1;
+    protected List<EntityProfile> profilesD2;
+
+    private List<AbstractBlock> blocks;
+    private List<AbstractBlock> filteredBlocks;
+    private List<AbstractBlock> prunedBlocks;
+    private SimilarityPairs simPairs;
+
+    @Setup(Level.Trial)
+    public void prepareInput(BenchmarkParams params) throws ClassNotFoundException {
+        Log.set(Log.LEVEL_WARN);
+
+        loadProfiles();
+        final Stage stage = getInputStage(params);
+        if (Stage.BLOCKS.compareTo(stage) <= 0) {
+            blocks = new StandardBlocking().getBlocks(profilesD1, profilesD2);
+        }
+        if (Stage.FILTERED_BLOCKS.compareTo(stage) <= 0) {
+            filteredBlocks = new BlockFiltering().refineBlocks(new ArrayList<>(blocks));
+        }
+        if (Stage.PRUNED_BLOCKS.compareTo(stage) <= 0) {
+            prunedBlocks = new WeightedEdgePruning(WeightingScheme.ECBS).refineBlocks(new ArrayList<>(filteredBlocks));
+        }
+        if (Stage.SIMILARITY_PAIRS.compareTo(stage) <= 0) {
+            simPairs = new ProfileMatcher(profilesD1, profilesD2).executeComparisons(new ArrayList<>(prunedBlocks));
+        }
+    }
+
+    private void loadProfiles() {
+        readProfiles();
+        if (1 < scale) {
+            final List<EntityProfile> seedProfiles = new ArrayList<>(profilesD1);
+            int noOfProfilesD2 = 0;
+            if (profilesD2 != null) {
+                seedProfiles.addAll(profilesD2);
+                noOfProfilesD2 = scale * profilesD2.size();
+            }
+
+            final SyntheticDataGenerator generator = new SyntheticDataGenerator(seedProfiles, scale * profilesD1.size(), noOfProfilesD2);
+            profilesD1 = generator.getEntityProfilesD1();
+            profilesD2 = generator.getEntityProfilesD2();
+        }
+    }
+
+    // the blocks of Standard Blocking
+    public List<AbstractBlock> getBlocks() {
+        return new ArrayList<>(checkInput(blocks, Stage.BLOCKS));
+    }
+
+    // the blocks of Standard Blocking after Block Filtering
+    public List<AbstractBlock> getFilteredBlocks() {
+        return new ArrayList<>(checkInput(filteredBlocks, Stage.FILTERED_BLOCKS));
+    }
+
+    // the blocks of Standard Blocking after Block Filtering and Weighted Edge Pruning
+    public List<AbstractBlock> getPrunedBlocks() {
+        return new ArrayList<>(checkInput(prunedBlocks, Stage.PRUNED_BLOCKS));
+    }
+
+    public List<EntityProfile> getProfilesD1() {
+        return profilesD1;
+    }
+
+    public List<EntityProfile> getProfilesD2() {
+        return profilesD2;
+    }
+
+    // the similarities that the default Profile Matcher assigns to the pruned blocks
+    public SimilarityPairs getSimilarityPairs() {
+        return checkInput(simPairs, Stage.SIMILARITY_PAIRS);
+    }
+
+    private static <T> T checkInput(T input, Stage stage) {
+        if (input == null) {
+            throw new IllegalStateException("The benchmark class does not declare " + stage + " as its input");
+        }
+        return input;
+    }
+
+    private static Stage getInputStage(BenchmarkParams params) throws ClassNotFoundException {
+        final String benchmark = params.getBenchmark(); // the method name, qualified by the class name
+        final Class<?> benchmarkClass = Class.forName(benchmark.substring(0, benchmark.lastIndexOf('.')));
+        final BenchmarkInput input = benchmarkClass.getAnnotation(BenchmarkInput.class);
+        return input == null ? Stage.PROFILES : input.value();
+    }
+
+    protected static List<EntityProfile> readProfiles(String subFolder, String fileName) {
+        final String path = DATA_DIR + File.separator + subFolder + File.separator + fileName;
+        return new EntitySerializationReader(path).getEntityProfiles();
+    }
+
+    protected abstract void readProfiles();
+}
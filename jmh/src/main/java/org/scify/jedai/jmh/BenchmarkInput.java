@@ -0,0 +1,44 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.jmh;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The output of the default workflow that the benchmarks of a class take as
+ * input, which the dataset states build in their trial setup. Without it, the
+ * benchmarks take only the entity profiles.
+ *
+ * @author G.A.P. II
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BenchmarkInput {
+
+    Stage value();
+
+    // every stage takes as input the output of the previous one
+    enum Stage {
+        PROFILES,
+        BLOCKS,
+        FILTERED_BLOCKS,
+        PRUNED_BLOCKS,
+        SIMILARITY_PAIRS
+    }
+}
@@ -0,0 +1,61 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.jmh;
+
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.utilities.enumerations.BlockCleaningMethod;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every block cleaning method with its default configuration, applied to the
+ * blocks of Standard Blocking.
+ *
+ * @author G.A.P. II
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkInput(BenchmarkInput.Stage.BLOCKS)
+public class BlockCleaningBenchmark {
+
+    @Param
+    public BlockCleaningMethod method;
+
+    @Benchmark
+    public List<AbstractBlock> cleanCleanEr(CleanCleanErState data) {
+        return BlockCleaningMethod.getDefaultConfiguration(method).refineBlocks(data.getBlocks());
+    }
+
+    @Benchmark
+    public List<AbstractBlock> dirtyEr(DirtyErState data) {
+        return BlockCleaningMethod.getDefaultConfiguration(method).refineBlocks(data.getBlocks());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.jmh;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A Dirty ER dataset from data/dirtyErDatasets.
+ *
+ * @author G.A.P. II
+ */
+@State(Scope.Benchmark)
+public class DirtyErState extends AbstractDatasetState {
+
+    @Param({"restaurant", "census", "cora"})
+    public String dataset;
+
+    @Override
+    protected void readProfiles() {
+        profilesD1 = readProfiles("dirtyErDatasets", dataset + "Profiles");
+        profilesD2 = null;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.jmh;
+
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.entitymatching.GroupLinkage;
+import org.scify.jedai.entitymatching.IEntityMatching;
+import org.scify.jedai.entitymatching.ProfileMatcher;
+import org.scify.jedai.utilities.enumerations.EntityMatchingMethod;
+import org.scify.jedai.utilities.enumerations.RepresentationModel;
+import org.scify.jedai.utilities.enumerations.SimilarityMetric;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every entity matching method with every representation model and its
+ * default similarity metric, applied to the pruned blocks. Building the text
+ * models is part of every operation. The pre-trained embeddings are excluded,
+ * as they require external vector files.
+ *
+ * @author G.A.P. II
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkInput(BenchmarkInput.Stage.PRUNED_BLOCKS)
+public class EntityMatchingBenchmark {
+
+    @Param
+    public EntityMatchingMethod method;
+
+    @Param({"CHARACTER_BIGRAMS", "CHARACTER_BIGRAMS_TF_IDF", "CHARACTER_BIGRAM_GRAPHS",
+        "CHARACTER_TRIGRAMS", "CHARACTER_TRIGRAMS_TF_IDF", "CHARACTER_TRIGRAM_GRAPHS",
+        "CHARACTER_FOURGRAMS", "CHARACTER_FOURGRAMS_TF_IDF", "CHARACTER_FOURGRAM_GRAPHS",
+        "TOKEN_UNIGRAMS", "TOKEN_UNIGRAMS_TF_IDF", "TOKEN_UNIGRAM_GRAPHS",
+        "TOKEN_BIGRAMS", "TOKEN_BIGRAMS_TF_IDF", "TOKEN_BIGRAM_GRAPHS",
+        "TOKEN_TRIGRAMS", "TOKEN_TRIGRAMS_TF_IDF", "TOKEN_TRIGRAM_GRAPHS"})
+    public RepresentationModel model;
+
+    @Benchmark
+    public SimilarityPairs cleanCleanEr(CleanCleanErState data) {
+        return getMatcher(data.getProfilesD1(), data.getProfilesD2()).executeComparisons(data.getPrunedBlocks());
+    }
+
+    @Benchmark
+    public SimilarityPairs dirtyEr(DirtyErState data) {
+        return getMatcher(data.getProfilesD1(), null).executeComparisons(data.getPrunedBlocks());
+    }
+
+    private IEntityMatching getMatcher(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
+        final SimilarityMetric simMetric = SimilarityMetric.getModelDefaultSimMetric(model);
+        if (method == EntityMatchingMethod.GROUP_LINKAGE) {
+            return new GroupLinkage(0.1f, profilesD1, profilesD2, model, simMetric);
+        }
+        return new ProfileMatcher(profilesD1, profilesD2, model, simMetric);
+    }
+}
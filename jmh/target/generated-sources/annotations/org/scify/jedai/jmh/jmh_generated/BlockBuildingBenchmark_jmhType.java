@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class BlockBuildingBenchmark_jmhType extends BlockBuildingBenchmark_jmhType_B3 {
+}
+
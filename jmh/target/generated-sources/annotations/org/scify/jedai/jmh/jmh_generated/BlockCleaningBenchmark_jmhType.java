@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class BlockCleaningBenchmark_jmhType extends BlockCleaningBenchmark_jmhType_B3 {
+}
+
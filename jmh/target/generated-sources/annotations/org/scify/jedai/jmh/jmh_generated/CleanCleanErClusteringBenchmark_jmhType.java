@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class CleanCleanErClusteringBenchmark_jmhType extends CleanCleanErClusteringBenchmark_jmhType_B3 {
+}
+
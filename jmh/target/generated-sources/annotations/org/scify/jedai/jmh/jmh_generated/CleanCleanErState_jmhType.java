@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class CleanCleanErState_jmhType extends CleanCleanErState_jmhType_B3 {
+}
+
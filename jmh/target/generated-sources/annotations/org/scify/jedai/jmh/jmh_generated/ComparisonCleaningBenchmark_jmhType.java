@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class ComparisonCleaningBenchmark_jmhType extends ComparisonCleaningBenchmark_jmhType_B3 {
+}
+
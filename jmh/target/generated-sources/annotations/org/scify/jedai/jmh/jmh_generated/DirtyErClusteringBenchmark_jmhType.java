@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class DirtyErClusteringBenchmark_jmhType extends DirtyErClusteringBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class DirtyErState_jmhType extends DirtyErState_jmhType_B3 {
+}
+
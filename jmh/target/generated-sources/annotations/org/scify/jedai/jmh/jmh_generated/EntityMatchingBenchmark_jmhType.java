@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class EntityMatchingBenchmark_jmhType extends EntityMatchingBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.scify.jedai.jmh.jmh_generated;
+public class MetaBlockingBenchmark_jmhType extends MetaBlockingBenchmark_jmhType_B3 {
+}
+
@@ -25,9 +25,7 @@ import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.UnilateralBlock;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 /**
  *
@@ -87,54 +85,54 @@ public class ExtendedSortedNeighborhoodBlocking extends SortedNeighborhoodBlocki
         }
     }
     
+    // the entities of every blocking key, indexed by the position of the key in the dictionary
+    private TIntList[] getPostingLists(Map<String, TIntList> invertedIndex, String[] sortedTerms) {
+        final TIntList[] postingLists = new TIntList[sortedTerms.length];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            postingLists[i] = invertedIndex.get(sortedTerms[i]);
+        }
+        return postingLists;
+    }
+
     @Override
     protected void parseIndex() {
-        final Set<String> blockingKeysSet = invertedIndexD1.keySet();
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
+        final TIntList[] postingLists = getPostingLists(invertedIndexD1, getSortedTerms(false));
 
         //slide window over the sorted list of blocking keys
-        int upperLimit = sortedTerms.length - windowSize;
-        for (int i = 0; i <= upperLimit; i++) {
+        addWindowBlocks(postingLists.length - windowSize + 1, i -> {
             final TIntSet entityIds = new TIntHashSet();
             for (int j = 0; j < windowSize; j++) {
-                entityIds.addAll(invertedIndexD1.get(sortedTerms[i + j]));
+                entityIds.addAll(postingLists[i + j]);
             }
 
-            if (1 < entityIds.size()) {
-                blocks.add(new UnilateralBlock(entityIds.toArray()));
-            }
-        }
+            return 1 < entityIds.size() ? new UnilateralBlock(entityIds.toArray()) : null;
+        });
     }
 
     @Override
     protected void parseIndices() {
-        final Set<String> blockingKeysSet = new HashSet<>();
-        blockingKeysSet.addAll(invertedIndexD1.keySet());
-        blockingKeysSet.addAll(invertedIndexD2.keySet());
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
+        final String[] sortedTerms = getSortedTerms(true);
+        final TIntList[] postingListsD1 = getPostingLists(invertedIndexD1, sortedTerms);
+        final TIntList[] postingListsD2 = getPostingLists(invertedIndexD2, sortedTerms);
 
         //slide window over the sorted list of blocking keys
-        int upperLimit = sortedTerms.length - windowSize;
-        for (int i = 0; i <= upperLimit; i++) {
+        addWindowBlocks(sortedTerms.length - windowSize + 1, i -> {
             final TIntSet entityIds1 = new TIntHashSet();
             final TIntSet entityIds2 = new TIntHashSet();
             for (int j = 0; j < windowSize; j++) {
-                final TIntList d1Entities = invertedIndexD1.get(sortedTerms[i + j]);
-                if (d1Entities != null) {
-                    entityIds1.addAll(d1Entities);
+                if (postingListsD1[i + j] != null) {
+                    entityIds1.addAll(postingListsD1[i + j]);
                 }
 
-                final TIntList d2Entities = invertedIndexD2.get(sortedTerms[i + j]);
-                if (d2Entities != null) {
-                    entityIds2.addAll(d2Entities);
+                if (postingListsD2[i + j] != null) {
+                    entityIds2.addAll(postingListsD2[i + j]);
                 }
             }
 
             if (!entityIds1.isEmpty() && !entityIds2.isEmpty()) {
-                blocks.add(new BilateralBlock(entityIds1.toArray(), entityIds2.toArray()));
+                return new BilateralBlock(entityIds1.toArray(), entityIds2.toArray());
             }
-        }
+            return null;
+        });
     }
 }
@@ -24,13 +24,17 @@ import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
+import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.UnilateralBlock;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -39,6 +43,8 @@ import java.util.Set;
 public class SortedNeighborhoodBlocking extends StandardBlocking {
     private static final long serialVersionUID = -7777048266041316326L;
 
+    protected boolean parallel;
+
     protected int windowSize;
     
     protected IntGridSearchConfiguration gridWindow;
@@ -52,16 +58,35 @@ public class SortedNeighborhoodBlocking extends StandardBlocking {
      public SortedNeighborhoodBlocking(int w) {
         super();
         windowSize = w;
+        parallel = false;
         
         random = new Random();
         gridWindow = new IntGridSearchConfiguration(100, 2, 1);
         randomWindow = new IntRandomSearchConfiguration(100, 1);
     }
 
+    /**
+     * @param parallel true if the blocking keys should be sorted and the
+     * windows should be scanned by multiple threads; the blocks are the same
+     * in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     public void setWindowSize(int windowSize) {
         this.windowSize = windowSize;
     }
 
+    // adds the blocks of the given windows in their order, skipping the null ones
+    protected void addWindowBlocks(int noOfWindows, IntFunction<AbstractBlock> windowBlocks) {
+        IntStream windowIds = IntStream.range(0, Math.max(0, noOfWindows));
+        if (parallel) {
+            windowIds = windowIds.parallel();
+        }
+        windowIds.mapToObj(windowBlocks).filter(Objects::nonNull).forEachOrdered(blocks::add);
+    }
+
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + windowSize;
@@ -151,6 +176,27 @@ public class SortedNeighborhoodBlocking extends StandardBlocking {
         }
     }
     
+    /**
+     * @return the dictionary of the blocking keys of the input entities, i.e.,
+     * the distinct keys in alphabetical order, with every key encoded by its
+     * position
+     */
+    protected String[] getSortedTerms(boolean isCleanCleanER) {
+        final Set<String> blockingKeysSet = isCleanCleanER ? new HashSet<>() : invertedIndexD1.keySet();
+        if (isCleanCleanER) {
+            blockingKeysSet.addAll(invertedIndexD1.keySet());
+            blockingKeysSet.addAll(invertedIndexD2.keySet());
+        }
+
+        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
+        if (parallel) {
+            Arrays.parallelSort(sortedTerms);
+        } else {
+            Arrays.sort(sortedTerms);
+        }
+        return sortedTerms;
+    }
+
     protected int[] getSortedEntities(String[] sortedTerms) {
         final TIntList sortedEntityIds = new TIntArrayList();
 
@@ -165,41 +211,26 @@ public class SortedNeighborhoodBlocking extends StandardBlocking {
     
     @Override
     protected void parseIndex() {
-        final Set<String> blockingKeysSet = invertedIndexD1.keySet();
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
-
-        final int[] allEntityIds = getSortedEntities(sortedTerms);
+        final int[] allEntityIds = getSortedEntities(getSortedTerms(false));
 
         //slide window over the sorted list of entity ids
-        int upperLimit = allEntityIds.length - windowSize;
-        for (int i = 0; i <= upperLimit; i++) {
+        addWindowBlocks(allEntityIds.length - windowSize + 1, i -> {
             final TIntSet entityIds = new TIntHashSet();
             for (int j = 0; j < windowSize; j++) {
                 entityIds.add(allEntityIds[i + j]);
             }
 
-            if (1 < entityIds.size()) {
-                blocks.add(new UnilateralBlock(entityIds.toArray()));
-            }
-        }
+            return 1 < entityIds.size() ? new UnilateralBlock(entityIds.toArray()) : null;
+        });
     }
     
     @Override
     protected void parseIndices() {
-        final Set<String> blockingKeysSet = new HashSet<>();
-        blockingKeysSet.addAll(invertedIndexD1.keySet());
-        blockingKeysSet.addAll(invertedIndexD2.keySet());
-        
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
-
-        final int[] allEntityIds = getMixedSortedEntities(sortedTerms);
+        final int[] allEntityIds = getMixedSortedEntities(getSortedTerms(true));
 
         int datasetLimit = entityProfilesD1.size();
         //slide window over the sorted list of entity ids
-        int upperLimit = allEntityIds.length - windowSize;
-        for (int i = 0; i <= upperLimit; i++) {
+        addWindowBlocks(allEntityIds.length - windowSize + 1, i -> {
             final TIntSet entityIds1 = new TIntHashSet();
             final TIntSet entityIds2 = new TIntHashSet();
             for (int j = 0; j < windowSize; j++) {
@@ -211,9 +242,10 @@ public class SortedNeighborhoodBlocking extends StandardBlocking {
             }
 
             if (!entityIds1.isEmpty() && !entityIds2.isEmpty()) {
-                blocks.add(new BilateralBlock(entityIds1.toArray(), entityIds2.toArray()));
+                return new BilateralBlock(entityIds1.toArray(), entityIds2.toArray());
             }
-        }
+            return null;
+        });
     }
     
     @Override
@@ -245,4 +245,25 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         }
         distinctComparisons /= 2;
     }
+
+    /**
+     * Shares the blocking graph and the statistics of the given instance, which
+     * has already refined its blocks, but not its traversal state. Thus, the
+     * two instances may process different entities in parallel.
+     */
+    protected void shareBlockingGraph(AbstractMetablocking graph) {
+        bBlocks = graph.bBlocks;
+        blockAssingments = graph.blockAssingments;
+        cleanCleanER = graph.cleanCleanER;
+        comparisonsPerEntity = graph.comparisonsPerEntity;
+        datasetLimit = graph.datasetLimit;
+        distinctComparisons = graph.distinctComparisons;
+        entityIndex = graph.entityIndex;
+        noOfBlocks = graph.noOfBlocks;
+        noOfEntities = graph.noOfEntities;
+        uBlocks = graph.uBlocks;
+        
+        counters = new float[noOfEntities];
+        flags = null;
+    }
 }
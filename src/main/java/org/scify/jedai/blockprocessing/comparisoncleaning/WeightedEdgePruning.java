@@ -22,6 +22,7 @@ import com.esotericsoftware.minlog.Log;
 import gnu.trove.iterator.TIntIterator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
@@ -75,13 +76,18 @@ public class WeightedEdgePruning extends AbstractMetablocking {
         return gridWScheme.getNumberOfConfigurations();
     }
 
+    // the flags are allocated once per blocking graph and are -1 between the processing of two entities
+    private void initializeFlags() {
+        if (flags == null || flags.length < noOfEntities) {
+            flags = new int[noOfEntities];
+            Arrays.fill(flags, -1);
+        }
+    }
+
     protected void processArcsEntity(int entityId) {
         validEntities.clear();
-        flags = new int[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            flags[i] = -1;
-        }
-        
+        initializeFlags();
+
         final int[] associatedBlocks = entityIndex.getEntityBlocks(entityId, 0);
         if (associatedBlocks.length == 0) {
             return;
@@ -101,15 +107,13 @@ public class WeightedEdgePruning extends AbstractMetablocking {
                 validEntities.add(neighborId);
             }
         }
+        resetFlags();
     }
 
     protected void processEntity(int entityId) {
         validEntities.clear();
-        flags = new int[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            flags[i] = -1;
-        }
-        
+        initializeFlags();
+
         final int[] associatedBlocks = entityIndex.getEntityBlocks(entityId, 0);
         if (associatedBlocks.length == 0) {
             return;
@@ -128,6 +132,13 @@ public class WeightedEdgePruning extends AbstractMetablocking {
                 validEntities.add(neighborId);
             }
         }
+        resetFlags();
+    }
+
+    private void resetFlags() {
+        for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
+            flags[iterator.next()] = -1;
+        }
     }
 
     @Override
@@ -0,0 +1,558 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datagenerator;
+
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.IdDuplicates;
+
+import com.esotericsoftware.minlog.Log;
+import com.opencsv.CSVWriter;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic Dirty or Clean-Clean ER datasets of arbitrary size from
+ * a set of seed profiles, e.g., those of a bundled dataset, along with their
+ * ground truth.
+ *
+ * Every new profile follows the schema and the value lengths of a random seed
+ * profile, while its tokens are drawn from the vocabulary of the seed values
+ * of each attribute. Ranks are drawn from a Zipf distribution with the given
+ * key skew, over a vocabulary that grows proportionally to the number of
+ * generated profiles. The duplicates of a profile are copies that are
+ * distorted by typos (per token) and by attribute heterogeneity (per
+ * attribute: dropped values or values moved to another attribute).
+ *
+ * Every profile is a function of the random seed and its id, so profiles are
+ * streamed without being kept in memory, and the same configuration always
+ * yields the same datasets.
+ *
+ * @author G.A.P. II
+ */
+public class SyntheticDataGenerator {
+
+    public final static String DIRTY_ER_PREFIX = "E";
+    public final static String FIRST_DATASET_PREFIX = "D1_";
+    public final static String SECOND_DATASET_PREFIX = "D2_";
+
+    private final static int FIRST_DATASET = 0;
+    private final static int SECOND_DATASET = 1;
+    private final static int MAX_PROBES = 16;
+
+    private final float duplicateRatio;
+    private final float heterogeneity;
+    private final float typoRate;
+    private final int noOfProfilesD1;
+    private final int noOfProfilesD2;
+    private final long randomSeed;
+
+    private final String[] attributeNames;
+    private final String[][] vocabularies; // the tokens of every attribute in decreasing frequency
+    private final int[][] seedAttributes; // the attribute ids of the values of every seed profile
+    private final int[][] seedLengths; // the number of tokens in the values of every seed profile
+    private final ZipfSampler[] samplers;
+
+    private Set<IdDuplicates> duplicatePairs;
+
+    /**
+     * @param seedProfiles the profiles that determine schemata, value lengths
+     * and vocabularies
+     * @param noOfProfilesD1 the size of the (first) dataset
+     * @param noOfProfilesD2 the size of the second dataset; 0 for Dirty ER
+     */
+    public SyntheticDataGenerator(List<EntityProfile> seedProfiles, int noOfProfilesD1, int noOfProfilesD2) {
+        this(seedProfiles, noOfProfilesD1, noOfProfilesD2, 0.1f, 0.05f, 0.1f, 1.0f, 42);
+    }
+
+    /**
+     * @param seedProfiles the profiles that determine schemata, value lengths
+     * and vocabularies
+     * @param noOfProfilesD1 the size of the (first) dataset
+     * @param noOfProfilesD2 the size of the second dataset; 0 for Dirty ER
+     * @param dupRatio the portion of the profiles that are duplicates of
+     * another profile; in Clean-Clean ER, the portion of the second dataset
+     * that matches a profile of the first one
+     * @param typos the probability that a token of a duplicate contains a
+     * typo
+     * @param attributeHeterogeneity the probability that a value of a duplicate
+     * is dropped or moved to another attribute
+     * @param keySkew the exponent of the Zipf distribution of token ranks; 0
+     * yields uniformly distributed tokens
+     * @param seed the seed of the pseudo-random numbers
+     */
+    public SyntheticDataGenerator(List<EntityProfile> seedProfiles, int noOfProfilesD1, int noOfProfilesD2,
+            float dupRatio, float typos, float attributeHeterogeneity, float keySkew, long seed) {
+        if (seedProfiles == null || seedProfiles.isEmpty()) {
+            throw new IllegalArgumentException("At least one seed profile is required");
+        }
+        if (noOfProfilesD1 < 1 || noOfProfilesD2 < 0) {
+            throw new IllegalArgumentException("Invalid dataset sizes");
+        }
+        if (dupRatio < 0 || 0.9f < dupRatio) {
+            throw new IllegalArgumentException("The duplicate ratio must lie in [0, 0.9]");
+        }
+
+        this.noOfProfilesD1 = noOfProfilesD1;
+        this.noOfProfilesD2 = noOfProfilesD2;
+        duplicateRatio = dupRatio;
+        heterogeneity = attributeHeterogeneity;
+        randomSeed = seed;
+        typoRate = typos;
+
+        // index the seed values
+        final TObjectIntMap<String> attributeIds = new TObjectIntHashMap<>();
+        final List<TObjectIntMap<String>> tokenFrequencies = new ArrayList<>();
+        seedAttributes = new int[seedProfiles.size()][];
+        seedLengths = new int[seedProfiles.size()][];
+        for (int i = 0; i < seedProfiles.size(); i++) {
+            final TIntList attributes = new TIntArrayList();
+            final TIntList lengths = new TIntArrayList();
+            for (Attribute attribute : seedProfiles.get(i).getAttributes()) {
+                final String[] tokens = getTokens(attribute.getValue());
+                if (tokens.length == 0) {
+                    continue;
+                }
+
+                if (!attributeIds.containsKey(attribute.getName())) {
+                    attributeIds.put(attribute.getName(), attributeIds.size());
+                    tokenFrequencies.add(new TObjectIntHashMap<>());
+                }
+                int attributeId = attributeIds.get(attribute.getName());
+                for (String token : tokens) {
+                    tokenFrequencies.get(attributeId).adjustOrPutValue(token, 1, 1);
+                }
+                attributes.add(attributeId);
+                lengths.add(tokens.length);
+            }
+            seedAttributes[i] = attributes.toArray();
+            seedLengths[i] = lengths.toArray();
+        }
+
+        if (attributeIds.isEmpty()) {
+            throw new IllegalArgumentException("The seed profiles contain no tokens");
+        }
+
+        attributeNames = new String[attributeIds.size()];
+        attributeIds.forEachEntry((name, id) -> {
+            attributeNames[id] = name;
+            return true;
+        });
+
+        // every vocabulary grows with the ratio of generated to seed profiles
+        final long scaleFactor = Math.max(1, ((long) noOfProfilesD1 + noOfProfilesD2) / seedProfiles.size());
+        vocabularies = new String[attributeNames.length][];
+        samplers = new ZipfSampler[attributeNames.length];
+        for (int i = 0; i < attributeNames.length; i++) {
+            final TObjectIntMap<String> frequencies = tokenFrequencies.get(i);
+            final String[] tokens = frequencies.keys(new String[frequencies.size()]);
+            Arrays.sort(tokens, (t1, t2) -> {
+                int result = Integer.compare(frequencies.get(t2), frequencies.get(t1));
+                return result != 0 ? result : t1.compareTo(t2);
+            });
+            vocabularies[i] = tokens;
+            samplers[i] = new ZipfSampler((int) Math.min(Integer.MAX_VALUE, scaleFactor * tokens.length), keySkew);
+        }
+        Log.info("Seed profiles\t:\t" + seedProfiles.size());
+        Log.info("Distinct attribute names\t:\t" + attributeNames.length);
+    }
+
+    private String addTypo(String token, SplittableRandom random) {
+        final StringBuilder sb = new StringBuilder(token);
+        int position = random.nextInt(token.length());
+        char newChar = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+            case 0: // insertion
+                sb.insert(position, newChar);
+                break;
+            case 1: // deletion
+                if (1 < token.length()) {
+                    sb.deleteCharAt(position);
+                }
+                break;
+            case 2: // substitution
+                sb.setCharAt(position, newChar);
+                break;
+            default: // transposition
+                if (position + 1 < token.length()) {
+                    sb.setCharAt(position, token.charAt(position + 1));
+                    sb.setCharAt(position + 1, token.charAt(position));
+                } else {
+                    sb.setCharAt(position, newChar);
+                }
+        }
+        return sb.toString();
+    }
+
+    private EntityProfile getDuplicate(int datasetId, int originalId, String url, SplittableRandom random) {
+        final SplittableRandom originalRandom = getRandom(datasetId, originalId);
+        originalRandom.nextDouble(); // the duplicate/original decision
+        int template = originalRandom.nextInt(seedAttributes.length);
+        final String[] values = getValues(template, originalRandom);
+
+        final EntityProfile profile = new EntityProfile(url);
+        for (int i = 0; i < values.length; i++) {
+            int attributeId = seedAttributes[template][i];
+            if (random.nextDouble() < heterogeneity) {
+                if (random.nextBoolean()) {
+                    continue; // missing value
+                }
+                attributeId = random.nextInt(attributeNames.length); // misplaced value
+            }
+
+            final String[] tokens = getTokens(values[i]);
+            for (int j = 0; j < tokens.length; j++) {
+                if (random.nextDouble() < typoRate) {
+                    tokens[j] = addTypo(tokens[j], random);
+                }
+            }
+            profile.addAttribute(attributeNames[attributeId], String.join(" ", tokens));
+        }
+        return profile;
+    }
+
+    /**
+     * Computes the ground truth without generating the profiles. The ids of
+     * Clean-Clean ER duplicates refer to the first and the second dataset,
+     * respectively, as in the ground truth readers.
+     *
+     * @return all pairs of matching profiles
+     */
+    public Set<IdDuplicates> getDuplicatePairs() {
+        if (duplicatePairs != null) {
+            return duplicatePairs;
+        }
+
+        duplicatePairs = new HashSet<>();
+        if (isCleanCleanER()) {
+            final BitSet matchedIds = new BitSet(noOfProfilesD1);
+            for (int id = 0; id < noOfProfilesD2; id++) {
+                int originalId = getMatchedId(id, getRandom(SECOND_DATASET, id), matchedIds);
+                if (0 <= originalId) {
+                    duplicatePairs.add(new IdDuplicates(originalId, id));
+                }
+            }
+        } else {
+            // every original forms a cluster with its duplicates; all pairs in a cluster are matches
+            final TIntObjectMap<TIntList> clusters = new TIntObjectHashMap<>();
+            for (int id = 1; id < noOfProfilesD1; id++) {
+                final SplittableRandom random = getRandom(FIRST_DATASET, id);
+                if (duplicateRatio <= random.nextDouble()) {
+                    continue;
+                }
+
+                int originalId = getOriginalId(id, random);
+                TIntList cluster = clusters.get(originalId);
+                if (cluster == null) {
+                    cluster = new TIntArrayList();
+                    cluster.add(originalId);
+                    clusters.put(originalId, cluster);
+                }
+                for (int i = 0; i < cluster.size(); i++) {
+                    duplicatePairs.add(new IdDuplicates(cluster.get(i), id));
+                }
+                cluster.add(id);
+            }
+        }
+        Log.info("Synthetic duplicate pairs\t:\t" + duplicatePairs.size());
+        return duplicatePairs;
+    }
+
+    /**
+     * @return the profiles of the (first) dataset, all in main memory
+     */
+    public List<EntityProfile> getEntityProfilesD1() {
+        return toList(getProfileIteratorD1(), noOfProfilesD1);
+    }
+
+    /**
+     * @return the profiles of the second dataset, all in main memory, or null
+     * for Dirty ER
+     */
+    public List<EntityProfile> getEntityProfilesD2() {
+        if (!isCleanCleanER()) {
+            return null;
+        }
+        return toList(getProfileIteratorD2(), noOfProfilesD2);
+    }
+
+    // the id of a random earlier original profile of a Dirty ER dataset
+    private int getOriginalId(int id, SplittableRandom random) {
+        while (true) {
+            int originalId = random.nextInt(id);
+            if (originalId == 0 || duplicateRatio <= getRandom(FIRST_DATASET, originalId).nextDouble()) {
+                return originalId;
+            }
+        }
+    }
+
+    /**
+     * @return the profiles of the (first) dataset, generated one at a time
+     */
+    public Iterator<EntityProfile> getProfileIteratorD1() {
+        return new ProfileIterator(FIRST_DATASET, noOfProfilesD1);
+    }
+
+    /**
+     * @return the profiles of the second dataset, generated one at a time, or
+     * null for Dirty ER
+     */
+    public Iterator<EntityProfile> getProfileIteratorD2() {
+        if (!isCleanCleanER()) {
+            return null;
+        }
+        return new ProfileIterator(SECOND_DATASET, noOfProfilesD2);
+    }
+
+    // the id of a random profile of the first dataset that has not been matched yet, or -1 for a new profile
+    private int getMatchedId(int id, SplittableRandom random, BitSet matchedIds) {
+        if (duplicateRatio <= random.nextDouble()) {
+            return -1;
+        }
+
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int originalId = random.nextInt(noOfProfilesD1);
+            if (!matchedIds.get(originalId)) {
+                matchedIds.set(originalId);
+                return originalId;
+            }
+        }
+        return -1;
+    }
+
+    private EntityProfile getProfile(String url, SplittableRandom random) {
+        int template = random.nextInt(seedAttributes.length);
+        final String[] values = getValues(template, random);
+
+        final EntityProfile profile = new EntityProfile(url);
+        for (int i = 0; i < values.length; i++) {
+            profile.addAttribute(attributeNames[seedAttributes[template][i]], values[i]);
+        }
+        return profile;
+    }
+
+    private SplittableRandom getRandom(int datasetId, int entityId) {
+        // SplitMix64 finalizer, so that consecutive ids yield independent streams
+        long z = randomSeed + 0x9E3779B97F4A7C15L * (2L * entityId + datasetId + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static String[] getTokens(String value) {
+        final String trimmedValue = value.trim();
+        if (trimmedValue.isEmpty()) {
+            return new String[0];
+        }
+        return trimmedValue.split("\\s+");
+    }
+
+    private String getUrl(int datasetId, int entityId) {
+        if (!isCleanCleanER()) {
+            return DIRTY_ER_PREFIX + entityId;
+        }
+        return (datasetId == FIRST_DATASET ? FIRST_DATASET_PREFIX : SECOND_DATASET_PREFIX) + entityId;
+    }
+
+    private String[] getValues(int template, SplittableRandom random) {
+        final String[] values = new String[seedAttributes[template].length];
+        for (int i = 0; i < values.length; i++) {
+            int attributeId = seedAttributes[template][i];
+            final StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < seedLengths[template][i]; j++) {
+                if (0 < j) {
+                    sb.append(' ');
+                }
+
+                // ranks beyond the seed vocabulary correspond to variations of its tokens
+                int rank = samplers[attributeId].sample(random);
+                final String[] vocabulary = vocabularies[attributeId];
+                sb.append(vocabulary[rank % vocabulary.length]);
+                if (vocabulary.length <= rank) {
+                    sb.append(Integer.toString(rank / vocabulary.length, Character.MAX_RADIX));
+                }
+            }
+            values[i] = sb.toString();
+        }
+        return values;
+    }
+
+    public boolean isCleanCleanER() {
+        return 0 < noOfProfilesD2;
+    }
+
+    private static List<EntityProfile> toList(Iterator<EntityProfile> iterator, int size) {
+        final List<EntityProfile> profiles = new ArrayList<>(size);
+        while (iterator.hasNext()) {
+            profiles.add(iterator.next());
+        }
+        return profiles;
+    }
+
+    /**
+     * Writes a dataset in the format of the CSV reader: the first row contains
+     * the attribute names, the first column the entity ids, which should be
+     * excluded from the attributes, and multiple values of the same attribute
+     * are concatenated.
+     *
+     * @param outputPath the CSV file
+     * @param secondDataset true for the second dataset of Clean-Clean ER
+     */
+    public void writeEntityCSV(String outputPath, boolean secondDataset) {
+        final Iterator<EntityProfile> iterator = secondDataset ? getProfileIteratorD2() : getProfileIteratorD1();
+        if (iterator == null) {
+            Log.error("Dirty ER involves a single dataset!");
+            return;
+        }
+
+        final TObjectIntMap<String> attributeIds = new TObjectIntHashMap<>();
+        final String[] header = new String[attributeNames.length + 1];
+        header[0] = "id";
+        for (int i = 0; i < attributeNames.length; i++) {
+            attributeIds.put(attributeNames[i], i + 1);
+            header[i + 1] = attributeNames[i];
+        }
+
+        try (CSVWriter writer = new CSVWriter(new BufferedWriter(new FileWriter(outputPath)))) {
+            writer.writeNext(header);
+            final String[] record = new String[header.length];
+            while (iterator.hasNext()) {
+                final EntityProfile profile = iterator.next();
+                Arrays.fill(record, "");
+                record[0] = profile.getEntityUrl();
+                for (Attribute attribute : profile.getAttributes()) {
+                    int column = attributeIds.get(attribute.getName());
+                    record[column] = record[column].isEmpty() ? attribute.getValue() : record[column] + " " + attribute.getValue();
+                }
+                writer.writeNext(record);
+            }
+        } catch (IOException ex) {
+            Log.error("Error in writing synthetic profiles", ex);
+        }
+    }
+
+    /**
+     * Writes the ground truth in the format of the CSV ground truth reader,
+     * i.e., one pair of entity ids per line.
+     *
+     * @param outputPath the CSV file
+     */
+    public void writeGroundTruthCSV(String outputPath) {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(outputPath)))) {
+            for (IdDuplicates pair : getDuplicatePairs()) {
+                writer.println(getUrl(FIRST_DATASET, pair.getEntityId1()) + "," + getUrl(SECOND_DATASET, pair.getEntityId2()));
+            }
+        } catch (IOException ex) {
+            Log.error("Error in writing synthetic ground truth", ex);
+        }
+    }
+
+    /**
+     * Writes the ground truth in the format of the serialization ground truth
+     * reader.
+     *
+     * @param outputPath the file with the Java serialized set of IdDuplicates
+     */
+    public void writeSerializedGroundTruth(String outputPath) {
+        writeSerializedObject(getDuplicatePairs(), outputPath);
+    }
+
+    /**
+     * Writes a dataset in the format of the serialization reader. The entire
+     * dataset is loaded into main memory.
+     *
+     * @param outputPath the file with the Java serialized list of profiles
+     * @param secondDataset true for the second dataset of Clean-Clean ER
+     */
+    public void writeSerializedProfiles(String outputPath, boolean secondDataset) {
+        final List<EntityProfile> profiles = secondDataset ? getEntityProfilesD2() : getEntityProfilesD1();
+        if (profiles == null) {
+            Log.error("Dirty ER involves a single dataset!");
+            return;
+        }
+        writeSerializedObject(profiles, outputPath);
+    }
+
+    private static void writeSerializedObject(Object object, String outputPath) {
+        try (ObjectOutput output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(outputPath)))) {
+            output.writeObject(object);
+        } catch (IOException ex) {
+            Log.error("Error in storing serialized object", ex);
+        }
+    }
+
+    private class ProfileIterator implements Iterator<EntityProfile> {
+
+        private final int datasetId;
+        private final int noOfProfiles;
+        private final BitSet matchedIds;
+
+        private int nextId;
+
+        ProfileIterator(int dId, int profiles) {
+            datasetId = dId;
+            noOfProfiles = profiles;
+            matchedIds = datasetId == SECOND_DATASET ? new BitSet(noOfProfilesD1) : null;
+            nextId = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextId < noOfProfiles;
+        }
+
+        @Override
+        public EntityProfile next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            int id = nextId++;
+            final String url = getUrl(datasetId, id);
+            final SplittableRandom random = getRandom(datasetId, id);
+            if (datasetId == SECOND_DATASET) {
+                int originalId = getMatchedId(id, random, matchedIds);
+                if (0 <= originalId) {
+                    return getDuplicate(FIRST_DATASET, originalId, url, random);
+                }
+            } else if (random.nextDouble() < duplicateRatio && 0 < id && !isCleanCleanER()) {
+                return getDuplicate(FIRST_DATASET, getOriginalId(id, random), url, random);
+            }
+            return getProfile(url, random);
+        }
+    }
+}
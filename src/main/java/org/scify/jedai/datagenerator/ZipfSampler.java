@@ -0,0 +1,103 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datagenerator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks in [0, noOfElements) from a Zipf distribution in constant
+ * time and space, using the rejection-inversion method of Hörmann and
+ * Derflinger. An exponent of 0 corresponds to the uniform distribution.
+ *
+ * @author G.A.P. II
+ */
+class ZipfSampler {
+
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralNoOfElements;
+    private final double s;
+    private final int noOfElements;
+
+    ZipfSampler(int elements, double exp) {
+        if (elements < 1) {
+            throw new IllegalArgumentException("The number of elements must be positive");
+        }
+        if (exp < 0) {
+            throw new IllegalArgumentException("The exponent must be non-negative");
+        }
+
+        exponent = exp;
+        noOfElements = elements;
+        hIntegralX1 = hIntegral(1.5) - 1.0;
+        hIntegralNoOfElements = hIntegral(noOfElements + 0.5);
+        s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        final double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1.0 - exponent);
+        if (t < -1.0) {
+            t = -1.0; // limits the effect of rounding errors
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1+x)/x, accurate also for x close to 0
+    private static double helper1(double x) {
+        if (1e-8 < Math.abs(x)) {
+            return Math.log1p(x) / x;
+        }
+        return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    // (exp(x)-1)/x, accurate also for x close to 0
+    private static double helper2(double x) {
+        if (1e-8 < Math.abs(x)) {
+            return Math.expm1(x) / x;
+        }
+        return 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+    }
+
+    int sample(SplittableRandom random) {
+        if (exponent == 0) {
+            return random.nextInt(noOfElements);
+        }
+
+        while (true) {
+            double u = hIntegralNoOfElements + random.nextDouble() * (hIntegralX1 - hIntegralNoOfElements);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (noOfElements < k) {
+                k = noOfElements;
+            }
+
+            if (k - x <= s || hIntegral(k + 0.5) - h(k) <= u) {
+                return k - 1;
+            }
+        }
+    }
+}
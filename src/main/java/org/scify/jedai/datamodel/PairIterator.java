@@ -40,9 +40,9 @@ public class PairIterator implements Iterator<Comparison> {
     @Override
     public Comparison next() {
         final Comparison comparison = new Comparison(true, 
-                similarityPairs.getEntityIds1()[currentIndex], 
-                similarityPairs.getEntityIds2()[currentIndex]);
-        comparison.setUtilityMeasure(similarityPairs.getSimilarities()[currentIndex]);
+                similarityPairs.getEntityId1(currentIndex), 
+                similarityPairs.getEntityId2(currentIndex));
+        comparison.setUtilityMeasure(similarityPairs.getSimilarity(currentIndex));
         currentIndex++;
         return comparison;
     }
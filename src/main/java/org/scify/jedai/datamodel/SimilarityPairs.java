@@ -16,6 +16,7 @@
 package org.scify.jedai.datamodel;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import org.scify.jedai.utilities.IConstants;
 
@@ -25,35 +26,112 @@ import org.scify.jedai.utilities.IConstants;
  */
 public class SimilarityPairs implements IConstants, Serializable {
 
+    // the pairs beyond the initial capacity are stored in chunks of fixed size, so that growing never copies them
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
     private final boolean isCleanCleanER;
     
     private int currentIndex;
+    private int noOfChunks;
     
-    private final float[] similarities;
-    private final int[] entityIds1;
-    private final int[] entityIds2;
+    private float[][] similarities;
+    private int[][] entityIds1;
+    private int[][] entityIds2;
+
+    /**
+     * Creates an empty instance that grows as comparisons are added, for
+     * outputs of unknown size.
+     *
+     * @param ccer true for Clean-Clean ER
+     */
+    public SimilarityPairs(boolean ccer) {
+        this(ccer, 0);
+    }
 
     public SimilarityPairs(boolean ccer, int comparisons) {
         currentIndex = 0;
         isCleanCleanER = ccer;
-        entityIds1 = new int[comparisons];
-        entityIds2 = new int[comparisons];
-        similarities = new float[comparisons];
+        initializeChunks(comparisons);
     }
     
     public SimilarityPairs(boolean ccer, List<AbstractBlock> blocks) {
         currentIndex = 0;
         isCleanCleanER = ccer;
         long totalComparisons = countComparisons(blocks);
-        entityIds1 = new int[(int) totalComparisons];
-        entityIds2 = new int[(int) totalComparisons];
-        similarities = new float[(int) totalComparisons];
+        initializeChunks((int) totalComparisons);
+    }
+
+    public void addComparison(int entityId1, int entityId2, float similarity) {
+        final int chunk = getChunk(currentIndex);
+        if (chunk == noOfChunks) {
+            addChunk();
+        }
+        final int offset = getOffset(currentIndex++, chunk);
+        entityIds1[chunk][offset] = entityId1;
+        entityIds2[chunk][offset] = entityId2;
+        similarities[chunk][offset] = similarity;
     }
 
     public void addComparison(Comparison comparison) {
-        entityIds1[currentIndex] = comparison.getEntityId1();
-        entityIds2[currentIndex] = comparison.getEntityId2();
-        similarities[currentIndex++] = comparison.getUtilityMeasure();
+        addComparison(comparison.getEntityId1(), comparison.getEntityId2(), comparison.getUtilityMeasure());
+    }
+
+    private void addChunk() {
+        if (noOfChunks == entityIds1.length) {
+            entityIds1 = Arrays.copyOf(entityIds1, 2 * noOfChunks);
+            entityIds2 = Arrays.copyOf(entityIds2, 2 * noOfChunks);
+            similarities = Arrays.copyOf(similarities, 2 * noOfChunks);
+        }
+        entityIds1[noOfChunks] = new int[CHUNK_SIZE];
+        entityIds2[noOfChunks] = new int[CHUNK_SIZE];
+        similarities[noOfChunks++] = new float[CHUNK_SIZE];
+    }
+
+    // replaces the chunks with a single array per field that holds exactly the pairs added so far
+    private void consolidateChunks() {
+        if (noOfChunks == 1 && entityIds1[0].length == currentIndex) {
+            return;
+        }
+
+        final int[] allEntityIds1 = new int[currentIndex];
+        final int[] allEntityIds2 = new int[currentIndex];
+        final float[] allSimilarities = new float[currentIndex];
+        for (int chunk = 0, start = 0; chunk < noOfChunks && start < currentIndex; chunk++) {
+            int length = Math.min(entityIds1[chunk].length, currentIndex - start);
+            System.arraycopy(entityIds1[chunk], 0, allEntityIds1, start, length);
+            System.arraycopy(entityIds2[chunk], 0, allEntityIds2, start, length);
+            System.arraycopy(similarities[chunk], 0, allSimilarities, start, length);
+            start += length;
+        }
+
+        entityIds1 = new int[][]{allEntityIds1};
+        entityIds2 = new int[][]{allEntityIds2};
+        similarities = new float[][]{allSimilarities};
+        noOfChunks = 1;
+    }
+
+    // the first chunk has the initial capacity, while the rest have CHUNK_SIZE positions
+    private int getChunk(int index) {
+        final int initialCapacity = entityIds1[0].length;
+        if (index < initialCapacity) {
+            return 0;
+        }
+        return 1 + ((index - initialCapacity) >>> CHUNK_BITS);
+    }
+
+    private int getOffset(int index, int chunk) {
+        if (chunk == 0) {
+            return index;
+        }
+        return (index - entityIds1[0].length) & (CHUNK_SIZE - 1);
+    }
+
+    private void initializeChunks(int initialCapacity) {
+        noOfChunks = 1;
+        entityIds1 = new int[][]{new int[initialCapacity]};
+        entityIds2 = new int[][]{new int[initialCapacity]};
+        similarities = new float[][]{new float[initialCapacity]};
     }
 
     private long countComparisons(List<AbstractBlock> blocks) {
@@ -66,12 +144,35 @@ public class SimilarityPairs implements IConstants, Serializable {
         return comparisons;
     }
 
+    public int getEntityId1(int index) {
+        final int chunk = getChunk(index);
+        return entityIds1[chunk][getOffset(index, chunk)];
+    }
+
+    public int getEntityId2(int index) {
+        final int chunk = getChunk(index);
+        return entityIds2[chunk][getOffset(index, chunk)];
+    }
+
+    /**
+     * @return the first entity of every pair, in an array of exactly
+     * getNoOfComparisons() positions; unless the instance was created with its
+     * exact size, the chunks are copied into a single array the first time, so
+     * getEntityId1 should be preferred for large outputs
+     */
     public int[] getEntityIds1() {
-        return entityIds1;
+        consolidateChunks();
+        return entityIds1[0];
     }
 
+    /**
+     * @return the second entity of every pair, in an array of exactly
+     * getNoOfComparisons() positions
+     * @see #getEntityIds1()
+     */
     public int[] getEntityIds2() {
-        return entityIds2;
+        consolidateChunks();
+        return entityIds2[0];
     }
 
     public int getNoOfComparisons() {
@@ -82,8 +183,19 @@ public class SimilarityPairs implements IConstants, Serializable {
         return new PairIterator(this);
     }
 
+    /**
+     * @return the similarity of every pair, in an array of exactly
+     * getNoOfComparisons() positions
+     * @see #getEntityIds1()
+     */
     public float[] getSimilarities() {
-        return similarities;
+        consolidateChunks();
+        return similarities[0];
+    }
+
+    public float getSimilarity(int index) {
+        final int chunk = getChunk(index);
+        return similarities[chunk][getOffset(index, chunk)];
     }
 
     public boolean isCleanCleanER() {
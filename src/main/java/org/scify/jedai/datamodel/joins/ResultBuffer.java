@@ -0,0 +1,78 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datamodel.joins;
+
+import java.util.Arrays;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+/**
+ * A growable buffer of join results in primitive arrays, so that every thread
+ * of a parallel join collects its pairs without allocating an object per pair.
+ *
+ * @author G.A.P. II
+ */
+
+public class ResultBuffer implements ISimilarityPairConsumer {
+
+    private int size;
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] similarities;
+
+    public ResultBuffer() {
+        size = 0;
+        entityIds1 = new int[16];
+        entityIds2 = new int[16];
+        similarities = new float[16];
+    }
+
+    @Override
+    public void accept(int entityId1, int entityId2, float similarity) {
+        if (size == entityIds1.length) {
+            int newCapacity = 2 * size;
+            entityIds1 = Arrays.copyOf(entityIds1, newCapacity);
+            entityIds2 = Arrays.copyOf(entityIds2, newCapacity);
+            similarities = Arrays.copyOf(similarities, newCapacity);
+        }
+
+        entityIds1[size] = entityId1;
+        entityIds2[size] = entityId2;
+        similarities[size++] = similarity;
+    }
+
+    public void forEach(ISimilarityPairConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(entityIds1[i], entityIds2[i], similarities[i]);
+        }
+    }
+
+    public int getEntityId1(int index) {
+        return entityIds1[index];
+    }
+
+    public int getEntityId2(int index) {
+        return entityIds2[index];
+    }
+
+    public float getSimilarity(int index) {
+        return similarities[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datamodel.joins;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Maps the tokens of one or two tokenized columns to distinct int ids in
+ * increasing order of document frequency. Every record holds the sorted token
+ * ids of the corresponding value, so that its prefix comprises its rarest
+ * tokens.
+ *
+ * @author G.A.P. II
+ */
+
+public class TokenDictionary {
+
+    private final int[] documentFrequencies;
+    private final int[][] records;
+
+    public TokenDictionary(TokenizedColumn column, boolean setVersion) {
+        this(column, null, setVersion);
+    }
+
+    /**
+     * @param column1 the first column
+     * @param column2 the second column, or null for a single column; its
+     * records follow those of the first one
+     * @param setVersion true if every token counts once per record
+     */
+    public TokenDictionary(TokenizedColumn column1, TokenizedColumn column2, boolean setVersion) {
+        // maps the local token ids of the columns to common temporary ids
+        final int[][] localToCommon = new int[column2 == null ? 1 : 2][];
+        localToCommon[0] = new int[column1.getNoOfTokens()];
+        for (int tokenId = 0; tokenId < localToCommon[0].length; tokenId++) {
+            localToCommon[0][tokenId] = tokenId;
+        }
+
+        int noOfTokens = column1.getNoOfTokens();
+        if (column2 != null) {
+            final TObjectIntMap<String> tokenIds = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+            for (int tokenId = 0; tokenId < column1.getNoOfTokens(); tokenId++) {
+                tokenIds.put(column1.getToken(tokenId), tokenId);
+            }
+
+            localToCommon[1] = new int[column2.getNoOfTokens()];
+            for (int tokenId = 0; tokenId < localToCommon[1].length; tokenId++) {
+                int commonId = tokenIds.get(column2.getToken(tokenId));
+                localToCommon[1][tokenId] = commonId < 0 ? noOfTokens++ : commonId;
+            }
+        }
+
+        final int[] frequencies = new int[noOfTokens];
+        final int[] lastRecords = new int[noOfTokens];
+        Arrays.fill(lastRecords, -1);
+
+        records = new int[column1.getSize() + (column2 == null ? 0 : column2.getSize())][];
+        for (int i = 0; i < records.length; i++) {
+            final int[] localIds = i < column1.getSize() ? column1.getTokenIds(i) : column2.getTokenIds(i - column1.getSize());
+            final int[] mapping = localToCommon[i < column1.getSize() ? 0 : 1];
+            final TIntList record = new TIntArrayList(localIds.length);
+            for (int localId : localIds) {
+                int tokenId = mapping[localId];
+                if (lastRecords[tokenId] != i) {
+                    lastRecords[tokenId] = i;
+                    frequencies[tokenId]++;
+                } else if (setVersion) {
+                    continue;
+                }
+                record.add(tokenId);
+            }
+            records[i] = record.toArray();
+        }
+
+        // ranks the tokens by frequency, breaking ties by order of appearance
+        final long[] keys = new long[noOfTokens];
+        for (int tokenId = 0; tokenId < keys.length; tokenId++) {
+            keys[tokenId] = ((long) frequencies[tokenId] << 32) | tokenId;
+        }
+        Arrays.sort(keys);
+
+        final int[] ranks = new int[keys.length];
+        documentFrequencies = new int[keys.length];
+        for (int rank = 0; rank < keys.length; rank++) {
+            ranks[(int) keys[rank]] = rank;
+            documentFrequencies[rank] = (int) (keys[rank] >>> 32);
+        }
+
+        for (int[] record : records) {
+            for (int i = 0; i < record.length; i++) {
+                record[i] = ranks[record[i]];
+            }
+            Arrays.sort(record);
+        }
+    }
+
+    public int getDocumentFrequency(int tokenId) {
+        return documentFrequencies[tokenId];
+    }
+
+    public int getNoOfRecords() {
+        return records.length;
+    }
+
+    public int getNoOfTokens() {
+        return documentFrequencies.length;
+    }
+
+    public int[] getRecord(int index) {
+        return records[index];
+    }
+
+    /**
+     * @return the ids of the records in increasing size, with ties broken by id
+     */
+    public int[] getRecordsBySize() {
+        final long[] keys = new long[records.length];
+        for (int i = 0; i < records.length; i++) {
+            keys[i] = ((long) records[i].length << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        final int[] recordIds = new int[records.length];
+        for (int i = 0; i < keys.length; i++) {
+            recordIds[i] = (int) keys[i];
+        }
+        return recordIds;
+    }
+}
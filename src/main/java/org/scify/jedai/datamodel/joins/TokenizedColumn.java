@@ -0,0 +1,138 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datamodel.joins;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+
+/**
+ * The values of an attribute in a collection of entity profiles, normalized
+ * and tokenized once, so that any number of similarity joins can be applied
+ * to them. Every value is lower-cased and split on non-word characters; its
+ * tokens are mapped to int ids that are local to the column. The column is
+ * immutable and assumes that the underlying profiles do not change.
+ *
+ * @author G.A.P. II
+ */
+
+public class TokenizedColumn {
+
+    private static final Pattern TOKEN_DELIMITER = Pattern.compile("[\\W_]");
+
+    private final int[][] tokenIds;
+    private final String attributeName;
+    private final String[] tokens;
+    private final String[] values;
+    private final List<EntityProfile> profiles;
+
+    public TokenizedColumn(List<EntityProfile> profiles, String attributeName) {
+        this.attributeName = attributeName;
+        this.profiles = profiles;
+
+        final List<String> vocabulary = new ArrayList<>();
+        final TObjectIntMap<String> vocabularyIds = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+        final List<String> valueTokens = new ArrayList<>();
+        tokenIds = new int[profiles.size()][];
+        values = new String[profiles.size()];
+        for (int i = 0; i < profiles.size(); i++) {
+            valueTokens.clear();
+            addTokens(attributeName, profiles.get(i), valueTokens);
+            values[i] = String.join(" ", valueTokens);
+
+            final TIntList record = new TIntArrayList(valueTokens.size());
+            for (String token : valueTokens) {
+                int tokenId = vocabularyIds.get(token);
+                if (tokenId < 0) {
+                    tokenId = vocabulary.size();
+                    vocabularyIds.put(token, tokenId);
+                    vocabulary.add(token);
+                }
+                record.add(tokenId);
+            }
+            tokenIds[i] = record.toArray();
+        }
+        tokens = vocabulary.toArray(new String[0]);
+    }
+
+    private static void addTokens(String attributeName, EntityProfile profile, List<String> valueTokens) {
+        final String name = attributeName.toLowerCase();
+        for (Attribute attribute : profile.getAttributes()) {
+            if (attribute.getName().toLowerCase().trim().equals(name)) {
+                for (String token : TOKEN_DELIMITER.split(attribute.getValue().toLowerCase())) {
+                    if (!token.isEmpty()) {
+                        valueTokens.add(token);
+                    }
+                }
+            }
+        }
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * @return the normalized value of the given attribute in the given profile,
+     * i.e., its tokens separated by a single space
+     */
+    public static String getAttributeValue(String attributeName, EntityProfile profile) {
+        final List<String> valueTokens = new ArrayList<>();
+        addTokens(attributeName, profile, valueTokens);
+        return String.join(" ", valueTokens);
+    }
+
+    public int getNoOfTokens() {
+        return tokens.length;
+    }
+
+    public List<EntityProfile> getProfiles() {
+        return profiles;
+    }
+
+    public int getSize() {
+        return values.length;
+    }
+
+    public String getToken(int tokenId) {
+        return tokens[tokenId];
+    }
+
+    /**
+     * @return the ids of the tokens of the given value, in order of appearance
+     */
+    public int[] getTokenIds(int index) {
+        return tokenIds[index];
+    }
+
+    public String getValue(int index) {
+        return values[index];
+    }
+
+    public boolean isColumnOf(List<EntityProfile> profiles, String attributeName) {
+        return this.profiles == profiles && values.length == profiles.size()
+                && this.attributeName.equals(attributeName);
+    }
+}
@@ -18,6 +18,10 @@ package org.scify.jedai.datareader.entityreader;
 import com.esotericsoftware.minlog.Log;
 import com.opencsv.CSVReader;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.apache.jena.atlas.json.JsonArray;
@@ -25,29 +29,60 @@ import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.datamodel.EntityProfile;
 
 import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author G.A.P. II
  */
 public class EntityCSVReader extends AbstractEntityReader {
 
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 25; // 32MB
+
+    private static final byte ESCAPE = '\\';
+    private static final byte QUOTE = '"';
+    private static final int MAX_REPORTED_RECORDS = 10;
+
     private boolean attributeNamesInFirstRow;
+    private boolean parallel;
+    private int chunkSize;
     private int idIndex;
     private char separator;
     private String[] attributeNames;
+    private final AtomicInteger malformedRecords;
     private final TIntSet attributesToExclude;
 
     public EntityCSVReader(String filePath) {
         super(filePath);
         attributeNamesInFirstRow = false;
         attributeNames = null;
+        chunkSize = DEFAULT_CHUNK_SIZE;
         idIndex = -1;
+        parallel = false;
         separator = ',';
         attributesToExclude = new TIntHashSet();
+        malformedRecords = new AtomicInteger();
+    }
+
+    private CSVReader getChunkReader(FileChannel channel, long start, long end) throws IOException {
+        // the chunks consist of whole lines, so the characters are decoded as with the FileReader of the sequential reading
+        final CharBuffer chars = Charset.defaultCharset().decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        return new CSVReader(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()), separator);
     }
 
     @Override
@@ -61,61 +96,201 @@ public class EntityCSVReader extends AbstractEntityReader {
             return null;
         }
 
-        try (final BufferedReader br = new BufferedReader(new FileReader(inputFilePath));
-             final CSVReader csvReader = new CSVReader(br, separator)) {
+        malformedRecords.set(0);
+        try {
+            final boolean success = parallel ? readChunks() : readLines();
+            if (MAX_REPORTED_RECORDS < malformedRecords.get()) {
+                Log.warn((malformedRecords.get() - MAX_REPORTED_RECORDS) + " more malformed lines were skipped");
+            }
+            return success ? entityProfiles : null;
+        } catch (IOException | UncheckedIOException e) {
+            Log.error("Error in entities reading!", e);
+            return null;
+        }
+    }
 
-            // Get first line
-            final String[] firstRecord = csvReader.readNext();
+    /**
+     * Splits the file after the first record and then into chunks of about the
+     * given size, at line breaks outside quoted values.
+     *
+     * @param offsets the offsets of the line breaks that start the chunks,
+     * followed by the size of the file
+     * @param firstRecords the number of records before every chunk
+     */
+    private void getChunkBoundaries(TLongList offsets, TIntList firstRecords) throws IOException {
+        boolean inQuotes = false;
+        boolean pendingEscape = false;
+        int records = 0;
+        long position = 0;
+        long nextBoundary = 0;
+        final byte[] buffer = new byte[1 << 20];
+        try (InputStream input = new FileInputStream(inputFilePath)) {
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                for (int i = 0; i < bytesRead; i++, position++) {
+                    final byte currentByte = buffer[i];
+                    if (pendingEscape) { // as in the CSVParser of opencsv, only quotes and escapes are escaped
+                        pendingEscape = false;
+                        if (currentByte == QUOTE || currentByte == ESCAPE) {
+                            continue;
+                        }
+                    }
+
+                    if (currentByte == ESCAPE) {
+                        pendingEscape = true;
+                    } else if (currentByte == QUOTE) {
+                        inQuotes = !inQuotes;
+                    } else if (currentByte == '\n' && !inQuotes) {
+                        records++;
+                        if (nextBoundary <= position + 1) {
+                            offsets.add(position + 1);
+                            firstRecords.add(records);
+                            nextBoundary = position + 1 + chunkSize;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (offsets.isEmpty() || offsets.get(offsets.size() - 1) < position) {
+            offsets.add(position);
+        }
+    }
 
-            if (firstRecord == null) {
-                Log.error("Empty file given as input.");
-                return null;
+    private EntityProfile getEntity(int index, String[] currentLine) {
+        String entityId;
+        if (idIndex < 0) {
+            entityId = "id" + index;
+        } else {
+            entityId = currentLine[idIndex];
+        }
+
+        final EntityProfile newProfile = new EntityProfile(entityId);
+        for (int i = 0; i < Math.min(attributeNames.length, currentLine.length); i++) {
+            if (attributesToExclude.contains(i)) {
+                continue;
+            }
+            if (!currentLine[i].trim().isEmpty()) {
+                newProfile.addAttribute(attributeNames[i], currentLine[i]);
             }
+        }
+        return newProfile;
+    }
+
+    private boolean isValidRecord(String[] record) {
+        if (record.length < attributeNames.length - 1) {
+            reportMalformedRecord("Line with missing attribute names : ", record);
+            return false;
+        }
+        if (attributeNames.length < record.length) {
+            reportMalformedRecord("Line with missing more attributes : ", record);
+            return false;
+        }
+        return true;
+    }
 
-            int noOfAttributes = firstRecord.length;
-            if (noOfAttributes - 1 < idIndex) {
-                Log.error("Id index does not correspond to a valid column index! Counting starts from 0.");
-                return null;
+    /**
+     * Reads the chunks of the file in parallel and appends their entities in
+     * the order of the file, so that the entity ids are the same as in the
+     * sequential reading.
+     */
+    private boolean readChunks() throws IOException {
+        final TLongList offsets = new TLongArrayList();
+        final TIntList firstRecords = new TIntArrayList();
+        getChunkBoundaries(offsets, firstRecords);
+
+        try (final FileChannel channel = FileChannel.open(Paths.get(inputFilePath), StandardOpenOption.READ)) {
+            final String[] firstRecord;
+            try (final CSVReader csvReader = getChunkReader(channel, 0, offsets.get(0))) {
+                firstRecord = csvReader.readNext();
+            }
+            if (!setAttributeNames(firstRecord)) {
+                return false;
             }
 
-            // Setting attribute names
-            int entityCounter = 0;
-            if (attributeNamesInFirstRow) {
-                attributeNames = Arrays.copyOf(firstRecord, noOfAttributes);
-            } else { // no attribute names in csv file
-                attributeNames = new String[noOfAttributes];
-                for (int i = 0; i < noOfAttributes; i++) {
-                    attributeNames[i] = "attribute" + (i + 1);
+            final List<List<EntityProfile>> chunkProfiles = IntStream.range(0, offsets.size() - 1).parallel().mapToObj(chunk -> {
+                final List<EntityProfile> profiles = new ArrayList<>();
+                try (final CSVReader csvReader = getChunkReader(channel, offsets.get(chunk), offsets.get(chunk + 1))) {
+                    int recordId = firstRecords.get(chunk);
+                    String[] nextRecord;
+                    while ((nextRecord = csvReader.readNext()) != null) {
+                        // the first record is an entity only when there are no attribute names
+                        int entityCounter = attributeNamesInFirstRow ? recordId : recordId + 1;
+                        recordId++;
+                        if (isValidRecord(nextRecord)) {
+                            profiles.add(getEntity(entityCounter, nextRecord));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+                return profiles;
+            }).collect(Collectors.toList());
+
+            chunkProfiles.forEach(entityProfiles::addAll);
+            return true;
+        }
+    }
 
-                entityCounter++; //first line corresponds to entity
-                readEntity(entityCounter, firstRecord);
+    private boolean readLines() throws IOException {
+        try (final BufferedReader br = new BufferedReader(new FileReader(inputFilePath));
+             final CSVReader csvReader = new CSVReader(br, separator)) {
+
+            // Get first line
+            if (!setAttributeNames(csvReader.readNext())) {
+                return false;
             }
 
             //read entity profiles
+            int entityCounter = attributeNamesInFirstRow ? 0 : 1;
             String[] nextRecord;
             while ((nextRecord = csvReader.readNext()) != null) {
                 entityCounter++;
-
-                if (nextRecord.length < attributeNames.length - 1) {
-                    Log.warn("Line with missing attribute names : " + Arrays.toString(nextRecord));
-                    continue;
-                }
-                if (attributeNames.length < nextRecord.length) {
-                    Log.warn("Line with missing more attributes : " + Arrays.toString(nextRecord));
-                    continue;
+                if (isValidRecord(nextRecord)) {
+                    entityProfiles.add(getEntity(entityCounter, nextRecord));
                 }
-
-                readEntity(entityCounter, nextRecord);
             }
+            return true;
+        }
+    }
 
-            return entityProfiles;
+    // logs the first malformed records only, as a large file may well contain millions of them
+    private void reportMalformedRecord(String message, String[] record) {
+        if (malformedRecords.incrementAndGet() <= MAX_REPORTED_RECORDS) {
+            Log.warn(message + Arrays.toString(record));
+        }
+    }
 
-        } catch (IOException e) {
-            Log.error("Error in entities reading!", e);
-            return null;
+    /**
+     * Sets the attribute names from the first record, which is read as an
+     * entity if the file contains no attribute names.
+     *
+     * @return false if the first record is invalid
+     */
+    private boolean setAttributeNames(String[] firstRecord) {
+        if (firstRecord == null) {
+            Log.error("Empty file given as input.");
+            return false;
+        }
+
+        int noOfAttributes = firstRecord.length;
+        if (noOfAttributes - 1 < idIndex) {
+            Log.error("Id index does not correspond to a valid column index! Counting starts from 0.");
+            return false;
         }
 
+        // Setting attribute names
+        if (attributeNamesInFirstRow) {
+            attributeNames = Arrays.copyOf(firstRecord, noOfAttributes);
+        } else { // no attribute names in csv file
+            attributeNames = new String[noOfAttributes];
+            for (int i = 0; i < noOfAttributes; i++) {
+                attributeNames[i] = "attribute" + (i + 1);
+            }
+
+            entityProfiles.add(getEntity(1, firstRecord)); //first line corresponds to entity
+        }
+        return true;
     }
 
     @Override
@@ -250,26 +425,6 @@ public class EntityCSVReader extends AbstractEntityReader {
         }
     }
 
-    private void readEntity(int index, String[] currentLine) {
-        String entityId;
-        if (idIndex < 0) {
-            entityId = "id" + index;
-        } else {
-            entityId = currentLine[idIndex];
-        }
-
-        final EntityProfile newProfile = new EntityProfile(entityId);
-        for (int i = 0; i < attributeNames.length; i++) {
-            if (attributesToExclude.contains(i)) {
-                continue;
-            }
-            if (!currentLine[i].trim().isEmpty()) {
-                newProfile.addAttribute(attributeNames[i], currentLine[i]);
-            }
-        }
-        entityProfiles.add(newProfile);
-    }
-
     public void setAttributesToExclude(int[] attributesIndicesToExclude) {
         for (int attributeIndex : attributesIndicesToExclude) {
             attributesToExclude.add(attributeIndex);
@@ -280,11 +435,31 @@ public class EntityCSVReader extends AbstractEntityReader {
         this.attributeNamesInFirstRow = attributeNamesInFirstRow;
     }
 
+    /**
+     * @param chunkSize the approximate number of bytes of every chunk that is
+     * read by a separate thread in parallel mode
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
     public void setIdIndex(int idIndex) {
         this.idIndex = idIndex;
         attributesToExclude.add(idIndex);
     }
 
+    /**
+     * @param parallel true if the file should be split into chunks of whole
+     * records, which are read by multiple threads; the entity profiles and
+     * their order are the same in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     public void setSeparator(char separator) {
         this.separator = separator;
     }
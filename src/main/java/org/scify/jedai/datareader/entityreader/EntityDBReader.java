@@ -22,6 +22,10 @@ import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.utilities.DBUtils;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  *
@@ -31,6 +35,10 @@ public class EntityDBReader extends AbstractEntityReader {
 
     private boolean ssl;
 
+    private int fetchSize;
+    private int noOfPartitions;
+
+    private String partitionKey;
     private String password;
     private String table;
     private String user;
@@ -40,6 +48,9 @@ public class EntityDBReader extends AbstractEntityReader {
     public EntityDBReader(String dbURL) {
         super(dbURL);
 
+        fetchSize = 0;
+        noOfPartitions = 1;
+        partitionKey = null;
         password = null;
         ssl = true;
         table = null;
@@ -72,38 +83,18 @@ public class EntityDBReader extends AbstractEntityReader {
             return null;
         }
 
-        //inputFilePath is assigned the Database URL
-        try (Connection conn = DBUtils.getDBConnection(inputFilePath, user, password, ssl);
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM " + table);//retrieve the appropriate table
-            ) {
-          
-            final ResultSetMetaData rsmd = rs.getMetaData();
-            int columnsNum = rsmd.getColumnCount();
-            String[] columns = new String[columnsNum];
-            for (int i = 0; i < columnsNum; i++) {
-                columns[i] = rsmd.getColumnName(i + 1);//get attribute names
-            }
-
-            //Extract data from result set
-            while (rs.next()) {
-                //Retrieve by column name
-                final String id = rs.getString(columns[0]);
-                final EntityProfile newProfile = new EntityProfile(id);//create a new profile for each record
-                entityProfiles.add(newProfile);
-                for (int i = 1; i < columnsNum; i++) {
-                    final String attributeName = columns[i];
-                    if (attributesToExclude.contains(attributeName)) {
-                        continue;
-                    }
-
-                    final String value = rs.getString(columns[i]);
-                    if (!rs.wasNull()) {
-                        newProfile.addAttribute(attributeName, value);
-                    }
+        try {
+            if (partitionKey == null) {
+                //inputFilePath is assigned the Database URL
+                try (Connection conn = DBUtils.getDBConnection(inputFilePath, user, password, ssl);
+                    Statement stmt = createStatement(conn);
+                    ResultSet rs = stmt.executeQuery("SELECT * FROM " + table);//retrieve the appropriate table
+                    ) {
+                    readProfiles(rs, entityProfiles);
                 }
+            } else {
+                readPartitions();
             }
-            rs.close();
         } catch (SQLException ex) {
             Log.error("Error in entities reading!", ex);
             return null;
@@ -112,6 +103,126 @@ public class EntityDBReader extends AbstractEntityReader {
         return entityProfiles;
     }
 
+    // forward-only, read-only statements allow the drivers to stream the rows through a cursor
+    private Statement createStatement(Connection conn) throws SQLException {
+        final Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        setFetchSize(conn, stmt);
+        return stmt;
+    }
+
+    private PreparedStatement createStatement(Connection conn, String query) throws SQLException {
+        final PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        setFetchSize(conn, stmt);
+        return stmt;
+    }
+
+    private List<EntityProfile> readPartition(long lowerKey, long upperKey, boolean lastPartition) throws SQLException {
+        final List<EntityProfile> profiles = new ArrayList<>();
+        final String query = "SELECT * FROM " + table + " WHERE " + partitionKey + " >= ? AND " + partitionKey
+                + (lastPartition ? " <= ?" : " < ?") + " ORDER BY " + partitionKey;
+        try (Connection conn = DBUtils.getDBConnection(inputFilePath, user, password, ssl);
+            PreparedStatement stmt = createStatement(conn, query)) {
+            stmt.setLong(1, lowerKey);
+            stmt.setLong(2, upperKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                readProfiles(rs, profiles);
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Splits the values of the partition key into equal ranges, which are read
+     * over separate connections, and appends their entities in the order of
+     * the key.
+     */
+    private void readPartitions() throws SQLException {
+        long minKey;
+        long maxKey;
+        try (Connection conn = DBUtils.getDBConnection(inputFilePath, user, password, ssl);
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT MIN(" + partitionKey + "), MAX(" + partitionKey + ") FROM " + table)) {
+            rs.next();
+            minKey = rs.getLong(1);
+            maxKey = rs.getLong(2);
+            if (rs.wasNull()) { // empty table
+                return;
+            }
+        }
+
+        final long rangeWidth = (maxKey - minKey) / noOfPartitions + 1;
+        final ExecutorService executor = Executors.newFixedThreadPool(noOfPartitions);
+        try {
+            final List<Future<List<EntityProfile>>> partitions = new ArrayList<>();
+            for (int i = 0; i < noOfPartitions; i++) {
+                final long lowerKey = minKey + i * rangeWidth;
+                if (maxKey < lowerKey) {
+                    break;
+                }
+                final boolean lastPartition = maxKey - lowerKey < rangeWidth;
+                final long upperKey = lastPartition ? maxKey : lowerKey + rangeWidth;
+                partitions.add(executor.submit(() -> readPartition(lowerKey, upperKey, lastPartition)));
+                if (lastPartition) {
+                    break;
+                }
+            }
+
+            for (Future<List<EntityProfile>> partition : partitions) {
+                entityProfiles.addAll(partition.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("The reading of the partitions was interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new SQLException("A partition could not be read", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void readProfiles(ResultSet rs, List<EntityProfile> profiles) throws SQLException {
+        final ResultSetMetaData rsmd = rs.getMetaData();
+        int columnsNum = rsmd.getColumnCount();
+        String[] columns = new String[columnsNum];
+        for (int i = 0; i < columnsNum; i++) {
+            columns[i] = rsmd.getColumnName(i + 1);//get attribute names
+        }
+
+        //Extract data from result set
+        while (rs.next()) {
+            final String id = rs.getString(1);
+            final EntityProfile newProfile = new EntityProfile(id);//create a new profile for each record
+            profiles.add(newProfile);
+            for (int i = 1; i < columnsNum; i++) {
+                final String attributeName = columns[i];
+                if (attributesToExclude.contains(attributeName)) {
+                    continue;
+                }
+
+                final String value = rs.getString(i + 1);
+                if (!rs.wasNull()) {
+                    newProfile.addAttribute(attributeName, value);
+                }
+            }
+        }
+    }
+
+    private void setFetchSize(Connection conn, Statement stmt) throws SQLException {
+        if (fetchSize <= 0) {
+            return;
+        }
+
+        if (inputFilePath.startsWith("mysql")) { // MySQL streams the rows only one by one
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            conn.setAutoCommit(false); // PostgreSQL uses a cursor only within a transaction
+            stmt.setFetchSize(fetchSize);
+        }
+    }
+
     @Override
     public String getMethodConfiguration() {
         final StringBuilder sb = new StringBuilder();
@@ -258,6 +369,29 @@ public class EntityDBReader extends AbstractEntityReader {
         attributesToExclude.addAll(Arrays.asList(attributesNamesToExclude));
     }
 
+    /**
+     * Reads the rows in batches of the given size, instead of loading the
+     * entire table into the memory of the client, as most drivers do by
+     * default. A non-positive size restores the default behavior.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Reads the table in parallel, over the given number of connections, each
+     * of which retrieves a range of the values of the given numeric key. The
+     * entities are returned in increasing order of the key, while the rows with
+     * a null key are ignored. A null key restores the sequential reading.
+     */
+    public void setPartitions(String partitionKey, int noOfPartitions) {
+        if (noOfPartitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be positive");
+        }
+        this.partitionKey = partitionKey;
+        this.noOfPartitions = noOfPartitions;
+    }
+
     public void setPassword(String password) {
         this.password = password;
     }
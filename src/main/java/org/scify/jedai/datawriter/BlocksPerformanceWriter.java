@@ -102,36 +102,6 @@ public class BlocksPerformanceWriter {
         this.endpointGraph = endpointGraph;
     }
 
-    private boolean areCooccurring(boolean cleanCleanER, IdDuplicates pairOfDuplicates) {
-        final int[] blocks1 = entityIndex.getEntityBlocks(pairOfDuplicates.getEntityId1(), 0);
-        if (blocks1 == null) {
-            return false;
-        }
-
-        final int[] blocks2 = entityIndex.getEntityBlocks(pairOfDuplicates.getEntityId2(), cleanCleanER ? 1 : 0);
-        if (blocks2 == null) {
-            return false;
-        }
-
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
     public float getAggregateCardinality() {
         return aggregateCardinality;
     }
@@ -220,7 +190,7 @@ public class BlocksPerformanceWriter {
         float noOfDuplicates = 0;
         boolean cleanCleanER = blocks.get(0) instanceof BilateralBlock;
         for (IdDuplicates pairOfDuplicates : abstractDP.getDuplicates()) {
-            if (areCooccurring(cleanCleanER, pairOfDuplicates)) {
+            if (entityIndex.areCooccurring(pairOfDuplicates.getEntityId1(), pairOfDuplicates.getEntityId2())) {
                 noOfDuplicates++;
             }
         }
@@ -0,0 +1,319 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+import com.esotericsoftware.minlog.Log;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Keeps the similarity graph in primitive adjacency maps along with a
+ * union-find forest of its connected components, so that every batch of pairs
+ * only updates the part of the graph it touches.
+ *
+ * @author G.A.P. II
+ */
+public abstract class AbstractIncrementalEntityClustering extends AbstractEntityClustering implements IIncrementalEntityClustering {
+
+    private static final long serialVersionUID = -6410237795117368316L;
+
+    protected IncrementalClusteringState state;
+
+    public AbstractIncrementalEntityClustering(float simTh) {
+        super(simTh);
+    }
+
+    private void addToCluster(int nodeId, TIntObjectMap<EquivalenceCluster> clusters) {
+        int representative = getRepresentative(nodeId);
+        EquivalenceCluster cluster = clusters.get(representative);
+        if (cluster == null) {
+            cluster = new EquivalenceCluster();
+            clusters.put(representative, cluster);
+        }
+
+        if (!state.isCleanCleanER) {
+            cluster.addEntityIdD1(nodeId);
+        } else if (nodeId % 2 == 0) {
+            cluster.addEntityIdD1(nodeId / 2);
+        } else {
+            cluster.addEntityIdD2(nodeId / 2);
+        }
+    }
+
+    // the entities up to the new maximum id become singleton clusters, so they are all touched
+    private int addEntity(int entityId, boolean isD2, TIntSet touchedNodes) {
+        int nodeId = getNodeId(entityId, isD2);
+        state.ensureCapacity(nodeId);
+        if (state.isCleanCleanER && isD2) {
+            for (int newEntityId = state.maxEntityId2 + 1; newEntityId <= entityId; newEntityId++) {
+                touchedNodes.add(getNodeId(newEntityId, true));
+            }
+            state.maxEntityId2 = Math.max(state.maxEntityId2, entityId);
+        } else {
+            for (int newEntityId = state.maxEntityId1 + 1; newEntityId <= entityId; newEntityId++) {
+                touchedNodes.add(getNodeId(newEntityId, false));
+            }
+            state.maxEntityId1 = Math.max(state.maxEntityId1, entityId);
+        }
+        return nodeId;
+    }
+
+    protected int find(int nodeId) {
+        while (state.parent[nodeId] != nodeId) {
+            state.parent[nodeId] = state.parent[state.parent[nodeId]];
+            nodeId = state.parent[nodeId];
+        }
+        return nodeId;
+    }
+
+    // the nodes whose clusters are affected by the touched nodes; by default, all nodes in their connected components
+    protected TIntSet getAffectedNodes(TIntSet touchedNodes) {
+        final TIntSet roots = new TIntHashSet();
+        final TIntSet affectedNodes = new TIntHashSet();
+        for (TIntIterator iterator = touchedNodes.iterator(); iterator.hasNext();) {
+            int nodeId = iterator.next();
+            if (roots.add(find(nodeId))) {
+                affectedNodes.addAll(getComponentMembers(nodeId));
+            }
+        }
+        return affectedNodes;
+    }
+
+    @Override
+    public EquivalenceCluster[] getClusters() {
+        if (state == null) {
+            return new EquivalenceCluster[0];
+        }
+
+        final TIntObjectMap<EquivalenceCluster> clusters = new TIntObjectHashMap<>();
+        for (int i = 0; i <= state.maxEntityId1; i++) {
+            addToCluster(getNodeId(i, false), clusters);
+        }
+        if (state.isCleanCleanER) {
+            for (int i = 0; i <= state.maxEntityId2; i++) {
+                addToCluster(getNodeId(i, true), clusters);
+            }
+        }
+        return clusters.values(new EquivalenceCluster[clusters.size()]);
+    }
+
+    protected EquivalenceCluster[] getClusters(TIntSet nodeIds) {
+        final TIntObjectMap<EquivalenceCluster> clusters = new TIntObjectHashMap<>();
+        for (TIntIterator iterator = nodeIds.iterator(); iterator.hasNext();) {
+            addToCluster(iterator.next(), clusters);
+        }
+        return clusters.values(new EquivalenceCluster[clusters.size()]);
+    }
+
+    protected TIntList getComponentMembers(int nodeId) {
+        final TIntList members = new TIntArrayList();
+        int currentNode = nodeId;
+        do {
+            members.add(currentNode);
+            currentNode = state.nextMember[currentNode];
+        } while (currentNode != nodeId);
+        return members;
+    }
+
+    @Override
+    public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
+        Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
+
+        state = new IncrementalClusteringState(simPairs.isCleanCleanER(), threshold);
+        if (!isApplicable(simPairs.isCleanCleanER())) {
+            return null;
+        }
+
+        updateState(simPairs);
+        return getClusters();
+    }
+
+    protected int getNodeId(int entityId, boolean isD2) {
+        if (!state.isCleanCleanER) {
+            return entityId;
+        }
+        return isD2 ? 2 * entityId + 1 : 2 * entityId;
+    }
+
+    // the id of the cluster that contains the given node
+    protected abstract int getRepresentative(int nodeId);
+
+    @Override
+    public IncrementalClusteringState getSnapshot() {
+        if (state == null) {
+            return null;
+        }
+        return new IncrementalClusteringState(state);
+    }
+
+    protected float getSimilarity(int nodeId1, int nodeId2) {
+        final TIntFloatHashMap edges = state.adjacency[nodeId1];
+        if (edges == null || !edges.containsKey(nodeId2)) {
+            return Float.NaN;
+        }
+        return edges.get(nodeId2);
+    }
+
+    protected boolean isApplicable(boolean isCleanCleanER) {
+        return true;
+    }
+
+    private void putEdge(int nodeId1, int nodeId2, float similarity) {
+        if (state.adjacency[nodeId1] == null) {
+            state.adjacency[nodeId1] = new TIntFloatHashMap();
+        }
+        if (state.adjacency[nodeId2] == null) {
+            state.adjacency[nodeId2] = new TIntFloatHashMap();
+        }
+        state.adjacency[nodeId1].put(nodeId2, similarity);
+        state.adjacency[nodeId2].put(nodeId1, similarity);
+    }
+
+    // removed edges may split a connected component, so the union-find trees of their endpoints are rebuilt
+    private void repairComponents(TIntSet brokenNodes) {
+        final TIntSet roots = new TIntHashSet();
+        for (TIntIterator iterator = brokenNodes.iterator(); iterator.hasNext();) {
+            roots.add(find(iterator.next()));
+        }
+
+        for (TIntIterator rootIterator = roots.iterator(); rootIterator.hasNext();) {
+            final TIntList members = getComponentMembers(rootIterator.next());
+            for (TIntIterator iterator = members.iterator(); iterator.hasNext();) {
+                int nodeId = iterator.next();
+                state.componentSize[nodeId] = 1;
+                state.nextMember[nodeId] = nodeId;
+                state.parent[nodeId] = nodeId;
+            }
+
+            for (TIntIterator iterator = members.iterator(); iterator.hasNext();) {
+                int nodeId = iterator.next();
+                if (state.adjacency[nodeId] != null) {
+                    for (TIntIterator neighborIterator = state.adjacency[nodeId].keySet().iterator(); neighborIterator.hasNext();) {
+                        union(nodeId, neighborIterator.next());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(IncrementalClusteringState snapshot) {
+        state = new IncrementalClusteringState(snapshot);
+        threshold = snapshot.getThreshold();
+    }
+
+    protected void union(int nodeId1, int nodeId2) {
+        int root1 = find(nodeId1);
+        int root2 = find(nodeId2);
+        if (root1 == root2) {
+            return;
+        }
+
+        if (state.componentSize[root1] < state.componentSize[root2]) {
+            int temp = root1;
+            root1 = root2;
+            root2 = temp;
+        }
+        state.parent[root2] = root1;
+        state.componentSize[root1] += state.componentSize[root2];
+
+        // splice the two circular lists of members
+        int temp = state.nextMember[root1];
+        state.nextMember[root1] = state.nextMember[root2];
+        state.nextMember[root2] = temp;
+    }
+
+    // changedEdges contains the endpoints of every added, removed or re-weighted edge, in pairs
+    protected abstract void updateAssignments(TIntList changedEdges, TIntSet touchedNodes);
+
+    @Override
+    public EquivalenceCluster[] updateClusters(SimilarityPairs simPairs) {
+        if (state == null) {
+            state = new IncrementalClusteringState(simPairs.isCleanCleanER(), threshold);
+        } else if (state.isCleanCleanER != simPairs.isCleanCleanER()) {
+            throw new IllegalArgumentException("The new pairs do not correspond to the type of ER of the existing clusters");
+        } else if (state.threshold != threshold) {
+            throw new IllegalStateException("The similarity threshold changed after the existing clusters were built. "
+                    + "Use getDuplicates to cluster all pairs from scratch.");
+        }
+
+        if (!isApplicable(simPairs.isCleanCleanER())) {
+            return null;
+        }
+
+        final TIntSet touchedNodes = updateState(simPairs);
+        final TIntSet affectedNodes = getAffectedNodes(touchedNodes);
+        Log.info("Entities affected by the new pairs\t:\t" + affectedNodes.size());
+        return getClusters(affectedNodes);
+    }
+
+    private TIntSet updateState(SimilarityPairs simPairs) {
+        final TIntList changedEdges = new TIntArrayList();
+        final TIntSet brokenNodes = new TIntHashSet();
+        final TIntSet touchedNodes = new TIntHashSet();
+
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            int nodeId1 = addEntity(entityIds1[i], false, touchedNodes);
+            int nodeId2 = addEntity(entityIds2[i], true, touchedNodes);
+            if (nodeId1 == nodeId2) {
+                continue;
+            }
+
+            float previousSimilarity = getSimilarity(nodeId1, nodeId2);
+            if (threshold < similarities[i]) {
+                if (previousSimilarity == similarities[i]) {
+                    continue;
+                }
+
+                putEdge(nodeId1, nodeId2, similarities[i]);
+                if (Float.isNaN(previousSimilarity)) {
+                    union(nodeId1, nodeId2);
+                }
+            } else {
+                if (Float.isNaN(previousSimilarity)) {
+                    continue;
+                }
+
+                state.adjacency[nodeId1].remove(nodeId2);
+                state.adjacency[nodeId2].remove(nodeId1);
+                brokenNodes.add(nodeId1);
+            }
+
+            changedEdges.add(nodeId1);
+            changedEdges.add(nodeId2);
+            touchedNodes.add(nodeId1);
+            touchedNodes.add(nodeId2);
+        }
+
+        repairComponents(brokenNodes);
+        updateAssignments(changedEdges, touchedNodes);
+
+        Log.info("Changed edges in the similarity graph\t:\t" + changedEdges.size() / 2);
+        return touchedNodes;
+    }
+}
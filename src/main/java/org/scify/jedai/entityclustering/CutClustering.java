@@ -15,26 +15,19 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
-import org.scify.jedai.datamodel.GomoryHuTree;
 import org.scify.jedai.datamodel.SimilarityPairs;
 
 import com.esotericsoftware.minlog.Log;
-import gnu.trove.set.hash.TIntHashSet;
 
-import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
+import java.util.stream.IntStream;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleGraph;
-import org.jgrapht.graph.SimpleWeightedGraph;
 import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
+import org.scify.jedai.utilities.graph.ConnectedComponents;
+import org.scify.jedai.utilities.graph.GomoryHuCutTree;
+import org.scify.jedai.utilities.graph.UndirectedGraph;
 
 /**
  *
@@ -47,8 +40,11 @@ public class CutClustering extends AbstractEntityClustering {
     
     protected final DblGridSearchConfiguration gridAcap;
     protected final DblRandomSearchConfiguration randomAcap;
-    protected SimpleGraph<Integer, DefaultEdge> duplicatesGraph;
-    protected SimpleWeightedGraph<Object, DefaultWeightedEdge> weightedGraph;
+    
+    protected int noOfEdges;
+    protected int[] edgeSource;
+    protected int[] edgeTarget;
+    protected float[] edgeWeight;
 
     public CutClustering() {
         this(0.3f, 0.5f);
@@ -62,45 +58,120 @@ public class CutClustering extends AbstractEntityClustering {
         randomAcap = new DblRandomSearchConfiguration(0.99f, 0.01f);
     }
 
-    @Override
-    protected EquivalenceCluster[] getConnectedComponents() {
-        // get connected components
-        final ConnectivityInspector<Integer, DefaultEdge> ci = new ConnectivityInspector<>(duplicatesGraph);
-        final List<Set<Integer>> connectedComponents = ci.connectedSets();
-
-        // prepare output
-        int counter = 0;
-        final EquivalenceCluster[] equivalenceClusters = new EquivalenceCluster[connectedComponents.size()];
-        for (Set<Integer> componentIds : connectedComponents) {
-            equivalenceClusters[counter] = new EquivalenceCluster();
-            equivalenceClusters[counter++].loadBulkEntityIdsD1(new TIntHashSet(componentIds));
+    // the edges of every connected component appear consecutively, in the order of their source vertex
+    protected int[] getComponentEdges(ConnectedComponents cc, int[] componentEdgeStart) {
+        for (int e = 0; e < noOfEdges; e++) {
+            componentEdgeStart[cc.id(edgeSource[e]) + 1]++;
         }
-
-        return equivalenceClusters;
+        for (int c = 0; c < cc.count(); c++) {
+            componentEdgeStart[c + 1] += componentEdgeStart[c];
+        }
+        
+        final int[] nextEdge = new int[cc.count()];
+        System.arraycopy(componentEdgeStart, 0, nextEdge, 0, cc.count());
+        final int[] componentEdges = new int[noOfEdges];
+        for (int e = 0; e < noOfEdges; e++) {
+            componentEdges[nextEdge[cc.id(edgeSource[e])]++] = e;
+        }
+        return componentEdges;
     }
-
+    
+    // the vertices of every connected component appear consecutively, in ascending order
+    protected int[] getComponentVertices(ConnectedComponents cc, int[] componentStart, int[] localId) {
+        for (int v = 0; v < noOfEntities; v++) {
+            localId[v] = componentStart[cc.id(v) + 1]++;
+        }
+        for (int c = 0; c < cc.count(); c++) {
+            componentStart[c + 1] += componentStart[c];
+        }
+        
+        final int[] componentVertices = new int[noOfEntities];
+        for (int v = 0; v < noOfEntities; v++) {
+            componentVertices[componentStart[cc.id(v)] + localId[v]] = v;
+        }
+        return componentVertices;
+    }
+    
     @Override
     public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
         initializeData(simPairs);
-        similarityGraph = null;
-        initializeGraph();
-
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) {	// add an edge for every pair of entities with a weight higher than the threshold
-            Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                DefaultWeightedEdge e = weightedGraph.addEdge(comparison.getEntityId1() + "", (comparison.getEntityId2() + datasetLimit) + "");
-                weightedGraph.setEdgeWeight(e, comparison.getUtilityMeasure());
+        initializeEdges(simPairs);
+        
+        // the similarity graph is partitioned into its connected components, 
+        // because the artificial sink is the only link between them
+        final ConnectedComponents cc = new ConnectedComponents(similarityGraph);
+        final int[] localId = new int[noOfEntities];
+        final int[] componentStart = new int[cc.count() + 1];
+        final int[] componentVertices = getComponentVertices(cc, componentStart, localId);
+        final int[] componentEdgeStart = new int[cc.count() + 1];
+        final int[] componentEdges = getComponentEdges(cc, componentEdgeStart);
+        Log.info("Connected components in the similarity graph\t:\t" + cc.count());
+        
+        // only the components with more than two vertices require a cut tree
+        final int[][] cutTrees = new int[cc.count()][];
+        IntStream.range(0, cc.count()).parallel()
+                .filter(c -> 2 < componentStart[c + 1] - componentStart[c])
+                .forEach(c -> cutTrees[c] = getCutTree(componentStart[c + 1] - componentStart[c], 
+                        componentEdges, componentEdgeStart[c], componentEdgeStart[c + 1], localId));
+        
+        similarityGraph = new UndirectedGraph(noOfEntities);
+        for (int c = 0; c < cc.count(); c++) {
+            int offset = componentStart[c];
+            int size = componentStart[c + 1] - offset;
+            if (size == 2) {
+                addTrivialCluster(componentVertices[offset], componentVertices[offset + 1], 
+                        componentEdges, componentEdgeStart[c], componentEdgeStart[c + 1]);
+            } else if (2 < size) {
+                final int[] parent = cutTrees[c];
+                for (int v = 1; v <= size; v++) { // the sink is the root and has local id 0
+                    if (parent[v] != 0) {
+                        similarityGraph.addEdge(componentVertices[offset + v - 1], componentVertices[offset + parent[v] - 1]);
+                    }
+                }
             }
         }
-
-        GomoryHuTree<Object, DefaultWeightedEdge> ght = new GomoryHuTree<>(weightedGraph); //take the minimum cut (Gomory-Hu) tree from the similarity graph
-        duplicatesGraph = ght.MinCutTree();
-        duplicatesGraph.removeVertex(noOfEntities); //remove the artificial sink
-
+        
         return getConnectedComponents();
     }
 
+    // in a component with two vertices connected with total weight w, the cut tree 
+    // keeps them together if and only if cutting them from the sink is cheaper: 2*Acap < Acap + w
+    protected void addTrivialCluster(int entityId1, int entityId2, int[] componentEdges, int firstEdge, int lastEdge) {
+        float totalWeight = 0;
+        for (int i = firstEdge; i < lastEdge; i++) {
+            totalWeight += edgeWeight[componentEdges[i]];
+        }
+        
+        if (Acap < totalWeight) {
+            similarityGraph.addEdge(entityId1, entityId2);
+        }
+    }
+    
+    // returns the parents of the cut tree, whose root is the artificial sink
+    protected int[] getCutTree(int size, int[] componentEdges, int firstEdge, int lastEdge, int[] localId) {
+        int componentEdgesCount = lastEdge - firstEdge;
+        int totalEdges = componentEdgesCount + size;
+        final int[] source = new int[totalEdges];
+        final int[] target = new int[totalEdges];
+        final float[] weight = new float[totalEdges];
+        for (int i = 0; i < componentEdgesCount; i++) {
+            int e = componentEdges[firstEdge + i];
+            source[i] = localId[edgeSource[e]] + 1;
+            target[i] = localId[edgeTarget[e]] + 1;
+            weight[i] = edgeWeight[e];
+        }
+        
+        // the capacity edges connect the artificial sink with all vertices
+        for (int v = 0; v < size; v++) {
+            source[componentEdgesCount + v] = 0;
+            target[componentEdgesCount + v] = v + 1;
+            weight[componentEdgesCount + v] = Acap;
+        }
+        
+        final GomoryHuCutTree cutTree = new GomoryHuCutTree(size + 1, source, target, weight, totalEdges);
+        return cutTree.getParents();
+    }
+    
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + threshold + "\t"
@@ -179,19 +250,28 @@ public class CutClustering extends AbstractEntityClustering {
         }
     }
 
-    protected void initializeGraph() {
-        weightedGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-
-        String sinkLabel = "" + noOfEntities;
-        weightedGraph.addVertex(sinkLabel); //add the artificial sink
-        for (int i = 0; i < noOfEntities; i++) {
-            String edgeLabel = i + "";
-            weightedGraph.addVertex(edgeLabel);
-            DefaultWeightedEdge e = weightedGraph.addEdge(sinkLabel, edgeLabel); // add the capacity edges "a"
-            weightedGraph.setEdgeWeight(e, Acap); //connecting the artificial sink with all vertices
+    // add an edge for every pair of entities with a weight higher than the threshold
+    protected void initializeEdges(SimilarityPairs simPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        
+        noOfEdges = 0;
+        edgeSource = new int[simPairs.getNoOfComparisons()];
+        edgeTarget = new int[simPairs.getNoOfComparisons()];
+        edgeWeight = new float[simPairs.getNoOfComparisons()];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            int entityId1 = entityIds1[i];
+            int entityId2 = entityIds2[i] + datasetLimit;
+            if (threshold < similarities[i] && entityId1 != entityId2) {
+                edgeSource[noOfEdges] = entityId1;
+                edgeTarget[noOfEdges] = entityId2;
+                edgeWeight[noOfEdges++] = similarities[i];
+                similarityGraph.addEdge(entityId1, entityId2);
+            }
         }
 
-        Log.info("Added " + noOfEntities + " nodes in the graph");
+        Log.info("Added " + noOfEdges + " edges in the graph");
     }
 
     public void setThreshold(float threshold) {
@@ -16,15 +16,9 @@
 package org.scify.jedai.entityclustering;
 
 import com.esotericsoftware.minlog.Log;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
-import org.scify.jedai.datamodel.SimilarityEdge;
 import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
-
-import java.util.Iterator;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import org.scify.jedai.utilities.datastructures.PreferenceLists;
 
 /**
  * Implements an adapted, simplified version of the Exact THRESHOLD algorithm,
@@ -62,50 +56,26 @@ public class ExactClustering extends AbstractCcerEntityClustering {
             return null; //the method is only applicable to Clean-Clean ER
         }
 
-        // create as many PQs (initially empty) as the number of entities in collection 1
-        Queue<SimilarityEdge>[] SEqueues1 = new PriorityQueue[datasetLimit];
-        for (int i =0; i < SEqueues1.length; ++i) {
-            SEqueues1[i] = new PriorityQueue<>(new DecSimilarityEdgeComparator());
-        }
-
-        // create as many PQs (initially empty) as the number of entities in collection 2
-        Queue<SimilarityEdge>[] SEqueues2 = new PriorityQueue[noOfEntities-datasetLimit];
-        for (int i =0; i < SEqueues2.length; ++i) {
-            SEqueues2[i] = new PriorityQueue<>(new DecSimilarityEdgeComparator());
-        }
-
-        // add all candidates per node to the respective PQ of this node
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) { // add a similarity edge to the queue, for every pair of entities with a weight higher than the threshold
-            Comparison comparison = iterator.next();
-            int eid1 = comparison.getEntityId1();
-            int eid2 = comparison.getEntityId2();
-            if (threshold < comparison.getUtilityMeasure()) {
-                //SimilarityEdge se = new SimilarityEdge(eid1, eid2 + datasetLimit, comparison.getUtilityMeasure());
-                SEqueues1[eid1].add(new SimilarityEdge(eid1, eid2 + datasetLimit, comparison.getUtilityMeasure()));
-                SEqueues2[eid2].add(new SimilarityEdge(eid1, eid2 + datasetLimit, comparison.getUtilityMeasure()));
-            }
-        }
+        // the candidates of every entity, sorted in decreasing similarity
+        final PreferenceLists preferences1 = new PreferenceLists(simPairs, threshold, true, datasetLimit);
+        final PreferenceLists preferences2 = new PreferenceLists(simPairs, threshold, false, noOfEntities - datasetLimit);
 
         //retrieve the top-1 candidate for every entity of the first collection, if this edge is reciprocal top-1
         for (int e1 = 0; e1 < datasetLimit; ++e1) {
-            if (SEqueues1[e1].isEmpty()) {
+            if (preferences1.isEmpty(e1)) {
                 continue;
             }
-            final SimilarityEdge se1 = SEqueues1[e1].remove();
-
-            int e2 = se1.getModel2Pos();
 
-            final SimilarityEdge se2 = SEqueues2[e2-datasetLimit].remove();
+            int e2 = preferences1.getCandidate(preferences1.getFirstIndex(e1));
 
             //skip non-reciprocal top-1 edges (only keep edges that are top-1 for both nodes)
-            if (se2.getModel1Pos() != e1) {
+            if (preferences2.getCandidate(preferences2.getFirstIndex(e2)) != e1) {
                 continue;
             }
 
-            similarityGraph.addEdge(e1, e2);
+            similarityGraph.addEdge(e1, e2 + datasetLimit);
             matchedIds.add(e1);
-            matchedIds.add(e2);
+            matchedIds.add(e2 + datasetLimit);
         }
 
         return getConnectedComponents();
@@ -0,0 +1,56 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+/**
+ * An entity clustering method that keeps its clusters up to date as new or
+ * changed similarity pairs arrive, instead of re-clustering the entire
+ * similarity graph.
+ *
+ * @author G.A.P. II
+ */
+
+public interface IIncrementalEntityClustering extends IEntityClustering {
+
+    /**
+     * @return all current equivalence clusters, including the singleton ones
+     */
+    EquivalenceCluster[] getClusters();
+
+    /**
+     * Adds a batch of new pairs or new similarities for existing pairs. A pair
+     * whose similarity drops to the threshold or below is removed from the
+     * similarity graph.
+     *
+     * @param simPairs the new or changed pairs, using the same entity ids as
+     * all previous batches
+     * @return the current equivalence clusters of all entities affected by the
+     * batch
+     */
+    EquivalenceCluster[] updateClusters(SimilarityPairs simPairs);
+
+    /**
+     * @return a copy of the current state, which can be persisted and later
+     * restored
+     */
+    IncrementalClusteringState getSnapshot();
+
+    void restoreSnapshot(IncrementalClusteringState snapshot);
+}
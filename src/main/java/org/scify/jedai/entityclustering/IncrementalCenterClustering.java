@@ -0,0 +1,129 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.SimilarityEdge;
+import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
+
+import gnu.trove.iterator.TIntFloatIterator;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The centers of a connected component depend only on its own edges, so every
+ * batch re-applies the CENTER algorithm to the affected components only.
+ *
+ * @author G.A.P. II
+ */
+public class IncrementalCenterClustering extends AbstractIncrementalEntityClustering {
+
+    private static final long serialVersionUID = 5183426606392419781L;
+
+    public IncrementalCenterClustering() {
+        this(0.5f);
+    }
+
+    public IncrementalCenterClustering(float simTh) {
+        super(simTh);
+    }
+
+    private float getAverageSimilarity(int nodeId) {
+        float totalSimilarity = 0;
+        for (TIntFloatIterator iterator = state.adjacency[nodeId].iterator(); iterator.hasNext();) {
+            iterator.advance();
+            totalSimilarity += iterator.value();
+        }
+        return totalSimilarity / state.adjacency[nodeId].size();
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it implements the CENTER algorithm such that a vertex is set as a cluster center if it has highest average edge weight from its adjacent nodes, "
+                + "updating only the connected components that are affected by every new batch of pairs.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return "Incremental Center Clustering";
+    }
+
+    @Override
+    protected int getRepresentative(int nodeId) {
+        int center = state.assignment[nodeId];
+        return center < 0 ? nodeId : center;
+    }
+
+    @Override
+    protected void updateAssignments(TIntList changedEdges, TIntSet touchedNodes) {
+        final TIntSet roots = new TIntHashSet();
+        for (TIntIterator iterator = touchedNodes.iterator(); iterator.hasNext();) {
+            int root = find(iterator.next());
+            if (roots.add(root)) {
+                updateComponent(root);
+            }
+        }
+    }
+
+    private void updateComponent(int root) {
+        final TIntList members = getComponentMembers(root);
+        final List<SimilarityEdge> edges = new ArrayList<>();
+        for (TIntIterator iterator = members.iterator(); iterator.hasNext();) {
+            int nodeId = iterator.next();
+            state.assignment[nodeId] = -1;
+            if (state.adjacency[nodeId] == null) {
+                continue;
+            }
+
+            for (TIntFloatIterator edgeIterator = state.adjacency[nodeId].iterator(); edgeIterator.hasNext();) {
+                edgeIterator.advance();
+                if (nodeId < edgeIterator.key()) {
+                    edges.add(new SimilarityEdge(nodeId, edgeIterator.key(), edgeIterator.value()));
+                }
+            }
+        }
+        edges.sort(new DecSimilarityEdgeComparator());
+
+        // a center is assigned to itself, a non-center to its center
+        for (SimilarityEdge se : edges) {
+            int v1 = se.getModel1Pos();
+            int v2 = se.getModel2Pos();
+
+            boolean v1IsCenter = state.assignment[v1] == v1;
+            boolean v2IsCenter = state.assignment[v2] == v2;
+            boolean v1IsNonCenter = !v1IsCenter && 0 <= state.assignment[v1];
+            boolean v2IsNonCenter = !v2IsCenter && 0 <= state.assignment[v2];
+
+            if (!(v1IsCenter || v2IsCenter || v1IsNonCenter || v2IsNonCenter)) {
+                if (getAverageSimilarity(v1) > getAverageSimilarity(v2)) {
+                    state.assignment[v1] = v1;
+                    state.assignment[v2] = v1;
+                } else {
+                    state.assignment[v2] = v2;
+                    state.assignment[v1] = v2;
+                }
+            } else if (v1IsCenter && !v2IsCenter && !v2IsNonCenter) {
+                state.assignment[v2] = v1;
+            } else if (v2IsCenter && !v1IsCenter && !v1IsNonCenter) {
+                state.assignment[v1] = v2;
+            }
+        }
+    }
+}
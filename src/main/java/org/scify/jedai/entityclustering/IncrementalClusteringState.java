@@ -0,0 +1,113 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import gnu.trove.map.hash.TIntFloatHashMap;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The state of an incremental entity clustering method. In Clean-Clean ER,
+ * entity i of the first dataset corresponds to node 2*i and entity j of the
+ * second dataset to node 2*j+1, so that both datasets can grow independently.
+ *
+ * @author G.A.P. II
+ */
+public class IncrementalClusteringState implements Serializable {
+
+    private static final long serialVersionUID = 4503283706451928735L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    final boolean isCleanCleanER;
+    final float threshold;
+
+    int maxEntityId1;
+    int maxEntityId2;
+
+    int[] assignment;       // the partner (unique mapping) or the center (center clustering) of every node, -1 if none
+    int[] componentSize;    // the size of every union-find tree, valid for the roots
+    int[] nextMember;       // the members of every connected component form a circular list
+    int[] parent;           // the union-find forest of the connected components
+    TIntFloatHashMap[] adjacency; // the retained edges of every node, i.e., those with a similarity above the threshold
+
+    public IncrementalClusteringState(boolean ccer, float simTh) {
+        isCleanCleanER = ccer;
+        threshold = simTh;
+        maxEntityId1 = -1;
+        maxEntityId2 = -1;
+
+        assignment = new int[0];
+        componentSize = new int[0];
+        nextMember = new int[0];
+        parent = new int[0];
+        adjacency = new TIntFloatHashMap[0];
+    }
+
+    public IncrementalClusteringState(IncrementalClusteringState state) {
+        isCleanCleanER = state.isCleanCleanER;
+        threshold = state.threshold;
+        maxEntityId1 = state.maxEntityId1;
+        maxEntityId2 = state.maxEntityId2;
+
+        assignment = state.assignment.clone();
+        componentSize = state.componentSize.clone();
+        nextMember = state.nextMember.clone();
+        parent = state.parent.clone();
+        adjacency = new TIntFloatHashMap[state.adjacency.length];
+        for (int i = 0; i < adjacency.length; i++) {
+            if (state.adjacency[i] != null) {
+                adjacency[i] = new TIntFloatHashMap(state.adjacency[i]);
+            }
+        }
+    }
+
+    void ensureCapacity(int nodeId) {
+        if (nodeId < parent.length) {
+            return;
+        }
+
+        int oldCapacity = parent.length;
+        int newCapacity = Math.max(Math.max(INITIAL_CAPACITY, 2 * oldCapacity), nodeId + 1);
+        assignment = Arrays.copyOf(assignment, newCapacity);
+        componentSize = Arrays.copyOf(componentSize, newCapacity);
+        nextMember = Arrays.copyOf(nextMember, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        adjacency = Arrays.copyOf(adjacency, newCapacity);
+        for (int i = oldCapacity; i < newCapacity; i++) {
+            assignment[i] = -1;
+            componentSize[i] = 1;
+            nextMember[i] = i;
+            parent[i] = i;
+        }
+    }
+
+    public int getMaxEntityId1() {
+        return maxEntityId1;
+    }
+
+    public int getMaxEntityId2() {
+        return maxEntityId2;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public boolean isCleanCleanER() {
+        return isCleanCleanER;
+    }
+}
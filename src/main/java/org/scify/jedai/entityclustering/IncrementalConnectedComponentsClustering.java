@@ -0,0 +1,57 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.set.TIntSet;
+
+/**
+ *
+ * @author G.A.P. II
+ */
+public class IncrementalConnectedComponentsClustering extends AbstractIncrementalEntityClustering {
+
+    private static final long serialVersionUID = 2284615498713308552L;
+
+    public IncrementalConnectedComponentsClustering() {
+        this(0.5f);
+    }
+
+    public IncrementalConnectedComponentsClustering(float simTh) {
+        super(simTh);
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it maintains the transitive closure of the similarity graph with a union-find structure, "
+                + "updating only the connected components that are affected by every new batch of pairs.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return "Incremental Connected Components Clustering";
+    }
+
+    @Override
+    protected int getRepresentative(int nodeId) {
+        return find(nodeId);
+    }
+
+    @Override
+    protected void updateAssignments(TIntList changedEdges, TIntSet touchedNodes) {
+        // the union-find forest already captures the clusters
+    }
+}
@@ -0,0 +1,168 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import gnu.trove.iterator.TIntFloatIterator;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.stack.TIntStack;
+import gnu.trove.stack.array.TIntArrayStack;
+
+/**
+ * The greedy unique mapping is the only matching in which every unmatched edge
+ * is outweighed by the matched edge of one of its endpoints. This class
+ * restores this property after every batch, starting from the endpoints of the
+ * changed edges, instead of sorting all edges again.
+ *
+ * @author G.A.P. II
+ */
+public class IncrementalUniqueMappingClustering extends AbstractIncrementalEntityClustering {
+
+    private static final long serialVersionUID = -1846452740612279953L;
+
+    public IncrementalUniqueMappingClustering() {
+        this(0.1f);
+    }
+
+    public IncrementalUniqueMappingClustering(float simTh) {
+        super(simTh);
+    }
+
+    @Override
+    protected TIntSet getAffectedNodes(TIntSet touchedNodes) {
+        final TIntSet affectedNodes = new TIntHashSet(touchedNodes);
+        for (TIntIterator iterator = touchedNodes.iterator(); iterator.hasNext();) {
+            int partner = state.assignment[iterator.next()];
+            if (0 <= partner) {
+                affectedNodes.add(partner);
+            }
+        }
+        return affectedNodes;
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it maintains a cluster for each pair of entities, none of which has been matched with a more similar entity, "
+                + "updating only the matches that are affected by every new batch of pairs.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return "Incremental Unique Mapping Clustering";
+    }
+
+    @Override
+    protected int getRepresentative(int nodeId) {
+        int partner = state.assignment[nodeId];
+        return partner < 0 ? nodeId : Math.min(nodeId, partner);
+    }
+
+    @Override
+    protected boolean isApplicable(boolean isCleanCleanER) {
+        return isCleanCleanER; //the method is only applicable to Clean-Clean ER
+    }
+
+    // edges are totally ordered by similarity and then by their endpoints, so that ties are broken deterministically
+    private boolean isHeavier(int nodeId1, int nodeId2, float similarity, int otherNodeId1, int otherNodeId2, float otherSimilarity) {
+        if (otherNodeId2 < 0 || otherSimilarity < similarity) {
+            return true;
+        }
+        if (similarity < otherSimilarity) {
+            return false;
+        }
+
+        int min = Math.min(nodeId1, nodeId2);
+        int otherMin = Math.min(otherNodeId1, otherNodeId2);
+        if (min != otherMin) {
+            return min < otherMin;
+        }
+        return Math.max(nodeId1, nodeId2) < Math.max(otherNodeId1, otherNodeId2);
+    }
+
+    // the matched edge of the given node, if any, outweighs the given edge
+    private boolean isOutweighed(int nodeId, int neighborId, float similarity) {
+        int partner = state.assignment[nodeId];
+        if (partner < 0) {
+            return false;
+        }
+        return isHeavier(nodeId, partner, getSimilarity(nodeId, partner), nodeId, neighborId, similarity);
+    }
+
+    private void unmatch(int nodeId, TIntStack pendingNodes, TIntSet touchedNodes) {
+        int partner = state.assignment[nodeId];
+        if (partner < 0) {
+            return;
+        }
+
+        state.assignment[nodeId] = -1;
+        state.assignment[partner] = -1;
+        pendingNodes.push(partner);
+        touchedNodes.add(partner);
+    }
+
+    @Override
+    protected void updateAssignments(TIntList changedEdges, TIntSet touchedNodes) {
+        final TIntStack pendingNodes = new TIntArrayStack();
+        for (int i = 0; i < changedEdges.size(); i += 2) {
+            int nodeId1 = changedEdges.get(i);
+            int nodeId2 = changedEdges.get(i + 1);
+            if (state.assignment[nodeId1] == nodeId2) {
+                unmatch(nodeId1, pendingNodes, touchedNodes);
+            }
+            pendingNodes.push(nodeId1);
+            pendingNodes.push(nodeId2);
+        }
+
+        while (0 < pendingNodes.size()) {
+            int nodeId = pendingNodes.pop();
+            if (state.adjacency[nodeId] == null) {
+                continue;
+            }
+
+            // the heaviest edge that outweighs the matched edges of both its endpoints
+            int bestNeighbor = -1;
+            float bestSimilarity = 0;
+            for (TIntFloatIterator iterator = state.adjacency[nodeId].iterator(); iterator.hasNext();) {
+                iterator.advance();
+                int neighborId = iterator.key();
+                float similarity = iterator.value();
+                if (neighborId == state.assignment[nodeId]
+                        || isOutweighed(nodeId, neighborId, similarity)
+                        || isOutweighed(neighborId, nodeId, similarity)) {
+                    continue;
+                }
+
+                if (isHeavier(nodeId, neighborId, similarity, nodeId, bestNeighbor, bestSimilarity)) {
+                    bestNeighbor = neighborId;
+                    bestSimilarity = similarity;
+                }
+            }
+
+            if (bestNeighbor < 0) {
+                continue;
+            }
+
+            unmatch(nodeId, pendingNodes, touchedNodes);
+            unmatch(bestNeighbor, pendingNodes, touchedNodes);
+            state.assignment[nodeId] = bestNeighbor;
+            state.assignment[bestNeighbor] = nodeId;
+            touchedNodes.add(nodeId);
+            touchedNodes.add(bestNeighbor);
+        }
+    }
+}
@@ -16,13 +16,14 @@
 package org.scify.jedai.entityclustering;
 
 import com.esotericsoftware.minlog.Log;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
-import org.scify.jedai.datamodel.SimilarityEdge;
 import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
+import org.scify.jedai.utilities.datastructures.PreferenceLists;
 
-import java.util.*;
+import gnu.trove.stack.TIntStack;
+import gnu.trove.stack.array.TIntArrayStack;
+
+import java.util.Arrays;
 
 /**
  * Implements the so-called "New Algorithm" by Zoltan Kiraly 2013, which is a 3/2-approximation to the
@@ -32,38 +33,6 @@ import java.util.*;
 public class KiralyMSMApproxClustering extends AbstractCcerEntityClustering {
     private static final long serialVersionUID = 274454050200034674L;
 
-    class SimilarityEdgeExt extends SimilarityEdge { //extension of similarity edge, just for the needs of this method
-        private static final long serialVersionUID = -3489398478601924151L;
-        boolean isActive;
-
-        public SimilarityEdgeExt (int pos1, int pos2, float sim) {
-            super(pos1, pos2, sim);
-            this.isActive = true; //active edge by default
-        }
-
-        public void setActive(boolean active) {
-            this.isActive = active;
-        }
-
-        public boolean isActive() {
-            return isActive;
-        }
-
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            SimilarityEdgeExt that = (SimilarityEdgeExt) o;
-            return getModel1Pos() == that.getModel1Pos() && getModel2Pos() == that.getModel2Pos() && Float.compare(that.getSimilarity(), getSimilarity()) == 0;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(getModel1Pos(), getModel2Pos(), getSimilarity());
-        }
-    }
-
     public KiralyMSMApproxClustering() {
         this(0.1f);
     }
@@ -76,56 +45,19 @@ public class KiralyMSMApproxClustering extends AbstractCcerEntityClustering {
         this.threshold = threshold;
     }
     
-    private boolean accepts_proposal(int w, int ws_fiance, int m, List<SimilarityEdgeExt> ws_preferences, boolean[] isUncertain){
-        if (ws_fiance == -1) { // w is free, so she accepts m's proposal
-            //.println(w + " accepts " + m + "'s proposal, since she is free.");
+    // w prefers m to her fiance, if she is more similar to m, or if she is equally similar to both and
+    // either her fiance is uncertain or m is a bachelor, while her fiance is a lad
+    private boolean acceptsProposal(int m, float mSimilarity, int wsFiance, float wsFianceSimilarity, boolean[] isBachelor, boolean[] isUncertain) {
+        if (wsFiance == -1) { // w is free, so she accepts m's proposal
             return true;
         }
-        if (isUncertain[ws_fiance]) { // w is flighty, so she accepts m's proposal
-            //System.out.println(w + " accepts " + m + "'s proposal, since she is flighty.");
+        if (wsFianceSimilarity < mSimilarity) {
             return true;
         }
-        double m_score = 0;
-        double ws_fiance_score = 0;
-        for (SimilarityEdge next_pref : ws_preferences) {
-            int next_id = next_pref.getModel1Pos();
-            if (next_id == m) {
-                m_score = next_pref.getSimilarity();
-            } else if (next_id == ws_fiance) {
-                ws_fiance_score = next_pref.getSimilarity();
-            }
-        }
-        if (m_score > ws_fiance_score) { // w prefers the new proposer to her existing fiance, so she accepts proposal
-            //System.out.println(w + " accepts " + m + "'s proposal, since she prefers him to her fiance "+ ws_fiance+".");
-            return true;
-        }
-        //System.out.println(w + " rejects " + m + "'s proposal.");
-        return false;
-    }
-
-    private boolean isActive(List<SimilarityEdgeExt> prefs) {
-        if (prefs == null) {
-            return false;
-        }
-        for (SimilarityEdgeExt cand: prefs) {
-            if (cand.isActive()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean deactivateWomanCandidate(List<SimilarityEdgeExt> prefs, int w) {
-        if (prefs == null) {
+        if (mSimilarity < wsFianceSimilarity) {
             return false;
         }
-        for (SimilarityEdgeExt cand: prefs) {
-            if (cand.getModel2Pos() == 2 && cand.isActive()) {
-                cand.setActive(false);
-                return true;
-            }
-        }
-        return false;
+        return isUncertain[wsFiance] || (isBachelor[m] && !isBachelor[wsFiance]);
     }
 
     @Override
@@ -142,111 +74,66 @@ public class KiralyMSMApproxClustering extends AbstractCcerEntityClustering {
             return null; //the method is only applicable to Clean-Clean ER
         }
 
-        // create as many PQs (initially empty) as the number of entities in collection 1
-        List<List<SimilarityEdgeExt>> SEqueuesMen = new ArrayList<>();
-        for (int i =0; i < datasetLimit; ++i) {
-            SEqueuesMen.add(i, new ArrayList<>());
-        }
+        // the candidates of every man (entity of collection 1), sorted in decreasing similarity;
+        // the women (entities of collection 2) only need the similarity of their fiance
+        final PreferenceLists menPreferences = new PreferenceLists(simPairs, threshold, true, datasetLimit);
+        int noOfWomen = noOfEntities - datasetLimit;
 
-        // create as many PQs (initially empty) as the number of entities in collection 2
-        List<List<SimilarityEdgeExt>> SEqueuesWomen = new ArrayList<>();
-        for (int i =0; i < noOfEntities-datasetLimit; ++i) {
-            SEqueuesWomen.add(i, new ArrayList<>()); //new DecSimilarityEdgeComparator());
-        }
+        // every man proposes to his candidates in order; the candidates before nextProposal[m] have been removed from his list
+        final int[] nextProposal = new int[datasetLimit];
+        final boolean[] isBachelor = new boolean[datasetLimit]; //checks if men are lads (false) or bachelors (true)
+        //uncertain: an engaged man whose list contains another woman, equally similar to his actual fiancee
+        final boolean[] isUncertain = new boolean[datasetLimit];
 
-        Set<Integer> men = new HashSet<>();
-        Set<Integer> women = new HashSet<>();
+        final int[] fiances = new int[noOfWomen]; //the fiance (man id) of each woman (-1 for unengaged)
+        final float[] fianceSimilarities = new float[noOfWomen];
+        Arrays.fill(fiances, -1);
 
-        // add all candidates per node to the respective PQ of this node
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) { // add a similarity edge to the queue, for every pair of entities with a weight higher than the threshold
-            Comparison comparison = iterator.next();
-            int eid1 = comparison.getEntityId1();
-            int eid2 = comparison.getEntityId2();
-            if (threshold < comparison.getUtilityMeasure()) {
-                SEqueuesMen.get(eid1).add(new SimilarityEdgeExt(eid1, eid2 + datasetLimit, comparison.getUtilityMeasure()));
-                SEqueuesWomen.get(eid2).add(new SimilarityEdgeExt(eid1, eid2 + datasetLimit, comparison.getUtilityMeasure()));
+        final TIntStack freeMen = new TIntArrayStack();
+        for (int m = datasetLimit - 1; 0 <= m; m--) {
+            nextProposal[m] = menPreferences.getFirstIndex(m);
+            if (!menPreferences.isEmpty(m)) {
+                freeMen.push(m);
             }
-            men.add(eid1);
-            women.add(eid2);
-        }
-
-        //sort all local candidates lists (for men and women) in desc. similarity
-        for (List<SimilarityEdgeExt> prefs : SEqueuesMen) {
-            Collections.sort(prefs, new DecSimilarityEdgeComparator());
         }
-        for (List<SimilarityEdgeExt> prefs : SEqueuesWomen) {
-            Collections.sort(prefs, new DecSimilarityEdgeComparator());
-        }
-
-        boolean[] isBachelor = new boolean[datasetLimit]; //checks if men are lads (false) or bachelors (true)
-        Arrays.fill(isBachelor, Boolean.FALSE);
-
-        //uncertain: an engaged man whose list contains a woman he prefers to his actual fiancee
-        boolean[] isUncertain = Arrays.copyOf(isBachelor,datasetLimit); // another boolean array, initially false
-
-        int[] fiances = new int[noOfEntities-datasetLimit]; //the fiance (man id) of each woman (-1 for unengaged)
-        Arrays.fill(fiances, -1);
-
-        List<SimilarityEdgeExt> currMatches = new ArrayList<>();
 
-        Queue<Integer> freeMen = new LinkedList<>(men);
-        while (!freeMen.isEmpty()) { // while there exists and active man m
-            int m = freeMen.poll(); // eid1 (next free man)
+        while (0 < freeMen.size()) { // while there exists and active man m
+            int m = freeMen.pop();
             // check if there are any options for m, or if his list of candidates is empty
-            if (!isActive(SEqueuesMen.get(m))) {
-                //System.out.print(m + " runs out of options. ");
+            if (nextProposal[m] == menPreferences.getLastIndex(m)) {
                 //first time here for this man? YES: he (a lad) becomes a bachelor, NO: he (a bachelor) becomes an old bachelor
-                if (!isBachelor[m]) {  // first time here: m becomes a bachelor and resets his PQ
-                    //System.out.println("He now becomes a bachelor.");
-                    isBachelor[m] = true; // m becomes a bachelor
-                    if (!SEqueuesMen.get(m).isEmpty()) {
-                        freeMen.add(m); // m is free (active) again
-                    }
-                    // reset m's PQ and thus, re-activate m
-                    for (SimilarityEdgeExt cand : SEqueuesMen.get(m)) {
-                        cand.setActive(true);
-                    }
-                } else {    // second time here: m, a bachelor, now becomes an old bachelor (free but inactive)
-                    //System.out.println("He already was a bachelor. Now he becomes an old bachelor (inactive).");
-                    continue; // we already removed m from freeMen (since we used .poll() to retrieve him)
-                }
-            } else { // m is still active (lad or bachelor) -> m proposes to his favorite woman w
-                int w = -1;
-                for (SimilarityEdgeExt cand : SEqueuesMen.get(m)) {
-                    if (cand.isActive()) {
-                        w = cand.getModel2Pos();
-                        break;
-                    }
-                }
-                int ws_fiance = fiances[w-datasetLimit]; // w's fiance (-1 if none)
-                if (ws_fiance == -1) { // w is free, so she becomes engaged to m
-                    fiances[w-datasetLimit] = m; //w's new fiance is m
-                    currMatches.add(new SimilarityEdgeExt(m,w,0));
-                    //System.out.println(w + " accepts " + m + "'s proposal, since she is free.");
-                } else { // w is already engaged to ws_fiance
-                    if (accepts_proposal(w, ws_fiance,m,SEqueuesWomen.get(w-datasetLimit),isUncertain)) {
-                        currMatches.remove(new SimilarityEdgeExt(ws_fiance,w,0)); //w breaks up with ws_fiance
-                        currMatches.add(new SimilarityEdgeExt(m, w, 0)); // m and w get engaged
-                        fiances[w-datasetLimit] = m;
-                        freeMen.add(ws_fiance); // w's ex-fiance now becomes free again
-                        if (!isUncertain[ws_fiance]) { //w is not flighty //TODO: check when isUncertain becomes true
-                            deactivateWomanCandidate(SEqueuesMen.get(ws_fiance), w); //w's ex-fiance removes w from his list
-                        }
-                    } else { // m's proposal is rejected by w
-                        deactivateWomanCandidate(SEqueuesMen.get(ws_fiance), w); // m removes w from his list
-                    }
+                if (!isBachelor[m]) { // m becomes a bachelor and restores his list
+                    isBachelor[m] = true;
+                    nextProposal[m] = menPreferences.getFirstIndex(m);
+                    freeMen.push(m);
+                } // otherwise, m becomes an old bachelor (free but inactive)
+                continue;
+            }
+
+            // m is still active (lad or bachelor) -> m proposes to his favorite woman w
+            int proposal = nextProposal[m];
+            int w = menPreferences.getCandidate(proposal);
+            float similarity = menPreferences.getSimilarity(proposal);
+            int wsFiance = fiances[w]; // w's fiance (-1 if none)
+            if (acceptsProposal(m, similarity, wsFiance, fianceSimilarities[w], isBachelor, isUncertain)) {
+                fiances[w] = m; // m and w get engaged
+                fianceSimilarities[w] = similarity;
+                isUncertain[m] = proposal + 1 < menPreferences.getLastIndex(m) && menPreferences.getSimilarity(proposal + 1) == similarity;
+                if (wsFiance != -1) { // w breaks up with her fiance, who removes w from his list and becomes free again
+                    nextProposal[wsFiance]++;
+                    freeMen.push(wsFiance);
                 }
+            } else { // m's proposal is rejected by w, so m removes w from his list
+                nextProposal[m]++;
+                freeMen.push(m);
             }
-            //System.out.println("current matches: ");
-//            for (SimilarityEdge currMatch: currMatches) {
-//                System.out.println(currMatch);
-//            }
         } // end of loop looking for active men
 
         // store the final results
-        for (SimilarityEdge match : currMatches) {
-            similarityGraph.addEdge(match.getModel1Pos(), match.getModel2Pos());
+        for (int w = 0; w < noOfWomen; w++) {
+            if (fiances[w] != -1) {
+                similarityGraph.addEdge(fiances[w], w + datasetLimit);
+            }
         }
 
         return getConnectedComponents();
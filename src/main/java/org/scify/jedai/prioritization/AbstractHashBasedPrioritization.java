@@ -30,6 +30,8 @@ import org.scify.jedai.utilities.enumerations.WeightingScheme;
  */
 public abstract class AbstractHashBasedPrioritization extends AbstractPrioritization {
     
+    protected boolean parallel;
+    
     protected WeightingScheme wScheme;
     
     protected final IntGridSearchConfiguration gridWScheme;
@@ -38,6 +40,7 @@ public abstract class AbstractHashBasedPrioritization extends AbstractPrioritiza
     public AbstractHashBasedPrioritization (int budget, WeightingScheme wScheme) {
         super(budget);
         this.wScheme = wScheme;
+        parallel = false;
         
         gridWScheme = new IntGridSearchConfiguration(WeightingScheme.values().length - 1, 0, 1);
         randomWScheme = new IntRandomSearchConfiguration(WeightingScheme.values().length, 0);
@@ -140,4 +143,13 @@ public abstract class AbstractHashBasedPrioritization extends AbstractPrioritiza
         
         comparisonsBudget = (Integer) randomComparisonsBudget.getNumberedRandom(iterationNumber);
     }
+    
+    /**
+     * @param parallel true if the blocking graph should be traversed by
+     * multiple threads while developing the schedule; the schedule is the same
+     * in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 }
@@ -17,6 +17,8 @@
 package org.scify.jedai.prioritization;
 
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 import org.scify.jedai.datamodel.Comparison;
@@ -28,6 +30,10 @@ import org.scify.jedai.datamodel.Comparison;
 public abstract class AbstractPrioritization implements IPrioritization {
 
     protected int comparisonsBudget;
+    private boolean hasDeadline;
+    private long deadline;
+
+    private BooleanSupplier terminationCondition;
 
     protected Iterator<Comparison> compIterator;
     
@@ -39,5 +45,41 @@ public abstract class AbstractPrioritization implements IPrioritization {
         
         gridComparisonsBudget = new IntGridSearchConfiguration(1000000, 1000, 1000);
         randomComparisonsBudget = new IntRandomSearchConfiguration(1000000, 1000);
+        
+        hasDeadline = false;
+        terminationCondition = null;
+    }
+
+    /**
+     * @return true if the time budget has elapsed or the termination condition
+     * holds, in which case no more comparisons are emitted
+     */
+    protected boolean isTerminated() {
+        if (hasDeadline && 0 <= System.nanoTime() - deadline) {
+            return true;
+        }
+        return terminationCondition != null && terminationCondition.getAsBoolean();
+    }
+
+    /**
+     * Stops the emission of comparisons as soon as the given condition holds,
+     * e.g., once the matches detected so far reach a target recall. The
+     * condition is checked before every comparison.
+     */
+    public void setTerminationCondition(BooleanSupplier condition) {
+        terminationCondition = condition;
+    }
+
+    /**
+     * Stops the emission of comparisons once the given time has elapsed since
+     * this call, on top of the comparisons budget. When it is set before the
+     * schedule is developed, the budget also covers its development.
+     */
+    public void setTimeBudget(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The time budget cannot be negative");
+        }
+        hasDeadline = true;
+        deadline = System.nanoTime() + unit.toNanos(duration);
     }
 }
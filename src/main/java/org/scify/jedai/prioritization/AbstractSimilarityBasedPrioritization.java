@@ -16,8 +16,9 @@
 
 package org.scify.jedai.prioritization;
 
-import gnu.trove.set.TIntSet;
-import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.EntityProfile;
@@ -32,22 +33,20 @@ import org.scify.jedai.utilities.enumerations.ProgressiveWeightingScheme;
 public abstract class AbstractSimilarityBasedPrioritization extends AbstractPrioritization {
 
     protected boolean isCleanCleanER;
+    protected boolean parallel;
 
     protected int datasetLimit;
     protected int emittedComparisons;
     protected int noOfEntities;
 
-    protected int[] counters;
-    protected int[] flags;
     protected int[] sortedEntityIds;
 
     protected PositionIndex positionIndex;
     protected final ProgressiveWeightingScheme pwScheme;
-    protected final TIntSet distinctNeighbors;
 
     public AbstractSimilarityBasedPrioritization(int budget, ProgressiveWeightingScheme pwScheme) {
         super(budget);
-        distinctNeighbors = new TIntHashSet();
+        parallel = false;
         this.pwScheme = pwScheme;
     }
 
@@ -67,11 +66,73 @@ public abstract class AbstractSimilarityBasedPrioritization extends AbstractPrio
         datasetLimit = isCleanCleanER ? profilesD1.size() : 0;
 
         SortedEntities se = new SortedEntities();
+        se.setParallel(parallel);
         se.getBlocks(profilesD1, profilesD2);
         sortedEntityIds = se.getSortedEntityIds();
         
-        counters = new int[noOfEntities];
-        flags = new int[noOfEntities];
         positionIndex = new PositionIndex(noOfEntities, sortedEntityIds);
     }
+
+    // the number of entities whose neighborhoods are scanned
+    protected int getNoOfScannedEntities() {
+        return isCleanCleanER ? datasetLimit : noOfEntities;
+    }
+
+    /**
+     * @param parallel true if the blocking keys should be sorted and the
+     * windows should be scanned by multiple threads; the schedule is the same
+     * in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * The co-occurrences of an entity with its neighbors in the sorted list of
+     * entities. The neighbors are kept in the order they are first met, so that
+     * the comparisons do not depend on the history of the instance. Every
+     * thread scanning the list needs its own instance.
+     */
+    protected class NeighborhoodCounters {
+
+        protected final int[] counters;
+        protected final int[] flags;
+        protected final TIntList distinctNeighbors;
+
+        protected NeighborhoodCounters() {
+            counters = new int[noOfEntities];
+            flags = new int[noOfEntities];
+            Arrays.fill(flags, -1);
+            distinctNeighbors = new TIntArrayList();
+        }
+
+        // adds the increment to the counters of the valid neighbors at the given distance from the entity
+        protected void addNeighbors(int entityId, int window, double increment) {
+            for (int position : positionIndex.getEntityPositions(entityId)) {
+                if (position + window < sortedEntityIds.length) {
+                    if (isCleanCleanER && datasetLimit <= sortedEntityIds[position + window]
+                            || !isCleanCleanER && sortedEntityIds[position + window] < entityId) {
+                        updateCounter(entityId, sortedEntityIds[position + window], increment);
+                    }
+                }
+
+                if (0 <= position - window) {
+                    if (isCleanCleanER && datasetLimit <= sortedEntityIds[position - window]
+                            || !isCleanCleanER && sortedEntityIds[position - window] < entityId) {
+                        updateCounter(entityId, sortedEntityIds[position - window], increment);
+                    }
+                }
+            }
+        }
+
+        private void updateCounter(int entityId, int neighborId, double increment) {
+            if (flags[neighborId] != entityId) {
+                counters[neighborId] = 0;
+                flags[neighborId] = entityId;
+                distinctNeighbors.add(neighborId);
+            }
+
+            counters[neighborId] += increment;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.prioritization.utilities.AdaptiveComparisonQueue;
+
+/**
+ * Adapts the schedule of another prioritization to the matches confirmed
+ * during its execution, which are passed to reportMatch. A window of the next
+ * comparisons of the original schedule is retained in an
+ * AdaptiveComparisonQueue: in Dirty ER, the comparisons of matched entities are
+ * boosted, while in Clean-Clean ER they are demoted. The comparisons of
+ * entities that are already matched through transitivity are skipped and do not
+ * count against the budget, so the budget of the original schedule should
+ * exceed that of the adaptive one.
+ *
+ * The methods of the iterator and reportMatch are synchronized, so that the
+ * matches can be reported while another thread consumes the schedule, as in
+ * ProgressiveMatchingEngine.
+ *
+ * @author G.A.P. II
+ */
+public class AdaptivePrioritization extends AbstractPrioritization {
+
+    public static final int DEFAULT_WINDOW_SIZE = 10000;
+
+    private int emittedComparisons;
+    private int windowSize;
+    private long rank;
+
+    private AdaptiveComparisonQueue pendingComparisons;
+    private Comparison nextComparison;
+    private final IPrioritization schedule;
+
+    public AdaptivePrioritization(int budget, IPrioritization schedule) {
+        this(budget, schedule, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param schedule the prioritization whose schedule is adapted
+     * @param windowSize the maximum number of pending comparisons that are
+     * re-prioritized
+     */
+    public AdaptivePrioritization(int budget, IPrioritization schedule, int windowSize) {
+        super(budget);
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window size must be positive");
+        }
+        this.schedule = schedule;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void developBlockBasedSchedule(List<AbstractBlock> blocks) {
+        schedule.developBlockBasedSchedule(blocks);
+        resetWindow();
+    }
+
+    @Override
+    public void developEntityBasedSchedule(List<EntityProfile> entitiesD1) {
+        schedule.developEntityBasedSchedule(entitiesD1);
+        resetWindow();
+    }
+
+    @Override
+    public void developEntityBasedSchedule(List<EntityProfile> entitiesD1, List<EntityProfile> entitiesD2) {
+        schedule.developEntityBasedSchedule(entitiesD1, entitiesD2);
+        resetWindow();
+    }
+
+    private void fillWindow() {
+        while ((pendingComparisons == null || !pendingComparisons.isFull()) && schedule.hasNext()) {
+            final Comparison comparison = schedule.next();
+            if (pendingComparisons == null) {
+                pendingComparisons = new AdaptiveComparisonQueue(windowSize, comparison.isCleanCleanER());
+            }
+            pendingComparisons.offer(comparison.getEntityId1(), comparison.getEntityId2(), comparison.getUtilityMeasure(), rank++);
+        }
+    }
+
+    @Override
+    public String getMethodConfiguration() {
+        return getParameterName(0) + "=" + comparisonsBudget + ",\t"
+                + getParameterName(1) + "=" + windowSize + ",\t"
+                + schedule.getMethodName() + "={" + schedule.getMethodConfiguration() + "}";
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it re-orders the comparisons of " + schedule.getMethodName()
+                + " according to the matches detected so far.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return "Adaptive " + schedule.getMethodName();
+    }
+
+    @Override
+    public String getMethodParameters() {
+        return getMethodName() + " involves two parameters:\n"
+                + "1)" + getParameterDescription(0) + ".\n"
+                + "2)" + getParameterDescription(1) + ".";
+    }
+
+    @Override
+    public int getNumberOfGridConfigurations() {
+        return gridComparisonsBudget.getNumberOfConfigurations();
+    }
+
+    @Override
+    public JsonArray getParameterConfiguration() {
+        final JsonObject obj1 = new JsonObject();
+        obj1.put("class", "java.lang.Integer");
+        obj1.put("name", getParameterName(0));
+        obj1.put("defaultValue", "10000");
+        obj1.put("minValue", "1000");
+        obj1.put("maxValue", "1000000");
+        obj1.put("stepValue", "1000");
+        obj1.put("description", getParameterDescription(0));
+
+        final JsonObject obj2 = new JsonObject();
+        obj2.put("class", "java.lang.Integer");
+        obj2.put("name", getParameterName(1));
+        obj2.put("defaultValue", Integer.toString(DEFAULT_WINDOW_SIZE));
+        obj2.put("minValue", "1");
+        obj2.put("maxValue", "1000000");
+        obj2.put("stepValue", "1000");
+        obj2.put("description", getParameterDescription(1));
+
+        final JsonArray array = new JsonArray();
+        array.add(obj1);
+        array.add(obj2);
+        return array;
+    }
+
+    @Override
+    public String getParameterDescription(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "The " + getParameterName(0) + " defines the maximum number of pairwise comparisons that will be executed.";
+            case 1:
+                return "The " + getParameterName(1) + " defines the number of upcoming comparisons whose priority is adapted to the detected matches.";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    @Override
+    public String getParameterName(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "Budget";
+            case 1:
+                return "Window Size";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    /**
+     * @return the number of comparisons that were skipped as redundant
+     */
+    public synchronized long getSkippedComparisons() {
+        return pendingComparisons == null ? 0 : pendingComparisons.getSkippedComparisons();
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        if (comparisonsBudget <= emittedComparisons || isTerminated()) {
+            return false;
+        }
+
+        while (nextComparison == null) {
+            fillWindow();
+            if (pendingComparisons == null || pendingComparisons.isEmpty()) {
+                return false;
+            }
+            nextComparison = pendingComparisons.poll();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized Comparison next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Comparison comparison = nextComparison;
+        nextComparison = null;
+        emittedComparisons++;
+        return comparison;
+    }
+
+    @Override
+    public synchronized void reportMatch(int entityId1, int entityId2) {
+        if (pendingComparisons != null) {
+            pendingComparisons.reportMatch(entityId1, entityId2);
+        }
+    }
+
+    private synchronized void resetWindow() {
+        emittedComparisons = 0;
+        rank = 0;
+        nextComparison = null;
+        pendingComparisons = null;
+    }
+
+    @Override
+    public void setNextRandomConfiguration() {
+        comparisonsBudget = (Integer) randomComparisonsBudget.getNextRandomValue();
+    }
+
+    @Override
+    public void setNumberedGridConfiguration(int iterationNumber) {
+        comparisonsBudget = (Integer) gridComparisonsBudget.getNumberedValue(iterationNumber);
+    }
+
+    @Override
+    public void setNumberedRandomConfiguration(int iterationNumber) {
+        comparisonsBudget = (Integer) randomComparisonsBudget.getNumberedRandom(iterationNumber);
+    }
+
+    /**
+     * @param windowSize the maximum number of pending comparisons that are
+     * re-prioritized; it applies to the next schedule that is developed
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window size must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+}
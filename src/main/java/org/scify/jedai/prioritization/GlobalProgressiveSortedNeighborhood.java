@@ -22,14 +22,11 @@ import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+import org.scify.jedai.prioritization.utilities.IncrementalTopComparisons;
 import org.scify.jedai.utilities.enumerations.ProgressiveWeightingScheme;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 /**
  * @author gap2
@@ -39,16 +36,12 @@ public class GlobalProgressiveSortedNeighborhood extends AbstractSimilarityBased
 
     protected int maxWindow;
 
-    protected final Queue<Comparison> topComps;
-
     protected final IntGridSearchConfiguration gridMaxWindow;
     protected final IntRandomSearchConfiguration randomMaxWindow;
     
     public GlobalProgressiveSortedNeighborhood(int budget, ProgressiveWeightingScheme pwScheme) {
         super(budget, pwScheme);
 
-        topComps = new PriorityQueue<>(2 * comparisonsBudget, new IncComparisonWeightComparator());
-        
         gridMaxWindow = new IntGridSearchConfiguration(10, 1, 1);
         randomMaxWindow = new IntRandomSearchConfiguration(10, 1);
     }
@@ -60,55 +53,11 @@ public class GlobalProgressiveSortedNeighborhood extends AbstractSimilarityBased
         getComparisons();
     }
 
-    private void getComparisons() { //TODO: comparison propagation
-        int limit = isCleanCleanER ? datasetLimit : noOfEntities;
-        for (int entityId = 0; entityId < limit; entityId++) {
-            final int[] entityPositions = positionIndex.getEntityPositions(entityId);
-            for (int currentWindow = 1; currentWindow < maxWindow; currentWindow++) {
-                for (int position : entityPositions) {
-                    if (position + currentWindow < sortedEntityIds.length) {
-                        if (isCleanCleanER && datasetLimit <= sortedEntityIds[position + currentWindow]
-                                || !isCleanCleanER && sortedEntityIds[position + currentWindow] < entityId) {
-                            updateLocalWeight(currentWindow, entityId, sortedEntityIds[position + currentWindow]);
-                        }
-                    }
-
-                    if (0 <= position - currentWindow) {
-                        if (isCleanCleanER && datasetLimit <= sortedEntityIds[position - currentWindow]
-                                || !isCleanCleanER && sortedEntityIds[position - currentWindow] < entityId) {
-                            updateLocalWeight(currentWindow, entityId, sortedEntityIds[position - currentWindow]);
-                        }
-                    }
-                }
-            }
-
-            float minimumWeight = -1;
-            for (TIntIterator iterator = distinctNeighbors.iterator(); iterator.hasNext();) {
-                int neighborId = iterator.next();
-                flags[neighborId] = -1;
-
-                float weight = getWeight(entityId, neighborId);
-                if (weight < minimumWeight) {
-                    continue;
-                }
-
-                int entityId2 = isCleanCleanER ? neighborId - datasetLimit : neighborId;
-                final Comparison c = new Comparison(isCleanCleanER, entityId, entityId2);
-                c.setUtilityMeasure(weight);
-                topComps.add(c);
-                if (comparisonsBudget < topComps.size()) {
-                    Comparison lastComparison = topComps.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
-                }
-            }
-        }
-
-        final List<Comparison> topComparisons = new ArrayList<>(topComps);
-        topComparisons.sort(new DecComparisonWeightComparator());
-        compIterator = topComparisons.iterator();
+    private void getComparisons() {
+        compIterator = new IncrementalTopComparisons(isCleanCleanER, getNoOfScannedEntities(), NeighborhoodTraversal::new, parallel, comparisonsBudget, IncrementalTopComparisons.FIRST_BATCH_SIZE);
     }
 
-    protected float getWeight(int entityId1, int entityId2) {
+    protected float getWeight(int entityId1, int entityId2, int[] counters) {
         switch (pwScheme) {
             case NCF:
                 float denominator = positionIndex.getEntityPositions(entityId1).length + positionIndex.getEntityPositions(entityId2).length - counters[entityId2];
@@ -120,7 +69,7 @@ public class GlobalProgressiveSortedNeighborhood extends AbstractSimilarityBased
 
     @Override
     public boolean hasNext() {
-        return compIterator.hasNext();
+        return !isTerminated() && compIterator.hasNext();
     }
 
     @Override
@@ -128,23 +77,6 @@ public class GlobalProgressiveSortedNeighborhood extends AbstractSimilarityBased
         return compIterator.next();
     }
 
-    protected void updateLocalWeight(int currentWindow, int entityId, int neighborId) {
-        if (flags[neighborId] != entityId) {
-            counters[neighborId] = 0;
-            flags[neighborId] = entityId;
-        }
-
-        switch (pwScheme) {
-            case ID:
-                counters[neighborId] += 1.0 / currentWindow;
-                break;
-            default: // ACF, NCF
-                counters[neighborId]++;
-                break;
-        }
-        distinctNeighbors.add(neighborId);
-    }
-
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + comparisonsBudget + ",\t"
@@ -243,4 +175,26 @@ public class GlobalProgressiveSortedNeighborhood extends AbstractSimilarityBased
         comparisonsBudget = (Integer) randomComparisonsBudget.getNumberedRandom(iterationNumber);
         maxWindow = (Integer) randomMaxWindow.getNumberedRandom(iterationNumber);
     }
+
+    // passes the pairs of entities in the given range that co-occur in a window to the consumer, along with their weight
+    private class NeighborhoodTraversal extends NeighborhoodCounters implements IncrementalTopComparisons.EdgeTraversal {
+
+        @Override
+        public void traverse(int fromEntity, int toEntity, ISimilarityPairConsumer consumer) { //TODO: comparison propagation
+            for (int entityId = fromEntity; entityId < toEntity; entityId++) {
+                distinctNeighbors.clear();
+                for (int currentWindow = 1; currentWindow < maxWindow; currentWindow++) {
+                    addNeighbors(entityId, currentWindow, pwScheme == ProgressiveWeightingScheme.ID ? 1.0 / currentWindow : 1);
+                }
+
+                for (TIntIterator iterator = distinctNeighbors.iterator(); iterator.hasNext();) {
+                    int neighborId = iterator.next();
+                    flags[neighborId] = -1;
+
+                    int entityId2 = isCleanCleanER ? neighborId - datasetLimit : neighborId;
+                    consumer.accept(entityId, entityId2, getWeight(entityId, neighborId, counters));
+                }
+            }
+        }
+    }
 }
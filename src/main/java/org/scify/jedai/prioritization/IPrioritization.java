@@ -36,4 +36,12 @@ public interface IPrioritization extends IConfiguration, IConstants, IDocumentat
     void developEntityBasedSchedule(List<EntityProfile> entitiesD1);
     
     void developEntityBasedSchedule(List<EntityProfile> entitiesD1, List<EntityProfile> entitiesD2);
+
+    /**
+     * Informs the schedule that the given comparison was confirmed as a match,
+     * so that adaptive schedules re-prioritize the pending comparisons. The
+     * other schedules ignore it.
+     */
+    default void reportMatch(int entityId1, int entityId2) {
+    }
 }
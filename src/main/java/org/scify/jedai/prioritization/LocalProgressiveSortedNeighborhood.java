@@ -23,7 +23,11 @@ import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
 import org.scify.jedai.utilities.enumerations.ProgressiveWeightingScheme;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -33,51 +37,38 @@ public class LocalProgressiveSortedNeighborhood extends AbstractSimilarityBasedP
 
     protected int currentWindow;
 
+    private final Queue<WindowScan> idleScans;
+
     public LocalProgressiveSortedNeighborhood(int budget, ProgressiveWeightingScheme pwScheme) {
         super(budget, pwScheme);
 
         currentWindow = 0;
+        idleScans = new ConcurrentLinkedQueue<>();
     }
 
     protected void getWindowComparisons() {
         currentWindow++;
-        int limit = isCleanCleanER ? datasetLimit : noOfEntities;
-        final List<Comparison> windowComparisons = new ArrayList<>();
-        for (int entityId = 0; entityId < limit; entityId++) {
-            distinctNeighbors.clear();
-
-            for (int position : positionIndex.getEntityPositions(entityId)) {
-                if (position + currentWindow < sortedEntityIds.length) {
-                    if (isCleanCleanER && datasetLimit <= sortedEntityIds[position + currentWindow]
-                            || !isCleanCleanER && sortedEntityIds[position + currentWindow] < entityId) {
-                        updateCounters(entityId, sortedEntityIds[position + currentWindow]);
-                    }
-                }
-
-                if (0 <= position - currentWindow) {
-                    if (isCleanCleanER && datasetLimit <= sortedEntityIds[position - currentWindow]
-                            || !isCleanCleanER && sortedEntityIds[position - currentWindow] < entityId) {
-                        updateCounters(entityId, sortedEntityIds[position - currentWindow]);
-                    }
-                }
-            }
-
-            for (TIntIterator iterator = distinctNeighbors.iterator(); iterator.hasNext();) {
-                int neighborId = iterator.next();
-                flags[neighborId] = -1;
-
-                int entityId2 = isCleanCleanER ? neighborId - datasetLimit : neighborId;
-                final Comparison c = new Comparison(isCleanCleanER, entityId, entityId2);
-                c.setUtilityMeasure(getWeight(entityId, neighborId));
-                windowComparisons.add(c);
-            }
+        int limit = getNoOfScannedEntities();
+        if (!parallel) {
+            final List<Comparison> windowComparisons = new ArrayList<>();
+            scanWindow(0, limit, windowComparisons);
+            windowComparisons.sort(new DecComparisonWeightComparator());
+            compIterator = windowComparisons.iterator();
+            return;
         }
 
-        windowComparisons.sort(new DecComparisonWeightComparator());
-        compIterator = windowComparisons.iterator();
+        // every range of entities is scanned with its own counters; the ranges are concatenated in order
+        final int noOfRanges = Math.max(1, Math.min(limit, 64 * Runtime.getRuntime().availableProcessors()));
+        final Comparison[] windowComparisons = IntStream.range(0, noOfRanges).parallel().mapToObj(r -> {
+            final List<Comparison> rangeComparisons = new ArrayList<>();
+            scanWindow((int) ((long) r * limit / noOfRanges), (int) ((long) (r + 1) * limit / noOfRanges), rangeComparisons);
+            return rangeComparisons;
+        }).flatMap(List::stream).toArray(Comparison[]::new);
+        Arrays.parallelSort(windowComparisons, new DecComparisonWeightComparator());
+        compIterator = Arrays.asList(windowComparisons).iterator();
     }
 
-    protected float getWeight(int entityId1, int entityId2) {
+    protected float getWeight(int entityId1, int entityId2, int[] counters) {
         switch (pwScheme) {
             case ACF:
                 return counters[entityId2];
@@ -88,6 +79,16 @@ public class LocalProgressiveSortedNeighborhood extends AbstractSimilarityBasedP
         return -1;
     }
 
+    // adds to the list the comparisons of the entities in the given range with their neighbors in the current window
+    private void scanWindow(int fromEntity, int toEntity, List<Comparison> windowComparisons) {
+        WindowScan scan = idleScans.poll();
+        if (scan == null || scan.counters.length != noOfEntities) { // the entities may have changed since the last schedule
+            scan = new WindowScan();
+        }
+        scan.scan(fromEntity, toEntity, windowComparisons);
+        idleScans.add(scan);
+    }
+
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + comparisonsBudget;
@@ -155,7 +156,7 @@ public class LocalProgressiveSortedNeighborhood extends AbstractSimilarityBasedP
 
     @Override
     public boolean hasNext() {
-        return emittedComparisons < comparisonsBudget && currentWindow < sortedEntityIds.length;
+        return emittedComparisons < comparisonsBudget && !isTerminated() && currentWindow < sortedEntityIds.length;
     }
 
     @Override
@@ -183,13 +184,23 @@ public class LocalProgressiveSortedNeighborhood extends AbstractSimilarityBasedP
         comparisonsBudget = (Integer) randomComparisonsBudget.getNumberedRandom(iterationNumber);
     }
     
-    private void updateCounters(int entityId, int neighborId) {
-        if (flags[neighborId] != entityId) {
-            counters[neighborId] = 0;
-            flags[neighborId] = entityId;
-        }
+    private class WindowScan extends NeighborhoodCounters {
+
+        void scan(int fromEntity, int toEntity, List<Comparison> windowComparisons) {
+            for (int entityId = fromEntity; entityId < toEntity; entityId++) {
+                distinctNeighbors.clear();
+                addNeighbors(entityId, currentWindow, 1);
 
-        counters[neighborId]++;
-        distinctNeighbors.add(neighborId);
+                for (TIntIterator iterator = distinctNeighbors.iterator(); iterator.hasNext();) {
+                    int neighborId = iterator.next();
+                    flags[neighborId] = -1;
+
+                    int entityId2 = isCleanCleanER ? neighborId - datasetLimit : neighborId;
+                    final Comparison c = new Comparison(isCleanCleanER, entityId, entityId2);
+                    c.setUtilityMeasure(getWeight(entityId, neighborId, counters));
+                    windowComparisons.add(c);
+                }
+            }
+        }
     }
 }
@@ -94,7 +94,7 @@ public class ProgressiveBlockScheduling extends AbstractHashBasedPrioritization
 
     @Override
     public boolean hasNext() {
-        if (comparisonCounter < comparisonsBudget) {
+        if (comparisonCounter < comparisonsBudget && !isTerminated()) {
             while (!compIterator.hasNext() && blockCounter < blocksArray.length - 1) {
                 blockCounter++;
                 filterComparisons();
@@ -15,8 +15,11 @@
  */
 package org.scify.jedai.prioritization;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.VertexWeight;
@@ -25,19 +28,29 @@ import org.scify.jedai.prioritization.utilities.ProgressiveWNP;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 /**
+ * The sorted comparisons of every entity are computed once the entity is
+ * reached. Optionally, a background thread computes them ahead of emission,
+ * for a bounded number of entities.
  *
  * @author gap2
  */
 public class ProgressiveEntityScheduling extends AbstractHashBasedPrioritization {
 
+    private static final List<Comparison> END_OF_ENTITIES = new ArrayList<>();
+
     protected int comparisonCounter;
+    private int lookahead;
 
+    private BlockingQueue<List<Comparison>> prefetchedComparisons;
     protected Iterator<VertexWeight> entityIterator;
     protected ProgressiveEntityComparisons pec;
+    private volatile RuntimeException prefetchingFailure;
+    private Thread prefetcher;
 
     public ProgressiveEntityScheduling(int budget, WeightingScheme wScheme) {
         super(budget, wScheme);
         comparisonCounter = 0;
+        lookahead = 0;
     }
 
     @Override
@@ -46,13 +59,29 @@ public class ProgressiveEntityScheduling extends AbstractHashBasedPrioritization
             throw new IllegalArgumentException("No blocks were given as input.");
         }
 
+        stopPrefetching();
+        comparisonCounter = 0;
+
         final ProgressiveWNP pwnp = new ProgressiveWNP(wScheme);
+        pwnp.setParallel(parallel);
         pwnp.refineBlocks(blocks);
         compIterator = pwnp.getSortedTopComparisons().iterator();
         entityIterator = pwnp.getSortedEntities().iterator();
 
         pec = new ProgressiveEntityComparisons(wScheme);
         pec.refineBlocks(blocks);
+
+        if (0 < lookahead) {
+            // the thread reads only its own schedule, even if another one is developed later
+            final Iterator<VertexWeight> entities = entityIterator;
+            final ProgressiveEntityComparisons entityComparisons = pec;
+            final BlockingQueue<List<Comparison>> queue = new ArrayBlockingQueue<>(lookahead);
+            prefetchingFailure = null;
+            prefetchedComparisons = queue;
+            prefetcher = new Thread(() -> prefetchComparisons(entities, entityComparisons, queue), "progressive-entity-scheduling");
+            prefetcher.setDaemon(true);
+            prefetcher.start();
+        }
     }
 
     @Override
@@ -66,21 +95,57 @@ public class ProgressiveEntityScheduling extends AbstractHashBasedPrioritization
         return "Progressive Entity Scheduling";
     }
 
+    // computes the sorted comparisons of the next entity that has any, or returns null if there is none
+    private static List<Comparison> computeNextEntityComparisons(Iterator<VertexWeight> entities, ProgressiveEntityComparisons entityComparisonsIndex) {
+        while (entities.hasNext()) {
+            final VertexWeight currentEntity = entities.next();
+            final List<Comparison> entityComparisons = entityComparisonsIndex.getSortedEntityComparisons(currentEntity.getPos());
+            if (entityComparisons != null && !entityComparisons.isEmpty()) {
+                return entityComparisons;
+            }
+        }
+        return null;
+    }
+
+    private List<Comparison> getNextEntityComparisons() {
+        if (prefetcher == null) {
+            return computeNextEntityComparisons(entityIterator, pec);
+        }
+
+        try {
+            final List<Comparison> entityComparisons = prefetchedComparisons.take();
+            if (entityComparisons == END_OF_ENTITIES) {
+                stopPrefetching(); // the entity iterator has been exhausted
+                if (prefetchingFailure != null) {
+                    throw new IllegalStateException("The comparisons of the next entity could not be computed", prefetchingFailure);
+                }
+                return null;
+            }
+            return entityComparisons;
+        } catch (InterruptedException ex) {
+            // the prefetched comparisons are kept, so that the schedule can be resumed
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     @Override
     public boolean hasNext() {
-        if (comparisonCounter < comparisonsBudget) {
-            if (!compIterator.hasNext()) {
-                while (entityIterator.hasNext()) {
-                    final VertexWeight currentEntity = entityIterator.next();
-                    final List<Comparison> entityComparisons = pec.getSortedEntityComparisons(currentEntity.getPos());
-                    if (entityComparisons != null && !entityComparisons.isEmpty()) {
-                        compIterator = entityComparisons.iterator();
-                        return true;
-                    }
+        if (comparisonsBudget <= comparisonCounter) {
+            stopPrefetching();
+            return false;
+        }
+
+        // a terminated schedule keeps its prefetched comparisons, in case the termination condition is lifted
+        if (!isTerminated()) {
+            while (!compIterator.hasNext()) {
+                final List<Comparison> entityComparisons = getNextEntityComparisons();
+                if (entityComparisons == null) {
+                    return false;
                 }
-            } else {
-                return true;
+                compIterator = entityComparisons.iterator();
             }
+            return true;
         }
         return false;
     }
@@ -88,6 +153,68 @@ public class ProgressiveEntityScheduling extends AbstractHashBasedPrioritization
     @Override
     public Comparison next() {
         comparisonCounter++;
+        if (comparisonsBudget <= comparisonCounter) {
+            stopPrefetching();
+        }
         return compIterator.next();
     }
+
+    private void prefetchComparisons(Iterator<VertexWeight> entities, ProgressiveEntityComparisons entityComparisonsIndex, BlockingQueue<List<Comparison>> queue) {
+        try {
+            try {
+                List<Comparison> entityComparisons;
+                while ((entityComparisons = computeNextEntityComparisons(entities, entityComparisonsIndex)) != null) {
+                    queue.put(entityComparisons);
+                }
+            } catch (RuntimeException ex) {
+                prefetchingFailure = ex;
+            }
+            queue.put(END_OF_ENTITIES);
+        } catch (InterruptedException ex) {
+            // the schedule has been stopped
+        }
+    }
+
+    /**
+     * Stops the background thread of the current schedule, if any, and waits
+     * for it to end, so that it releases the comparisons it has computed. It
+     * is called once the comparisons budget is exhausted, all entities have
+     * been processed or a new schedule is developed, and should be called by
+     * callers that abandon a schedule before its end, e.g., after a time
+     * budget or a termination condition has stopped it.
+     */
+    public void stopPrefetching() {
+        final Thread thread = prefetcher;
+        if (thread == null) {
+            return;
+        }
+
+        prefetcher = null;
+        prefetchedComparisons = null;
+        thread.interrupt();
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param lookahead the maximum number of entities whose sorted comparisons
+     * are computed by a background thread ahead of their emission; with 0, the
+     * default, they are computed by the calling thread once the entity is
+     * reached. It takes effect in the next schedule that is developed.
+     */
+    public void setLookahead(int lookahead) {
+        if (lookahead < 0) {
+            throw new IllegalArgumentException("The lookahead cannot be negative");
+        }
+        this.lookahead = lookahead;
+    }
 }
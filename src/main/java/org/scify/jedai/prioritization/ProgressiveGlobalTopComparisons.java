@@ -16,18 +16,14 @@
 package org.scify.jedai.prioritization;
 
 import com.esotericsoftware.minlog.Log;
-import java.util.ArrayList;
 import java.util.Iterator;
+import org.scify.jedai.prioritization.utilities.IncrementalTopComparisons;
 import org.scify.jedai.prioritization.utilities.ProgressiveCEP;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.DecomposedBlock;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 /**
@@ -57,8 +53,9 @@ public class ProgressiveGlobalTopComparisons extends AbstractHashBasedPrioritiza
             compIterator = processDecomposedBlocks(blocks);
         } else {
             final ProgressiveCEP pcep = new ProgressiveCEP(comparisonsBudget, wScheme);
+            pcep.setParallel(parallel);
             pcep.refineBlocks(blocks);
-            compIterator = pcep.getTopComparisons().iterator();
+            compIterator = pcep.getIncrementalTopComparisons(IncrementalTopComparisons.FIRST_BATCH_SIZE);
         }
     }
 
@@ -74,7 +71,7 @@ public class ProgressiveGlobalTopComparisons extends AbstractHashBasedPrioritiza
 
     @Override
     public boolean hasNext() {
-        return compIterator.hasNext();
+        return !isTerminated() && compIterator.hasNext();
     }
 
     @Override
@@ -83,23 +80,17 @@ public class ProgressiveGlobalTopComparisons extends AbstractHashBasedPrioritiza
     }
 
     protected Iterator<Comparison> processDecomposedBlocks(List<AbstractBlock> blocks) {
-        float minimumWeight = -1;
-        final Queue<Comparison> topComparisons = new PriorityQueue<>(2 * comparisonsBudget, new IncComparisonWeightComparator());
-        for (AbstractBlock block : blocks) {
-            final ComparisonIterator cIterator = block.getComparisonIterator();
-            while (cIterator.hasNext()) {
-                final Comparison currentComparison = cIterator.next();
-                if (minimumWeight < currentComparison.getUtilityMeasure()) {
-                    topComparisons.add(currentComparison);
-                    if (comparisonsBudget < topComparisons.size()) {
-                        final Comparison lastComparison = topComparisons.poll();
-                        minimumWeight = lastComparison.getUtilityMeasure();
-                    }
+        final boolean isCleanCleanER = ((DecomposedBlock) blocks.get(0)).isCleanCleanER();
+        final IncrementalTopComparisons.EdgeTraversal traversal = (fromBlock, toBlock, consumer) -> {
+            for (AbstractBlock block : blocks.subList(fromBlock, toBlock)) {
+                final ComparisonIterator cIterator = block.getComparisonIterator();
+                while (cIterator.hasNext()) {
+                    final Comparison currentComparison = cIterator.next();
+                    consumer.accept(currentComparison.getEntityId1(), currentComparison.getEntityId2(), currentComparison.getUtilityMeasure());
                 }
             }
-        }
-        final List<Comparison> sortedTopComparisons = new ArrayList<>(topComparisons);
-        sortedTopComparisons.sort(new DecComparisonWeightComparator());
-        return sortedTopComparisons.iterator();
+        };
+        // the ranges comprise blocks, rather than entities
+        return new IncrementalTopComparisons(isCleanCleanER, blocks.size(), () -> traversal, parallel, comparisonsBudget, IncrementalTopComparisons.FIRST_BATCH_SIZE);
     }
 }
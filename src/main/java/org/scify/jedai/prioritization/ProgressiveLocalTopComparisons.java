@@ -52,6 +52,7 @@ public class ProgressiveLocalTopComparisons extends AbstractHashBasedPrioritizat
             compIterator = pcnp.getCompIterator();
         } else {
             final ProgressiveCNP pcnp = new ProgressiveCNP(comparisonsBudget, wScheme);
+            pcnp.setParallel(parallel);
             pcnp.refineBlocks(blocks);
             compIterator = pcnp.getTopComparisons().iterator();
         }
@@ -70,7 +71,7 @@ public class ProgressiveLocalTopComparisons extends AbstractHashBasedPrioritizat
 
     @Override
     public boolean hasNext() {
-        return compIterator.hasNext();
+        return !isTerminated() && compIterator.hasNext();
     }
 
     @Override
@@ -0,0 +1,259 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+import org.scify.jedai.entitymatching.IEntityMatching;
+
+/**
+ * Executes a progressive schedule as a pipeline: a producer thread pulls the
+ * comparisons of the prioritization in batches, a pool of workers executes
+ * them with the entity matching method, and the calling thread reports their
+ * similarities in the order of the schedule. The queue of pending batches is
+ * bounded, so that the producer runs only a few batches ahead of the
+ * reporting.
+ *
+ * The workers share the entity matching method, whose executeComparison must
+ * be thread-safe, as in ProfileMatcher.
+ *
+ * Every reported pair is also passed to the reportMatch of the prioritization,
+ * so that an AdaptivePrioritization re-prioritizes the comparisons that have
+ * not been scheduled yet. The feedback is concurrent with the producer, whose
+ * pending batches are not affected by it.
+ *
+ * @author G.A.P. II
+ */
+public class ProgressiveMatchingEngine {
+
+    private static final MatchedBatch END_OF_SCHEDULE = new MatchedBatch(new Comparison[0]);
+
+    private int batchSize;
+    private int maxPendingBatches;
+    private int noOfWorkers;
+    private long comparisonsBudget;
+    private long timeBudget; // in nanoseconds
+
+    private final float similarityThreshold;
+    private final IEntityMatching entityMatching;
+    private final IPrioritization prioritization;
+
+    /**
+     * @param prioritization the prioritization with a developed schedule
+     * @param entityMatching the method that executes the comparisons
+     * @param similarityThreshold the minimum similarity of the reported pairs
+     */
+    public ProgressiveMatchingEngine(IPrioritization prioritization, IEntityMatching entityMatching, float similarityThreshold) {
+        this.entityMatching = entityMatching;
+        this.prioritization = prioritization;
+        this.similarityThreshold = similarityThreshold;
+
+        batchSize = 1024;
+        noOfWorkers = Runtime.getRuntime().availableProcessors();
+        maxPendingBatches = 4 * noOfWorkers;
+        comparisonsBudget = Long.MAX_VALUE;
+        timeBudget = Long.MAX_VALUE;
+    }
+
+    /**
+     * Executes the schedule until it is exhausted or a budget is reached.
+     * Every executed comparison with a similarity of at least the threshold is
+     * passed to the consumer as soon as it and all comparisons scheduled
+     * before it have been executed. The execution returns, or rethrows a
+     * failure of the schedule or the matching, only after the producer and
+     * the workers have ended.
+     *
+     * @return the number of reported comparisons, including those below the
+     * threshold
+     */
+    public long execute(ISimilarityPairConsumer consumer) {
+        final long startTime = System.nanoTime();
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final BlockingQueue<Future<MatchedBatch>> pendingBatches = new ArrayBlockingQueue<>(maxPendingBatches);
+        final List<Thread> workerThreads = Collections.synchronizedList(new ArrayList<>());
+        final ExecutorService workers = Executors.newFixedThreadPool(noOfWorkers, runnable -> {
+            final Thread worker = new Thread(runnable, "progressive-matching");
+            worker.setDaemon(true);
+            workerThreads.add(worker);
+            return worker;
+        });
+        final Thread producer = new Thread(() -> produceBatches(workers, pendingBatches, stopped, startTime), "progressive-schedule");
+        producer.setDaemon(true);
+        producer.start();
+
+        long executedComparisons = 0;
+        try {
+            while (true) {
+                final MatchedBatch batch = pendingBatches.take().get();
+                if (batch == END_OF_SCHEDULE) {
+                    break;
+                }
+
+                for (int i = 0; i < batch.comparisons.length; i++) {
+                    if (similarityThreshold <= batch.similarities[i]) {
+                        prioritization.reportMatch(batch.comparisons[i].getEntityId1(), batch.comparisons[i].getEntityId2());
+                        consumer.accept(batch.comparisons[i].getEntityId1(), batch.comparisons[i].getEntityId2(), batch.similarities[i]);
+                    }
+                }
+                executedComparisons += batch.comparisons.length;
+
+                if (isOverTime(startTime)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("The progressive schedule could not be executed", ex.getCause());
+        } finally {
+            stopped.set(true);
+            producer.interrupt();
+            workers.shutdownNow();
+            awaitTermination(producer, workerThreads);
+        }
+        return executedComparisons;
+    }
+
+    // no thread of the pipeline outlives the execution, even if it fails; a worker finishes its current comparison
+    private static void awaitTermination(Thread producer, List<Thread> workerThreads) {
+        final List<Thread> threads = new ArrayList<>();
+        threads.add(producer);
+        synchronized (workerThreads) { // the pool is shut down, so no worker is added
+            threads.addAll(workerThreads);
+        }
+
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isOverTime(long startTime) {
+        return timeBudget < System.nanoTime() - startTime;
+    }
+
+    private MatchedBatch match(Comparison[] comparisons) {
+        final MatchedBatch batch = new MatchedBatch(comparisons);
+        for (int i = 0; i < comparisons.length; i++) {
+            batch.similarities[i] = entityMatching.executeComparison(comparisons[i]);
+        }
+        return batch;
+    }
+
+    private void produceBatches(ExecutorService workers, BlockingQueue<Future<MatchedBatch>> pendingBatches, AtomicBoolean stopped, long startTime) {
+        try {
+            try {
+                long scheduledComparisons = 0;
+                while (!stopped.get() && scheduledComparisons < comparisonsBudget && !isOverTime(startTime) && prioritization.hasNext()) {
+                    final int maxSize = (int) Math.min(batchSize, comparisonsBudget - scheduledComparisons);
+                    int size = 0;
+                    final Comparison[] comparisons = new Comparison[maxSize];
+                    while (size < maxSize && prioritization.hasNext()) {
+                        comparisons[size++] = prioritization.next();
+                    }
+                    scheduledComparisons += size;
+
+                    final Comparison[] batch = size < maxSize ? Arrays.copyOf(comparisons, size) : comparisons;
+                    pendingBatches.put(workers.submit(() -> match(batch)));
+                }
+                pendingBatches.put(CompletableFuture.completedFuture(END_OF_SCHEDULE));
+            } catch (RuntimeException ex) {
+                final CompletableFuture<MatchedBatch> failure = new CompletableFuture<>();
+                failure.completeExceptionally(ex);
+                pendingBatches.put(failure);
+            }
+        } catch (InterruptedException ex) {
+            // the reporting has already stopped
+        }
+    }
+
+    /**
+     * @param batchSize the number of comparisons executed by a worker at once
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param comparisonsBudget the maximum number of executed comparisons
+     */
+    public void setComparisonsBudget(long comparisonsBudget) {
+        this.comparisonsBudget = comparisonsBudget;
+    }
+
+    /**
+     * @param maxPendingBatches the maximum number of batches that have been
+     * scheduled but not reported yet
+     */
+    public void setMaxPendingBatches(int maxPendingBatches) {
+        if (maxPendingBatches < 1) {
+            throw new IllegalArgumentException("The number of pending batches must be positive");
+        }
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    public void setNoOfWorkers(int noOfWorkers) {
+        if (noOfWorkers < 1) {
+            throw new IllegalArgumentException("The number of workers must be positive");
+        }
+        this.noOfWorkers = noOfWorkers;
+    }
+
+    /**
+     * Stops the execution after the given time, which includes the reporting of
+     * the results. The batch being reported when the time expires is reported
+     * entirely.
+     */
+    public void setTimeBudget(long duration, TimeUnit unit) {
+        timeBudget = unit.toNanos(duration);
+    }
+
+    private static class MatchedBatch {
+
+        private final Comparison[] comparisons;
+        private final float[] similarities;
+
+        MatchedBatch(Comparison[] comparisons) {
+            this.comparisons = comparisons;
+            similarities = new float[comparisons.length];
+        }
+    }
+}
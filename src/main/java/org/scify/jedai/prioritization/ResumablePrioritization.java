@@ -0,0 +1,237 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.prioritization.utilities.ScheduleCheckpoint;
+
+/**
+ * Materializes the schedule of another prioritization into primitive arrays,
+ * so that its state can be captured at any time by getCheckpoint and a run can
+ * be resumed from a ScheduleCheckpoint without developing the schedule again.
+ *
+ * The budget covers the comparisons emitted both before and after a
+ * checkpoint. A run can be continued with an extended budget, as long as the
+ * original schedule was developed with a larger budget, since the checkpoint
+ * contains only the comparisons of the original schedule.
+ *
+ * Unlike the incremental schedules, the first comparison is emitted after the
+ * entire schedule has been developed.
+ *
+ * @author G.A.P. II
+ */
+public class ResumablePrioritization extends AbstractPrioritization {
+
+    private boolean cleanCleanER;
+    private int position;
+    private int size;
+    private long executedComparisons; // before the first remaining comparison
+
+    private float[] weights;
+    private int[] entityIds1;
+    private int[] entityIds2;
+
+    private final IPrioritization schedule;
+
+    /**
+     * @param schedule the prioritization whose schedule is materialized
+     */
+    public ResumablePrioritization(int budget, IPrioritization schedule) {
+        super(budget);
+        this.schedule = schedule;
+        resetSchedule();
+    }
+
+    /**
+     * Resumes the schedule of the given checkpoint, which is already developed.
+     */
+    public ResumablePrioritization(int budget, ScheduleCheckpoint checkpoint) {
+        super(budget);
+        schedule = null;
+        cleanCleanER = checkpoint.isCleanCleanER();
+        executedComparisons = checkpoint.getExecutedComparisons();
+        position = 0;
+        size = checkpoint.getRemainingComparisons();
+        entityIds1 = new int[size];
+        entityIds2 = new int[size];
+        weights = new float[size];
+        for (int i = 0; i < size; i++) {
+            entityIds1[i] = checkpoint.getEntityId1(i);
+            entityIds2[i] = checkpoint.getEntityId2(i);
+            weights[i] = checkpoint.getWeight(i);
+        }
+    }
+
+    @Override
+    public void developBlockBasedSchedule(List<AbstractBlock> blocks) {
+        getSchedule().developBlockBasedSchedule(blocks);
+        materializeSchedule();
+    }
+
+    @Override
+    public void developEntityBasedSchedule(List<EntityProfile> entitiesD1) {
+        getSchedule().developEntityBasedSchedule(entitiesD1);
+        materializeSchedule();
+    }
+
+    @Override
+    public void developEntityBasedSchedule(List<EntityProfile> entitiesD1, List<EntityProfile> entitiesD2) {
+        getSchedule().developEntityBasedSchedule(entitiesD1, entitiesD2);
+        materializeSchedule();
+    }
+
+    /**
+     * @return the current state of the schedule, which shares the arrays of
+     * this prioritization
+     */
+    public synchronized ScheduleCheckpoint getCheckpoint() {
+        return new ScheduleCheckpoint(cleanCleanER, entityIds1, entityIds2, weights, position, size, executedComparisons + position);
+    }
+
+    @Override
+    public String getMethodConfiguration() {
+        return getParameterName(0) + "=" + comparisonsBudget;
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it stores the schedule of another progressive method, so that it can be resumed from a checkpoint.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return schedule == null ? "Resumed Schedule" : "Resumable " + schedule.getMethodName();
+    }
+
+    @Override
+    public String getMethodParameters() {
+        return getMethodName() + " involves a single parameter:\n"
+                + "1)" + getParameterDescription(0) + ".";
+    }
+
+    @Override
+    public int getNumberOfGridConfigurations() {
+        return gridComparisonsBudget.getNumberOfConfigurations();
+    }
+
+    @Override
+    public JsonArray getParameterConfiguration() {
+        final JsonObject obj1 = new JsonObject();
+        obj1.put("class", "java.lang.Integer");
+        obj1.put("name", getParameterName(0));
+        obj1.put("defaultValue", "10000");
+        obj1.put("minValue", "1000");
+        obj1.put("maxValue", "1000000");
+        obj1.put("stepValue", "1000");
+        obj1.put("description", getParameterDescription(0));
+
+        final JsonArray array = new JsonArray();
+        array.add(obj1);
+        return array;
+    }
+
+    @Override
+    public String getParameterDescription(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "The " + getParameterName(0) + " defines the maximum number of pairwise comparisons that will be executed, including those before the checkpoint.";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    @Override
+    public String getParameterName(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "Budget";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    private IPrioritization getSchedule() {
+        if (schedule == null) {
+            throw new IllegalStateException("The schedule of a checkpoint is already developed");
+        }
+        return schedule;
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        return position < size && executedComparisons + position < comparisonsBudget && !isTerminated();
+    }
+
+    private void materializeSchedule() {
+        resetSchedule();
+        while (schedule.hasNext()) {
+            final Comparison comparison = schedule.next();
+            if (size == entityIds1.length) {
+                int newLength = Math.max(1024, 2 * size);
+                entityIds1 = Arrays.copyOf(entityIds1, newLength);
+                entityIds2 = Arrays.copyOf(entityIds2, newLength);
+                weights = Arrays.copyOf(weights, newLength);
+            }
+            cleanCleanER = comparison.isCleanCleanER();
+            entityIds1[size] = comparison.getEntityId1();
+            entityIds2[size] = comparison.getEntityId2();
+            weights[size++] = comparison.getUtilityMeasure();
+        }
+    }
+
+    @Override
+    public synchronized Comparison next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Comparison comparison = new Comparison(cleanCleanER, entityIds1[position], entityIds2[position]);
+        comparison.setUtilityMeasure(weights[position++]);
+        return comparison;
+    }
+
+    private void resetSchedule() {
+        cleanCleanER = false;
+        executedComparisons = 0;
+        position = 0;
+        size = 0;
+        entityIds1 = new int[0];
+        entityIds2 = new int[0];
+        weights = new float[0];
+    }
+
+    @Override
+    public void setNextRandomConfiguration() {
+        comparisonsBudget = (Integer) randomComparisonsBudget.getNextRandomValue();
+    }
+
+    @Override
+    public void setNumberedGridConfiguration(int iterationNumber) {
+        comparisonsBudget = (Integer) gridComparisonsBudget.getNumberedValue(iterationNumber);
+    }
+
+    @Override
+    public void setNumberedRandomConfiguration(int iterationNumber) {
+        comparisonsBudget = (Integer) randomComparisonsBudget.getNumberedRandom(iterationNumber);
+    }
+}
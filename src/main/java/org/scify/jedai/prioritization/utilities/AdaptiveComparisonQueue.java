@@ -0,0 +1,339 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization.utilities;
+
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import java.util.Arrays;
+import org.scify.jedai.datamodel.Comparison;
+
+/**
+ * Retains a bounded window of pending comparisons in an indexed max-heap of
+ * primitive arrays, whose priorities are updated with the matches confirmed so
+ * far. Every comparison carries its rank in the original schedule and an
+ * adjustment derived from the matches of its entities:
+ *
+ * - in Dirty ER, it is raised by the matches of each entity, since the
+ * neighbors of a matched entity are likely to belong to the same cluster;
+ * - in Clean-Clean ER, it is lowered once for each matched entity, since every
+ * entity has at most one duplicate in the other dataset.
+ *
+ * The comparisons are polled in decreasing adjustment and then in increasing
+ * rank, so that without matches the original schedule is preserved. The
+ * comparisons whose entities already belong to the same cluster of matches are
+ * redundant due to transitivity and are skipped.
+ *
+ * @author G.A.P. II
+ */
+public final class AdaptiveComparisonQueue {
+
+    private static final int NO_LINK = -1;
+
+    private final boolean cleanCleanER;
+    private int freeSlots;
+    private int size;
+    private long skippedComparisons;
+
+    private final float[] weights;
+    private final int[] adjustments;
+    private final int[] entityIds1;
+    private final int[] entityIds2;
+    private final int[] freeSlotStack;
+    private final int[] heap; // the slots in heap order
+    private final int[] heapPositions; // the heap index of every slot
+    private final long[] ranks;
+
+    // the pending comparisons of every entity, as doubly-linked lists of the links 2 * slot (first entity) and 2 * slot + 1 (second entity)
+    private final int[] nextLinks;
+    private final int[] previousLinks;
+    private final TIntIntMap firstLinks;
+
+    // the clusters of matches, as a union-find structure over the entity nodes
+    private int[] matches;
+    private int[] parents;
+
+    public AdaptiveComparisonQueue(int capacity, boolean cleanCleanER) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.cleanCleanER = cleanCleanER;
+
+        adjustments = new int[capacity];
+        entityIds1 = new int[capacity];
+        entityIds2 = new int[capacity];
+        weights = new float[capacity];
+        ranks = new long[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+        freeSlotStack = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeSlotStack[i] = capacity - i - 1;
+        }
+        freeSlots = capacity;
+        size = 0;
+        skippedComparisons = 0;
+
+        nextLinks = new int[2 * capacity];
+        previousLinks = new int[2 * capacity];
+        firstLinks = new TIntIntHashMap(capacity, 0.5f, NO_LINK, NO_LINK);
+
+        matches = new int[0];
+        parents = new int[0];
+    }
+
+    private int getAdjustment(int node1, int node2) {
+        final int matches1 = node1 < matches.length ? matches[node1] : 0;
+        final int matches2 = node2 < matches.length ? matches[node2] : 0;
+        if (cleanCleanER) {
+            return -(Math.min(1, matches1) + Math.min(1, matches2));
+        }
+        return matches1 + matches2;
+    }
+
+    private int find(int node) {
+        if (parents.length <= node) {
+            return node;
+        }
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    private int getNode1(int entityId1) {
+        return cleanCleanER ? 2 * entityId1 : entityId1;
+    }
+
+    private int getNode2(int entityId2) {
+        return cleanCleanER ? 2 * entityId2 + 1 : entityId2;
+    }
+
+    /**
+     * @return the number of comparisons that were skipped as redundant
+     */
+    public long getSkippedComparisons() {
+        return skippedComparisons;
+    }
+
+    private void growNodes(int node) {
+        if (node < parents.length) {
+            return;
+        }
+        int oldLength = parents.length;
+        int newLength = Math.max(node + 1, 2 * oldLength);
+        matches = Arrays.copyOf(matches, newLength);
+        parents = Arrays.copyOf(parents, newLength);
+        for (int i = oldLength; i < newLength; i++) {
+            parents[i] = i;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return freeSlots == 0;
+    }
+
+    private boolean isRedundant(int slot) {
+        return find(getNode1(entityIds1[slot])) == find(getNode2(entityIds2[slot]));
+    }
+
+    private void link(int node, int link) {
+        int first = firstLinks.get(node);
+        previousLinks[link] = NO_LINK;
+        nextLinks[link] = first;
+        if (first != NO_LINK) {
+            previousLinks[first] = link;
+        }
+        firstLinks.put(node, link);
+    }
+
+    /**
+     * Adds the given comparison to the window, unless it is redundant.
+     *
+     * @param rank the position of the comparison in the original schedule
+     * @return false if the comparison was skipped
+     */
+    public boolean offer(int entityId1, int entityId2, float weight, long rank) {
+        if (isFull()) {
+            throw new IllegalStateException("The window of pending comparisons is full");
+        }
+
+        final int node1 = getNode1(entityId1);
+        final int node2 = getNode2(entityId2);
+        if (find(node1) == find(node2)) {
+            skippedComparisons++;
+            return false;
+        }
+
+        final int slot = freeSlotStack[--freeSlots];
+        entityIds1[slot] = entityId1;
+        entityIds2[slot] = entityId2;
+        weights[slot] = weight;
+        ranks[slot] = rank;
+        adjustments[slot] = getAdjustment(node1, node2);
+        link(node1, 2 * slot);
+        link(node2, 2 * slot + 1);
+
+        heap[size] = slot;
+        heapPositions[slot] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * @return the pending comparison with the highest priority, or null if
+     * the window was exhausted by skipping redundant comparisons
+     */
+    public Comparison poll() {
+        while (0 < size) {
+            final int slot = heap[0];
+            removeHeapIndex(0);
+            unlink(getNode1(entityIds1[slot]), 2 * slot);
+            unlink(getNode2(entityIds2[slot]), 2 * slot + 1);
+            freeSlotStack[freeSlots++] = slot;
+
+            if (isRedundant(slot)) {
+                skippedComparisons++;
+                continue;
+            }
+
+            final Comparison comparison = new Comparison(cleanCleanER, entityIds1[slot], entityIds2[slot]);
+            comparison.setUtilityMeasure(weights[slot]);
+            return comparison;
+        }
+        return null;
+    }
+
+    private boolean precedes(int index1, int index2) {
+        final int slot1 = heap[index1];
+        final int slot2 = heap[index2];
+        if (adjustments[slot1] != adjustments[slot2]) {
+            return adjustments[slot1] > adjustments[slot2];
+        }
+        return ranks[slot1] < ranks[slot2];
+    }
+
+    private void removeHeapIndex(int index) {
+        final int last = --size;
+        if (index == last) {
+            return;
+        }
+        heap[index] = heap[last];
+        heapPositions[heap[index]] = index;
+        siftDown(index);
+        siftUp(index);
+    }
+
+    /**
+     * Updates the priorities of the pending comparisons with the given
+     * confirmed match.
+     */
+    public void reportMatch(int entityId1, int entityId2) {
+        final int node1 = getNode1(entityId1);
+        final int node2 = getNode2(entityId2);
+        growNodes(Math.max(node1, node2));
+        final int root1 = find(node1);
+        final int root2 = find(node2);
+        if (root1 == root2) { // already known through transitivity
+            return;
+        }
+        parents[root1] = root2;
+
+        matches[node1]++;
+        matches[node2]++;
+        // in Clean-Clean ER, only the first match of an entity changes the adjustments
+        if (!cleanCleanER || matches[node1] == 1) {
+            updateAdjustments(node1);
+        }
+        if (!cleanCleanER || matches[node2] == 1) {
+            updateAdjustments(node2);
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int first = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && precedes(left, first)) {
+                first = left;
+            }
+            if (right < size && precedes(right, first)) {
+                first = right;
+            }
+            if (first == index) {
+                return;
+            }
+            swap(index, first);
+            index = first;
+        }
+    }
+
+    private void siftUp(int index) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!precedes(index, parent)) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void swap(int index1, int index2) {
+        int temp = heap[index1];
+        heap[index1] = heap[index2];
+        heap[index2] = temp;
+        heapPositions[heap[index1]] = index1;
+        heapPositions[heap[index2]] = index2;
+    }
+
+    private void unlink(int node, int link) {
+        final int previous = previousLinks[link];
+        final int next = nextLinks[link];
+        if (next != NO_LINK) {
+            previousLinks[next] = previous;
+        }
+        if (previous != NO_LINK) {
+            nextLinks[previous] = next;
+        } else if (next != NO_LINK) {
+            firstLinks.put(node, next);
+        } else {
+            firstLinks.remove(node);
+        }
+    }
+
+    private void updateAdjustments(int node) {
+        for (int link = firstLinks.get(node); link != NO_LINK; link = nextLinks[link]) {
+            final int slot = link / 2;
+            final int oldAdjustment = adjustments[slot];
+            adjustments[slot] = getAdjustment(getNode1(entityIds1[slot]), getNode2(entityIds2[slot]));
+            if (oldAdjustment < adjustments[slot]) {
+                siftUp(heapPositions[slot]);
+            } else if (adjustments[slot] < oldAdjustment) {
+                siftDown(heapPositions[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization.utilities;
+
+import java.util.Arrays;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+/**
+ * Retains the top-weighted edges of a blocking graph in a min-heap of
+ * primitive arrays. The edges are ordered by decreasing weight and then by
+ * increasing entity ids, so that the retained edges do not depend on the order
+ * in which they are added, and the heaps of disjoint parts of the graph can be
+ * merged into the heap of the entire graph.
+ *
+ * @author G.A.P. II
+ */
+final class EdgeHeap implements ISimilarityPairConsumer {
+
+    private int capacity;
+    private int size;
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] weights;
+
+    EdgeHeap() {
+        capacity = 0;
+        size = 0;
+        entityIds1 = new int[0];
+        entityIds2 = new int[0];
+        weights = new float[0];
+    }
+
+    @Override
+    public void accept(int entityId1, int entityId2, float weight) {
+        if (size < capacity) {
+            if (size == weights.length) { // the arrays grow up to the capacity, which may well exceed the actual edges
+                int newLength = (int) Math.min(capacity, Math.max(1024, 2L * size));
+                entityIds1 = Arrays.copyOf(entityIds1, newLength);
+                entityIds2 = Arrays.copyOf(entityIds2, newLength);
+                weights = Arrays.copyOf(weights, newLength);
+            }
+            set(size, entityId1, entityId2, weight);
+            siftUp(size++);
+        } else if (0 < capacity && follows(weights[0], entityIds1[0], entityIds2[0], weight, entityId1, entityId2)) {
+            set(0, entityId1, entityId2, weight);
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Passes the retained edges to the consumer, in the order of the heap.
+     */
+    void forEach(ISimilarityPairConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(entityIds1[i], entityIds2[i], weights[i]);
+        }
+    }
+
+    /**
+     * @return true if the first edge follows the second one in decreasing
+     * weight and increasing entity ids
+     */
+    static boolean follows(float weight1, int entityIdA1, int entityIdA2, float weight2, int entityIdB1, int entityIdB2) {
+        if (weight1 != weight2) {
+            return weight1 < weight2;
+        }
+        if (entityIdA1 != entityIdB1) {
+            return entityIdA1 > entityIdB1;
+        }
+        return entityIdA2 > entityIdB2;
+    }
+
+    private boolean follows(int index1, int index2) {
+        return follows(weights[index1], entityIds1[index1], entityIds2[index1], weights[index2], entityIds1[index2], entityIds2[index2]);
+    }
+
+    /**
+     * Passes the top edges of the given sorted heaps to the consumer, in order.
+     *
+     * @param limit the maximum number of passed edges
+     * @param distinct true if an edge retained by several heaps should be passed
+     * once
+     * @return the number of passed edges
+     */
+    static int merge(EdgeHeap[] heaps, int limit, boolean distinct, ISimilarityPairConsumer consumer) {
+        // a min-heap with the index of the heap whose next edge comes first at the root
+        final int[] positions = new int[heaps.length];
+        final int[] queue = new int[heaps.length];
+        int queueSize = 0;
+        for (int i = 0; i < heaps.length; i++) {
+            if (0 < heaps[i].size) {
+                queue[queueSize] = i;
+                siftUp(queue, queueSize++, heaps, positions);
+            }
+        }
+
+        int mergedEdges = 0;
+        boolean hasLastEdge = false;
+        int lastId1 = -1;
+        int lastId2 = -1;
+        while (0 < queueSize && mergedEdges < limit) {
+            final EdgeHeap heap = heaps[queue[0]];
+            final int position = positions[queue[0]]++;
+            final int entityId1 = heap.entityIds1[position];
+            final int entityId2 = heap.entityIds2[position];
+            if (!distinct || !hasLastEdge || lastId1 != entityId1 || lastId2 != entityId2) {
+                consumer.accept(entityId1, entityId2, heap.weights[position]);
+                hasLastEdge = true;
+                lastId1 = entityId1;
+                lastId2 = entityId2;
+                mergedEdges++;
+            }
+
+            if (positions[queue[0]] == heap.size) {
+                queue[0] = queue[--queueSize];
+            }
+            siftDown(queue, queueSize, heaps, positions);
+        }
+        return mergedEdges;
+    }
+
+    private static boolean precedes(int heap1, int heap2, EdgeHeap[] heaps, int[] positions) {
+        final EdgeHeap h1 = heaps[heap1];
+        final EdgeHeap h2 = heaps[heap2];
+        final int p1 = positions[heap1];
+        final int p2 = positions[heap2];
+        return follows(h2.weights[p2], h2.entityIds1[p2], h2.entityIds2[p2], h1.weights[p1], h1.entityIds1[p1], h1.entityIds2[p1]);
+    }
+
+    /**
+     * Removes all edges and sets the maximum number of retained ones.
+     */
+    void reset(int capacity) {
+        this.capacity = capacity;
+        size = 0;
+    }
+
+    private void set(int index, int entityId1, int entityId2, float weight) {
+        entityIds1[index] = entityId1;
+        entityIds2[index] = entityId2;
+        weights[index] = weight;
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int last = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && follows(left, last)) {
+                last = left;
+            }
+            if (right < heapSize && follows(right, last)) {
+                last = right;
+            }
+            if (last == index) {
+                return;
+            }
+            swap(index, last);
+            index = last;
+        }
+    }
+
+    private static void siftDown(int[] queue, int queueSize, EdgeHeap[] heaps, int[] positions) {
+        int index = 0;
+        while (true) {
+            int first = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < queueSize && precedes(queue[left], queue[first], heaps, positions)) {
+                first = left;
+            }
+            if (right < queueSize && precedes(queue[right], queue[first], heaps, positions)) {
+                first = right;
+            }
+            if (first == index) {
+                return;
+            }
+            int temp = queue[index];
+            queue[index] = queue[first];
+            queue[first] = temp;
+            index = first;
+        }
+    }
+
+    private void siftUp(int index) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!follows(index, parent)) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftUp(int[] queue, int index, EdgeHeap[] heaps, int[] positions) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!precedes(queue[index], queue[parent], heaps, positions)) {
+                return;
+            }
+            int temp = queue[index];
+            queue[index] = queue[parent];
+            queue[parent] = temp;
+            index = parent;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Arranges the retained edges in decreasing weight and increasing entity
+     * ids, in place. No more edges should be added until the next reset.
+     */
+    void sort() {
+        for (int last = size - 1; 0 < last; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tempId = entityIds1[i];
+        entityIds1[i] = entityIds1[j];
+        entityIds1[j] = tempId;
+
+        tempId = entityIds2[i];
+        entityIds2[i] = entityIds2[j];
+        entityIds2[j] = tempId;
+
+        float tempWeight = weights[i];
+        weights[i] = weights[j];
+        weights[j] = tempWeight;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization.utilities;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+/**
+ * Emits the top-weighted edges of a blocking graph in batches of increasing
+ * size, instead of selecting all of them before the first one is returned.
+ * Every batch traverses the graph anew and retains in a primitive heap the
+ * best edges after the last emitted one, with the edges ordered by decreasing
+ * weight and then by increasing entity ids. The first comparisons are thus
+ * available after a single traversal with a small heap, regardless of the
+ * budget, at the cost of a logarithmic number of traversals in total.
+ *
+ * In parallel mode, the entities are split into ranges that are traversed by
+ * multiple workers, each with its own heap; the heaps are merged at the end of
+ * every batch. The output is the same in both modes.
+ *
+ * @author G.A.P. II
+ */
+public class IncrementalTopComparisons implements Iterator<Comparison> {
+
+    public static final int FIRST_BATCH_SIZE = 10000;
+    private static final int GROWTH_FACTOR = 4;
+
+    private boolean isExhausted;
+    private final boolean isCleanCleanER;
+    private final boolean parallel;
+    private int batchSize;
+    private final int budget;
+    private final int noOfEntities;
+    private int position;
+    private int scheduledComparisons;
+    private int size;
+
+    private final Queue<Worker> idleWorkers;
+    private final List<Worker> workers;
+    private final Supplier<EdgeTraversal> traversals;
+
+    // the edges of the current batch, in the order of emission
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] weights;
+
+    // the last edge of the previous batch
+    private boolean hasCursor;
+    private float cursorWeight;
+    private int cursorId1;
+    private int cursorId2;
+
+    /**
+     * @param isCleanCleanER whether the comparisons involve two datasets
+     * @param noOfEntities the number of entities whose edges are traversed
+     * @param traversals the traversals of the blocking graph; in parallel mode,
+     * every worker gets its own
+     * @param parallel true if the entities should be traversed by multiple
+     * workers
+     * @param budget the maximum number of emitted comparisons
+     * @param firstBatchSize the number of comparisons in the first batch
+     */
+    public IncrementalTopComparisons(boolean isCleanCleanER, int noOfEntities, Supplier<EdgeTraversal> traversals,
+            boolean parallel, int budget, int firstBatchSize) {
+        if (firstBatchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+
+        this.budget = budget;
+        this.isCleanCleanER = isCleanCleanER;
+        this.noOfEntities = noOfEntities;
+        this.parallel = parallel;
+        this.traversals = traversals;
+        batchSize = firstBatchSize;
+        hasCursor = false;
+        idleWorkers = new ConcurrentLinkedQueue<>();
+        isExhausted = budget <= 0;
+        position = 0;
+        scheduledComparisons = 0;
+        size = 0;
+        workers = new ArrayList<>();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < size) {
+            return true;
+        }
+        if (isExhausted) {
+            return false;
+        }
+
+        getNextBatch();
+        return position < size;
+    }
+
+    @Override
+    public Comparison next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Comparison comparison = new Comparison(isCleanCleanER, entityIds1[position], entityIds2[position]);
+        comparison.setUtilityMeasure(weights[position]);
+        position++;
+        return comparison;
+    }
+
+    private void getNextBatch() {
+        final int capacity = (int) Math.min(batchSize, (long) budget - scheduledComparisons);
+        for (Worker worker : workers) {
+            worker.heap.reset(capacity);
+        }
+
+        if (parallel) {
+            final int noOfRanges = Math.max(1, Math.min(noOfEntities, 64 * Runtime.getRuntime().availableProcessors()));
+            IntStream.range(0, noOfRanges).parallel().forEach(r -> {
+                final Worker worker = getIdleWorker(capacity);
+                worker.traverse((int) ((long) r * noOfEntities / noOfRanges), (int) ((long) (r + 1) * noOfEntities / noOfRanges));
+                idleWorkers.add(worker);
+            });
+        } else {
+            final Worker worker = getIdleWorker(capacity);
+            worker.traverse(0, noOfEntities);
+            idleWorkers.add(worker);
+        }
+
+        final EdgeHeap[] heaps = new EdgeHeap[workers.size()];
+        for (int i = 0; i < heaps.length; i++) {
+            heaps[i] = workers.get(i).heap;
+            heaps[i].sort();
+        }
+
+        entityIds1 = new int[capacity];
+        entityIds2 = new int[capacity];
+        weights = new float[capacity];
+        position = 0;
+        size = 0;
+        EdgeHeap.merge(heaps, capacity, false, (entityId1, entityId2, weight) -> {
+            entityIds1[size] = entityId1;
+            entityIds2[size] = entityId2;
+            weights[size++] = weight;
+        });
+
+        scheduledComparisons += size;
+        if (size < capacity || budget <= scheduledComparisons) {
+            isExhausted = true;
+        } else {
+            hasCursor = true;
+            cursorWeight = weights[size - 1];
+            cursorId1 = entityIds1[size - 1];
+            cursorId2 = entityIds2[size - 1];
+            batchSize = (int) Math.min(Integer.MAX_VALUE, (long) GROWTH_FACTOR * batchSize);
+        }
+    }
+
+    private Worker getIdleWorker(int capacity) {
+        Worker worker = idleWorkers.poll();
+        if (worker == null) {
+            worker = new Worker(traversals.get());
+            worker.heap.reset(capacity);
+            synchronized (workers) {
+                workers.add(worker);
+            }
+        }
+        return worker;
+    }
+
+    /**
+     * A traversal of the blocking graph that passes every edge to the consumer
+     * exactly once, with the ids of the corresponding comparison. The
+     * traversals must be repeatable and need not be thread-safe.
+     */
+    public interface EdgeTraversal {
+
+        /**
+         * Passes to the consumer the edges of the entities with ids in
+         * [fromEntity, toEntity).
+         */
+        void traverse(int fromEntity, int toEntity, ISimilarityPairConsumer consumer);
+    }
+
+    private class Worker {
+
+        private final EdgeHeap heap;
+        private final EdgeTraversal traversal;
+
+        Worker(EdgeTraversal traversal) {
+            this.traversal = traversal;
+            heap = new EdgeHeap();
+        }
+
+        void traverse(int fromEntity, int toEntity) {
+            traversal.traverse(fromEntity, toEntity, (entityId1, entityId2, weight) -> {
+                if (!hasCursor || EdgeHeap.follows(weight, entityId1, entityId2, cursorWeight, cursorId1, cursorId2)) {
+                    heap.accept(entityId1, entityId2, weight);
+                } // otherwise, it has already been emitted
+            });
+        }
+    }
+}
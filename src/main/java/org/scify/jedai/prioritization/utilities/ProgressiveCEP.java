@@ -16,13 +16,15 @@
 package org.scify.jedai.prioritization.utilities;
 
 import com.esotericsoftware.minlog.Log;
+import gnu.trove.iterator.TIntIterator;
 import org.scify.jedai.blockprocessing.comparisoncleaning.CardinalityEdgePruning;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -31,6 +33,7 @@ import java.util.List;
  */
 public class ProgressiveCEP extends CardinalityEdgePruning {
 
+    private boolean parallel;
     private final int maxComparisons;
 
     private List<Comparison> topComparisons;
@@ -38,6 +41,14 @@ public class ProgressiveCEP extends CardinalityEdgePruning {
     public ProgressiveCEP(int maxComparisons, WeightingScheme wScheme) {
         super(wScheme);
         this.maxComparisons = maxComparisons;
+        parallel = false;
+    }
+
+    // a copy of the blocking graph with its own traversal state
+    private IncrementalTopComparisons.EdgeTraversal getEdgeTraversal() {
+        final ProgressiveCEP worker = new ProgressiveCEP(maxComparisons, weightingScheme);
+        worker.shareBlockingGraph(this);
+        return worker::traverseEdges;
     }
 
     @Override
@@ -45,22 +56,63 @@ public class ProgressiveCEP extends CardinalityEdgePruning {
         return "Progressive Cardinality Edge Pruning";
     }
 
+    /**
+     * @return the top-weighted edges in batches of increasing size, starting
+     * from the given one, so that the first ones are emitted without
+     * retaining all of them
+     */
+    public Iterator<Comparison> getIncrementalTopComparisons(int firstBatchSize) {
+        int limit = cleanCleanER ? datasetLimit : noOfEntities;
+        return new IncrementalTopComparisons(cleanCleanER, limit, this::getEdgeTraversal, parallel, maxComparisons, firstBatchSize);
+    }
+
     public List<Comparison> getTopComparisons() {
+        if (topComparisons == null) {
+            topComparisons = new ArrayList<>();
+            getIncrementalTopComparisons(Math.max(1, maxComparisons)).forEachRemaining(topComparisons::add);
+        }
         return topComparisons;
     }
 
+    // the blocking graph is traversed on demand by the methods above
     @Override
     protected List<AbstractBlock> pruneEdges() {
-        setTopKEdges();
-        topComparisons = new ArrayList<>(topKEdges);
-        topComparisons.sort(new DecComparisonWeightComparator());
+        topComparisons = null;
         return null;
     }
 
+    /**
+     * @param parallel true if the top-weighted edges should be selected by
+     * multiple threads; the output is the same in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     protected void setThreshold() {
         threshold = maxComparisons;
 
         Log.info(getMethodName() + " Threshold \t:\t" + threshold);
     }
+
+    // passes the edges of the entities in the given range to the consumer, with the ids of the corresponding comparisons
+    private void traverseEdges(int fromEntity, int toEntity, ISimilarityPairConsumer consumer) {
+        for (int i = fromEntity; i < toEntity; i++) {
+            if (weightingScheme.equals(WeightingScheme.ARCS)) {
+                processArcsEntity(i);
+            } else {
+                processEntity(i);
+            }
+
+            for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
+                int neighborId = iterator.next();
+                if (cleanCleanER) {
+                    consumer.accept(i, neighborId - datasetLimit, getWeight(i, neighborId));
+                } else {
+                    consumer.accept(Math.min(i, neighborId), Math.max(i, neighborId), getWeight(i, neighborId));
+                }
+            }
+        }
+    }
 }
@@ -20,28 +20,34 @@ import gnu.trove.iterator.TIntIterator;
 import org.scify.jedai.blockprocessing.comparisoncleaning.CardinalityNodePruning;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 
 /**
+ * The top-weighted edges of every entity are retained in primitive heaps. In
+ * parallel mode, ranges of entities are processed by multiple workers and
+ * their edges are merged at the end.
  *
  * @author gap2
  */
 public class ProgressiveCNP extends CardinalityNodePruning {
 
+    private boolean parallel;
     private final int comparisonsBudget;
     
-    private final Set<Comparison> topComparisons;
+    private EdgeHeap entityEdges;
+    private EdgeHeap retainedEdges;
+    private List<Comparison> topComparisons;
     
     public ProgressiveCNP(int comparisonsBudget, WeightingScheme wScheme) {
         super(wScheme);
         this.comparisonsBudget = comparisonsBudget;
-        topComparisons = new HashSet<>();
+        parallel = false;
     }
 
     @Override
@@ -50,44 +56,87 @@ public class ProgressiveCNP extends CardinalityNodePruning {
     }
     
     public List<Comparison> getTopComparisons() {
-        final List<Comparison> sortedTopComparisons = new ArrayList<>(topComparisons);
-        sortedTopComparisons.sort(new DecComparisonWeightComparator());
-        return sortedTopComparisons;
+        return topComparisons;
     }
 
     @Override
-    protected List<AbstractBlock> retainValidComparisons() {
+    protected List<AbstractBlock> pruneEdges() {
+        final Queue<ProgressiveCNP> workers = new ConcurrentLinkedQueue<>();
+        if (parallel) {
+            final int noOfRanges = Math.max(1, Math.min(noOfEntities, 64 * Runtime.getRuntime().availableProcessors()));
+            IntStream.range(0, noOfRanges).parallel().forEach(r -> {
+                ProgressiveCNP worker = workers.poll();
+                if (worker == null) {
+                    worker = new ProgressiveCNP(comparisonsBudget, weightingScheme);
+                    worker.shareBlockingGraph(this);
+                    worker.threshold = threshold;
+                }
+                worker.retainTopEdges((int) ((long) r * noOfEntities / noOfRanges), (int) ((long) (r + 1) * noOfEntities / noOfRanges));
+                workers.add(worker);
+            });
+        } else {
+            retainTopEdges(0, noOfEntities);
+            workers.add(this);
+        }
+
+        // an edge retained by both of its entities is emitted once
+        int index = 0;
+        final EdgeHeap[] heaps = new EdgeHeap[workers.size()];
+        for (ProgressiveCNP worker : workers) {
+            worker.retainedEdges.sort();
+            heaps[index++] = worker.retainedEdges;
+        }
+        topComparisons = new ArrayList<>();
+        EdgeHeap.merge(heaps, Integer.MAX_VALUE, true, (entityId1, entityId2, weight) -> {
+            final Comparison comparison = new Comparison(cleanCleanER, entityId1, entityId2);
+            comparison.setUtilityMeasure(weight);
+            topComparisons.add(comparison);
+        });
         return null;
     }
-    
-    @Override
-    protected void setThreshold() {
-        threshold = Math.max(1, 2 * comparisonsBudget / noOfEntities);
-        Log.info(getMethodName() + " Threshold \t:\t" + threshold);
-    }
-    
-    @Override
-    protected void verifyValidEntities(int entityId) {
-        if (validEntities.isEmpty()) {
-            return;
+
+    // retains the top-weighted edges of the entities in the given range, with the ids of the corresponding comparisons
+    private void retainTopEdges(int fromEntity, int toEntity) {
+        if (retainedEdges == null) {
+            entityEdges = new EdgeHeap();
+            retainedEdges = new EdgeHeap();
+            retainedEdges.reset(Integer.MAX_VALUE);
         }
 
-        topKEdges.clear();
-        minimumWeight = Float.MIN_VALUE;
-        for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
-            int neighborId = iterator.next();
-            float weight = getWeight(entityId, neighborId);
-            if (minimumWeight <= weight) {
-                final Comparison comparison = getComparison(entityId, neighborId);
-                comparison.setUtilityMeasure(weight);
-                topKEdges.add(comparison);
-                if (threshold < topKEdges.size()) {
-                    Comparison lastComparison = topKEdges.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
+        for (int i = fromEntity; i < toEntity; i++) {
+            if (weightingScheme.equals(WeightingScheme.ARCS)) {
+                processArcsEntity(i);
+            } else {
+                processEntity(i);
+            }
+
+            entityEdges.reset((int) threshold);
+            for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
+                int neighborId = iterator.next();
+                float weight = getWeight(i, neighborId);
+                if (!cleanCleanER) {
+                    entityEdges.accept(Math.min(i, neighborId), Math.max(i, neighborId), weight);
+                } else if (i < datasetLimit) {
+                    entityEdges.accept(i, neighborId - datasetLimit, weight);
+                } else {
+                    entityEdges.accept(neighborId, i - datasetLimit, weight);
                 }
             }
+            entityEdges.forEach(retainedEdges);
         }
-        
-        topComparisons.addAll(topKEdges);
+    }
+
+    /**
+     * @param parallel true if the entities should be processed by multiple
+     * threads; the output is the same in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+    
+    @Override
+    protected void setThreshold() {
+        threshold = Math.max(1, 2 * comparisonsBudget / noOfEntities);
+        Log.info(getMethodName() + " Threshold \t:\t" + threshold);
     }
 }
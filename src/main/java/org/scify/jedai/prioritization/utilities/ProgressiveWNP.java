@@ -15,11 +15,14 @@
  */
 package org.scify.jedai.prioritization.utilities;
 
-import gnu.trove.iterator.TIntIterator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 import org.scify.jedai.blockprocessing.comparisoncleaning.WeightedNodePruning;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
@@ -29,16 +32,28 @@ import org.scify.jedai.utilities.comparators.DecVertexWeightComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 /**
+ * The neighbors of every entity are processed in increasing id, so that the
+ * entities can be split into ranges that are processed by multiple workers
+ * in parallel mode, without affecting the output.
  *
  * @author gap2
  */
 public class ProgressiveWNP extends WeightedNodePruning {
 
+    private boolean parallel;
+    
+    // the heaviest edge, the total weight and the degree of every entity
+    private float[] topWeights;
+    private float[] totalWeights;
+    private int[] degrees;
+    private int[] topNeighbors;
+    
     protected List<VertexWeight> sortedEntities;
     protected Set<Comparison> topComparisons;
     
     public ProgressiveWNP(WeightingScheme wScheme) {
         super(wScheme);
+        parallel = false;
     }
 
     public List<Comparison> getSortedTopComparisons() {
@@ -56,20 +71,62 @@ public class ProgressiveWNP extends WeightedNodePruning {
     protected List<AbstractBlock> pruneEdges() {
         return null;
     }
+
+    // sets the statistics of the entities in the given range
+    private void processEntities(int fromEntity, int toEntity) {
+        for (int i = fromEntity; i < toEntity; i++) {
+            if (weightingScheme.equals(WeightingScheme.ARCS)) {
+                processArcsEntity(i);
+            } else {
+                processEntity(i);
+            }
+            setThreshold(i);
+        }
+    }
+
+    /**
+     * @param parallel true if the entities should be processed by multiple
+     * threads; the output is the same in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
     
     @Override
     protected void setThreshold() {
+        topWeights = new float[noOfEntities];
+        totalWeights = new float[noOfEntities];
+        degrees = new int[noOfEntities];
+        topNeighbors = new int[noOfEntities];
+        if (parallel) {
+            // every worker sets the statistics of disjoint entities
+            final Queue<ProgressiveWNP> workers = new ConcurrentLinkedQueue<>();
+            final int noOfRanges = Math.max(1, Math.min(noOfEntities, 64 * Runtime.getRuntime().availableProcessors()));
+            IntStream.range(0, noOfRanges).parallel().forEach(r -> {
+                ProgressiveWNP worker = workers.poll();
+                if (worker == null) {
+                    worker = new ProgressiveWNP(weightingScheme);
+                    worker.shareBlockingGraph(this);
+                    worker.topWeights = topWeights;
+                    worker.totalWeights = totalWeights;
+                    worker.degrees = degrees;
+                    worker.topNeighbors = topNeighbors;
+                }
+                worker.processEntities((int) ((long) r * noOfEntities / noOfRanges), (int) ((long) (r + 1) * noOfEntities / noOfRanges));
+                workers.add(worker);
+            });
+        } else {
+            processEntities(0, noOfEntities);
+        }
+
         topComparisons = new HashSet<>();
         sortedEntities = new ArrayList<>();
-        if (weightingScheme.equals(WeightingScheme.ARCS)) {
-            for (int i = 0; i < noOfEntities; i++) {
-                processArcsEntity(i);
-                setThreshold(i);
-            }
-        } else {
-            for (int i = 0; i < noOfEntities; i++) {
-                processEntity(i);
-                setThreshold(i);
+        for (int i = 0; i < noOfEntities; i++) {
+            if (0 <= topNeighbors[i]) {
+                final Comparison currentTopComparison = getComparison(i, topNeighbors[i]);
+                currentTopComparison.setUtilityMeasure(topWeights[i]);
+                topComparisons.add(currentTopComparison);
+                sortedEntities.add(new VertexWeight(i, totalWeights[i], degrees[i], null));
             }
         }
         sortedEntities.sort(new DecVertexWeightComparator());
@@ -77,24 +134,24 @@ public class ProgressiveWNP extends WeightedNodePruning {
 
     @Override
     protected void setThreshold(int entityId) {
+        final int[] neighborIds = validEntities.toArray();
+        Arrays.sort(neighborIds);
+        
         threshold = 0;
         int maxCompId = -1;
         float maxWeight = -1;
-        for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
-            int neighborId = iterator.next();
+        for (int neighborId : neighborIds) {
             float currentWeight = getWeight(entityId, neighborId);
             if (maxWeight < currentWeight) {
                 maxCompId = neighborId;
                 maxWeight = currentWeight;
             }
-            threshold += getWeight(entityId, neighborId);
+            threshold += currentWeight;
         }
         
-        if (0 <= maxCompId) {
-            final Comparison currentTopComparison = getComparison(entityId, maxCompId);
-            currentTopComparison.setUtilityMeasure(maxWeight);
-            topComparisons.add(currentTopComparison);
-            sortedEntities.add(new VertexWeight(entityId, threshold, validEntities.size(), null));
-        } 
+        degrees[entityId] = neighborIds.length;
+        topNeighbors[entityId] = maxCompId;
+        topWeights[entityId] = maxWeight;
+        totalWeights[entityId] = threshold;
     }
 }
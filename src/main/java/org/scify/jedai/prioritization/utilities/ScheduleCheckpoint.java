@@ -0,0 +1,207 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.prioritization.utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The state of a progressive schedule: the comparisons that remain to be
+ * emitted, in the order of the schedule, along with the number of comparisons
+ * emitted before them. The comparisons are stored in primitive arrays and are
+ * written in a compact binary format of 12 bytes per comparison, so that a run
+ * can be resumed after a restart without developing the schedule again.
+ *
+ * @author G.A.P. II
+ */
+public final class ScheduleCheckpoint {
+
+    private static final int MAGIC_NUMBER = 0x4A454443; // "JEDC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final boolean cleanCleanER;
+    private final int from;
+    private final int to;
+    private final long executedComparisons;
+
+    private final float[] weights;
+    private final int[] entityIds1;
+    private final int[] entityIds2;
+
+    /**
+     * The arrays are shared rather than copied, so they should not be
+     * modified afterwards.
+     *
+     * @param from the index of the first remaining comparison in the arrays
+     * @param to the index after the last remaining comparison in the arrays
+     * @param executedComparisons the number of comparisons emitted before the
+     * remaining ones
+     */
+    public ScheduleCheckpoint(boolean cleanCleanER, int[] entityIds1, int[] entityIds2, float[] weights,
+            int from, int to, long executedComparisons) {
+        if (from < 0 || to < from || entityIds1.length < to || entityIds2.length < to || weights.length < to) {
+            throw new IllegalArgumentException("Invalid range of remaining comparisons");
+        }
+        this.cleanCleanER = cleanCleanER;
+        this.entityIds1 = entityIds1;
+        this.entityIds2 = entityIds2;
+        this.weights = weights;
+        this.from = from;
+        this.to = to;
+        this.executedComparisons = executedComparisons;
+    }
+
+    /**
+     * @return the number of comparisons that were emitted before the
+     * checkpoint
+     */
+    public long getExecutedComparisons() {
+        return executedComparisons;
+    }
+
+    public int getEntityId1(int index) {
+        return entityIds1[from + index];
+    }
+
+    public int getEntityId2(int index) {
+        return entityIds2[from + index];
+    }
+
+    /**
+     * @return the number of remaining comparisons
+     */
+    public int getRemainingComparisons() {
+        return to - from;
+    }
+
+    public float getWeight(int index) {
+        return weights[from + index];
+    }
+
+    public boolean isCleanCleanER() {
+        return cleanCleanER;
+    }
+
+    public static ScheduleCheckpoint read(InputStream inputStream) throws IOException {
+        return read(inputStream, "read from the stream");
+    }
+
+    /**
+     * Reads a checkpoint written by write. The number of comparisons it
+     * declares is verified against the length of the stream and the entity
+     * ids, so that a corrupted checkpoint is rejected rather than allocating
+     * arbitrarily large arrays.
+     *
+     * @param name the name of the checkpoint, e.g. its file, in the messages
+     * of the exceptions
+     */
+    public static ScheduleCheckpoint read(InputStream inputStream, String name) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        try {
+            if (input.readInt() != MAGIC_NUMBER) {
+                throw new IOException("The input " + name + " is not a schedule checkpoint");
+            }
+            final int version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported version of schedule checkpoint " + name + ": " + version);
+            }
+
+            final boolean isCleanCleanER = input.readBoolean();
+            final long executed = input.readLong();
+            final int size = input.readInt();
+            if (size < 0) {
+                throw new IOException("The schedule checkpoint " + name + " declares a negative number of comparisons: " + size);
+            }
+
+            // the first ids grow with the stream, which proves that the arrays of the declared size are backed by data
+            int[] ids1 = new int[Math.min(size, INITIAL_CAPACITY)];
+            for (int i = 0; i < size; i++) {
+                if (i == ids1.length) {
+                    ids1 = Arrays.copyOf(ids1, (int) Math.min(size, 2L * ids1.length));
+                }
+                ids1[i] = readEntityId(input, name);
+            }
+            final int[] ids2 = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids2[i] = readEntityId(input, name);
+            }
+            final float[] comparisonWeights = new float[size];
+            for (int i = 0; i < size; i++) {
+                comparisonWeights[i] = input.readFloat();
+            }
+
+            // every comparison is a distinct pair of entities, whose number is bounded by the largest ids
+            final long noOfEntities1 = 1L + Arrays.stream(ids1).max().orElse(-1);
+            final long noOfEntities2 = 1L + Arrays.stream(ids2).max().orElse(-1);
+            if (noOfEntities1 * noOfEntities2 < size) {
+                throw new IOException("The schedule checkpoint " + name + " declares " + size
+                        + " comparisons, more than the pairs of its " + noOfEntities1 + " and " + noOfEntities2 + " entities");
+            }
+            return new ScheduleCheckpoint(isCleanCleanER, ids1, ids2, comparisonWeights, 0, size, executed);
+        } catch (EOFException ex) {
+            throw new IOException("The schedule checkpoint " + name + " is truncated", ex);
+        }
+    }
+
+    private static int readEntityId(DataInputStream input, String name) throws IOException {
+        final int entityId = input.readInt();
+        if (entityId < 0) {
+            throw new IOException("The schedule checkpoint " + name + " contains a negative entity id: " + entityId);
+        }
+        return entityId;
+    }
+
+    /**
+     * @return a copy of this checkpoint that retains only the remaining
+     * comparisons, so that the arrays of a long schedule can be released
+     */
+    public ScheduleCheckpoint trim() {
+        return new ScheduleCheckpoint(cleanCleanER, Arrays.copyOfRange(entityIds1, from, to),
+                Arrays.copyOfRange(entityIds2, from, to), Arrays.copyOfRange(weights, from, to),
+                0, to - from, executedComparisons);
+    }
+
+    /**
+     * Writes the remaining comparisons to the given stream, which is flushed,
+     * but not closed.
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC_NUMBER);
+        output.writeInt(FORMAT_VERSION);
+        output.writeBoolean(cleanCleanER);
+        output.writeLong(executedComparisons);
+        output.writeInt(to - from);
+        for (int i = from; i < to; i++) {
+            output.writeInt(entityIds1[i]);
+        }
+        for (int i = from; i < to; i++) {
+            output.writeInt(entityIds2[i]);
+        }
+        for (int i = from; i < to; i++) {
+            output.writeFloat(weights[i]);
+        }
+        output.flush();
+    }
+}
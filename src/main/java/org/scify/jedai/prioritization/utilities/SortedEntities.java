@@ -18,10 +18,6 @@ package org.scify.jedai.prioritization.utilities;
 
 import org.scify.jedai.blockbuilding.SortedNeighborhoodBlocking;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  *
  * @author gap2
@@ -40,22 +36,11 @@ public class SortedEntities extends SortedNeighborhoodBlocking {
     
     @Override
     protected void parseIndex() {
-        final Set<String> blockingKeysSet = invertedIndexD1.keySet();
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
-
-        sortedEntityIds = getSortedEntities(sortedTerms);
+        sortedEntityIds = getSortedEntities(getSortedTerms(false));
     }
     
     @Override
     protected void parseIndices() {
-        final Set<String> blockingKeysSet = new HashSet<>();
-        blockingKeysSet.addAll(invertedIndexD1.keySet());
-        blockingKeysSet.addAll(invertedIndexD2.keySet());
-        
-        final String[] sortedTerms = blockingKeysSet.toArray(new String[0]);
-        Arrays.sort(sortedTerms);
-
-        sortedEntityIds = getMixedSortedEntities(sortedTerms);
+        sortedEntityIds = getMixedSortedEntities(getSortedTerms(true));
     }
 }
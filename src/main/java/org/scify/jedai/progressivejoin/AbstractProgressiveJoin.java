@@ -20,6 +20,7 @@ import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 
 import org.scify.jedai.datamodel.*;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 
 /**
  *
@@ -39,6 +40,9 @@ public abstract class AbstractProgressiveJoin implements IProgressiveJoin {
     protected List<EntityProfile> profilesD1;
     protected List<EntityProfile> profilesD2;
 
+    protected TokenizedColumn columnD1;
+    protected TokenizedColumn columnD2;
+
     public int[] originalIdInBlock;
 
     protected final IntGridSearchConfiguration gridComparisonsBudget;
@@ -51,17 +55,6 @@ public abstract class AbstractProgressiveJoin implements IProgressiveJoin {
         randomComparisonsBudget = new IntRandomSearchConfiguration(1000000, 1000);
     }
     
-    protected int djbHash(String str) {
-        int hash = 5381;
-        int len = str.length();
-
-        for (int k = 0; k < len; k++) {
-            hash += (hash << 5) + str.charAt(k);
-        }
-
-        return (hash & 0x7FFFFFFF);
-    }
-
     @Override
     public void developEntityBasedSchedule(String attributeName, List<EntityProfile> dataset) {
         this.developEntityBasedSchedule(attributeName, null, dataset, null);
@@ -69,31 +62,45 @@ public abstract class AbstractProgressiveJoin implements IProgressiveJoin {
 
     @Override
     public void developEntityBasedSchedule(String name1, String name2, List<EntityProfile> dataset1, List<EntityProfile> dataset2) {
-        attributeNameD1 = name1;
-        attributeNameD2 = name2;
-        profilesD1 = dataset1;
-        profilesD2 = dataset2;
-        isCleanCleanER = profilesD2 != null;
-        datasetDelimiter = dataset2 != null ? profilesD1.size() : 0;
-        noOfEntities = profilesD2 == null ? profilesD1.size() : profilesD1.size() + profilesD2.size();
-
-        prepareJoin(name1, name2, dataset1, dataset2);
+        // the columns of the previous execution are reused, e.g., during grid search
+        final TokenizedColumn column1 = getColumn(columnD1, dataset1, name1);
+        final TokenizedColumn column2 = dataset2 == null ? null : getColumn(columnD2, dataset2, name2);
+        developEntityBasedSchedule(column1, column2);
     }
 
-    protected String getAttributeValue(String attributeName, EntityProfile profile) {
-        final StringBuilder sb = new StringBuilder();
-        for (Attribute attribute : profile.getAttributes()) {
-            if (attribute.getName().toLowerCase().trim().equals(attributeName)) {
-                final String[] tokens = attribute.getValue().toLowerCase().split("[\\W_]");
-                for (String token : tokens) {
-                    if (0 < token.trim().length()) {
-                        sb.append(token).append(" ");
-                    }
-                }
-            }
+    @Override
+    public void developEntityBasedSchedule(TokenizedColumn column) {
+        this.developEntityBasedSchedule(column, null);
+    }
+
+    @Override
+    public void developEntityBasedSchedule(TokenizedColumn column1, TokenizedColumn column2) {
+        columnD1 = column1;
+        columnD2 = column2;
+        attributeNameD1 = column1.getAttributeName();
+        attributeNameD2 = column2 == null ? null : column2.getAttributeName();
+        profilesD1 = column1.getProfiles();
+        profilesD2 = column2 == null ? null : column2.getProfiles();
+        isCleanCleanER = column2 != null;
+        datasetDelimiter = column2 != null ? column1.getSize() : 0;
+        noOfEntities = column2 == null ? column1.getSize() : column1.getSize() + column2.getSize();
+
+        prepareJoin(attributeNameD1, attributeNameD2, profilesD1, profilesD2);
+    }
+
+    private static TokenizedColumn getColumn(TokenizedColumn column, List<EntityProfile> profiles, String attributeName) {
+        if (column != null && column.isColumnOf(profiles, attributeName)) {
+            return column;
         }
+        return new TokenizedColumn(profiles, attributeName);
+    }
 
-        return sb.toString().trim();
+    // the normalized value of the given record, with the records of the second dataset following those of the first one
+    protected String getAttributeValue(int recordId) {
+        if (recordId < datasetDelimiter || columnD2 == null) {
+            return columnD1.getValue(recordId);
+        }
+        return columnD2.getValue(recordId - datasetDelimiter);
     }
 
     protected Comparison getComparison(int entityId, int neighborId) {
@@ -119,13 +126,5 @@ public abstract class AbstractProgressiveJoin implements IProgressiveJoin {
         }
     }
 
-    protected SimilarityPairs getSimilarityPairs(List<Comparison> comparisons) {
-        final SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanER, comparisons.size());
-        for (Comparison comparison : comparisons) {
-            simPairs.addComparison(comparison);
-        }
-        return simPairs;
-    }
-    
     protected abstract void prepareJoin(String name1, String name2, List<EntityProfile> dataset1, List<EntityProfile> dataset2);
 }
@@ -0,0 +1,114 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.progressivejoin;
+
+import java.util.Arrays;
+
+/**
+ * A max-heap of probing events in primitive arrays. Every event comprises a
+ * record id, the position of the next token to be probed and the similarity
+ * upper bound of this probe. Ties in the bound are broken in favor of the
+ * larger record id.
+ *
+ * @author mthanos
+ */
+final class EventQueue {
+
+    private int size;
+    private float[] bounds;
+    private int[] positions;
+    private int[] recordIds;
+
+    EventQueue(int initialCapacity) {
+        size = 0;
+        bounds = new float[Math.max(1, initialCapacity)];
+        positions = new int[bounds.length];
+        recordIds = new int[bounds.length];
+    }
+
+    void add(int recordId, int position, float bound) {
+        if (size == bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * size);
+            positions = Arrays.copyOf(positions, 2 * size);
+            recordIds = Arrays.copyOf(recordIds, 2 * size);
+        }
+
+        int index = size++;
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (!precedes(bound, recordId, parent)) {
+                break;
+            }
+            set(index, recordIds[parent], positions[parent], bounds[parent]);
+            index = parent;
+        }
+        set(index, recordId, position, bound);
+    }
+
+    float getTopBound() {
+        return bounds[0];
+    }
+
+    int getTopPosition() {
+        return positions[0];
+    }
+
+    int getTopRecordId() {
+        return recordIds[0];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void removeTop() {
+        size--;
+        final int recordId = recordIds[size];
+        final int position = positions[size];
+        final float bound = bounds[size];
+
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (size <= child) {
+                break;
+            }
+            if (child + 1 < size && precedes(bounds[child + 1], recordIds[child + 1], child)) {
+                child++;
+            }
+            if (!precedes(bounds[child], recordIds[child], bound, recordId)) {
+                break;
+            }
+            set(index, recordIds[child], positions[child], bounds[child]);
+            index = child;
+        }
+        set(index, recordId, position, bound);
+    }
+
+    private boolean precedes(float bound, int recordId, int index) {
+        return precedes(bound, recordId, bounds[index], recordIds[index]);
+    }
+
+    private static boolean precedes(float bound1, int recordId1, float bound2, int recordId2) {
+        return bound2 < bound1 || (bound1 == bound2 && recordId2 < recordId1);
+    }
+
+    private void set(int index, int recordId, int position, float bound) {
+        recordIds[index] = recordId;
+        positions[index] = position;
+        bounds[index] = bound;
+    }
+}
@@ -19,6 +19,7 @@ package org.scify.jedai.progressivejoin;
 import org.scify.jedai.configuration.IConfiguration;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 import org.scify.jedai.utilities.IDocumentation;
 
 import java.util.Iterator;
@@ -35,4 +36,8 @@ public interface IProgressiveJoin extends IConfiguration, IDocumentation, Iterat
     void developEntityBasedSchedule(String attributeName, List<EntityProfile> dataset);
 
     void developEntityBasedSchedule(String attributeName1, String attributeName2, List<EntityProfile> dataset1, List<EntityProfile> dataset2);
+
+    void developEntityBasedSchedule(TokenizedColumn column);
+
+    void developEntityBasedSchedule(TokenizedColumn column1, TokenizedColumn column2);
 }
@@ -13,23 +13,64 @@
 * See the License for the specific language governing permissions and
 * limitations under the License.
  */
-
 package org.scify.jedai.progressivejoin;
 
-import java.util.HashMap;
+/**
+ * An inverted index over the tokens of the records in CSR layout: the entries
+ * of every token occupy a slice of two flat arrays, which is preallocated from
+ * its number of occurrences. Every entry holds a record id and the position
+ * of the token in that record.
+ *
+ * @author mthanos
+ */
+final class InvertedIndex {
+
+    private final int[] listEnds;
+    private final int[] listStarts;
+    private final int[] positions;
+    private final int[] recordIds;
+
+    InvertedIndex(int[][] records, int noOfTokens) {
+        listStarts = new int[noOfTokens + 1];
+        for (int[] record : records) {
+            for (int token : record) {
+                listStarts[token + 1]++;
+            }
+        }
+        for (int token = 0; token < noOfTokens; token++) {
+            listStarts[token + 1] += listStarts[token];
+        }
+
+        listEnds = new int[noOfTokens];
+        System.arraycopy(listStarts, 0, listEnds, 0, noOfTokens);
+        positions = new int[listStarts[noOfTokens]];
+        recordIds = new int[listStarts[noOfTokens]];
+    }
+
+    void add(int token, int recordId, int position) {
+        int entry = listEnds[token]++;
+        recordIds[entry] = recordId;
+        positions[entry] = position;
+    }
+
+    int getListEnd(int token) {
+        return listEnds[token];
+    }
 
-public class InvertedIndex {
+    int getListStart(int token) {
+        return listStarts[token];
+    }
 
-    private final HashMap<Integer, ListHead> invlist = new HashMap<>();
+    int getPosition(int entry) {
+        return positions[entry];
+    }
 
-    public void add(int key, int[] value) {
-        ListHead ilist = invlist.getOrDefault(key, new ListHead());
-        ilist.add(value);
-        if (ilist.getInvlist().size() == 1)
-            invlist.put(key, ilist);
+    int getRecordId(int entry) {
+        return recordIds[entry];
     }
 
-    public ListHead getHeader(int key) {
-        return invlist.getOrDefault(key, new ListHead());
+    // drops the given entry of the token's list along with all subsequent ones
+    void truncate(int token, int entry) {
+        listEnds[token] = entry;
     }
 }
@@ -67,9 +67,10 @@ public class JaccardTopK {
         return (float)(overlap / (0.0 + len1 + len2 - overlap));
     }
 
+    // the two records share at most their remaining tokens, so both sides are bounded as probes
     public float upperbound_access(int len1, int len2, int pos1, int pos2) {
         float probe = upperbound_probe(len1, pos1);
-        float ind = upperbound_index(len2, pos2);
+        float ind = upperbound_probe(len2, pos2);
         return probe * ind / (probe + ind - probe * ind);
     }
 
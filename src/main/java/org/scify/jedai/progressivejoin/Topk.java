@@ -15,24 +15,16 @@
  */
 package org.scify.jedai.progressivejoin;
 
-import gnu.trove.iterator.TIntIntIterator;
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.hash.TIntIntHashMap;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.jena.atlas.json.JsonArray;
 import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.joins.IntPair;
+import org.scify.jedai.datamodel.joins.TokenDictionary;
+import org.scify.jedai.utilities.datastructures.BoundedPairHeap;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  *
@@ -40,20 +32,22 @@ import java.util.List;
  */
 public class Topk extends AbstractProgressiveJoin {
 
-    private int[] originalId;
+    private int cursor;
 
     protected float threshold;
 
     protected final DblGridSearchConfiguration gridThreshold;
     protected final DblRandomSearchConfiguration randomThreshold;
 
-    private final List<String> attributeValues;
-    private TIntList[] records;
+    // the retained pairs in decreasing similarity
+    private int noOfResults;
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] similarities;
 
     public Topk(float thr, int budget) {
         super(budget);
         threshold = thr;
-        attributeValues = new ArrayList<>();
 
         gridThreshold = new DblGridSearchConfiguration(1.0f, 0.025f, 0.025f);
         randomThreshold = new DblRandomSearchConfiguration(1.0f, 0.01f);
@@ -61,119 +55,30 @@ public class Topk extends AbstractProgressiveJoin {
 
     @Override
     public void prepareJoin(String attributeName1, String attributeName2, List<EntityProfile> dataset1, List<EntityProfile> dataset2) {
-        init();
-
-        final List<Comparison> comparisons = performJoin();
-        getSimilarityPairs(comparisons);
-    }
-
-    private void init() {
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
-        }
-
-        idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
-        }
-
-        final TIntIntMap freqMap = new TIntIntHashMap();
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length() < 1) {
-                continue;
-            }
-
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                records[sIndex].add(token);
-                int freq = freqMap.get(token);
-                freqMap.put(token, (freq + 1));
-            }
-
-        }
-
-        final List<IntPair> tokenFreq = new ArrayList<>();
-        for (TIntIntIterator iterator = freqMap.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            tokenFreq.add(new IntPair(iterator.key(), iterator.value()));
-        }
-        tokenFreq.sort((p1, p2) -> p2.getValue() - p1.getValue());
-        freqMap.clear();
-        for (int i = 0; i < tokenFreq.size(); i++) {
-            freqMap.put(tokenFreq.get(i).getKey(), i);
+        // the record ids coincide with the entity ids, with the second dataset following the first one
+        final TokenDictionary dictionary = new TokenDictionary(columnD1, columnD2, true);
+        final int[][] records = new int[dictionary.getNoOfRecords()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = dictionary.getRecord(i);
         }
 
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            for (int iii = 0; iii < records[sIndex].size(); iii++) {
-                int idfid = freqMap.get(records[sIndex].get(iii)) * 2 + 2;
-                records[sIndex].set(iii, idfid);
+        final TopkGlobal topk = new TopkGlobal(records, dictionary.getNoOfTokens(), new JaccardTopK(comparisonsBudget));
+        topk.setDatasetDelimiter(datasetDelimiter);
+        final BoundedPairHeap results = topk.run();
+        results.sortBySimilarity();
+
+        cursor = 0;
+        noOfResults = 0;
+        entityIds1 = new int[results.size()];
+        entityIds2 = new int[results.size()];
+        similarities = new float[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            if (threshold <= results.getSimilarity(i)) {
+                entityIds1[noOfResults] = results.getEntityId1(i);
+                entityIds2[noOfResults] = results.getEntityId2(i);
+                similarities[noOfResults++] = results.getSimilarity(i);
             }
-            records[sIndex].sort();
         }
-
-    }
-
-    private List<Comparison> performJoin() {
-        final SetSimJoin ssj = new SetSimJoin();
-        LinkedHashMap<String, ArrayList<Integer>> recordsForTopk = new LinkedHashMap<>();
-        int cnter = 0;
-        for (TIntList rec : records) {
-            ArrayList<Integer> tokens = new ArrayList<>();
-            String id = ("" + originalId[cnter++]);
-            for (int inrec = 0; inrec < rec.size(); inrec++) {
-                tokens.add(rec.get(inrec));
-            }
-            recordsForTopk.put(id, tokens);
-        }
-        ssj.setCleanCleanER(isCleanCleanER);
-        ssj.setNoOfEntities(noOfEntities);
-        ssj.setDatasetDelimiter(datasetDelimiter);
-        ssj.setRecords(recordsForTopk);
-        ssj.topkGlobal(comparisonsBudget);
-
-        ArrayList<Comparison> results = ssj.getResults();
-        final List<Comparison> executedComparisons = new ArrayList<>();
-
-        for (Comparison res : results) {
-            int id1 = res.getEntityId1();
-            int id2 = res.getEntityId2();
-            if (id1 == id2) {
-                continue;
-            }
-            if (isCleanCleanER) {
-                if (((id1 < datasetDelimiter) && (id2 < datasetDelimiter)) || ((id1 >= datasetDelimiter) && (id2 >= datasetDelimiter))) {
-                    continue;
-                }
-            }
-            if (res.getUtilityMeasure() >= threshold) {
-                final Comparison currentComp = getComparison(id1, id2);
-                currentComp.setUtilityMeasure(res.getUtilityMeasure());
-                executedComparisons.add(currentComp);
-            }
-        }
-
-        return executedComparisons;
     }
 
     @Override
@@ -233,11 +138,17 @@ public class Topk extends AbstractProgressiveJoin {
 
     @Override
     public boolean hasNext() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return cursor < noOfResults;
     }
 
     @Override
     public Comparison next() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Comparison comparison = getComparison(entityIds1[cursor], entityIds2[cursor]);
+        comparison.setUtilityMeasure(similarities[cursor++]);
+        return comparison;
     }
 }
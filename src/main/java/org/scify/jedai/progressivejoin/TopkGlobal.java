@@ -15,169 +15,136 @@
  */
 package org.scify.jedai.progressivejoin;
 
-import java.util.*;
-import org.scify.jedai.datamodel.Comparison;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.scify.jedai.utilities.datastructures.BoundedPairHeap;
 
 /**
+ * The global top-k set similarity join over records of sorted token ids: the
+ * prefixes of the records are probed and indexed in decreasing order of their
+ * similarity upper bound, until it drops below the k-th best similarity.
  *
  * @author mthanos
  */
 public class TopkGlobal {
 
-    private final List<Comparison> results;
+    private int datasetDelimiter;
+    private final int noOfTokens;
+    private final int[][] records;
     private final JaccardTopK similarity;
-    private final LinkedHashMap<Integer, ArrayList<Integer>> records;
-
-    private boolean[] isindataset1;
-    private boolean iscleancleanEr;
 
     /**
-     * @param records
-     * @param similarity
-     * @param results the results from {@link #run()} will be added into this
-     * list
+     * @param records the sorted token ids of every record
+     * @param noOfTokens the number of distinct token ids
+     * @param similarity the similarity bounds, along with k
      */
-    public TopkGlobal(LinkedHashMap<Integer, ArrayList<Integer>> records, JaccardTopK similarity, List<Comparison> results) {
+    public TopkGlobal(int[][] records, int noOfTokens, JaccardTopK similarity) {
         this.records = records;
+        this.noOfTokens = noOfTokens;
         this.similarity = similarity;
-        this.results = results;
+        datasetDelimiter = 0;
     }
 
-    public void run() {
-        InvertedIndex ind = new InvertedIndex();
-//        int candcount = 0;
-
-        // <recordid, position, threshold>
-        PriorityQueue<Object[]> events = new PriorityQueue<>((o1, o2) -> {
-            if ((Float) o1[2] > (Float) o2[2]) {
-                return -1;
-            } else if (Math.abs((Float) o1[2] - (Float) o2[2]) < 1E-13 && (int) o1[0] > (int) o2[0]) {
-                return -1;
-            } else if (Math.abs((Float) o1[2] - (Float) o2[2]) < 1E-13 && (int) o1[0] == (int) o2[0]) {
-                return 0;
-            } else {
-                return 1;
-            }
-        });
-        records.forEach((recordid, tokens) -> events.add(new Object[]{recordid, 0, 1.0}));
-
-        SortedList<Comparison> tmpresults = new SortedList<>((o1, o2) -> {
-            if (Math.abs(o1.getUtilityMeasure() - o2.getUtilityMeasure()) < 1E-13) {
-                return 0;
-            } else if (o1.getUtilityMeasure() > o2.getUtilityMeasure()) {
-                return -1;
-            } else {
-                return 1;
+    /**
+     * @return the (at most) k most similar pairs of records
+     */
+    public BoundedPairHeap run() {
+        final BoundedPairHeap results = new BoundedPairHeap(similarity.k);
+        final InvertedIndex ind = new InvertedIndex(records, noOfTokens);
+        final EventQueue events = new EventQueue(records.length);
+        for (int recordid = 0; recordid < records.length; recordid++) {
+            if (0 < records[recordid].length) {
+                events.add(recordid, 0, 1.0f);
             }
-        });
+        }
 
-        // <recordid1, recordid2>
-        Set<ArrayList<Integer>> testonce = new HashSet<>();
+        // <recordid1, recordid2> as (min << 32 | max)
+        final TLongSet testonce = new TLongHashSet();
+        // <sim_overlap, nextposrec, nextposindrec>
+        final int[] verified = new int[3];
 
         boolean do_index_insertion = true;
-
         while (!events.isEmpty()) {
-            Object[] curevent = events.poll();
-            int recordid = (int) curevent[0];
+            int recordid = events.getTopRecordId();
+            int position = events.getTopPosition();
+            float bound = events.getTopBound();
+            events.removeTop();
 
-            float thres = getThres(tmpresults, similarity.k);
+            float thres = results.getMinimumSimilarity();
             // stop if thresholds in result queue are all bigger than possible thresholds in event queue
-            if (thres > (float) curevent[2]) {
+            if (thres > bound) {
                 break;
             }
 
-            ArrayList<Integer> record = records.get(recordid);
-            int reclen = record.size();
-            Integer token = record.get((int) curevent[1]);
-
-            ListHead indheader = ind.getHeader(token);
-            List<int[]> indlist = indheader.getInvlist();
-
-            for (ListIterator<int[]> iter = indlist.listIterator(); iter.hasNext();) {
-                int pos = iter.nextIndex();
-                int[] indrecordpair = iter.next();
-                int indrecid = indrecordpair[0];
-                if (iscleancleanEr) {
-                    if (isindataset1[recordid] == isindataset1[indrecid]) {
-                        continue;
-                    }
+            int[] record = records[recordid];
+            int reclen = record.length;
+            int token = record[position];
+
+            for (int entry = ind.getListStart(token); entry < ind.getListEnd(token); entry++) {
+                int indrecid = ind.getRecordId(entry);
+                if (indrecid == recordid || (0 < datasetDelimiter && (recordid < datasetDelimiter) == (indrecid < datasetDelimiter))) {
+                    continue;
                 }
-                ArrayList<Integer> indexedrecord = records.get(indrecid);
-                int indreclen = indexedrecord.size();
+
+                int[] indexedrecord = records[indrecid];
+                int indreclen = indexedrecord.length;
+                int indpos = ind.getPosition(entry);
 
                 // list shortening - SimilarityUpperBound-Access
-                if (similarity.upperbound_access(reclen, indreclen, (int) curevent[1], indrecordpair[1]) < thres) {
-                    indheader.cutoff_from(pos);
+                // the entries follow in decreasing index bound, so none of the subsequent ones can reach the threshold, either
+                if (similarity.upperbound_access(reclen, indreclen, position, indpos) < thres) {
+                    ind.truncate(token, entry);
                     break;
                 }
 
                 // length filter
-                if (indreclen >= similarity.minsize_orig(indreclen, thres) && indreclen <= similarity.maxsize_orig(indreclen, thres)) {
-                    ArrayList<Integer> testpair = new ArrayList<>(Arrays.asList(Math.min(recordid, indrecid), Math.max(recordid, indrecid)));
-                    if (!testonce.contains(testpair)) {
-
-//                        candcount++;
-                        float maxrecprobepos = similarity.maxprefix(reclen, thres);
-                        float maxindrecprobepos = similarity.maxprefix(indreclen, thres);
-
-                        int minoverlap = similarity.minoverlap(reclen, indreclen, thres);
-
-                        // <sim_overlap, nextposrec, nextposindrec>
-                        int[] verified = Verify.verifiy_sim(record, indexedrecord, minoverlap, 1,
-                                (int) curevent[1] + 1, indrecordpair[1] + 1);
+                if (indreclen < similarity.minsize_orig(reclen, thres) || similarity.maxsize_orig(reclen, thres) < indreclen) {
+                    continue;
+                }
 
-                        float sim_val = similarity.computesim(reclen, indreclen, verified[0]);
+                long testpair = ((long) Math.min(recordid, indrecid) << 32) | Math.max(recordid, indrecid);
+                if (testonce.contains(testpair)) {
+                    continue;
+                }
 
-                        if (verified[1] < maxrecprobepos && verified[2] < maxindrecprobepos) {
-                            testonce.add(testpair);
-                        }
+                float maxrecprobepos = similarity.maxprefix(reclen, thres);
+                float maxindrecprobepos = similarity.maxprefix(indreclen, thres);
+                int minoverlap = similarity.minoverlap(reclen, indreclen, thres);
+                Verify.verify_sim(record, indexedrecord, minoverlap, 1, position + 1, indpos + 1, verified);
+                float sim_val = similarity.computesim(reclen, indreclen, verified[0]);
 
-                        Comparison c = new Comparison(iscleancleanEr, recordid, indrecid);
-                        c.setUtilityMeasure(sim_val);
-                        tmpresults.add(c);
-                        thres = getThres(tmpresults, similarity.k);
-                    }
+                if (verified[1] < maxrecprobepos && verified[2] < maxindrecprobepos) {
+                    testonce.add(testpair);
                 }
-            }
 
-            if (tmpresults.size() >= similarity.k) {
-                tmpresults.subList(similarity.k, tmpresults.size()).clear();
+                if (results.add(recordid, indrecid, sim_val)) {
+                    thres = results.getMinimumSimilarity();
+                }
             }
 
             // SimilarityUpperBound-Probe
-            thres = similarity.upperbound_probe(reclen, (int) curevent[1] + 1);
-
-            if ((int) curevent[1] + 1 < reclen) {
-                events.add(new Object[]{recordid, (int) curevent[1] + 1, thres});
+            if (position + 1 < reclen) {
+                events.add(recordid, position + 1, similarity.upperbound_probe(reclen, position + 1));
             }
 
+            // the index bounds decrease along with the probe bounds, so no later entry can reach the threshold, either
             if (do_index_insertion) {
-                float sim_upperbound_index = similarity.upperbound_index(reclen, (int) curevent[1]);
-                if (sim_upperbound_index > thres) {
-                    ind.add(token, new int[]{recordid, (int) curevent[1]});
+                if (similarity.upperbound_index(reclen, position) > thres) {
+                    ind.add(token, recordid, position);
                 } else {
                     do_index_insertion = false;
                 }
             }
         }
 
-        results.addAll(tmpresults.subList(0, tmpresults.size() < similarity.k ? tmpresults.size() : similarity.k));
-//        System.out.println("SSJ Candidates: " + candcount);
-//        System.out.println("SSJ Result Count: " + results.size());
+        return results;
     }
 
-    private float getThres(SortedList<Comparison> tmpresults, int k) {
-        if (tmpresults.size() >= k) {
-            return tmpresults.get(k - 1).getUtilityMeasure();
-        }
-        return 0.0f;
-    }
-
-    public void setIsindataset1(boolean[] isindataset1) {
-        this.isindataset1 = isindataset1;
-    }
-
-    public void setIscleancleanEr(boolean iscleancleanEr) {
-        this.iscleancleanEr = iscleancleanEr;
+    /**
+     * @param datasetDelimiter the id of the first record of the second
+     * dataset, or 0 for Dirty ER
+     */
+    public void setDatasetDelimiter(int datasetDelimiter) {
+        this.datasetDelimiter = datasetDelimiter;
     }
 }
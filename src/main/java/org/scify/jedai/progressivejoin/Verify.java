@@ -15,19 +15,24 @@
  */
 package org.scify.jedai.progressivejoin;
 
-import java.util.ArrayList;
-import java.util.Objects;
-
 /**
  *
  * @author mthanos
  */
 public class Verify {
 
-    public static int[] verifiy_sim(ArrayList<Integer> record, ArrayList<Integer> indrecord, int minoverlap, int foundoverlap,
-            int recpos, int indrecpos) {
-        int reclen = record.size();
-        int indreclen = indrecord.size();
+    /**
+     * Merges the sorted tokens of the given records from the given positions
+     * on, stopping early if the minimum overlap becomes unreachable.
+     *
+     * @param verified receives the overlap (0, if it falls short of the
+     * minimum), as well as the positions of the first common token in the two
+     * records (-1, if none)
+     */
+    public static void verify_sim(int[] record, int[] indrecord, int minoverlap, int foundoverlap,
+            int recpos, int indrecpos, int[] verified) {
+        int reclen = record.length;
+        int indreclen = indrecord.length;
         int maxrec = reclen - recpos + foundoverlap;
         int maxindrec = indreclen - indrecpos + foundoverlap;
 
@@ -35,7 +40,7 @@ public class Verify {
         int nextposindrec = -1;
 
         while (maxrec >= minoverlap && maxindrec >= minoverlap && foundoverlap < minoverlap) {
-            if (Objects.equals(record.get(recpos), indrecord.get(indrecpos))) {
+            if (record[recpos] == indrecord[indrecpos]) {
                 if (nextposrec == -1) {
                     nextposrec = recpos;
                     nextposindrec = indrecpos;
@@ -43,7 +48,7 @@ public class Verify {
                 recpos++;
                 indrecpos++;
                 foundoverlap++;
-            } else if (record.get(recpos) < indrecord.get(indrecpos)) {
+            } else if (record[recpos] < indrecord[indrecpos]) {
                 recpos++;
                 maxrec--;
             } else {
@@ -53,11 +58,14 @@ public class Verify {
         }
 
         if (foundoverlap < minoverlap) {
-            return new int[]{0, -1, -1};
+            verified[0] = 0;
+            verified[1] = -1;
+            verified[2] = -1;
+            return;
         }
 
         while (recpos < reclen && indrecpos < indreclen) {
-            if (Objects.equals(record.get(recpos), indrecord.get(indrecpos))) {
+            if (record[recpos] == indrecord[indrecpos]) {
                 if (nextposrec == -1) {
                     nextposrec = recpos;
                     nextposindrec = indrecpos;
@@ -65,13 +73,15 @@ public class Verify {
                 recpos++;
                 indrecpos++;
                 foundoverlap++;
-            } else if (record.get(recpos) < indrecord.get(indrecpos)) {
+            } else if (record[recpos] < indrecord[indrecpos]) {
                 recpos++;
             } else {
                 indrecpos++;
             }
         }
 
-        return new int[]{foundoverlap, nextposrec, nextposindrec};
+        verified[0] = foundoverlap;
+        verified[1] = nextposrec;
+        verified[2] = nextposindrec;
     }
 }
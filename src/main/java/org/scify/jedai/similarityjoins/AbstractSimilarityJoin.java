@@ -16,8 +16,11 @@
 package org.scify.jedai.similarityjoins;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 import org.scify.jedai.datamodel.*;
+import org.scify.jedai.datamodel.joins.ResultBuffer;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 
 /**
  *
@@ -26,6 +29,7 @@ import org.scify.jedai.datamodel.*;
 public abstract class AbstractSimilarityJoin implements ISimilarityJoin {
 
     protected boolean isCleanCleanER;
+    protected boolean parallel;
 
     protected int datasetDelimiter;
     protected int noOfEntities;
@@ -36,12 +40,33 @@ public abstract class AbstractSimilarityJoin implements ISimilarityJoin {
     protected List<EntityProfile> profilesD1;
     protected List<EntityProfile> profilesD2;
 
+    protected TokenizedColumn columnD1;
+    protected TokenizedColumn columnD2;
+
     public int[] originalIdInBlock;
 
     public AbstractSimilarityJoin() {
+        parallel = false;
+    }
+
+    // passes the pair to the consumer with the entity ids of the input datasets
+    protected void addComparison(int entityId, int neighborId, float similarity, ISimilarityPairConsumer consumer) {
+        if (this.originalIdInBlock != null) {
+            if (entityId < datasetDelimiter) {
+                consumer.accept(originalIdInBlock[entityId], originalIdInBlock[neighborId], similarity);
+            } else {
+                consumer.accept(originalIdInBlock[neighborId], originalIdInBlock[entityId], similarity);
+            }
+        } else if (!isCleanCleanER) {
+            consumer.accept(Math.min(entityId, neighborId), Math.max(entityId, neighborId), similarity);
+        } else if (entityId < datasetDelimiter) {
+            consumer.accept(entityId, neighborId - datasetDelimiter, similarity);
+        } else {
+            consumer.accept(neighborId, entityId - datasetDelimiter, similarity);
+        }
     }
 
-    protected abstract SimilarityPairs applyJoin();
+    protected abstract void applyJoin(ISimilarityPairConsumer consumer);
 
     @Override
     public SimilarityPairs executeFiltering(String attributeName, List<EntityProfile> dataset) {
@@ -50,61 +75,147 @@ public abstract class AbstractSimilarityJoin implements ISimilarityJoin {
 
     @Override
     public SimilarityPairs executeFiltering(String name1, String name2, List<EntityProfile> dataset1, List<EntityProfile> dataset2) {
-        attributeNameD1 = name1;
-        attributeNameD2 = name2;
-        profilesD1 = dataset1;
-        profilesD2 = dataset2;
-        isCleanCleanER = profilesD2 != null;
-        datasetDelimiter = dataset2 != null ? profilesD1.size() : 0;
-        noOfEntities = profilesD2 == null ? profilesD1.size() : profilesD1.size() + profilesD2.size();
-
-        return applyJoin();
-    }
-
-    protected String getAttributeValue(String attributeName, EntityProfile profile) {
-        final StringBuilder sb = new StringBuilder();
-        for (Attribute attribute : profile.getAttributes()) {
-            if (attribute.getName().toLowerCase().trim().equals(attributeName.toLowerCase())) {
-                final String[] tokens = attribute.getValue().toLowerCase().split("[\\W_]");
-                for (String token : tokens) {
-                    if (0 < token.trim().length()) {
-                        sb.append(token).append(" ");
-                    }
-                }
-            }
-        }
+        final SimilarityPairs simPairs = new SimilarityPairs(dataset2 != null);
+        executeFiltering(name1, name2, dataset1, dataset2, simPairs::addComparison);
+        return simPairs;
+    }
 
-        return sb.toString().trim();
+    @Override
+    public void executeFiltering(String attributeName, List<EntityProfile> dataset, ISimilarityPairConsumer consumer) {
+        this.executeFiltering(attributeName, null, dataset, null, consumer);
     }
 
-    protected Comparison getComparison(int entityId, int neighborId) {
-        if (this.originalIdInBlock != null) {
-            if (entityId < datasetDelimiter) {
-                return new Comparison(isCleanCleanER, originalIdInBlock[entityId], originalIdInBlock[neighborId]);
-            } else {
-                return new Comparison(isCleanCleanER, originalIdInBlock[neighborId], originalIdInBlock[entityId]);
-            }
+    @Override
+    public void executeFiltering(String name1, String name2, List<EntityProfile> dataset1, List<EntityProfile> dataset2, ISimilarityPairConsumer consumer) {
+        // the columns of the previous execution are reused, e.g., during grid search
+        final TokenizedColumn column1 = getColumn(columnD1, dataset1, name1);
+        final TokenizedColumn column2 = dataset2 == null ? null : getColumn(columnD2, dataset2, name2);
+        executeFiltering(column1, column2, consumer);
+    }
+
+    @Override
+    public SimilarityPairs executeFiltering(TokenizedColumn column) {
+        return this.executeFiltering(column, (TokenizedColumn) null);
+    }
+
+    @Override
+    public SimilarityPairs executeFiltering(TokenizedColumn column1, TokenizedColumn column2) {
+        final SimilarityPairs simPairs = new SimilarityPairs(column2 != null);
+        executeFiltering(column1, column2, simPairs::addComparison);
+        return simPairs;
+    }
+
+    @Override
+    public void executeFiltering(TokenizedColumn column, ISimilarityPairConsumer consumer) {
+        this.executeFiltering(column, null, consumer);
+    }
+
+    @Override
+    public void executeFiltering(TokenizedColumn column1, TokenizedColumn column2, ISimilarityPairConsumer consumer) {
+        columnD1 = column1;
+        columnD2 = column2;
+        attributeNameD1 = column1.getAttributeName();
+        attributeNameD2 = column2 == null ? null : column2.getAttributeName();
+        profilesD1 = column1.getProfiles();
+        profilesD2 = column2 == null ? null : column2.getProfiles();
+        isCleanCleanER = column2 != null;
+        datasetDelimiter = column2 != null ? column1.getSize() : 0;
+        noOfEntities = column2 == null ? column1.getSize() : column1.getSize() + column2.getSize();
+
+        applyJoin(consumer);
+    }
+
+    /**
+     * Prepares the verification of individual pairs of values of the given
+     * columns under the measure and the threshold of the join, e.g., for a
+     * predicate of a multi-attribute join. The verifier is built once per
+     * predicate, so that its estimate and its verification share their data
+     * structures.
+     *
+     * @param column2 the second column, or null for a single column
+     */
+    protected abstract PairVerifier getPairVerifier(TokenizedColumn column1, TokenizedColumn column2);
+
+    private static TokenizedColumn getColumn(TokenizedColumn column, List<EntityProfile> profiles, String attributeName) {
+        if (column != null && column.isColumnOf(profiles, attributeName)) {
+            return column;
         }
-        if (!isCleanCleanER) {
-            if (entityId < neighborId) {
-                return new Comparison(isCleanCleanER, entityId, neighborId);
-            } else {
-                return new Comparison(isCleanCleanER, neighborId, entityId);
-            }
-        } else {
-            if (entityId < datasetDelimiter) {
-                return new Comparison(isCleanCleanER, entityId, neighborId - datasetDelimiter);
-            } else {
-                return new Comparison(isCleanCleanER, neighborId, entityId - datasetDelimiter);
-            }
+        return new TokenizedColumn(profiles, attributeName);
+    }
+
+    // the normalized value of the given record, with the records of the second dataset following those of the first one
+    protected String getAttributeValue(int recordId) {
+        if (recordId < datasetDelimiter || columnD2 == null) {
+            return columnD1.getValue(recordId);
         }
+        return columnD2.getValue(recordId - datasetDelimiter);
     }
 
-    protected SimilarityPairs getSimilarityPairs(List<Comparison> comparisons) {
-        final SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanER, comparisons.size());
-        for (Comparison comparison : comparisons) {
-            simPairs.addComparison(comparison);
+    /**
+     * Joins all records with the given consumer. In parallel mode, the records
+     * are split into consecutive ranges that are joined concurrently, each
+     * with its own result buffer; the buffers are passed to the consumer in
+     * range order, so the output is the same in both modes. The ranges are
+     * joined in waves of twice as many ranges as the available processors, so
+     * that at most the results of a wave are buffered at any time, i.e.,
+     * about 1/32 of the output for evenly distributed matches.
+     *
+     * @param noOfRecords the number of records to be processed
+     * @param rangeJoin the join of a range of records
+     * @param consumer the consumer of all results
+     */
+    protected void joinRanges(int noOfRecords, RangeJoin rangeJoin, ISimilarityPairConsumer consumer) {
+        if (!parallel) {
+            rangeJoin.join(0, noOfRecords, consumer);
+            return;
         }
-        return simPairs;
+
+        final int noOfProcessors = Runtime.getRuntime().availableProcessors();
+        final int noOfRanges = Math.max(1, Math.min(noOfRecords, 64 * noOfProcessors));
+        final int[] rangeStart = new int[noOfRanges + 1];
+        for (int i = 0; i <= noOfRanges; i++) {
+            rangeStart[i] = (int) ((long) i * noOfRecords / noOfRanges);
+        }
+
+        final int rangesPerWave = 2 * noOfProcessors;
+        for (int firstRange = 0; firstRange < noOfRanges; firstRange += rangesPerWave) {
+            IntStream.range(firstRange, Math.min(noOfRanges, firstRange + rangesPerWave)).parallel().mapToObj(r -> {
+                final ResultBuffer buffer = new ResultBuffer();
+                rangeJoin.join(rangeStart[r], rangeStart[r + 1], buffer);
+                return buffer;
+            }).forEachOrdered(buffer -> buffer.forEach(consumer));
+        }
+    }
+
+    /**
+     * @param parallel true if the records should be probed by multiple
+     * threads; the output is the same in both cases
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    protected interface PairVerifier {
+
+        /**
+         * @return the number of candidate pairs that the join would verify on
+         * the columns of the verifier, so that the predicates of a
+         * multi-attribute join can be ranked by selectivity
+         */
+        long estimateNoOfCandidates();
+
+        /**
+         * @param recordId1 the index of a value of the first column
+         * @param recordId2 the index of a value of the second column, or of the
+         * first one if there is a single column
+         * @return the similarity the join would assign to the pair, or a negative
+         * number if it is not a match
+         */
+        float getSimilarity(int recordId1, int recordId2);
+    }
+
+    protected interface RangeJoin {
+
+        void join(int fromRecord, int toRecord, ISimilarityPairConsumer results);
     }
 }
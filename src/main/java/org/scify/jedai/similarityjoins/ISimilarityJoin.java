@@ -19,7 +19,9 @@ package org.scify.jedai.similarityjoins;
 import java.util.List;
 import org.scify.jedai.configuration.IConfiguration;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 import org.scify.jedai.utilities.IDocumentation;
 
 
@@ -33,4 +35,25 @@ public interface ISimilarityJoin extends IConfiguration, IDocumentation {
     SimilarityPairs executeFiltering(String attributeName, List<EntityProfile> dataset);
 
     SimilarityPairs executeFiltering(String attributeName1, String attributeName2, List<EntityProfile> dataset1, List<EntityProfile> dataset2);
+
+    /**
+     * Passes every matching pair to the given consumer as soon as it is
+     * verified, instead of collecting the entire output in memory.
+     */
+    void executeFiltering(String attributeName, List<EntityProfile> dataset, ISimilarityPairConsumer consumer);
+
+    void executeFiltering(String attributeName1, String attributeName2, List<EntityProfile> dataset1, List<EntityProfile> dataset2, ISimilarityPairConsumer consumer);
+
+    /**
+     * Joins an attribute that has already been tokenized, so that the same
+     * column can be shared among several joins without processing its values
+     * again.
+     */
+    SimilarityPairs executeFiltering(TokenizedColumn column);
+
+    SimilarityPairs executeFiltering(TokenizedColumn column1, TokenizedColumn column2);
+
+    void executeFiltering(TokenizedColumn column, ISimilarityPairConsumer consumer);
+
+    void executeFiltering(TokenizedColumn column1, TokenizedColumn column2, ISimilarityPairConsumer consumer);
 }
@@ -0,0 +1,58 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins;
+
+/**
+ * A predicate of a multi-attribute join: two values of the given attributes
+ * satisfy it if the given join would match them. The join determines the
+ * similarity measure and its threshold, e.g., a PPJoin with threshold 0.8
+ * requires a Jaccard similarity of at least 0.8.
+ *
+ * @author G.A.P. II
+ */
+public class JoinPredicate {
+
+    private final AbstractSimilarityJoin join;
+    private final String attributeName1;
+    private final String attributeName2;
+
+    public JoinPredicate(String attributeName, AbstractSimilarityJoin join) {
+        this(attributeName, attributeName, join);
+    }
+
+    /**
+     * @param attributeName1 the attribute of the first dataset
+     * @param attributeName2 the attribute of the second dataset, if any
+     * @param join the join that defines the measure and the threshold
+     */
+    public JoinPredicate(String attributeName1, String attributeName2, AbstractSimilarityJoin join) {
+        this.attributeName1 = attributeName1;
+        this.attributeName2 = attributeName2;
+        this.join = join;
+    }
+
+    public String getAttributeName1() {
+        return attributeName1;
+    }
+
+    public String getAttributeName2() {
+        return attributeName2;
+    }
+
+    public AbstractSimilarityJoin getJoin() {
+        return join;
+    }
+}
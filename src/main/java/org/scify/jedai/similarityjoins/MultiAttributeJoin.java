@@ -0,0 +1,145 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
+
+/**
+ * Joins the profiles on several attributes in a single pass. Under AND, only
+ * the most selective predicate is executed as a join, i.e., the one with the
+ * fewest estimated candidates, and the rest are verified on its matches; the
+ * similarity of a pair is the minimum one among all predicates. Under OR,
+ * every predicate is executed as a join, and a pair is reported only by the
+ * first predicate it satisfies, with the corresponding similarity.
+ *
+ * The attributes are tokenized once, even if they appear in several
+ * predicates.
+ *
+ * @author G.A.P. II
+ */
+public class MultiAttributeJoin {
+
+    public enum Operator {
+        AND,
+        OR
+    }
+
+    private final List<JoinPredicate> predicates;
+    private final Operator operator;
+
+    public MultiAttributeJoin(Operator operator, JoinPredicate... predicates) {
+        if (predicates.length == 0) {
+            throw new IllegalArgumentException("At least one join predicate is required");
+        }
+        this.operator = operator;
+        this.predicates = Arrays.asList(predicates);
+    }
+
+    public SimilarityPairs executeFiltering(List<EntityProfile> dataset) {
+        return executeFiltering(dataset, null);
+    }
+
+    public SimilarityPairs executeFiltering(List<EntityProfile> dataset1, List<EntityProfile> dataset2) {
+        final SimilarityPairs simPairs = new SimilarityPairs(dataset2 != null);
+        executeFiltering(dataset1, dataset2, simPairs::addComparison);
+        return simPairs;
+    }
+
+    /**
+     * @param dataset2 the second dataset, or null for Dirty ER
+     */
+    public void executeFiltering(List<EntityProfile> dataset1, List<EntityProfile> dataset2, ISimilarityPairConsumer consumer) {
+        final TokenizedColumn[] columns1 = getColumns(dataset1, true);
+        final TokenizedColumn[] columns2 = dataset2 == null ? new TokenizedColumn[predicates.size()] : getColumns(dataset2, false);
+        if (operator == Operator.AND) {
+            executeConjunction(columns1, columns2, consumer);
+        } else {
+            executeDisjunction(columns1, columns2, consumer);
+        }
+    }
+
+    private void executeConjunction(TokenizedColumn[] columns1, TokenizedColumn[] columns2, ISimilarityPairConsumer consumer) {
+        final AbstractSimilarityJoin.PairVerifier[] verifiers = new AbstractSimilarityJoin.PairVerifier[predicates.size()];
+        for (int i = 0; i < predicates.size(); i++) {
+            verifiers[i] = predicates.get(i).getJoin().getPairVerifier(columns1[i], columns2[i]);
+        }
+
+        int indexedPredicate = 0;
+        if (1 < predicates.size()) {
+            long minCandidates = Long.MAX_VALUE;
+            for (int i = 0; i < predicates.size(); i++) {
+                long noOfCandidates = verifiers[i].estimateNoOfCandidates();
+                if (noOfCandidates < minCandidates) {
+                    indexedPredicate = i;
+                    minCandidates = noOfCandidates;
+                }
+            }
+        }
+        verifiers[indexedPredicate] = null;
+
+        predicates.get(indexedPredicate).getJoin().executeFiltering(columns1[indexedPredicate], columns2[indexedPredicate], (id1, id2, sim) -> {
+            float minSimilarity = sim;
+            for (AbstractSimilarityJoin.PairVerifier verifier : verifiers) {
+                if (verifier != null) {
+                    float similarity = verifier.getSimilarity(id1, id2);
+                    if (similarity < 0) {
+                        return;
+                    }
+                    minSimilarity = Math.min(minSimilarity, similarity);
+                }
+            }
+            consumer.accept(id1, id2, minSimilarity);
+        });
+    }
+
+    private void executeDisjunction(TokenizedColumn[] columns1, TokenizedColumn[] columns2, ISimilarityPairConsumer consumer) {
+        final AbstractSimilarityJoin.PairVerifier[] verifiers = new AbstractSimilarityJoin.PairVerifier[predicates.size()];
+        for (int i = 0; i < predicates.size(); i++) {
+            // the pairs of the previous predicates have already been reported
+            final int noOfPrevious = i;
+            predicates.get(i).getJoin().executeFiltering(columns1[i], columns2[i], (id1, id2, sim) -> {
+                for (int j = 0; j < noOfPrevious; j++) {
+                    if (0 <= verifiers[j].getSimilarity(id1, id2)) {
+                        return;
+                    }
+                }
+                consumer.accept(id1, id2, sim);
+            });
+
+            if (i < predicates.size() - 1) {
+                verifiers[i] = predicates.get(i).getJoin().getPairVerifier(columns1[i], columns2[i]);
+            }
+        }
+    }
+
+    // the predicates on the same attribute share its column
+    private TokenizedColumn[] getColumns(List<EntityProfile> dataset, boolean firstDataset) {
+        final Map<String, TokenizedColumn> columnsByName = new HashMap<>();
+        final TokenizedColumn[] columns = new TokenizedColumn[predicates.size()];
+        for (int i = 0; i < columns.length; i++) {
+            final String attributeName = firstDataset ? predicates.get(i).getAttributeName1() : predicates.get(i).getAttributeName2();
+            columns[i] = columnsByName.computeIfAbsent(attributeName, name -> new TokenizedColumn(dataset, name));
+        }
+        return columns;
+    }
+}
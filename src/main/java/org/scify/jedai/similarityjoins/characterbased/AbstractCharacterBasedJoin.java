@@ -16,10 +16,16 @@
 
 package org.scify.jedai.similarityjoins.characterbased;
 
+import gnu.trove.iterator.TObjectIntIterator;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import java.util.HashSet;
+import java.util.Set;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
 
 /**
@@ -29,10 +35,10 @@ import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
 
 public abstract class AbstractCharacterBasedJoin extends AbstractSimilarityJoin {
     
-    protected int matrixDimension1;
-    protected int matrixDimension2;
-    
     protected int threshold;
+
+    // every thread verifies its candidates with its own bit vectors
+    private final ThreadLocal<MyersEditDistance> editDistance = ThreadLocal.withInitial(MyersEditDistance::new);
     
     protected final IntGridSearchConfiguration gridThreshold;
     protected final IntRandomSearchConfiguration randomThreshold;
@@ -46,15 +52,25 @@ public abstract class AbstractCharacterBasedJoin extends AbstractSimilarityJoin
     }
     
     protected int djbHash(String str, int len) {
+        return djbHash(str, 0, len);
+    }
+
+    protected int djbHash(String str, int start, int len) {
         int hash = 5381;
 
-        for (int k = 0; k < len; k++) {
+        for (int k = start; k < start + len; k++) {
             hash += (hash << 5) + str.charAt(k);
         }
 
         return (hash & 0x7FFFFFFF);
     }
 
+    /**
+     * @param poslen the start positions and the lengths of the compared
+     * substrings of s1 and s2, in this order; by default, the entire strings
+     * @return the edit distance of the (sub)strings, or THRESHOLD + 1 if it
+     * exceeds THRESHOLD
+     */
     protected int getEditDistance(String s1, String s2, int THRESHOLD, int... poslen) {        
         int xpos = poslen.length > 0 ? poslen[0] : 0;
         int ypos = poslen.length > 1 ? poslen[1] : 0;
@@ -66,47 +82,55 @@ public abstract class AbstractCharacterBasedJoin extends AbstractSimilarityJoin
         if (ylen == -1) {
             ylen = s2.length() - ypos;
         }
-        if (xlen > ylen + THRESHOLD || ylen > xlen + THRESHOLD) {
-            return THRESHOLD + 1;
-        }
-        if (xlen == 0) {
-            return ylen;
-        }
+        return editDistance.get().getDistance(s1, xpos, xlen, s2, ypos, ylen, THRESHOLD);
+    }
+    
+    @Override
+    protected PairVerifier getPairVerifier(TokenizedColumn column1, TokenizedColumn column2) {
+        final int maxDistance = threshold;
+        final TokenizedColumn otherColumn = column2 == null ? column1 : column2;
+        return new PairVerifier() {
 
-        final int[][] matrix = new int[matrixDimension1][matrixDimension2];
-        for (int k = 0; k <= THRESHOLD; k++) {
-            matrix[0][THRESHOLD + k] = k;
-        }
+            // the pairs of values that share one of the threshold + 1 segments of either value
+            @Override
+            public long estimateNoOfCandidates() {
+                final TObjectIntMap<String> frequencies1 = getSegmentFrequencies(column1);
+                final TObjectIntMap<String> frequencies2 = column2 == null ? frequencies1 : getSegmentFrequencies(column2);
 
-        int right = (THRESHOLD + (ylen - xlen)) / 2;
-        int left = (THRESHOLD - (ylen - xlen)) / 2;
-        for (int i = 1; i <= xlen; i++) {
-            boolean valid = false;
-            if (i <= left) {
-                matrix[i][THRESHOLD - i] = i;
-                valid = true;
-            }
-            for (int j = (i - left >= 1 ? i - left : 1);
-                    j <= (i + right <= ylen ? i + right : ylen); j++) {
-                if (s1.charAt(xpos + i - 1) == s2.charAt(ypos + j - 1)) {
-                    matrix[i][j - i + THRESHOLD] = matrix[i - 1][j - i + THRESHOLD];
-                } else {
-                    matrix[i][j - i + THRESHOLD] = min3(matrix[i - 1][j - i + THRESHOLD],
-                            j - 1 >= i - left ? matrix[i][j - i + THRESHOLD - 1] : THRESHOLD,
-                            j + 1 <= i + right ? matrix[i - 1][j - i + THRESHOLD + 1] : THRESHOLD) + 1;
-                }
-                if (Math.abs(xlen - ylen - i + j) + matrix[i][j - i + THRESHOLD] <= THRESHOLD) {
-                    valid = true;
+                long noOfCandidates = 0;
+                for (TObjectIntIterator<String> iterator = frequencies1.iterator(); iterator.hasNext();) {
+                    iterator.advance();
+                    long frequency = iterator.value();
+                    noOfCandidates += column2 == null ? frequency * (frequency - 1) / 2 : frequency * frequencies2.get(iterator.key());
                 }
+                return noOfCandidates;
+            }
+
+            @Override
+            public float getSimilarity(int recordId1, int recordId2) {
+                int distance = getEditDistance(column1.getValue(recordId1), otherColumn.getValue(recordId2), maxDistance);
+                return 1 - (float) distance / maxDistance;
+            }
+        };
+    }
+
+    private TObjectIntMap<String> getSegmentFrequencies(TokenizedColumn column) {
+        final int noOfSegments = threshold + 1;
+        final Set<String> segments = new HashSet<>();
+        final TObjectIntMap<String> frequencies = new TObjectIntHashMap<>();
+        for (int i = 0; i < column.getSize(); i++) {
+            final String value = column.getValue(i);
+            segments.clear();
+            for (int segment = 0; segment < noOfSegments; segment++) {
+                segments.add(value.substring(segment * value.length() / noOfSegments, (segment + 1) * value.length() / noOfSegments));
             }
-            if (!valid) {
-                return THRESHOLD + 1;
+            for (String segment : segments) {
+                frequencies.adjustOrPutValue(segment, 1, 1);
             }
         }
-        
-        return matrix[xlen][ylen - xlen + THRESHOLD];
+        return frequencies;
     }
-    
+
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + threshold;
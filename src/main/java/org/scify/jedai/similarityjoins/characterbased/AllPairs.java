@@ -18,7 +18,6 @@ package org.scify.jedai.similarityjoins.characterbased;
 import gnu.trove.iterator.TIntIntIterator;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -29,13 +28,12 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 import org.scify.jedai.datamodel.joins.IntListPair;
 import org.scify.jedai.datamodel.joins.IntPair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -45,13 +43,12 @@ import java.util.List;
  */
 public class AllPairs extends AbstractCharacterBasedJoin {
 
-    private int maxLength;
     private int q;
     private int widowBound;
 
     private int[] originalId;
     private final List<String> attributeValues;
-    private TIntList[] tokens;
+    private int[][] tokens;
 
     protected final IntGridSearchConfiguration gridNGSize;
     protected final IntRandomSearchConfiguration randomNGSize;
@@ -71,12 +68,11 @@ public class AllPairs extends AbstractCharacterBasedJoin {
     }
 
     @Override
-    protected SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         int rangeBound = init();
 
         getTokens(rangeBound);
-        final List<Comparison> comparisons = performJoin(rangeBound);
-        return getSimilarityPairs(comparisons);
+        performJoin(rangeBound, consumer);
     }
 
     @Override
@@ -111,12 +107,14 @@ public class AllPairs extends AbstractCharacterBasedJoin {
         int posx = 0;
         int posy = 0;
         int result = 0;
-        while (posx < tokens[x].size() && posy < tokens[y].size()) {
-            if (tokens[x].get(posx) == tokens[y].get(posy)) {
+        final int[] tokensX = tokens[x];
+        final int[] tokensY = tokens[y];
+        while (posx < tokensX.length && posy < tokensY.length) {
+            if (tokensX[posx] == tokensY[posy]) {
                 result++;
                 posx++;
                 posy++;
-            } else if (tokens[x].get(posx) < tokens[y].get(posy)) {
+            } else if (tokensX[posx] < tokensY[posy]) {
                 posx++;
             } else {
                 posy++;
@@ -155,11 +153,11 @@ public class AllPairs extends AbstractCharacterBasedJoin {
         final TIntIntMap freqMap = new TIntIntHashMap();
         for (int k = rangeBound; k < noOfEntities; k++) {
             final String currentValue = attributeValues.get(k);
-            for (int sp = 0; sp < currentValue.length() - q + 1; sp++) {
-                int token = djbHash(currentValue.substring(sp), q);
-                tokens[k].add(token);
-                int cur = freqMap.get(token);
-                freqMap.put(token, cur + 1);
+            tokens[k] = new int[currentValue.length() - q + 1];
+            for (int sp = 0; sp < tokens[k].length; sp++) {
+                int token = djbHash(currentValue, sp, q);
+                tokens[k][sp] = token;
+                freqMap.adjustOrPutValue(token, 1, 1);
             }
         }
 
@@ -180,34 +178,22 @@ public class AllPairs extends AbstractCharacterBasedJoin {
         }
 
         for (int k = rangeBound; k < noOfEntities; k++) {
-            final TIntList token = tokens[k];
-            for (int t = 0; t < token.size(); t++) {
-                token.set(t, freqMap.get(token.get(t)));
+            final int[] token = tokens[k];
+            for (int t = 0; t < token.length; t++) {
+                token[t] = freqMap.get(token[t]);
             }
-            token.sort();
+            Arrays.sort(token);
         }
     }
 
     private int init() {
         widowBound = -1;
 
-        tokens = new TIntList[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            tokens[i] = new TIntArrayList();
-        }
+        tokens = new int[noOfEntities][];
 
-        int counter = 0;
         final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
+        for (int i = 0; i < noOfEntities; i++) {
+            idIdentifier.add(new ImmutablePair<>(getAttributeValue(i), i));
         }
 
         attributeValues.clear();
@@ -218,10 +204,6 @@ public class AllPairs extends AbstractCharacterBasedJoin {
             attributeValues.add(currentPair.getKey());
             originalId[i] = currentPair.getValue();
         }
-        maxLength = attributeValues.get(noOfEntities - 1).length();
-
-        matrixDimension1 = maxLength + 1;
-        matrixDimension2 = 2 * threshold + 1;
 
         int lengthBound = (threshold + 1) * q;
         int rangeBound = noOfEntities;
@@ -237,8 +219,7 @@ public class AllPairs extends AbstractCharacterBasedJoin {
         return rangeBound;
     }
 
-    private List<Comparison> performJoin(int rangeBound) {
-        final List<Comparison> executedComparisons = new ArrayList<>();
+    private void performJoin(int rangeBound, ISimilarityPairConsumer consumer) {
         for (int x = 0; x < rangeBound; x++) {
             for (int y = x + 1; y < rangeBound; y++) {
                 if (isCleanCleanER) {
@@ -251,20 +232,18 @@ public class AllPairs extends AbstractCharacterBasedJoin {
                 }
                 int distance = getEditDistance(attributeValues.get(x), attributeValues.get(y), threshold);
                 if (distance <= threshold) {
-                    final Comparison currentComp = getComparison(originalId[x], originalId[y]);
-                    currentComp.setUtilityMeasure(1 - (float) distance / threshold);
-                    executedComparisons.add(currentComp);
+                    addComparison(originalId[x], originalId[y], 1 - (float) distance / threshold, consumer);
                 }
             }
         }
+        final QGramSignatures signatures = new QGramSignatures(tokens, rangeBound, noOfEntities);
         final TIntObjectMap<IntListPair> index = new TIntObjectHashMap<>();
         for (int k = rangeBound; k < noOfEntities; k++) {
             int count = 0;
             int lastToken = -1;
 
             final TIntSet occurances = new TIntHashSet();
-            for (TIntIterator iter = tokens[k].iterator(); iter.hasNext(); ) {
-                int token = iter.next();
+            for (int token : tokens[k]) {
                 if (count++ >= threshold * q + 1) {
                     break;
                 }
@@ -308,9 +287,13 @@ public class AllPairs extends AbstractCharacterBasedJoin {
                         continue;
                     }
                 }
+                if (!signatures.isCandidate(k, cand, threshold * q)) {
+                    continue;
+                }
+
                 int realOverlap = getOverlap(k, cand);
                 int testValue = realOverlap + threshold * q;
-                if (testValue < tokens[k].size() || testValue < tokens[cand].size()) {
+                if (testValue < tokens[k].length || testValue < tokens[cand].length) {
                     continue;
                 }
 
@@ -318,12 +301,7 @@ public class AllPairs extends AbstractCharacterBasedJoin {
                 if (distance <= threshold) {
                     int id1 = Math.min(originalId[k], originalId[cand]);
                     int id2 = Math.max(originalId[k], originalId[cand]);
-                    final Comparison currentComp = getComparison(id1, id2);
-                    /*if (isCleanCleanER) {
-                        if(originalId[k]>datasetDelimiter)
-                    }*/
-                    currentComp.setUtilityMeasure(1 - distance / threshold);
-                    executedComparisons.add(currentComp);
+                    addComparison(id1, id2, 1 - distance / threshold, consumer);
                 }
             }
 
@@ -357,14 +335,11 @@ public class AllPairs extends AbstractCharacterBasedJoin {
                 if (distance <= threshold) {
                     int id1 = Math.min(originalId[k], originalId[bound]);
                     int id2 = Math.max(originalId[k], originalId[bound]);
-                    final Comparison currentComp = getComparison(id1, id2);
-                    currentComp.setUtilityMeasure(1 - distance / threshold);
-                    executedComparisons.add(currentComp);
+                    addComparison(id1, id2, 1 - distance / threshold, consumer);
                 }
                 bound++;
             }
         }
-        return executedComparisons;
     }
 
     @Override
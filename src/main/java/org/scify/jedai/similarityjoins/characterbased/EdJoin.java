@@ -1,39 +1,30 @@
 /*
- * Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
  */
 package org.scify.jedai.similarityjoins.characterbased;
 
 import gnu.trove.iterator.TIntIntIterator;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.IntPair;
-import org.scify.jedai.datamodel.joins.ListItemPPJ;
-
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+import java.util.Arrays;
 
 /**
  *
@@ -41,13 +32,19 @@ import java.util.List;
  */
 public class EdJoin extends AbstractCharacterBasedJoin {
 
-    private int maxLength;
     private final int q;
+    private int noOfTokens;
     private int widowBound;
 
+    private int[] listStarts;
     private int[] originalId;
-    private final List<String> attributeValues;
-    private List<Pair<Integer, Integer>>[] tokens;
+    private int[] prefixLengths;
+    private int[][] positions;
+    private int[][] tokens;
+
+    private String[] attributeValues;
+    private TIntArrayList[] index;
+    private QGramSignatures signatures;
 
     public EdJoin(int thr) {
         this(3, thr);
@@ -57,16 +54,14 @@ public class EdJoin extends AbstractCharacterBasedJoin {
         super(thr);
 
         this.q = q;
-        attributeValues = new ArrayList<>();
     }
 
     @Override
-    protected SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         int rangeBound = init();
 
         getTokens(rangeBound);
-        final List<Comparison> comparisons = performJoin(rangeBound);
-        return getSimilarityPairs(comparisons);
+        performJoin(rangeBound, consumer);
     }
 
     @Override
@@ -79,16 +74,31 @@ public class EdJoin extends AbstractCharacterBasedJoin {
         return "Character-based All Pairs";
     }
 
+    // the first entry of the given list that belongs to a value of at least the given length
+    private int getListStart(TIntArrayList list, int from, int minLength) {
+        int low = from;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (attributeValues[list.getQuick(mid)].length() < minLength) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     private int getOverlap(int x, int y) {
         int posx = 0;
         int posy = 0;
         int result = 0;
-        while (posx < tokens[x].size() && posy < tokens[y].size()) {
-            if (tokens[x].get(posx).getKey().equals(tokens[y].get(posy).getKey())) {
+        while (posx < tokens[x].length && posy < tokens[y].length) {
+            if (tokens[x][posx] == tokens[y][posy]) {
                 result++;
                 posx++;
                 posy++;
-            } else if (tokens[x].get(posx).getKey() < tokens[y].get(posy).getKey()) {
+            } else if (tokens[x][posx] < tokens[y][posy]) {
                 posx++;
             } else {
                 posy++;
@@ -100,54 +110,63 @@ public class EdJoin extends AbstractCharacterBasedJoin {
     private void getTokens(int rangeBound) {
         final TIntIntMap freqMap = new TIntIntHashMap();
         for (int k = rangeBound; k < noOfEntities; k++) {
-            final String currentValue = attributeValues.get(k);
+            final String currentValue = attributeValues[k];
             for (int sp = 0; sp < currentValue.length() - q + 1; sp++) {
-                int token = djbHash(currentValue.substring(sp), q);
-                tokens[k].add(new ImmutablePair<>(token, sp));
-                int cur = freqMap.get(token);
-                freqMap.put(token, cur + 1);
+                freqMap.adjustOrPutValue(djbHash(currentValue, sp, q), 1, 1);
             }
         }
 
-        final List<IntPair> packages = new ArrayList<>();
-        for (TIntIntIterator iterator = freqMap.iterator(); iterator.hasNext(); ) {
+        // ranks the q-grams by frequency, breaking ties by hash value
+        final long[] packages = new long[freqMap.size()];
+        int counter = 0;
+        for (TIntIntIterator iterator = freqMap.iterator(); iterator.hasNext();) {
             iterator.advance();
-            packages.add(new IntPair(iterator.key(), iterator.value()));
+            packages[counter++] = ((long) iterator.value() << 32) | iterator.key();
         }
-        packages.sort(Comparator.comparingInt(IntPair::getValue));
+        Arrays.sort(packages);
 
-        int noOfPackages = packages.size();
-        for (int k = 0; k < noOfPackages; k++) {
-            final IntPair currentPair = packages.get(k);
-            if (currentPair.getValue() == 1) { // value = frequency
+        noOfTokens = packages.length;
+        widowBound = -1;
+        for (int k = 0; k < packages.length; k++) {
+            if ((packages[k] >>> 32) == 1) { // frequency
                 widowBound = k;
             }
-            freqMap.put(currentPair.getKey(), k); // key = token
+            freqMap.put((int) packages[k], k); // token
         }
 
+        // the q-grams of every value in increasing rank, along with their positions
+        positions = new int[noOfEntities][];
+        tokens = new int[noOfEntities][];
         for (int k = rangeBound; k < noOfEntities; k++) {
-            final List<Pair<Integer, Integer>> token = tokens[k];
-            for (int t = 0; t < token.size(); t++) {
-                int oldsecond = token.get(t).getValue();
-                token.set(t, new ImmutablePair<>(freqMap.get(token.get(t).getKey()), oldsecond));
+            final String currentValue = attributeValues[k];
+            final long[] qGrams = new long[currentValue.length() - q + 1];
+            for (int sp = 0; sp < qGrams.length; sp++) {
+                qGrams[sp] = ((long) freqMap.get(djbHash(currentValue, sp, q)) << 32) | sp;
+            }
+            Arrays.sort(qGrams);
+
+            positions[k] = new int[qGrams.length];
+            tokens[k] = new int[qGrams.length];
+            for (int t = 0; t < qGrams.length; t++) {
+                positions[k][t] = (int) qGrams[t];
+                tokens[k][t] = (int) (qGrams[t] >>> 32);
             }
-            token.sort(Comparator.comparingInt(Pair::getKey));
         }
     }
 
-    int get_prefix_length(List<Pair<Integer, Integer>> token) {
+    int get_prefix_length(int k) {
         int low = threshold + 1;
         int high = q * threshold + 1;
         while (low < high) {
             int mid = (low + high) / 2;
             int errors = 0, location = 0;
-            List<Pair<Integer, Integer>> duplicate = new ArrayList<>(token);
-            duplicate.sort(Comparator.comparingInt(Pair::getValue));
+            final int[] duplicate = Arrays.copyOf(positions[k], mid);
+            Arrays.sort(duplicate);
 
-            for (int k = 0; k < mid; k++) {
-                if (duplicate.get(k).getValue() >= location) {
+            for (int position : duplicate) {
+                if (position >= location) {
                     errors++;
-                    location = duplicate.get(k).getValue() + q;
+                    location = position + q;
                 }
             }
             if (errors <= threshold) {
@@ -161,46 +180,26 @@ public class EdJoin extends AbstractCharacterBasedJoin {
     }
 
     private int init() {
-        widowBound = -1;
-
-        tokens = new List[noOfEntities];
+        // sorts the values by length, breaking ties by id
+        final String[] values = new String[noOfEntities];
+        final long[] keys = new long[noOfEntities];
         for (int i = 0; i < noOfEntities; i++) {
-            tokens[i] = new ArrayList<>();
+            values[i] = getAttributeValue(i);
+            keys[i] = ((long) values[i].length() << 32) | i;
         }
+        Arrays.sort(keys);
 
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
-        }
-
-        attributeValues.clear();
+        attributeValues = new String[noOfEntities];
         originalId = new int[noOfEntities];
-        idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().length()));
         for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
+            originalId[i] = (int) keys[i];
+            attributeValues[i] = values[originalId[i]];
         }
-        maxLength = attributeValues.get(noOfEntities - 1).length();
-
-        matrixDimension1 = maxLength + 1;
-        matrixDimension2 = 2 * threshold + 1;
 
         int lengthBound = (threshold + 1) * q;
         int rangeBound = noOfEntities;
         for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-            final String s = attributeValues.get(sIndex);
-
-            if (s.length() >= lengthBound) {
+            if (attributeValues[sIndex].length() >= lengthBound) {
                 rangeBound = sIndex;
                 break;
             }
@@ -209,131 +208,138 @@ public class EdJoin extends AbstractCharacterBasedJoin {
         return rangeBound;
     }
 
-    private List<Comparison> performJoin(int rangeBound) {
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        for (int x = 0; x < rangeBound; x++) {
-            for (int y = x + 1; y < rangeBound; y++) {
-                if (isCleanCleanER) {
-                    if (originalId[x] < datasetDelimiter && originalId[y] < datasetDelimiter) { // both belong to dataset 1
-                        continue;
-                    }
-                    if (datasetDelimiter <= originalId[x] && datasetDelimiter <= originalId[y]) { // both belong to dataset 2
-                        continue;
-                    }
-                }
-                int distance = getEditDistance(attributeValues.get(x), attributeValues.get(y), threshold);
-                if (distance <= threshold) {
-                    final Comparison currentComp = getComparison(originalId[x], originalId[y]);
-                    currentComp.setUtilityMeasure(1 - (float) distance / threshold);
-                    executedComparisons.add(currentComp);
-                }
-            }
-        }
-        final TIntObjectMap<ListItemPPJ> index = new TIntObjectHashMap<>();
-        for (int k = rangeBound; k < noOfEntities; k++) {
-            int count = 0;
-            int prefix_length = get_prefix_length(tokens[k]);
-
-            final TIntSet occurances = new TIntHashSet();
-            for (Pair<Integer, Integer> token : tokens[k]) {
-                if (count++ >= prefix_length) {
-                    break;
-                }
-                if (token.getKey() <= widowBound) {
+    // adds the prefix q-grams of the given values to the index, dropping the entries of the values that are too short for them
+    private void indexGroup(int groupStart, int groupEnd) {
+        final int minLength = attributeValues[groupStart].length() - threshold;
+        for (int k = groupStart; k < groupEnd; k++) {
+            for (int t = 0; t < prefixLengths[k]; t++) {
+                int token = tokens[k][t];
+                if (token <= widowBound) {
                     continue;
                 }
 
-                ListItemPPJ item = index.get(token.getKey());
-                if (item == null) {
-                    item = new ListItemPPJ();
-                    index.put(token.getKey(), item);
-                }
-
-                final List<IntPair> list = item.getIds();
-                final int noOfIds = list.size();
-                while ((item.getPos() < noOfIds)
-                        && (attributeValues.get(list.get(item.getPos()).getKey()).length() + threshold < attributeValues.get(k).length())) {
-                    int oldPos = item.getPos();
-                    item.setPos(oldPos + 1);
-                }
-                for (int t = item.getPos(); t < noOfIds; t++) {
-                    int cand = list.get(t).getKey();
-                    if (cand != k) {
-                        occurances.add(cand);
+                TIntArrayList list = index[token];
+                if (list == null) {
+                    list = new TIntArrayList();
+                    index[token] = list;
+                } else if (list.getQuick(list.size() - 1) < groupStart) {
+                    listStarts[token] = getListStart(list, listStarts[token], minLength);
+                    if (list.size() <= 2 * listStarts[token]) {
+                        list.remove(0, listStarts[token]);
+                        listStarts[token] = 0;
                     }
                 }
-                list.add(new IntPair(k, token.getValue()));
-                item.setIds(list);
-                index.put(token.getValue(), item);
+                list.add(k);
             }
+        }
+    }
 
-            for (TIntIterator setIterator = occurances.iterator(); setIterator.hasNext(); ) {
-                int cand = setIterator.next();
-                if (isCleanCleanER) {
-                    if (originalId[k] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
-                        continue;
-                    }
+    private boolean isSameDataset(int id1, int id2) {
+        if (!isCleanCleanER) {
+            return false;
+        }
+        return (originalId[id1] < datasetDelimiter) == (originalId[id2] < datasetDelimiter);
+    }
 
-                    if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
+    private void performJoin(int rangeBound, ISimilarityPairConsumer consumer) {
+        joinRanges(rangeBound, (fromX, toX, results) -> {
+            for (int x = fromX; x < toX; x++) {
+                for (int y = x + 1; y < rangeBound; y++) {
+                    if (attributeValues[x].length() + threshold < attributeValues[y].length()) {
+                        break;
+                    }
+                    if (isSameDataset(x, y)) {
                         continue;
                     }
+                    int distance = getEditDistance(attributeValues[x], attributeValues[y], threshold);
+                    if (distance <= threshold) {
+                        addComparison(originalId[x], originalId[y], 1 - (float) distance / threshold, results);
+                    }
                 }
-                int realOverlap = getOverlap(k, cand);
-                int testValue = realOverlap + threshold * q;
-                if (testValue < tokens[k].size() || testValue < tokens[cand].size()) {
-                    continue;
+            }
+        }, consumer);
+
+        prefixLengths = new int[noOfEntities];
+        for (int k = rangeBound; k < noOfEntities; k++) {
+            prefixLengths[k] = get_prefix_length(k);
+        }
+        signatures = new QGramSignatures(tokens, rangeBound, noOfEntities);
+
+        // the values of the same length are indexed together and then probed in parallel
+        index = new TIntArrayList[noOfTokens];
+        listStarts = new int[index.length];
+        int groupStart = rangeBound;
+        while (groupStart < noOfEntities) {
+            final int clen = attributeValues[groupStart].length();
+            int groupEnd = groupStart + 1;
+            while (groupEnd < noOfEntities && attributeValues[groupEnd].length() == clen) {
+                groupEnd++;
+            }
+
+            indexGroup(groupStart, groupEnd);
+
+            final int firstK = groupStart;
+            joinRanges(groupEnd - groupStart, (fromK, toK, results) -> {
+                for (int k = firstK + fromK; k < firstK + toK; k++) {
+                    probe(k, rangeBound, results);
                 }
+            }, consumer);
+
+            groupStart = groupEnd;
+        }
+        index = null;
+    }
 
-                float distance = getEditDistance(attributeValues.get(k), attributeValues.get(cand), threshold);
-                if (distance <= threshold) {
-                    int id1 = Math.min(originalId[k], originalId[cand]);
-                    int id2 = Math.max(originalId[k], originalId[cand]);
-                    final Comparison currentComp = getComparison(id1, id2);
-                    /*if (isCleanCleanER) {
-                        if(originalId[k]>datasetDelimiter)
-                    }*/
-                    currentComp.setUtilityMeasure(1 - distance / threshold);
-                    executedComparisons.add(currentComp);
+    private void probe(int k, int rangeBound, ISimilarityPairConsumer consumer) {
+        final int clen = attributeValues[k].length();
+        final TIntSet occurances = new TIntHashSet();
+        for (int t = 0; t < prefixLengths[k]; t++) {
+            int token = tokens[k][t];
+            if (token <= widowBound) {
+                continue;
+            }
+
+            final TIntArrayList list = index[token];
+            for (int i = getListStart(list, listStarts[token], clen - threshold); i < list.size(); i++) {
+                int cand = list.getQuick(i);
+                if (k <= cand) { // the values of the same length are compared only with the preceding ones
+                    break;
                 }
+                occurances.add(cand);
             }
+        }
 
-            if (attributeValues.get(k).length() - threshold >= (threshold + 1) * q) {
+        for (TIntIterator setIterator = occurances.iterator(); setIterator.hasNext();) {
+            int cand = setIterator.next();
+            if (isSameDataset(k, cand) || !signatures.isCandidate(k, cand, threshold * q)) {
                 continue;
             }
 
-            int bound = noOfEntities;
-            for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-                final String s = attributeValues.get(sIndex);
+            int realOverlap = getOverlap(k, cand);
+            int testValue = realOverlap + threshold * q;
+            if (testValue < tokens[k].length || testValue < tokens[cand].length) {
+                continue;
+            }
 
-                if (s.length() >= attributeValues.get(k).length() - threshold) {
-                    bound = sIndex;
-                    break;
-                }
+            float distance = getEditDistance(attributeValues[k], attributeValues[cand], threshold);
+            if (distance <= threshold) {
+                addComparison(originalId[k], originalId[cand], 1 - distance / threshold, consumer);
             }
+        }
 
-            while (bound != rangeBound) {
-                if (isCleanCleanER) {
-                    if (originalId[k] < datasetDelimiter && originalId[bound] < datasetDelimiter) { // both belong to dataset 1
-                        bound++;
-                        continue;
-                    }
+        // the short values share no q-gram with a match
+        if (clen - threshold >= (threshold + 1) * q) {
+            return;
+        }
 
-                    if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[bound]) { // both belong to dataset 2
-                        bound++;
-                        continue;
-                    }
-                }
-                float distance = getEditDistance(attributeValues.get(k), attributeValues.get(bound), threshold);
-                if (distance <= threshold) {
-                    int id1 = Math.min(originalId[k], originalId[bound]);
-                    int id2 = Math.max(originalId[k], originalId[bound]);
-                    final Comparison currentComp = getComparison(id1, id2);
-                    currentComp.setUtilityMeasure(1 - distance / threshold);
-                    executedComparisons.add(currentComp);
-                }
-                bound++;
+        for (int bound = rangeBound - 1; 0 <= bound && clen - threshold <= attributeValues[bound].length(); bound--) {
+            if (isSameDataset(k, bound)) {
+                continue;
+            }
+            float distance = getEditDistance(attributeValues[k], attributeValues[bound], threshold);
+            if (distance <= threshold) {
+                addComparison(originalId[k], originalId[bound], 1 - distance / threshold, consumer);
             }
         }
-        return executedComparisons;
     }
 }
@@ -15,18 +15,14 @@
  */
 package org.scify.jedai.similarityjoins.characterbased;
 
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.IntListPair;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -34,46 +30,61 @@ import java.util.List;
  */
 public class FastSS extends AbstractCharacterBasedJoin {
 
-    private int id;
+    private static final long HASH_MULTIPLIER = 0x100000001B3L;
+    private static final long HASH_SEED = 0xCBF29CE484222325L;
 
-    private final HashMap<String, List<IntListPair>> stringHashIndex;
-    private final TIntList delPos;
-    private final TIntSet checkedFlag;
+    private int[] indexedLengths;
+    private int[] originalId;
+
+    private String[] attributeValues;
+    // the deletion neighbourhoods of the last threshold + 1 lengths, in slots length % (threshold + 1)
+    private LongIntMultimap[] deletionIndices;
 
     public FastSS(int thr) {
         super(thr);
-        this.checkedFlag = new TIntHashSet();
-        this.stringHashIndex = new HashMap<>();
-        this.delPos = new TIntArrayList();
     }
 
     @Override
-    protected SimilarityPairs applyJoin() {
-        checkedFlag.clear();
-        delPos.clear();
-        stringHashIndex.clear();
-
-        final List<Comparison> comparisons = processDataset(attributeNameD1, profilesD1);
-        if (profilesD2 != null) { // Dirty ER
-            comparisons.addAll(processDataset(attributeNameD2, profilesD2));
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
+        init();
+        performJoin(consumer);
+    }
+
+    private static void addDeletions(String value, int from, long prefixHash, int deletions, TLongArrayList hashes) {
+        long hash = prefixHash;
+        for (int pos = from; pos < value.length(); pos++) {
+            hash = hash * HASH_MULTIPLIER + value.charAt(pos);
+        }
+        hashes.add(mix(hash));
+
+        if (deletions == 0) {
+            return;
+        }
+
+        hash = prefixHash;
+        for (int pos = from; pos < value.length(); pos++) {
+            addDeletions(value, pos + 1, hash, deletions - 1, hashes);
+            hash = hash * HASH_MULTIPLIER + value.charAt(pos);
         }
-        return getSimilarityPairs(comparisons);
     }
 
-    private int checkEditDistance(TIntList p1, TIntList p2) {
-        int i = 0, j = 0, updates = 0;
-        while (i < p1.size() && j < p2.size()) {
-            if (p1.get(i) == p2.get(j)) {
-                updates++;
-                j++;
-                i++;
-            } else if (p1.get(i) < p2.get(j)) {
-                i++;
-            } else {
-                j++;
+    /**
+     * @return the distinct 64-bit hashes of all substrings that result from
+     * deleting up to threshold characters from the given value
+     */
+    private long[] getDeletionNeighbourhood(String value) {
+        final TLongArrayList hashes = new TLongArrayList();
+        addDeletions(value, 0, HASH_SEED, Math.min(threshold, value.length()), hashes);
+
+        final long[] neighbourhood = hashes.toArray();
+        Arrays.sort(neighbourhood);
+        int noOfDistinct = 0;
+        for (int i = 0; i < neighbourhood.length; i++) {
+            if (i == 0 || neighbourhood[i] != neighbourhood[i - 1]) {
+                neighbourhood[noOfDistinct++] = neighbourhood[i];
             }
         }
-        return p1.size() + p2.size() - updates;
+        return Arrays.copyOf(neighbourhood, noOfDistinct);
     }
 
     @Override
@@ -88,70 +99,125 @@ public class FastSS extends AbstractCharacterBasedJoin {
         return "FastSS";
     }
 
-    private List<Comparison> insertIndex(String attributeValue) {
-        final TIntList delPos1 = new TIntArrayList(delPos);
-        List<IntListPair> list = stringHashIndex.computeIfAbsent(attributeValue, k -> new ArrayList<>());
+    // replaces the deletion neighbourhoods of the values that are more than threshold characters shorter with those of the given group
+    private void indexGroup(int groupStart, long[][] neighbourhoods, int clen) {
+        int noOfEntries = 0;
+        for (long[] neighbourhood : neighbourhoods) {
+            noOfEntries += neighbourhood.length;
+        }
 
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        for (IntListPair p : list) {
-            if (id == p.getKey()) {
-                continue;
+        final int slot = clen % (threshold + 1);
+        indexedLengths[slot] = clen;
+        deletionIndices[slot] = new LongIntMultimap(noOfEntries);
+        for (int i = 0; i < neighbourhoods.length; i++) {
+            for (long hash : neighbourhoods[i]) {
+                deletionIndices[slot].put(hash, groupStart + i);
             }
+        }
+    }
 
-            if (isCleanCleanER) {
-                if (id < datasetDelimiter && p.getKey() < datasetDelimiter) { // both belong to dataset 1
-                    continue;
-                }
+    private void init() {
+        // sorts the values by length, breaking ties by id
+        final String[] values = new String[noOfEntities];
+        final long[] keys = new long[noOfEntities];
+        for (int i = 0; i < noOfEntities; i++) {
+            values[i] = getAttributeValue(i);
+            keys[i] = ((long) values[i].length() << 32) | i;
+        }
+        Arrays.sort(keys);
 
-                if (datasetDelimiter <= id && datasetDelimiter <= p.getKey()) { // both belong to dataset 2
-                    continue;
-                }
-            }
+        attributeValues = new String[noOfEntities];
+        originalId = new int[noOfEntities];
+        for (int i = 0; i < noOfEntities; i++) {
+            originalId[i] = (int) keys[i];
+            attributeValues[i] = values[originalId[i]];
+        }
 
-            if (checkedFlag.contains(p.getKey())) {
-                continue;
+        indexedLengths = new int[threshold + 1];
+        Arrays.fill(indexedLengths, -1);
+        deletionIndices = new LongIntMultimap[threshold + 1];
+    }
+
+    // the finalizer of MurmurHash3, so that the low bits of the hashes address the index directly
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void performJoin(ISimilarityPairConsumer consumer) {
+        // the values of the same length are indexed together and then probed in parallel
+        int groupStart = 0;
+        while (groupStart < noOfEntities) {
+            final int clen = attributeValues[groupStart].length();
+            int groupEnd = groupStart + 1;
+            while (groupEnd < noOfEntities && attributeValues[groupEnd].length() == clen) {
+                groupEnd++;
             }
 
-            int ed = checkEditDistance(p.getValue(), delPos1);
-            if (ed <= threshold) {
-                checkedFlag.add(p.getKey());
-                final Comparison currentComp = getComparison(id, p.getKey());
-                currentComp.setUtilityMeasure(1 - (float) ed / threshold);
-                executedComparisons.add(currentComp);
+            final int firstId = groupStart;
+            final long[][] neighbourhoods = new long[groupEnd - groupStart][];
+            IntStream indices = IntStream.range(0, neighbourhoods.length);
+            if (parallel) {
+                indices = indices.parallel();
             }
-        }
+            indices.forEach(i -> neighbourhoods[i] = getDeletionNeighbourhood(attributeValues[firstId + i]));
 
-        final IntListPair kv = new IntListPair(id, delPos1);
-        list.add(kv);
+            indexGroup(groupStart, neighbourhoods, clen);
 
-        return executedComparisons;
-    }
+            joinRanges(neighbourhoods.length, (fromId, toId, results) -> {
+                for (int i = fromId; i < toId; i++) {
+                    probe(firstId + i, neighbourhoods[i], results);
+                }
+            }, consumer);
 
-    private void performDeletion(String s, int k) {
-        if (k == 0) {
-            insertIndex(s);
-        } else {
-            for (int pos = (delPos.isEmpty() ? 0 : delPos.get(delPos.size() - 1)); pos < s.length(); pos++) {
-                delPos.add(pos);
-                final String newS = s.substring(0, pos) + s.substring(pos + 1);
-                performDeletion(newS, k - 1);
-                delPos.removeAt(delPos.size() - 1);
-            }
+            groupStart = groupEnd;
         }
+        deletionIndices = null;
     }
 
-    private List<Comparison> processDataset(String attributeName, List<EntityProfile> dataset) {
-        final List<Comparison> totalComparisons = new ArrayList<>();
-        for (EntityProfile profile : dataset) {
-            String nextValue = getAttributeValue(attributeName, profile);
+    private void probe(int id, long[] neighbourhood, ISimilarityPairConsumer consumer) {
+        final String currentValue = attributeValues[id];
+        final int clen = currentValue.length();
 
-            checkedFlag.clear();
-            totalComparisons.addAll(insertIndex(nextValue));
-            for (int k = 1; k <= threshold; k++) {
-                performDeletion((nextValue), k);
+        final TIntSet candidates = new TIntHashSet();
+        for (int len = Math.max(0, clen - threshold); len <= clen; len++) {
+            final int slot = len % (threshold + 1);
+            if (indexedLengths[slot] != len) {
+                continue;
+            }
+
+            for (long hash : neighbourhood) {
+                for (int entry = deletionIndices[slot].getFirstEntry(hash); entry != -1; entry = deletionIndices[slot].getNextEntry(entry)) {
+                    int cand = deletionIndices[slot].getValue(entry);
+                    if (id <= cand) { // the values of the same length are compared only with the preceding ones
+                        continue;
+                    }
+
+                    if (isCleanCleanER) {
+                        if (originalId[id] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
+                            continue;
+                        }
+
+                        if (datasetDelimiter <= originalId[id] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
+                            continue;
+                        }
+                    }
+                    candidates.add(cand);
+                }
+            }
+        }
+
+        // the shared hashes may stem from collisions, so every candidate is verified on the original values
+        for (TIntIterator iterator = candidates.iterator(); iterator.hasNext();) {
+            int cand = iterator.next();
+            int ed = getEditDistance(attributeValues[cand], currentValue, threshold);
+            if (ed <= threshold) {
+                addComparison(originalId[id], originalId[cand], 1 - (float) ed / threshold, consumer);
             }
-            id++;
         }
-        return totalComparisons;
     }
 }
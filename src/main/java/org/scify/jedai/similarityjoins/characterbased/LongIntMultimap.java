@@ -0,0 +1,88 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins.characterbased;
+
+import java.util.Arrays;
+
+/**
+ * A multimap from long keys to int values in primitive arrays: the distinct
+ * keys are stored in an open-addressing table with linear probing, and every
+ * key points to the chain of its values. Values cannot be removed.
+ *
+ * The keys are expected to be well-mixed hash values, so that their low bits
+ * address the table directly.
+ *
+ * @author G.A.P. II
+ */
+final class LongIntMultimap {
+
+    private int noOfEntries;
+    private final int mask;
+
+    private final int[] heads; // the last entry of every key, or -1 for the empty slots
+    private final long[] keys;
+    private final int[] next; // the previous entry of the same key, or -1
+    private final int[] values;
+
+    LongIntMultimap(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, 2 * capacity - 1)) << 1;
+        mask = tableSize - 1;
+        heads = new int[tableSize];
+        Arrays.fill(heads, -1);
+        keys = new long[tableSize];
+
+        noOfEntries = 0;
+        next = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * @return the last entry of the given key, or -1 if there is none
+     */
+    int getFirstEntry(long key) {
+        int slot = (int) key & mask;
+        while (heads[slot] != -1) {
+            if (keys[slot] == key) {
+                return heads[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the preceding entry of the same key, or -1 if there is none
+     */
+    int getNextEntry(int entry) {
+        return next[entry];
+    }
+
+    int getValue(int entry) {
+        return values[entry];
+    }
+
+    void put(long key, int value) {
+        int slot = (int) key & mask;
+        while (heads[slot] != -1 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        next[noOfEntries] = heads[slot];
+        values[noOfEntries] = value;
+        keys[slot] = key;
+        heads[slot] = noOfEntries++;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins.characterbased;
+
+import java.util.Arrays;
+
+/**
+ * Computes the edit distance of two strings with the bit-parallel algorithm
+ * of Myers, as extended to patterns longer than 64 characters by Hyyrö: every
+ * column of the dynamic programming matrix is encoded in the vertical deltas
+ * of 64-bit blocks, so that a text character updates 64 cells at a time. The
+ * computation stops as soon as the distance is bound to exceed the threshold.
+ *
+ * The instances keep their bit vectors among calls and are not thread-safe.
+ *
+ * @author G.A.P. II
+ */
+final class MyersEditDistance {
+
+    private static final int ALPHABET_SIZE = 128;
+
+    private int noOfBlocks;
+    private long[] mv;
+    private long[] pv;
+    private long[] peq; // the match vectors of the ASCII characters, with the blocks of every character adjacent
+
+    MyersEditDistance() {
+        noOfBlocks = 1;
+        mv = new long[1];
+        pv = new long[1];
+        peq = new long[ALPHABET_SIZE];
+    }
+
+    /**
+     * @return the edit distance of the given substrings, or threshold + 1 if
+     * it exceeds the threshold
+     */
+    int getDistance(String s1, int pos1, int len1, String s2, int pos2, int len2, int threshold) {
+        if (Math.abs(len1 - len2) > threshold) {
+            return threshold + 1;
+        }
+
+        // the shorter string is the pattern, so as to minimize the number of blocks
+        if (len2 < len1) {
+            return getDistance(s2, pos2, len2, s1, pos1, len1, threshold);
+        }
+        if (len1 == 0) {
+            return len2;
+        }
+
+        setPattern(s1, pos1, len1);
+        final int lastBlock = noOfBlocks - 1;
+        final long lastBit = 1L << ((len1 - 1) & 63);
+
+        int distance = len1;
+        for (int j = 0; j < len2; j++) {
+            final char c = s2.charAt(pos2 + j);
+
+            int carry = 1; // the first row of the matrix increases by one in every column
+            for (int block = 0; block < noOfBlocks; block++) {
+                long eq = c < ALPHABET_SIZE ? peq[c * noOfBlocks + block] : getMatchVector(s1, pos1, len1, c, block);
+                carry = advanceBlock(block, eq, carry, block == lastBlock ? lastBit : Long.MIN_VALUE);
+            }
+            distance += carry;
+
+            // every remaining column decreases the distance by one at most
+            if (threshold < distance - (len2 - j - 1)) {
+                distance = threshold + 1;
+                break;
+            }
+        }
+
+        clearPattern(s1, pos1, len1);
+        return Math.min(distance, threshold + 1);
+    }
+
+    // updates the vertical deltas of the given block and returns the horizontal delta of its bottom row
+    private int advanceBlock(int block, long eq, int carryIn, long outBit) {
+        final long pvBlock = pv[block];
+        final long mvBlock = mv[block];
+
+        final long xv = eq | mvBlock;
+        if (carryIn < 0) {
+            eq |= 1L;
+        }
+        final long xh = (((eq & pvBlock) + pvBlock) ^ pvBlock) | eq;
+        long ph = mvBlock | ~(xh | pvBlock);
+        long mh = pvBlock & xh;
+
+        int carryOut = 0;
+        if ((ph & outBit) != 0) {
+            carryOut = 1;
+        } else if ((mh & outBit) != 0) {
+            carryOut = -1;
+        }
+
+        ph <<= 1;
+        mh <<= 1;
+        if (carryIn < 0) {
+            mh |= 1L;
+        } else if (0 < carryIn) {
+            ph |= 1L;
+        }
+
+        pv[block] = mh | ~(xv | ph);
+        mv[block] = ph & xv;
+        return carryOut;
+    }
+
+    private void clearPattern(String pattern, int pos, int len) {
+        for (int i = 0; i < len; i++) {
+            final char c = pattern.charAt(pos + i);
+            if (c < ALPHABET_SIZE) {
+                peq[c * noOfBlocks + (i >>> 6)] = 0;
+            }
+        }
+    }
+
+    private static long getMatchVector(String pattern, int pos, int len, char c, int block) {
+        long eq = 0;
+        final int end = Math.min(len, (block + 1) << 6);
+        for (int i = block << 6; i < end; i++) {
+            if (pattern.charAt(pos + i) == c) {
+                eq |= 1L << (i & 63);
+            }
+        }
+        return eq;
+    }
+
+    private void setPattern(String pattern, int pos, int len) {
+        noOfBlocks = (len + 63) >>> 6;
+        if (pv.length < noOfBlocks) {
+            mv = new long[noOfBlocks];
+            pv = new long[noOfBlocks];
+            peq = new long[ALPHABET_SIZE * noOfBlocks];
+        }
+
+        Arrays.fill(mv, 0, noOfBlocks, 0L);
+        Arrays.fill(pv, 0, noOfBlocks, -1L);
+        for (int i = 0; i < len; i++) {
+            final char c = pattern.charAt(pos + i);
+            if (c < ALPHABET_SIZE) {
+                peq[c * noOfBlocks + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+    }
+}
@@ -15,23 +15,15 @@
  */
 package org.scify.jedai.similarityjoins.characterbased;
 
-import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.PIndex;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  *
@@ -40,30 +32,22 @@ import java.util.List;
 public class PassJoin extends AbstractCharacterBasedJoin {
 
     private int N, PN;
-    private int MaxDictLen = 0;
-    private int MinDictLen = 0x7FFFFFFF;
 
-    private int[] dist;
+    private int[] indexedLengths;
     private int[] originalId;
-    private int[][] partPos;
-    private int[][] partLen;
 
-    private final List<String> dict;
-    private List<PIndex>[][] partIndex;
+    private String[] dict;
+    // the segment indices of the last threshold + 1 lengths, in slots length % (threshold + 1)
     private TIntObjectMap<TIntList>[][] invLists;
 
     public PassJoin(int thr) {
         super(thr);
-
-        dict = new ArrayList<>();
     }
 
     @Override
-    public SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         init();
-        prepare();
-        final List<Comparison> comparisons = performJoin();
-        return getSimilarityPairs(comparisons);
+        performJoin(consumer);
     }
 
     @Override
@@ -77,99 +61,109 @@ public class PassJoin extends AbstractCharacterBasedJoin {
         return "PassJoin";
     }
 
-    private void init() {
-        PN = threshold + 1;
+    private int getPartLen(int len, int partId) {
+        // the last len % PN segments are one character longer
+        return len / PN + (PN - len % PN <= partId ? 1 : 0);
+    }
 
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
+    private int getPartPos(int len, int partId) {
+        return partId * (len / PN) + Math.max(0, partId - (PN - len % PN));
+    }
 
-            MaxDictLen = Math.max(MaxDictLen, nextValue.length());
-            MinDictLen = Math.min(MinDictLen, nextValue.length());
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
+    // replaces the segment indices of the values that are more than threshold characters shorter with those of the given group
+    private void indexGroup(int groupStart, int groupEnd, int clen) {
+        final int slot = clen % (threshold + 1);
+        indexedLengths[slot] = clen;
+        for (int partId = 0; partId < PN; partId++) {
+            int pLen = getPartLen(clen, partId);
+            int stPos = getPartPos(clen, partId);
+
+            invLists[slot][partId] = new TIntObjectHashMap<>();
+            for (int id = groupStart; id < groupEnd; id++) {
+                int hashValue = djbHash(dict[id], stPos, pLen);
+                TIntList list = invLists[slot][partId].get(hashValue);
+                if (list == null) {
+                    list = new TIntArrayList();
+                    invLists[slot][partId].put(hashValue, list);
+                }
+                list.add(id);
+            }
         }
+    }
 
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
+    private void init() {
+        PN = threshold + 1;
+        N = noOfEntities;
 
-                MaxDictLen = Math.max(MaxDictLen, nextValue.length());
-                MinDictLen = Math.min(MinDictLen, nextValue.length());
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
+        // sorts the values by length, breaking ties by id
+        final String[] values = new String[N];
+        final long[] keys = new long[N];
+        for (int i = 0; i < N; i++) {
+            values[i] = getAttributeValue(i);
+            keys[i] = ((long) values[i].length() << 32) | i;
         }
+        Arrays.sort(keys);
 
-        N = idIdentifier.size();
-        matrixDimension1 = MaxDictLen + 1;
-        matrixDimension2 = 2 * threshold + 1;
-
-        dict.clear();
-        idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().length()));
+        dict = new String[N];
         originalId = new int[N];
         for (int i = 0; i < N; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            dict.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
+            originalId[i] = (int) keys[i];
+            dict[i] = values[originalId[i]];
         }
 
-        partIndex = new List[PN][MaxDictLen + 1];
-        for (int ii = 0; ii < PN; ii++) {
-            for (int jj = 0; jj < MaxDictLen + 1; jj++) {
-                partIndex[ii][jj] = new ArrayList<>();
-            }
-        }
+        indexedLengths = new int[threshold + 1];
+        Arrays.fill(indexedLengths, -1);
+        invLists = new TIntObjectMap[threshold + 1][PN];
+    }
 
-        invLists = new TIntObjectMap[PN][MaxDictLen + 1];
-        for (int ii = 0; ii < PN; ii++) {
-            for (int jj = 0; jj < MaxDictLen + 1; jj++) {
-                invLists[ii][jj] = new TIntObjectHashMap<>();
+    private void performJoin(ISimilarityPairConsumer consumer) {
+        // the values of the same length are indexed together and then probed in parallel
+        int groupStart = 0;
+        while (groupStart < N) {
+            final int clen = dict[groupStart].length();
+            int groupEnd = groupStart + 1;
+            while (groupEnd < N && dict[groupEnd].length() == clen) {
+                groupEnd++;
             }
-        }
 
-        dist = new int[MaxDictLen + 2];
-        for (int lp = 0; lp <= MaxDictLen + 1; lp++) {
-            dist[lp] = N;
-        }
+            indexGroup(groupStart, groupEnd, clen);
 
-        partLen = new int[PN][MaxDictLen + 1];
-        partPos = new int[PN + 1][MaxDictLen + 1];
-        for (int len = MinDictLen; len <= MaxDictLen; len++) {
-            partPos[0][len] = 0;
-            partLen[0][len] = len / PN;
-            partPos[PN][len] = len;
-        }
-
-        for (int pid = 1; pid < PN; pid++) {
-            for (int len = MinDictLen; len <= MaxDictLen; len++) {
-                partPos[pid][len] = partPos[pid - 1][len] + partLen[pid - 1][len];
-                if (pid == (PN - len % PN)) {
-                    partLen[pid][len] = partLen[pid - 1][len] + 1;
-                } else {
-                    partLen[pid][len] = partLen[pid - 1][len];
+            final int firstId = groupStart;
+            joinRanges(groupEnd - groupStart, (fromId, toId, results) -> {
+                for (int id = firstId + fromId; id < firstId + toId; id++) {
+                    probe(id, results);
                 }
-            }
+            }, consumer);
+
+            groupStart = groupEnd;
         }
     }
 
-    private List<Comparison> performJoin() {
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        for (int id = 0; id < N; id++) {
-            final String currentString = dict.get(id);
-            final TIntSet checkedIds = new TIntHashSet();
-            int clen = currentString.length();
-            for (int partId = 0; partId < PN; partId++) {
-                for (int lp = 0; lp < partIndex[partId][clen].size(); lp++) {
-                    final PIndex currentPI = partIndex[partId][clen].get(lp);
+    private void probe(int id, ISimilarityPairConsumer consumer) {
+        final String currentString = dict[id];
+        final TIntSet checkedIds = new TIntHashSet();
+        int clen = currentString.length();
+        for (int partId = 0; partId < PN; partId++) {
+            for (int len = Math.max(0, clen - threshold); len <= clen; len++) {
+                final int slot = len % (threshold + 1);
+                if (indexedLengths[slot] != len) {
+                    continue;
+                }
 
-                    int hashValue = djbHash(currentString.substring(currentPI.getStPos()), currentPI.getPartLen());
-                    if (!invLists[partId][currentPI.getLen()].containsKey(hashValue)) {
+                int lo = getPartPos(len, partId);
+                int pLen = getPartLen(len, partId);
+                for (int stPos = max3(0, lo - partId, lo + (clen - len) - (threshold - partId));
+                        stPos <= min3(clen - pLen, lo + partId, lo + (clen - len) + (threshold - partId)); stPos++) {
+                    final TIntList candidateList = invLists[slot][partId].get(djbHash(currentString, stPos, pLen));
+                    if (candidateList == null) {
                         continue;
                     }
 
-                    final TIntList candidateList = invLists[partId][currentPI.getLen()].get(hashValue);
-                    for (TIntIterator iterator = candidateList.iterator(); iterator.hasNext();) {
-                        int cand = iterator.next();
+                    for (int i = 0; i < candidateList.size(); i++) {
+                        int cand = candidateList.get(i);
+                        if (id <= cand) { // the values of the same length are compared only with the preceding ones
+                            break;
+                        }
 
                         if (isCleanCleanER) {
                             if (originalId[id] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
@@ -181,82 +175,30 @@ public class PassJoin extends AbstractCharacterBasedJoin {
                             }
                         }
 
-                        if (!checkedIds.contains(cand)) {
-                            final String currentCandidate = dict.get(cand);
-                            if (partId == threshold) {
+                        final String currentCandidate = dict[cand];
+                        if (checkedIds.contains(cand) || !currentString.regionMatches(stPos, currentCandidate, lo, pLen)) {
+                            continue;
+                        }
+
+                        if (partId == threshold) {
+                            checkedIds.add(cand);
+                        }
+                        if (partId == 0 || getEditDistance(currentCandidate, currentString, partId, 0, 0, lo, stPos) <= partId) {
+                            if (partId == 0) {
                                 checkedIds.add(cand);
                             }
-                            if (partId == 0 || getEditDistance(currentCandidate, currentString, partId, 0, 0, currentPI.getLo(), currentPI.getStPos()) <= partId) {
-                                if (partId == 0) {
+                            if (partId == threshold || getEditDistance(currentCandidate, currentString, threshold - partId, lo + pLen, stPos + pLen) <= threshold - partId) {
+                                float distance = getEditDistance(currentCandidate, currentString, threshold);
+                                if (distance <= threshold) {
                                     checkedIds.add(cand);
-                                }
-                                if (partId == threshold || getEditDistance(currentCandidate, currentString, threshold - partId, currentPI.getLo() + currentPI.getPartLen(), currentPI.getStPos() + currentPI.getPartLen()) <= threshold - partId) {
-                                    float distance = getEditDistance(currentCandidate, currentString, threshold);
-                                    if (distance <= threshold) {
-                                        checkedIds.add(cand);
 
-                                        final Comparison currentComp = getComparison(originalId[id], originalId[cand]);
-                                        currentComp.setUtilityMeasure(1 - distance / threshold);
-                                        executedComparisons.add(currentComp);
-                                    }
+                                    addComparison(originalId[id], originalId[cand], 1 - distance / threshold, consumer);
                                 }
                             }
                         }
                     }
                 }
             }
-
-            for (int partId = 0; partId < PN; partId++) {
-                int pLen = partLen[partId][clen];
-                int stPos = partPos[partId][clen];
-
-                int hashValue = djbHash(currentString.substring(stPos), pLen);
-                TIntList list = invLists[partId][clen].get(hashValue);
-                if (list == null) {
-                    list = new TIntArrayList();
-                    invLists[partId][clen].put(hashValue, list);
-                }
-                list.add(id);
-            }
-        }
-        return executedComparisons;
-    }
-
-    private void prepare() {
-        int clen = 0;
-        for (int id = 0; id < N; id++) {
-            int currentLength = dict.get(id).length();
-            if (clen == currentLength) {
-                continue;
-            }
-            for (int lp = clen + 1; lp <= currentLength; lp++) {
-                dist[lp] = id;
-            }
-            clen = currentLength;
-        }
-
-        clen = 0;
-        for (int id = 0; id < N; id++) {
-            int currentLength = dict.get(id).length();
-            if (clen == currentLength) {
-                continue;
-            }
-            clen = currentLength;
-
-            for (int pid = 0; pid < PN; pid++) {
-                for (int len = Math.max(clen - threshold, MinDictLen); len <= clen; len++) {
-                    if (dist[len] == dist[len + 1]) {
-                        continue;
-                    }
-
-                    for (int stPos = max3(0, partPos[pid][len] - pid,
-                            partPos[pid][len] + (clen - len) - (threshold - pid));
-                            stPos <= min3(clen - partLen[pid][len], partPos[pid][len] + pid,
-                                    partPos[pid][len] + (clen - len) + (threshold - pid)); stPos++) {
-                        partIndex[pid][clen].add(new PIndex(stPos, partPos[pid][len], partLen[pid][len], len));
-                    }
-                }
-            }
         }
     }
 }
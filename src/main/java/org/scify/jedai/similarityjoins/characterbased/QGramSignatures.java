@@ -0,0 +1,58 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins.characterbased;
+
+/**
+ * The 128-bit q-gram signatures of a collection of values: the bit of a q-gram
+ * is its id modulo 128. An edit operation removes at most q q-grams from a
+ * value, so two values within edit distance t share all but t * q q-grams of
+ * either one; the q-grams whose bits are missing from the signature of the
+ * other value are a lower bound on this difference, which costs a couple of
+ * popcounts instead of a merge of the q-grams.
+ *
+ * @author G.A.P. II
+ */
+final class QGramSignatures {
+
+    private final long[] words; // the two words of every value, adjacent
+
+    /**
+     * @param tokens the q-gram ids of every value
+     * @param from the first value with q-grams
+     * @param to the end of the values with q-grams
+     */
+    QGramSignatures(int[][] tokens, int from, int to) {
+        words = new long[2 * tokens.length];
+        for (int k = from; k < to; k++) {
+            for (int token : tokens[k]) {
+                words[2 * k + ((token >>> 6) & 1)] |= 1L << token;
+            }
+        }
+    }
+
+    /**
+     * @return false if either value has more than maxMissing q-grams that
+     * certainly do not appear in the other one
+     */
+    boolean isCandidate(int x, int y, int maxMissing) {
+        final long x1 = words[2 * x];
+        final long x2 = words[2 * x + 1];
+        final long y1 = words[2 * y];
+        final long y2 = words[2 * y + 1];
+        return Long.bitCount(x1 & ~y1) + Long.bitCount(x2 & ~y2) <= maxMissing
+                && Long.bitCount(y1 & ~x1) + Long.bitCount(y2 & ~x2) <= maxMissing;
+    }
+}
@@ -15,223 +15,203 @@
  */
 package org.scify.jedai.similarityjoins.fuzzysets;
 
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntFloatMap;
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.TObjectIntMap;
-import gnu.trove.map.hash.TIntFloatHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
-import gnu.trove.set.TIntSet;
-import gnu.trove.set.hash.TIntHashSet;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import org.jgrapht.alg.matching.MaximumWeightBipartiteMatching;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleWeightedGraph;
-
+import java.util.Arrays;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+/**
+ * The SilkMoth join of sets of sets under the fuzzy Jaccard similarity. Every
+ * set is a collection of elements, and every element is a sorted array of
+ * distinct token ids. The indexed collection is shared by all searches, which
+ * can be executed concurrently.
+ */
 public class FuzzySetSimJoin {
 
-    TObjectIntMap<String> tokenDict;
-    float[] elementBounds;
+    private final float simThreshold;
+    private final int[][][] collection;
 
-    /**
-     * Computes the join between two collections.
-     */
-    public HashMap<String, Float> join(Map<String, List<Set<String>>> input1, Map<String, List<Set<String>>> input2,
-            float simThreshold) {
-        /* TRANSFORM THE INPUT COLLECTIONS */
-
-        // Create an empty token dictionary
-        tokenDict = new TObjectIntHashMap<>();
-        // use instead the following if order by frequency is needed
-        // TObjectIntMap<String> tokenDict =
-        // it.mapTokensToIntsByFrequency(input2.values());
-
-        // Transform input to integer tokens
-        // (dictionary is built on input2)
-        int[][][] collection2 = transform(input2, tokenDict);
-        int[][][] collection1 = transform(input1, tokenDict);
-
-        /* JOIN THE TRANSFORMED INPUT COLLECTIONS */
-        HashMap<String, Float> matchingPairs = join(collection1, collection2, simThreshold);
-        return matchingPairs;
-    }
+    // the inverted index in CSR layout: the entries of every token, i.e., its (set, element) pairs in increasing set id
+    private final int[] listStarts;
+    private final int[] setIds;
+    private final int[] elementIds;
 
     /**
-     * Computes the join between two already transformed and indexed collections
-     *
-     * @param collection1
-     * @param collection2
-     * @param simThreshold
-     * @return
+     * @param collection the indexed sets
+     * @param noOfTokens the number of distinct token ids of both collections
+     * @param simThreshold the minimum fuzzy Jaccard similarity of a match
      */
-    HashMap<String, Float> join(int[][][] collection1, int[][][] collection2, float simThreshold) {
-        final HashMap<String, Float> matchingPairs = new HashMap<>();
-
-        /* CREATE INDEX */
-        TIntObjectMap<TIntList>[] idx = buildSetInvertedIndex(collection2, tokenDict.size());
+    public FuzzySetSimJoin(int[][][] collection, int noOfTokens, float simThreshold) {
+        this.collection = collection;
+        this.simThreshold = simThreshold;
+
+        listStarts = new int[noOfTokens + 1];
+        for (int[][] set : collection) {
+            for (int[] element : set) {
+                for (int token : element) {
+                    listStarts[token + 1]++;
+                }
+            }
+        }
+        for (int token = 0; token < noOfTokens; token++) {
+            listStarts[token + 1] += listStarts[token];
+        }
 
-        /* EXECUTE THE JOIN ALGORITHM */
-        for (int i = 0; i < collection1.length; i++) {
-            TIntFloatHashMap matches = search(collection1[i], collection2, simThreshold, idx);
-            for (int j : matches.keys()) {
-                matchingPairs.put(i + "_" + j, matches.get(j));
+        final int[] listEnds = Arrays.copyOf(listStarts, noOfTokens);
+        setIds = new int[listStarts[noOfTokens]];
+        elementIds = new int[listStarts[noOfTokens]];
+        for (int i = 0; i < collection.length; i++) {
+            for (int j = 0; j < collection[i].length; j++) {
+                for (int token : collection[i][j]) {
+                    setIds[listEnds[token]] = i;
+                    elementIds[listEnds[token]++] = j;
+                }
             }
         }
+    }
 
-        return matchingPairs;
+    /**
+     * Passes to the consumer the ids of every query set and every indexed set
+     * that match, along with their similarity.
+     */
+    public void join(int[][][] querySets, ISimilarityPairConsumer consumer) {
+        for (int i = 0; i < querySets.length; i++) {
+            search(i, querySets[i], consumer);
+        }
     }
 
     /**
-     * Find matches for a given set
+     * Passes to the consumer the given query id and the id of every indexed set
+     * that matches the query set, along with their similarity.
      */
-    private TIntFloatHashMap search(int[][] querySet, int[][][] collection, float simThreshold,
-            TIntObjectMap<TIntList>[] idx) {
+    public void search(int queryId, int[][] querySet, ISimilarityPairConsumer consumer) {
+        if (querySet.length == 0) {
+            return;
+        }
 
         /* SIGNATURE GENERATION */
-        TIntSet[] unflattenedSignature = computeUnflattenedSignature(querySet, simThreshold, idx);
+        final int[][] unflattenedSignature = computeUnflattenedSignature(querySet);
 
         /* CANDIDATE SELECTION AND CHECK FILTER */
-        TIntObjectMap<TIntFloatMap> checkFilterCandidates = applyCheckFilter(querySet, collection,
-                unflattenedSignature, idx, simThreshold);
-
-        /* NEAREST NEIGHBOR FILTER */
-        TIntSet nnFilterCandidates = applyNNFilter(querySet, collection, checkFilterCandidates, simThreshold);
-
-        /* VERIFICATION */
-        TIntFloatHashMap matches = verifyCandidates(querySet, collection, nnFilterCandidates, simThreshold);
-
-        return matches;
+        final TIntObjectMap<float[]> checkFilterCandidates = applyCheckFilter(querySet, unflattenedSignature);
+
+        /* NEAREST NEIGHBOR FILTER AND VERIFICATION */
+        for (TIntObjectIterator<float[]> iterator = checkFilterCandidates.iterator(); iterator.hasNext();) {
+            iterator.advance();
+            final int[][] candidateSet = collection[iterator.key()];
+            if (applyNNFilter(querySet, candidateSet, iterator.value())) {
+                float sim = verify(querySet, candidateSet);
+                if (sim >= simThreshold) {
+                    consumer.accept(queryId, iterator.key(), sim);
+                }
+            }
+        }
     }
 
-    private TIntSet[] computeUnflattenedSignature(int[][] querySet, float simThreshold,
-            TIntObjectMap<TIntList>[] idx) {
-
-        // initialize unflattened signature
-        TIntSet[] unflattenedSignature = new TIntHashSet[querySet.length];
-        for (int i = 0; i < unflattenedSignature.length; i++) {
-            unflattenedSignature[i] = new TIntHashSet();
+    // the signature tokens of every element of the query set
+    private int[][] computeUnflattenedSignature(int[][] querySet) {
+        // the distinct tokens of the query set along with their scores
+        int noOfTokens = 0;
+        for (int[] element : querySet) {
+            noOfTokens += element.length;
         }
-
-        // Compute token scores
-        float score;
-        TIntFloatMap tokenScores = new TIntFloatHashMap();
-        // first compute values
-        for (int[] ints : querySet) {
-            for (int anInt : ints) {
-                score = 0;
-                if (tokenScores.containsKey(anInt)) {
-                    score = tokenScores.get(anInt);
-                }
-                score += (1.0 / ints.length);
-                tokenScores.put(anInt, score);
+        final long[] occurrences = new long[noOfTokens];
+        noOfTokens = 0;
+        for (int i = 0; i < querySet.length; i++) {
+            for (int token : querySet[i]) {
+                occurrences[noOfTokens++] = ((long) token << 32) | i;
             }
         }
-        // then include costs
-        int cost;
-        for (int token : tokenScores.keys()) {
-            if (token < 0) {
-                tokenScores.put(token, 0);
-            } else {
-                cost = 0;
-                for (int s : idx[token].keys()) {
-                    cost += idx[token].get(s).size();
-                }
-                tokenScores.put(token, cost / tokenScores.get(token));
+        Arrays.sort(occurrences);
+
+        int noOfDistinct = 0;
+        final int[] tokens = new int[noOfTokens];
+        final float[] tokenScores = new float[noOfTokens];
+        for (int k = 0; k < noOfTokens; k++) {
+            int token = (int) (occurrences[k] >>> 32);
+            if (k == 0 || token != tokens[noOfDistinct - 1]) {
+                tokens[noOfDistinct++] = token;
             }
+            tokenScores[noOfDistinct - 1] += 1.0f / querySet[(int) occurrences[k]].length;
+        }
+
+        // then include costs, i.e., the length of the inverted lists
+        for (int t = 0; t < noOfDistinct; t++) {
+            int cost = listStarts[tokens[t] + 1] - listStarts[tokens[t]];
+            tokenScores[t] = cost / tokenScores[t];
         }
 
         // set threshold and current bound
         float thres = simThreshold * querySet.length;
         float simUpperBound = querySet.length;
 
-        // construct the signature
-        int bestToken = -1;
-        float bestScore = Float.MAX_VALUE;
-        while (simUpperBound >= thres) {
-            // choose the next best token
-            for (int token : tokenScores.keys()) {
-                score = tokenScores.get(token);
-                if (score < bestScore) {
-                    bestToken = token;
-                    bestScore = score;
+        // construct the signature by choosing the tokens in increasing score
+        final boolean[] isSignature = new boolean[noOfDistinct];
+        final int[] signatureSizes = new int[querySet.length];
+        int remainingTokens = noOfDistinct;
+        while (simUpperBound >= thres && 0 < remainingTokens) {
+            int bestToken = -1;
+            for (int t = 0; t < noOfDistinct; t++) {
+                if (!isSignature[t] && (bestToken < 0 || tokenScores[t] < tokenScores[bestToken])) {
+                    bestToken = t;
                 }
             }
+            isSignature[bestToken] = true;
+            remainingTokens--;
 
-            // remove it from the pool of tokens and reset best score
-            tokenScores.remove(bestToken);
-            bestScore = Float.MAX_VALUE;
-
-            // update the signature
             for (int i = 0; i < querySet.length; i++) {
-                for (int j = 0; j < querySet[i].length; j++) {
-                    if (querySet[i][j] == bestToken) {
-                        unflattenedSignature[i].add(bestToken);
-                        simUpperBound -= (1.0f / querySet[i].length);
-                    }
+                if (0 <= Arrays.binarySearch(querySet[i], tokens[bestToken])) {
+                    signatureSizes[i]++;
+                    simUpperBound -= (1.0f / querySet[i].length);
                 }
             }
         }
 
+        final int[][] unflattenedSignature = new int[querySet.length][];
+        for (int i = 0; i < querySet.length; i++) {
+            unflattenedSignature[i] = new int[signatureSizes[i]];
+            int counter = 0;
+            for (int token : querySet[i]) {
+                if (isSignature[Arrays.binarySearch(tokens, 0, noOfDistinct, token)]) {
+                    unflattenedSignature[i][counter++] = token;
+                }
+            }
+        }
         return unflattenedSignature;
     }
 
-    private TIntObjectMap<TIntFloatMap> applyCheckFilter(int[][] querySet, int[][][] collection,
-            TIntSet[] unflattenedSignature, TIntObjectMap<TIntList>[] idx, float simThreshold) {
-
-        TIntObjectMap<TIntFloatMap> checkFilterCandidates = new TIntObjectHashMap<>();
-
-        TIntFloatMap cachedScores;
-        float sim;
+    // the candidate sets along with the best similarity of every query element to their elements, or -1 if it was not checked
+    private TIntObjectMap<float[]> applyCheckFilter(int[][] querySet, int[][] unflattenedSignature) {
+        final TIntObjectMap<float[]> checkFilterCandidates = new TIntObjectHashMap<>();
 
         // compute bounds for length filter
         float minLength = querySet.length * simThreshold;
         float maxLength = querySet.length / simThreshold;
 
-        // compute the individual element bounds
-        elementBounds = new float[querySet.length];
-        for (int i = 0; i < querySet.length; i++) {
-            elementBounds[i] = (float) (querySet[i].length - unflattenedSignature[i].size())
-                    / (float) querySet[i].length;
-        }
-
         // for each element of the query set
         for (int i = 0; i < querySet.length; i++) {
+            float elementBound = (float) (querySet[i].length - unflattenedSignature[i].length) / (float) querySet[i].length;
 
             // for each token, retrieve candidates from index
-            for (int token : unflattenedSignature[i].toArray()) {
-                if (token < 0) {
-                    continue;
-                }
-
-                for (int s : idx[token].keys()) {
+            for (int token : unflattenedSignature[i]) {
+                for (int entry = listStarts[token]; entry < listStarts[token + 1]; entry++) {
+                    int s = setIds[entry];
                     // Apply length filter
                     if (collection[s].length < minLength || collection[s].length > maxLength) {
                         continue;
                     }
 
-                    for (int e : idx[token].get(s).toArray()) {
-
-                        // compute the similarity score
-                        sim = jaccard(querySet[i], collection[s][e]);
-
-                        // check the condition
-                        if (sim >= elementBounds[i]) {
-                            cachedScores = checkFilterCandidates.get(s);
-                            if (cachedScores == null) {
-                                cachedScores = new TIntFloatHashMap();
-                                cachedScores.put(i, sim);
-                            } else if (sim > cachedScores.get(i)) {
-                                cachedScores.put(i, sim);
-                            }
+                    // compute the similarity score and check the condition
+                    float sim = jaccard(querySet[i], collection[s][elementIds[entry]]);
+                    if (sim >= elementBound) {
+                        float[] cachedScores = checkFilterCandidates.get(s);
+                        if (cachedScores == null) {
+                            cachedScores = new float[querySet.length];
+                            Arrays.fill(cachedScores, -1);
                             checkFilterCandidates.put(s, cachedScores);
                         }
+                        cachedScores[i] = Math.max(cachedScores[i], sim);
                     }
                 }
             }
@@ -240,167 +220,138 @@ public class FuzzySetSimJoin {
         return checkFilterCandidates;
     }
 
-    private TIntSet applyNNFilter(int[][] querySet, int[][][] collection,
-            TIntObjectMap<TIntFloatMap> checkFilterCandidates, float simThreshold) {
-
-        TIntSet nnFilterCandidates = new TIntHashSet();
-
-        float sim, maxSim, total;
-        TIntSet matchedElements;
-
-        candLoop:
-        for (int c : checkFilterCandidates.keys()) {
-            total = 0;
-            matchedElements = new TIntHashSet();
+    private boolean applyNNFilter(int[][] querySet, int[][] candidateSet, float[] cachedScores) {
+        float total = 0;
+        int matchedElements = 0;
+        for (float score : cachedScores) {
+            if (0 <= score) {
+                matchedElements++;
+                total += score;
+            }
+        }
 
-            for (int e : checkFilterCandidates.get(c).keys()) {
-                matchedElements.add(e);
-                total += checkFilterCandidates.get(c).get(e);
+        for (int j = 0; j < querySet.length; j++) {
+            if (0 <= cachedScores[j]) {
+                continue;
             }
 
-            for (int j = 0; j < querySet.length; j++) {
-                if (matchedElements.contains(j)) {
-                    continue;
-                }
-                maxSim = 0;
-                for (int k = 0; k < collection[c].length; k++) {
-                    sim = jaccard(querySet[j], collection[c][k]);
-                    if (sim > maxSim) {
-                        maxSim = sim;
-                    }
-                }
-                total += maxSim;
-                matchedElements.add(j);
-                if (total < simThreshold * matchedElements.size()) {
-                    continue candLoop;
-                }
+            float maxSim = 0;
+            for (int[] element : candidateSet) {
+                maxSim = Math.max(maxSim, jaccard(querySet[j], element));
             }
-            if (total >= simThreshold * querySet.length) {
-                nnFilterCandidates.add(c);
+            total += maxSim;
+            matchedElements++;
+            if (total < simThreshold * matchedElements) {
+                return false;
             }
         }
-
-        return nnFilterCandidates;
+        return total >= simThreshold * querySet.length;
     }
 
-    private TIntFloatHashMap verifyCandidates(int[][] querySet, int[][][] collection, TIntSet nnFilterCandidates,
-            float simThreshold) {
-
-        TIntSet matches = new TIntHashSet();
-        TIntFloatHashMap matches2 = new TIntFloatHashMap();
-        TIntIterator sit = nnFilterCandidates.iterator();
-
-        while (sit.hasNext()) {
-            int id_s = sit.next();
-
-            SimpleWeightedGraph<String, DefaultWeightedEdge> g = new SimpleWeightedGraph<>(
-                    DefaultWeightedEdge.class);
-            HashSet<String> r_partition = new HashSet<>();
-            HashSet<String> s_partition = new HashSet<>();
-
-            for (int id_r = 0; id_r < querySet.length; id_r++) {
-                String r_v = "r_" + id_r;
-                g.addVertex(r_v);
-                r_partition.add(r_v);
-                for (int id_ss = 0; id_ss < collection[id_s].length; id_ss++) {
-                    String s_v = "s_" + id_ss;
-                    float sim = jaccard(querySet[id_r], collection[id_s][id_ss]);
-                    g.addVertex(s_v);
-                    s_partition.add(s_v);
-                    DefaultWeightedEdge e = g.addEdge(r_v, s_v);
-                    g.setEdgeWeight(e, sim);
-                }
-            }
-
-            float match = 0.0f;
-            MaximumWeightBipartiteMatching<String, DefaultWeightedEdge> matching = new MaximumWeightBipartiteMatching<>(
-                    g, r_partition, s_partition);
-            for (DefaultWeightedEdge ed : matching.getMatching().getEdges()) {
-                match += g.getEdgeWeight(ed);
-            }
-
-            float sim = match / (querySet.length + collection[id_s].length - match);
-            if (sim >= simThreshold) {
-                matches.add(id_s);
-                matches2.put(id_s, sim);
+    /**
+     * @return the fuzzy Jaccard similarity of two non-empty sets, based on the
+     * maximum weight matching of their elements
+     */
+    public static float verify(int[][] querySet, int[][] candidateSet) {
+        final boolean transpose = candidateSet.length < querySet.length;
+        final int[][] rows = transpose ? candidateSet : querySet;
+        final int[][] columns = transpose ? querySet : candidateSet;
+
+        final float[][] weights = new float[rows.length][columns.length];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                weights[i][j] = jaccard(rows[i], columns[j]);
             }
         }
 
-        return matches2;
-
-    }
-
-    private static float jaccard(int[] r, int[] s) {
-        TIntSet nr = new TIntHashSet(r);
-        TIntSet ns = new TIntHashSet(s);
-        TIntSet intersection = new TIntHashSet(nr);
-        intersection.retainAll(ns);
-        TIntSet union = new TIntHashSet(nr);
-        union.addAll(ns);
-        return ((float) intersection.size()) / ((float) union.size());
-    }
-    
-    TIntObjectMap<TIntList>[] buildSetInvertedIndex(int[][][] collection, int numTokens) {
-        // initialize the index
-        @SuppressWarnings("unchecked")
-        TIntObjectMap<TIntList>[] idx = new TIntObjectHashMap[numTokens];
-        for (int i = 0; i < idx.length; i++) {
-            idx[i] = new TIntObjectHashMap<>();
+        float match = 0.0f;
+        final int[] assignment = getMaximumWeightAssignment(weights, columns.length);
+        for (int i = 0; i < rows.length; i++) {
+            match += weights[i][assignment[i]];
         }
+        return match / (querySet.length + candidateSet.length - match);
+    }
 
-        // populate the index
-        TIntList invList;
-        int token;
-        for (int i = 0; i < collection.length; i++) {
-            for (int j = 0; j < collection[i].length; j++) {
-                for (int k = 0; k < collection[i][j].length; k++) {
-                    token = collection[i][j][k];
-                    if (idx[token].containsKey(i)) {
-                        invList = idx[token].get(i);
+    /**
+     * The Hungarian algorithm with potentials for rectangular matrices with at
+     * most as many rows as columns.
+     *
+     * @return the column assigned to every row
+     */
+    private static int[] getMaximumWeightAssignment(float[][] weights, int noOfColumns) {
+        final int noOfRows = weights.length;
+        final double[] u = new double[noOfRows + 1];
+        final double[] v = new double[noOfColumns + 1];
+        final int[] p = new int[noOfColumns + 1]; // the row matched with every column, 1-based
+        final int[] way = new int[noOfColumns + 1];
+        final double[] minv = new double[noOfColumns + 1];
+        final boolean[] used = new boolean[noOfColumns + 1];
+        for (int i = 1; i <= noOfRows; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= noOfColumns; j++) {
+                    if (!used[j]) {
+                        double current = -weights[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (current < minv[j]) {
+                            minv[j] = current;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= noOfColumns; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
                     } else {
-                        invList = new TIntArrayList();
+                        minv[j] -= delta;
                     }
-                    invList.add(j);
-                    idx[token].put(i, invList);
                 }
-            }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
         }
 
-        return idx;
+        final int[] assignment = new int[noOfRows];
+        for (int j = 1; j <= noOfColumns; j++) {
+            if (p[j] != 0) {
+                assignment[p[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
     }
-    
-    int[][][] transform(Map<String, List<Set<String>>> input, TObjectIntMap<String> tokenDictionary) {
-        int[][][] collection = new int[input.size()][][];
-
-        boolean existingDictionary = tokenDictionary.size() > 0;
-        int unknownTokenCounter = 0;
-
-        int i = 0, j, k;
-        List<Set<String>> elements;
-        for (String set : input.keySet()) {
-            elements = input.get(set);
-            collection[i] = new int[elements.size()][];
-            j = 0;
-            for (Set<String> element : elements) {
-                collection[i][j] = new int[element.size()];
-                k = 0;
-                for (String token : element) {
-                    if (!tokenDictionary.containsKey(token)) {
-                        if (existingDictionary) {
-                            unknownTokenCounter--;
-                            tokenDictionary.put(token, unknownTokenCounter);
-                        } else {
-                            tokenDictionary.put(token, tokenDictionary.size());
-                        }
-                    }
-                    collection[i][j][k] = tokenDictionary.get(token);
-                    k++;
-                }
+
+    // the Jaccard similarity of two sorted arrays of distinct tokens
+    private static float jaccard(int[] r, int[] s) {
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < r.length && j < s.length) {
+            if (r[i] == s[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (r[i] < s[j]) {
+                i++;
+            } else {
                 j++;
             }
-            i++;
         }
-
-        return collection;
+        return ((float) intersection) / ((float) (r.length + s.length - intersection));
     }
 }
@@ -20,6 +20,8 @@ import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
+import org.scify.jedai.datamodel.joins.TokenDictionary;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
 
 /**
@@ -34,6 +36,12 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
     protected final DblRandomSearchConfiguration randomThreshold;
     protected boolean SetVersion = false;
 
+    // the dictionary of the last columns, along with its input
+    private boolean dictionarySetVersion;
+    private TokenDictionary dictionary;
+    private TokenizedColumn dictionaryColumn1;
+    private TokenizedColumn dictionaryColumn2;
+
     AbstractTokenBasedJoin(float thr) {
         super();
         threshold = thr;
@@ -57,6 +65,74 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
         return (hash & 0x7FFFFFFF);
     }
  
+    /**
+     * @return the dictionary of the given columns, which is built once and
+     * shared by the verifier of a multi-attribute join and the join itself
+     */
+    protected TokenDictionary getDictionary(TokenizedColumn column1, TokenizedColumn column2, boolean setVersion) {
+        if (dictionary == null || dictionaryColumn1 != column1 || dictionaryColumn2 != column2 || dictionarySetVersion != setVersion) {
+            dictionary = new TokenDictionary(column1, column2, setVersion);
+            dictionaryColumn1 = column1;
+            dictionaryColumn2 = column2;
+            dictionarySetVersion = setVersion;
+        }
+        return dictionary;
+    }
+
+    @Override
+    protected PairVerifier getPairVerifier(TokenizedColumn column1, TokenizedColumn column2) {
+        final float minSimilarity = threshold;
+        final int offset = column2 == null ? 0 : column1.getSize();
+        final TokenDictionary tokenDictionary = getDictionary(column1, column2, SetVersion);
+        return new PairVerifier() {
+
+            // the pairs of records that share a token in their probing prefixes
+            @Override
+            public long estimateNoOfCandidates() {
+                final long[] frequencies1 = new long[tokenDictionary.getNoOfTokens()];
+                final long[] frequencies2 = column2 == null ? frequencies1 : new long[tokenDictionary.getNoOfTokens()];
+                for (int i = 0; i < tokenDictionary.getNoOfRecords(); i++) {
+                    final int[] record = tokenDictionary.getRecord(i);
+                    final long[] frequencies = i < column1.getSize() ? frequencies1 : frequencies2;
+                    for (int t = 0; t < probeLength(record.length); t++) {
+                        frequencies[record[t]]++;
+                    }
+                }
+
+                long noOfCandidates = 0;
+                for (int tokenId = 0; tokenId < frequencies1.length; tokenId++) {
+                    noOfCandidates += column2 == null ? frequencies1[tokenId] * (frequencies1[tokenId] - 1) / 2 : frequencies1[tokenId] * frequencies2[tokenId];
+                }
+                return noOfCandidates;
+            }
+
+            @Override
+            public float getSimilarity(int recordId1, int recordId2) {
+                final int[] record1 = tokenDictionary.getRecord(recordId1);
+                final int[] record2 = tokenDictionary.getRecord(offset + recordId2);
+                if (record1.length == 0 || record2.length == 0) {
+                    return -1;
+                }
+
+                int overlap = 0;
+                for (int i = 0, j = 0; i < record1.length && j < record2.length;) {
+                    if (record1[i] == record2[j]) {
+                        overlap++;
+                        i++;
+                        j++;
+                    } else if (record1[i] < record2[j]) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+
+                float jaccardSim = calcSimilarity(record1.length, record2.length, overlap);
+                return jaccardSim >= minSimilarity ? jaccardSim : -1;
+            }
+        };
+    }
+
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + threshold;
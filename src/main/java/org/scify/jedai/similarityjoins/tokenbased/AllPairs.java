@@ -15,21 +15,11 @@
  */
 package org.scify.jedai.similarityjoins.tokenbased;
 
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.IntPair;
-import org.scify.jedai.datamodel.joins.ListItemPPJ;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+import org.scify.jedai.datamodel.joins.TokenDictionary;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  *
@@ -38,36 +28,33 @@ import java.util.*;
 public class AllPairs extends AbstractTokenBasedJoin {
 
     private int[] originalId;
-    private final List<String> attributeValues;
-    private TIntList[] records;
+    private int[][] records;
 
     public AllPairs(float thr) {
         super(thr);
-        attributeValues = new ArrayList<>();
     }
 
     @Override
-    protected SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         init();
-        final List<Comparison> comparisons = performJoin();
-        return getSimilarityPairs(comparisons);
+        performJoin(consumer);
     }
 
-    private int getOverlap(int x, int y, int requireOverlap, int... poslen) {
-        int posx = poslen.length > 0 ? poslen[0] : 0;
-        int posy = poslen.length > 1 ? poslen[1] : 0;
-        int currentOverlap = poslen.length > 2 ? poslen[2] : 0;
+    private int getOverlap(int x, int y, int requireOverlap) {
+        int posx = 0;
+        int posy = 0;
+        int currentOverlap = 0;
 
-        while (posx < records[x].size() && posy < records[y].size()) {
-            if (records[x].size() - posx + currentOverlap < requireOverlap
-                    || records[y].size() - posy + currentOverlap < requireOverlap) {
+        while (posx < records[x].length && posy < records[y].length) {
+            if (records[x].length - posx + currentOverlap < requireOverlap
+                    || records[y].length - posy + currentOverlap < requireOverlap) {
                 return -1;
             }
-            if (records[x].get(posx) == records[y].get(posy)) {
+            if (records[x][posx] == records[y][posy]) {
                 currentOverlap++;
                 posx++;
                 posy++;
-            } else if (records[x].get(posx) < records[y].get(posy)) {
+            } else if (records[x][posx] < records[y][posy]) {
                 posx++;
             } else {
                 posy++;
@@ -77,148 +64,96 @@ public class AllPairs extends AbstractTokenBasedJoin {
     }
 
     private void init() {
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
-        }
-
-        if (this.SetVersion) {
-            int[] setversionsizes = new int[idIdentifier.size()];
-            for (int i = 0; i < idIdentifier.size(); i++) {
-                String togetSize = idIdentifier.get(i).getKey();
-                String[] split = togetSize.split(" ");
-                Set<String> settogetsize = new HashSet<>();
-                for (String s : split) {
-                    settogetsize.add(s);
-                }
-                setversionsizes[idIdentifier.get(i).getValue()] = settogetsize.size();
-            }
-            idIdentifier.sort((s1, s2) -> setversionsizes[s1.getValue()] - setversionsizes[s2.getValue()]);
-        } else {
-            idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-        }
-        
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
+        // the records are processed in increasing size, with their tokens in increasing frequency
+        final TokenDictionary dictionary = getDictionary(columnD1, columnD2, SetVersion);
+        originalId = dictionary.getRecordsBySize();
+        records = new int[noOfEntities][];
         for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
+            records[i] = dictionary.getRecord(originalId[i]);
         }
+    }
 
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length() < 1) {
-                continue;
+    private void performJoin(ISimilarityPairConsumer consumer) {
+        // the prefix of every record is indexed once, and every record is probed against the records before it
+        final PrefixIndex index = new PrefixIndex(records, l -> Math.min(indexLength(l), probeLength(l)));
+        final Queue<OverlapCounters> countersPool = new ConcurrentLinkedQueue<>();
+        joinRanges(noOfEntities, (fromRecord, toRecord, results) -> {
+            OverlapCounters counters = countersPool.poll();
+            if (counters == null) {
+                counters = new OverlapCounters(noOfEntities);
             }
-
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                if (this.SetVersion && (records[sIndex].contains(token))) {
-                    continue; //case where Set is used instead of Bag
-                }
-                records[sIndex].add(token);
+            for (int k = fromRecord; k < toRecord; k++) {
+                probe(k, index, counters, results);
             }
-            records[sIndex].sort();
-
-        }
+            countersPool.add(counters);
+        }, consumer);
     }
 
-    private List<Comparison> performJoin() {
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        final TIntObjectMap<ListItemPPJ> index = new TIntObjectHashMap<>();
-        for (int k = 0; k < noOfEntities; k++) {
-            final TIntList record = records[k];
+    private void probe(int k, PrefixIndex index, OverlapCounters occurances, ISimilarityPairConsumer results) {
+        final int[] record = records[k];
 
-            int minLength = minPossibleLength(record.size());
-            int probeLength = probeLength(record.size());
-            int indexLength = indexLength(record.size());
+        int minLength = minPossibleLength(record.length);
+        int probeLength = probeLength(record.length);
 
-            final int[] requireOverlaps = new int[record.size() + 1];
-            for (int l = minLength; l <= record.size(); l++) {
-                requireOverlaps[l] = requireOverlap(record.size(), l);
-            }
+        final int[] requireOverlaps = new int[record.length + 1];
+        for (int l = minLength; l <= record.length; l++) {
+            requireOverlaps[l] = requireOverlap(record.length, l);
+        }
 
-            final TIntIntMap occurances = new TIntIntHashMap();
-            for (int t = 0; t < probeLength; t++) {
-                int token = record.get(t);
+        for (int t = 0; t < probeLength; t++) {
+            int list = index.getList(record[t]);
+            if (list < 0) {
+                continue;
+            }
 
-                ListItemPPJ item = index.get(token);
-                if (item == null) {
-                    item = new ListItemPPJ();
-                    index.put(token, item);
-                }
+            int pos = index.getStart(list);
+            int noOfIds = index.getEnd(list);
+            while (pos < noOfIds && index.getRecordId(pos) < k && records[index.getRecordId(pos)].length < minLength) {
+                pos++;
+            }
 
-                int pos = item.getPos();
-                final List<IntPair> ids = item.getIds();
-                int noOfIds = ids.size();
-                while (pos < noOfIds && records[ids.get(pos).getKey()].size() < minLength) {
-                    pos++;
+            for (int p = pos; p < noOfIds; p++) {
+                int candId = index.getRecordId(p);
+                if (k <= candId) {
+                    break;
                 }
+                occurances.increment(candId);
+            }
+        }
 
-                for (int p = pos; p < noOfIds; p++) {
-                    int candId = ids.get(p).getKey();
-                    int oldValue = occurances.get(candId);
-                    occurances.put(candId, (oldValue + 1));
+        for (int i = 0; i < occurances.getNoOfCandidates(); i++) {
+            int cand = occurances.getCandidate(i);
+            if (isCleanCleanER) {
+                if (originalId[k] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
+                    continue;
                 }
 
-                if (t < indexLength) {
-                    ids.add(new IntPair(k, t));
+                if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
+                    continue;
                 }
             }
 
-            for (int cand : occurances.keys()) {
-                if (k == cand) {
+            int noOfCandidates = records[cand].length;
+            int newindexLength = indexLength(noOfCandidates);
+            if (records[cand][newindexLength - 1] < record[probeLength - 1]) {
+                if (occurances.getOverlap(cand) + noOfCandidates - newindexLength < requireOverlaps[noOfCandidates]) {
                     continue;
                 }
-
-                if (isCleanCleanER) {
-                    if (originalId[k] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
-                        continue;
-                    }
-
-                    if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
-                        continue;
-                    }
-                }
-
-                int noOfCandidates = records[cand].size();
-                int newindexLength = indexLength(noOfCandidates);
-                if (records[cand].get(newindexLength - 1) < records[k].get(probeLength - 1)) {
-                    if (occurances.get(cand) + noOfCandidates - newindexLength < requireOverlaps[noOfCandidates]) {
-                        continue;
-                    }
-                } else {
-                    if (occurances.get(cand) + records[k].size() - probeLength < requireOverlaps[noOfCandidates]) {
-                        continue;
-                    }
+            } else {
+                if (occurances.getOverlap(cand) + record.length - probeLength < requireOverlaps[noOfCandidates]) {
+                    continue;
                 }
+            }
 
-                int realOverlap = getOverlap(k, cand, requireOverlaps[noOfCandidates]);
-                if (realOverlap != -1) {
-                    float jaccardSim = calcSimilarity(records[k].size(), noOfCandidates, realOverlap);
-                    if (jaccardSim >= threshold) {
-                        final Comparison currentComp = getComparison(originalId[k], originalId[cand]);
-                        currentComp.setUtilityMeasure(jaccardSim); // is this correct?
-                        executedComparisons.add(currentComp);
-                    }
+            int realOverlap = getOverlap(k, cand, requireOverlaps[noOfCandidates]);
+            if (realOverlap != -1) {
+                float jaccardSim = calcSimilarity(record.length, noOfCandidates, realOverlap);
+                if (jaccardSim >= threshold) {
+                    addComparison(originalId[k], originalId[cand], jaccardSim, results);
                 }
             }
         }
-        return executedComparisons;
+        occurances.clear();
     }
 
     @Override
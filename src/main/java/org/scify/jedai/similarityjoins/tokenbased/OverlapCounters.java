@@ -0,0 +1,72 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins.tokenbased;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * The overlap counters of a single probing thread, with one slot per record,
+ * along with the candidates in the order of their first occurrence. Clearing
+ * only touches the candidates of the last probe.
+ *
+ * @author G.A.P. II
+ */
+class OverlapCounters {
+
+    private final boolean[] isCandidate;
+    private final int[] overlaps;
+    private final TIntList candidates;
+
+    OverlapCounters(int noOfRecords) {
+        candidates = new TIntArrayList();
+        isCandidate = new boolean[noOfRecords];
+        overlaps = new int[noOfRecords];
+    }
+
+    void clear() {
+        for (int i = 0; i < candidates.size(); i++) {
+            int candidate = candidates.get(i);
+            isCandidate[candidate] = false;
+            overlaps[candidate] = 0;
+        }
+        candidates.clear();
+    }
+
+    int getCandidate(int index) {
+        return candidates.get(index);
+    }
+
+    int getNoOfCandidates() {
+        return candidates.size();
+    }
+
+    int getOverlap(int recordId) {
+        return overlaps[recordId];
+    }
+
+    void increment(int recordId) {
+        setOverlap(recordId, overlaps[recordId] + 1);
+    }
+
+    void setOverlap(int recordId, int overlap) {
+        if (!isCandidate[recordId]) {
+            isCandidate[recordId] = true;
+            candidates.add(recordId);
+        }
+        overlaps[recordId] = overlap;
+    }
+}
@@ -17,16 +17,13 @@ package org.scify.jedai.similarityjoins.tokenbased;
 
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
 import org.scify.jedai.datamodel.joins.Category;
+import org.scify.jedai.datamodel.joins.TokenDictionary;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  *
@@ -43,17 +40,14 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
     private int[] originalId;
     
     private Category[] helper;
-    private List<Comparison> executedComparisons;
-    private final List<String> attributeValues;
-    private TIntList[] records;
+    private int[][] records;
 
     public PartEnumJoin(float thr) {
         super(thr);
-        attributeValues = new ArrayList<>();
     }
 
     @Override
-    public SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         init();
 
         helper = new Category[MAX_CATEGORY];
@@ -67,10 +61,7 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
             }
         }
 
-        convert_to_signature();
-
-        final List<Comparison> comparisons = performJoin();
-        return getSimilarityPairs(comparisons);
+        convert_to_signature(consumer);
     }
 
     @Override
@@ -84,62 +75,26 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
     }
 
     private void init() {
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
-        }
-
-        idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
+        // the records are processed in increasing size, with their tokens in increasing frequency
+        final TokenDictionary dictionary = getDictionary(columnD1, columnD2, SetVersion);
+        originalId = dictionary.getRecordsBySize();
+        records = new int[noOfEntities][];
         for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
-        }
-
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length() < 1) {
-                continue;
-            }
-
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                records[sIndex].add(token);
-            }
-            records[sIndex].sort();
+            records[i] = dictionary.getRecord(originalId[i]);
         }
     }
 
-    private List<Comparison> performJoin() {
-        return executedComparisons;
-    }
-
-    private int check_overlap(TIntList a, TIntList b, int overlap) {
+    private int check_overlap(int[] a, int[] b, int overlap) {
         int posa = 0, posb = 0, count = 0;
-        while (posa < a.size() && posb < b.size()) {
-            if (count + Math.min(a.size() - posa, b.size() - posb) < overlap) {
+        while (posa < a.length && posb < b.length) {
+            if (count + Math.min(a.length - posa, b.length - posb) < overlap) {
                 return -1;
             }
-            if (a.get(posa) == b.get(posb)) {
+            if (a[posa] == b[posb]) {
                 count++;
                 posa++;
                 posb++;
-            } else if (a.get(posa) < b.get(posb)) {
+            } else if (a[posa] < b[posb]) {
                 posa++;
             } else {
                 posb++;
@@ -148,109 +103,137 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
         return count;
     }
 
-    private float verify(TIntList a, TIntList b) {
+    private float verify(int[] a, int[] b) {
         float factor = categoryTHRESHOLD / (1 + categoryTHRESHOLD);
-        int require_overlap = (int) Math.ceil(factor * (a.size() + b.size()) - 1e-6);
+        int require_overlap = (int) Math.ceil(factor * (a.length + b.length) - 1e-6);
         int real_overlap = check_overlap(a, b, require_overlap);
 
         if (real_overlap == -1) {
             return -1;
         }
-        return (real_overlap / (float) (a.size() + b.size() - real_overlap));
+        return (real_overlap / (float) (a.length + b.length - real_overlap));
+    }
+
+    // the category of the given record, or -1 if its size lies outside all categories
+    private int getCategory(int id) {
+        for (int k = 0; k < MAX_CATEGORY && helper[k] != null; k++) {
+            if (helper[k].s_len <= records[id].length
+                    && helper[k].e_len >= records[id].length) {
+                return k;
+            }
+        }
+        return -1;
     }
 
-    void perform_join(int k, int id, boolean[] checked_flag) {
+    // the hash value of every signature of the given record in category k
+    private int[] getSignatures(int k, int id) {
+        final int[] signatures = new int[helper[k].sig_len];
         int index = -1;
         for (int i = 0; i < helper[k].N1; i++) {
             for (TIntList sub : helper[k].subs) {
                 index++;
                 TIntList prepare = new TIntArrayList();
                 for (int j = 0; j < sub.size(); j++) {
-                    int s_pos = -1;
-                    for (int ppos = 0; ppos < records[id].size(); ppos++) {
-                        if (records[id].get(ppos) >= helper[k].range_start[i][sub.get(j)]) {
-                            s_pos = (ppos);
-                            break;
-                        }
-                        if (ppos == records[id].size() - 1) {
-                            s_pos = ppos + 1;
-                        }
-                    }
-                    int e_pos = -1;
-                    for (int ppos = 0; ppos < records[id].size(); ppos++) {
-                        if (records[id].get(ppos) >= helper[k].range_end[i][sub.get(j)]) {
-                            e_pos = (ppos);
-                            break;
-                        }
-                        if (ppos == records[id].size() - 1) {
-                            e_pos = ppos + 1;
-                        }
-                    }
-
-                    while (s_pos != e_pos) {
-                        prepare.add(records[id].get(s_pos));
+                    int s_pos = getPosition(records[id], helper[k].range_start[i][sub.get(j)]);
+                    int e_pos = getPosition(records[id], helper[k].range_end[i][sub.get(j)]);
+                    while (s_pos < e_pos) {
+                        prepare.add(records[id][s_pos]);
                         s_pos++;
                     }
                 }
+                signatures[index] = Arrays.hashCode(prepare.toArray());
+            }
+        }
+        return signatures;
+    }
+
+    // the position of the first token that is not lower than the given value
+    private static int getPosition(int[] record, int value) {
+        for (int ppos = 0; ppos < record.length; ppos++) {
+            if (record[ppos] >= value) {
+                return ppos;
+            }
+        }
+        return record.length;
+    }
+
+    private void index_signatures(int k, int id) {
+        if (k < 0 || helper[k] == null) {
+            return;
+        }
 
-                int hash_value = java.util.Arrays.hashCode(prepare.toArray());
+        final int[] signatures = getSignatures(k, id);
+        for (int index = 0; index < signatures.length; index++) {
+            TIntList candidate = helper[k].sig_map[index].get(signatures[index]);
+            if (candidate == null) {
+                candidate = new TIntArrayList();
+                helper[k].sig_map[index].put(signatures[index], candidate);
+            }
+            if (candidate.isEmpty()
+                    || candidate.get(candidate.size() - 1) != id) {
+                candidate.add(id);
+            }
+        }
+    }
 
-                TIntList candidate;
-                if ((helper[k].sig_map[index].get(hash_value)) == null) {
-                    candidate = new TIntArrayList();
-                } else {
-                    candidate = (helper[k].sig_map[index].get(hash_value));// [index][hash_value];
+    // the signature lists contain all records in increasing id, but every record is joined only with the preceding ones
+    private void perform_join(int k, int id, int[] checked_stamp, ISimilarityPairConsumer results) {
+        if (k < 0 || helper[k] == null) {
+            return;
+        }
+
+        final int[] signatures = getSignatures(k, id);
+        for (int index = 0; index < signatures.length; index++) {
+            final TIntList candidate = helper[k].sig_map[index].get(signatures[index]);
+            for (int i = 0; i < candidate.size(); i++) {
+                int cand_id = candidate.get(i);
+                if (id <= cand_id) {
+                    break;
                 }
-                for (int cand_id = 0; cand_id < candidate.size(); cand_id++) {
-                    if (isCleanCleanER) {
-                        if (originalId[id] < datasetDelimiter && originalId[cand_id] < datasetDelimiter) { // both belong to dataset 1
-                            continue;
-                        }
 
-                        if (datasetDelimiter <= originalId[id] && datasetDelimiter <= originalId[cand_id]) { // both belong to dataset 2
-                            continue;
-                        }
+                if (isCleanCleanER) {
+                    if (originalId[id] < datasetDelimiter && originalId[cand_id] < datasetDelimiter) { // both belong to dataset 1
+                        continue;
                     }
-                    if (!checked_flag[candidate.get(cand_id)]) {
-                        checked_flag[candidate.get(cand_id)] = true;
-                        float jacsim = verify(records[cand_id], records[id]);
-                        if (jacsim >= threshold) {
-                            final Comparison currentComp = getComparison(originalId[cand_id], originalId[id]);
-                            currentComp.setUtilityMeasure(jacsim);
-                            executedComparisons.add(currentComp);
-                        }
+
+                    if (datasetDelimiter <= originalId[id] && datasetDelimiter <= originalId[cand_id]) { // both belong to dataset 2
+                        continue;
                     }
                 }
-                if (candidate.size() == 0 || 
-                        candidate.get(candidate.size() - 1) != id) {
-                    candidate.add(id);
+                if (checked_stamp[cand_id] != id + 1) {
+                    checked_stamp[cand_id] = id + 1;
+                    float jacsim = verify(records[cand_id], records[id]);
+                    if (jacsim >= threshold) {
+                        addComparison(originalId[cand_id], originalId[id], jacsim, results);
+                    }
                 }
-                helper[k].sig_map[index].put(hash_value, candidate);
             }
         }
     }
 
-    void convert_to_signature() {
-        executedComparisons = new ArrayList<>();
-        boolean[] checked_flag = new boolean[records.length];
-        for (int i = 0; i < checked_flag.length; i++) {
-            checked_flag[i] = true;
-        }
+    private void convert_to_signature(ISimilarityPairConsumer consumer) {
+        final int[] category = new int[records.length];
         for (int id = 0; id < records.length; id++) {
-            int k;
-            for (k = 0; k < MAX_CATEGORY; k++) {
-                if (helper[k].s_len <= records[id].size()
-                        && helper[k].e_len >= records[id].size()) {
-                    break;
-                }
+            category[id] = getCategory(id);
+            index_signatures(category[id], id);
+            if (0 <= category[id]) {
+                index_signatures(category[id] + 1, id);
             }
+        }
 
-            assert (k < MAX_CATEGORY);
-            for (int i = 0; i < id; i++) {
-                checked_flag[i] = false;
+        final Queue<int[]> stampsPool = new ConcurrentLinkedQueue<>();
+        joinRanges(records.length, (fromRecord, toRecord, results) -> {
+            int[] checked_stamp = stampsPool.poll();
+            if (checked_stamp == null) {
+                checked_stamp = new int[records.length];
             }
-            perform_join(k, id, checked_flag);
-            perform_join(k + 1, id, checked_flag);
-        }
+            for (int id = fromRecord; id < toRecord; id++) {
+                if (0 <= category[id]) {
+                    perform_join(category[id], id, checked_stamp, results);
+                    perform_join(category[id] + 1, id, checked_stamp, results);
+                }
+            }
+            stampsPool.add(checked_stamp);
+        }, consumer);
     }
 }
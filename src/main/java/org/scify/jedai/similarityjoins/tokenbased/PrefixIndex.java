@@ -0,0 +1,104 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.similarityjoins.tokenbased;
+
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The inverted index of the prefixes of all records, stored in compressed
+ * sparse row arrays. Every list contains its records in increasing id, so a
+ * record can be probed against all records with a lower id, exactly as if the
+ * index had been built incrementally, and any number of threads can probe it
+ * concurrently.
+ *
+ * @author G.A.P. II
+ */
+class PrefixIndex {
+
+    private final int[] listStart; // the entries of list i lie in [listStart[i], listStart[i+1])
+    private final int[] positions; // the position of the token in every entry's record
+    private final int[] recordIds;
+    private final TIntIntMap tokenToList;
+
+    /**
+     * @param records the records, each one with its tokens sorted
+     * @param prefixLength the number of indexed tokens for a record size
+     */
+    PrefixIndex(int[][] records, IntUnaryOperator prefixLength) {
+        tokenToList = new TIntIntHashMap(Math.max(16, records.length), 0.5f, Integer.MIN_VALUE, -1);
+
+        // count the entries of every list
+        int noOfEntries = 0;
+        int[] listSize = new int[16];
+        for (int[] record : records) {
+            int prefix = Math.min(record.length, prefixLength.applyAsInt(record.length));
+            for (int t = 0; t < prefix; t++) {
+                int list = tokenToList.get(record[t]);
+                if (list < 0) {
+                    list = tokenToList.size();
+                    tokenToList.put(record[t], list);
+                    if (list == listSize.length) {
+                        listSize = Arrays.copyOf(listSize, 2 * list);
+                    }
+                }
+                listSize[list]++;
+                noOfEntries++;
+            }
+        }
+
+        listStart = new int[tokenToList.size() + 1];
+        for (int i = 0; i < tokenToList.size(); i++) {
+            listStart[i + 1] = listStart[i] + listSize[i];
+        }
+
+        // add the entries in increasing record id
+        final int[] nextEntry = Arrays.copyOf(listStart, tokenToList.size());
+        positions = new int[noOfEntries];
+        recordIds = new int[noOfEntries];
+        for (int k = 0; k < records.length; k++) {
+            int prefix = Math.min(records[k].length, prefixLength.applyAsInt(records[k].length));
+            for (int t = 0; t < prefix; t++) {
+                int entry = nextEntry[tokenToList.get(records[k][t])]++;
+                positions[entry] = t;
+                recordIds[entry] = k;
+            }
+        }
+    }
+
+    int getEnd(int list) {
+        return listStart[list + 1];
+    }
+
+    // the list of the given token, or -1 if it appears in no prefix
+    int getList(int token) {
+        return tokenToList.get(token);
+    }
+
+    int getPosition(int entry) {
+        return positions[entry];
+    }
+
+    int getRecordId(int entry) {
+        return recordIds[entry];
+    }
+
+    int getStart(int list) {
+        return listStart[list];
+    }
+}
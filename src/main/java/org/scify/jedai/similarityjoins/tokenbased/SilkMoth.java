@@ -15,15 +15,25 @@
  */
 package org.scify.jedai.similarityjoins.tokenbased;
 
-import org.scify.jedai.datamodel.Comparison;
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.scify.jedai.datamodel.Attribute;
 import org.scify.jedai.datamodel.EntityProfile;
-import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
 import org.scify.jedai.similarityjoins.fuzzysets.FuzzySetSimJoin;
 
-import java.util.*;
-import org.scify.jedai.datamodel.Attribute;
-
 /**
+ * Every profile is a set of elements, namely the values of its attributes with
+ * the given name, and every element is the set of its tokens or q-grams. Two
+ * profiles match if their fuzzy Jaccard similarity exceeds the threshold.
  *
  * @author mthanos
  */
@@ -31,22 +41,20 @@ public class SilkMoth extends AbstractTokenBasedJoin {
 
     private final int qSize;
 
-    private final Map<String, List<Set<String>>> collection1;
-    private final Map<String, List<Set<String>>> collection2;
+    private int[][][] collection1;
+    private int[][][] collection2;
+    private TObjectIntMap<String> tokenIds;
 
     public SilkMoth(int qSize, float thr) {
         super(thr);
         this.qSize = qSize;
-        collection1 = new LinkedHashMap<>();
-        collection2 = new LinkedHashMap<>();
     }
 
     @Override
-    public SimilarityPairs applyJoin() {
+    protected void applyJoin(ISimilarityPairConsumer consumer) {
         init();
 
-        final List<Comparison> comparisons = performJoin();
-        return getSimilarityPairs(comparisons);
+        performJoin(consumer);
     }
 
     @Override
@@ -59,77 +67,132 @@ public class SilkMoth extends AbstractTokenBasedJoin {
         return "FuzzySetJoin";
     }
 
-    private Set<String> getTokens(String attributeValue) {
-        if (attributeValue.isEmpty()) {
-            return null;
-        }
+    // the fuzzy sets of both columns are built once, with their own token ids
+    @Override
+    protected PairVerifier getPairVerifier(TokenizedColumn column1, TokenizedColumn column2) {
+        final float minSimilarity = threshold;
+        final TObjectIntMap<String> columnTokenIds = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+        final int[][][] sets1 = getSets(column1.getProfiles(), column1.getAttributeName(), columnTokenIds);
+        final int[][][] sets2 = column2 == null ? sets1 : getSets(column2.getProfiles(), column2.getAttributeName(), columnTokenIds);
+        final int noOfTokens = columnTokenIds.size();
+        return new PairVerifier() {
+
+            // the pairs of sets that share a token, counted once per shared token
+            @Override
+            public long estimateNoOfCandidates() {
+                final long[] frequencies1 = getSetFrequencies(sets1, noOfTokens);
+                final long[] frequencies2 = column2 == null ? frequencies1 : getSetFrequencies(sets2, noOfTokens);
+
+                long noOfCandidates = 0;
+                for (int tokenId = 0; tokenId < noOfTokens; tokenId++) {
+                    noOfCandidates += column2 == null ? frequencies1[tokenId] * (frequencies1[tokenId] - 1) / 2 : frequencies1[tokenId] * frequencies2[tokenId];
+                }
+                return noOfCandidates;
+            }
 
-        if (qSize < 0) { // tokenize on whitespace
-            String[] tokens = attributeValue.split("[\\W_]");
-            return new HashSet<>(Arrays.asList(tokens));
-        }
+            @Override
+            public float getSimilarity(int recordId1, int recordId2) {
+                if (sets1[recordId1].length == 0 || sets2[recordId2].length == 0) {
+                    return -1;
+                }
 
-        final Set<String> nGrams = new HashSet<>();
-        if (attributeValue.length() < qSize) {
-            nGrams.add(attributeValue);
-        } else {
-            int currentPosition = 0;
-            final int length = attributeValue.length() - (qSize - 1);
-            while (currentPosition < length) {
-                nGrams.add(attributeValue.substring(currentPosition, currentPosition + qSize));
-                currentPosition++;
+                float fuzzyJaccardSim = FuzzySetSimJoin.verify(sets1[recordId1], sets2[recordId2]);
+                return fuzzyJaccardSim >= minSimilarity ? fuzzyJaccardSim : -1;
             }
-        }
-        return nGrams;
+        };
     }
 
-    private void init() {
-        int counter = 0;
-        for (EntityProfile profile : profilesD1) {
-            final List<Set<String>> asList = new ArrayList<>();
-            for (Attribute attribute : profile.getAttributes()) {
-                final Set<String> tokens = getTokens(attribute.getValue().trim());
-                asList.add(tokens);
+    // the number of sets that contain every token
+    private static long[] getSetFrequencies(int[][][] sets, int noOfTokens) {
+        final long[] frequencies = new long[noOfTokens];
+        final TIntSet setTokens = new TIntHashSet();
+        for (int[][] set : sets) {
+            setTokens.clear();
+            for (int[] element : set) {
+                setTokens.addAll(element);
+            }
+            for (TIntIterator iterator = setTokens.iterator(); iterator.hasNext();) {
+                frequencies[iterator.next()]++;
             }
-            collection1.put(Integer.toString(counter), asList);
-            counter++;
         }
-        
-        counter = 0;
-        for (EntityProfile profile : profilesD2) {
-            final List<Set<String>> asList = new ArrayList<>();
-            for (Attribute attribute : profile.getAttributes()) {
-                final Set<String> tokens = getTokens(attribute.getValue().trim());
-                asList.add(tokens);
+        return frequencies;
+    }
+
+    private int[][][] getSets(List<EntityProfile> profiles, String attributeName, TObjectIntMap<String> tokenIds) {
+        final String name = attributeName.toLowerCase().trim();
+        final int[][][] sets = new int[profiles.size()][][];
+        final List<int[]> elements = new ArrayList<>();
+        final TIntSet elementTokens = new TIntHashSet();
+        for (int i = 0; i < sets.length; i++) {
+            elements.clear();
+            for (Attribute attribute : profiles.get(i).getAttributes()) {
+                if (attribute.getName().toLowerCase().trim().equals(name)) {
+                    elementTokens.clear();
+                    addTokens(attribute.getValue().trim(), elementTokens, tokenIds);
+                    if (!elementTokens.isEmpty()) {
+                        final int[] element = elementTokens.toArray();
+                        Arrays.sort(element);
+                        elements.add(element);
+                    }
+                }
             }
-            collection2.put(Integer.toString(counter), asList);
-            counter++;
+            sets[i] = elements.toArray(new int[elements.size()][]);
         }
+        return sets;
     }
 
-    private List<Comparison> performJoin() {
-        final FuzzySetSimJoin fssj = new FuzzySetSimJoin();
-        final Map<String, Float> matchingPairs = fssj.join(collection1, collection2, threshold);
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        for (String allres : matchingPairs.keySet()) {
-            String[] res = allres.split("_");
-            int id1 = Integer.parseInt(res[0]);
-            int id2 = Integer.parseInt(res[1]);
-            float jaccardSim = matchingPairs.get(allres);
-
-            if (isCleanCleanER) {
-                id2 += datasetDelimiter;
-            } else if (id1 == id2) {
-                continue;
+    private void addTokens(String attributeValue, TIntSet elementTokens, TObjectIntMap<String> tokenIds) {
+        if (attributeValue.isEmpty()) {
+            return;
+        }
+
+        if (qSize < 0) { // tokenize on whitespace
+            for (String token : attributeValue.split("[\\W_]")) {
+                if (!token.isEmpty()) {
+                    elementTokens.add(getTokenId(token, tokenIds));
+                }
             }
-            
-            if (jaccardSim >= threshold) {
-                final Comparison currentComp = getComparison(id1, id2);
-                currentComp.setUtilityMeasure(jaccardSim);
-                executedComparisons.add(currentComp);
+        } else if (attributeValue.length() < qSize) {
+            elementTokens.add(getTokenId(attributeValue, tokenIds));
+        } else {
+            final int length = attributeValue.length() - (qSize - 1);
+            for (int currentPosition = 0; currentPosition < length; currentPosition++) {
+                elementTokens.add(getTokenId(attributeValue.substring(currentPosition, currentPosition + qSize), tokenIds));
             }
         }
+    }
 
-        return executedComparisons;
+    private static int getTokenId(String token, TObjectIntMap<String> tokenIds) {
+        int tokenId = tokenIds.get(token);
+        if (tokenId < 0) {
+            tokenId = tokenIds.size();
+            tokenIds.put(token, tokenId);
+        }
+        return tokenId;
+    }
+
+    private void init() {
+        // the token ids are shared by both datasets
+        tokenIds = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+        collection1 = getSets(profilesD1, attributeNameD1, tokenIds);
+        collection2 = isCleanCleanER ? getSets(profilesD2, attributeNameD2, tokenIds) : collection1;
+    }
+
+    private void performJoin(ISimilarityPairConsumer consumer) {
+        // the sets of the second dataset are indexed, and those of the first one are searched in parallel
+        final FuzzySetSimJoin fssj = new FuzzySetSimJoin(collection2, tokenIds.size(), threshold);
+        tokenIds = null;
+        joinRanges(collection1.length, (fromId, toId, results) -> {
+            for (int id1 = fromId; id1 < toId; id1++) {
+                final int queryId = id1;
+                fssj.search(queryId, collection1[queryId], (id, id2, jaccardSim) -> {
+                    if (isCleanCleanER) {
+                        addComparison(queryId, id2 + datasetDelimiter, jaccardSim, results);
+                    } else if (id2 < queryId) {
+                        addComparison(queryId, id2, jaccardSim, results);
+                    }
+                });
+            }
+        }, consumer);
     }
 }
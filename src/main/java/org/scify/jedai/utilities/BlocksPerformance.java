@@ -69,36 +69,6 @@ public class BlocksPerformance {
         blocks = bl;
     }
 
-    private boolean areCooccurring(IdDuplicates pairOfDuplicates) {
-        final int[] blocks1 = entityIndex.getEntityBlocks(pairOfDuplicates.getEntityId1(), 0);
-        if (blocks1 == null) {
-            return false;
-        }
-
-        final int[] blocks2 = entityIndex.getEntityBlocks(pairOfDuplicates.getEntityId2(), isCleanCleanER ? 1 : 0);
-        if (blocks2 == null) {
-            return false;
-        }
-
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
     public float getAggregateCardinality() {
         return aggregateCardinality;
     }
@@ -185,7 +155,7 @@ public class BlocksPerformance {
 
     private void getDuplicatesWithEntityIndex() {
         float noOfDuplicates = 0;
-        noOfDuplicates = abstractDP.getDuplicates().stream().filter((pairOfDuplicates) -> (areCooccurring(pairOfDuplicates))).map((_item) -> 1.0f).reduce(noOfDuplicates, (accumulator, _item) -> accumulator + 1);
+        noOfDuplicates = abstractDP.getDuplicates().stream().filter((pairOfDuplicates) -> (entityIndex.areCooccurring(pairOfDuplicates.getEntityId1(), pairOfDuplicates.getEntityId2()))).map((_item) -> 1.0f).reduce(noOfDuplicates, (accumulator, _item) -> accumulator + 1);
 
         detectedDuplicates = (int) noOfDuplicates;
         pc = noOfDuplicates / abstractDP.getExistingDuplicates();
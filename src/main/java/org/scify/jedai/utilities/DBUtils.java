@@ -13,7 +13,8 @@ public final class DBUtils {
     /** 
      * Creates and returns and database connection. This method parses the specified DB URL and 
      * attempts to infer a database dialect from that URL.
-     * <p>The only supported databases are MySQL and PostgreSQL.
+     * <p>The supported databases are MySQL, PostgreSQL and the embedded H2, whose driver must be
+     * on the classpath.
      * <p>All checked exceptions are translated into runtime exceptions.
      * 
      * @param dbURL portion of the JDBC connection string
@@ -40,8 +41,13 @@ public final class DBUtils {
                     props.setProperty("ssl", "true");
                 }
                 return DriverManager.getConnection("jdbc:" + dbURL, props);
+            } else if (dbURL.startsWith("h2")) {
+                final Properties props = new Properties();
+                props.setProperty("user", dbUser);
+                props.setProperty("password", dbPassword);
+                return DriverManager.getConnection("jdbc:" + dbURL, props);
             } else {
-                throw new IllegalStateException("Only MySQL and PostgreSQL are supported for the time being.");
+                throw new IllegalStateException("Only MySQL, PostgreSQL and H2 are supported for the time being.");
             }
         } catch (RuntimeException e) {
             throw e;
@@ -0,0 +1,178 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.datastructures;
+
+import java.util.Arrays;
+import org.scify.jedai.datamodel.ISimilarityPairConsumer;
+
+/**
+ * Retains the k pairs of entities with the highest similarity in a min-heap of
+ * primitive arrays. A pair replaces the root only if it is strictly more
+ * similar, so that ties are resolved in favor of the pairs added first.
+ *
+ * @author G.A.P. II
+ */
+public class BoundedPairHeap implements ISimilarityPairConsumer {
+
+    private boolean sorted;
+    private int size;
+    private final int capacity;
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] similarities;
+
+    public BoundedPairHeap(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("The number of retained pairs must be positive");
+        }
+
+        capacity = k;
+        size = 0;
+        sorted = false;
+        // the arrays grow up to the capacity, which may well exceed the actual pairs
+        int initialCapacity = Math.min(k, 1024);
+        entityIds1 = new int[initialCapacity];
+        entityIds2 = new int[initialCapacity];
+        similarities = new float[initialCapacity];
+    }
+
+    @Override
+    public void accept(int entityId1, int entityId2, float similarity) {
+        add(entityId1, entityId2, similarity);
+    }
+
+    /**
+     * @return true if the pair was retained
+     */
+    public boolean add(int entityId1, int entityId2, float similarity) {
+        if (sorted) {
+            throw new IllegalStateException("No pairs can be added after sorting");
+        }
+
+        if (size < capacity) {
+            if (size == similarities.length) {
+                int newCapacity = (int) Math.min(capacity, 2L * size);
+                entityIds1 = Arrays.copyOf(entityIds1, newCapacity);
+                entityIds2 = Arrays.copyOf(entityIds2, newCapacity);
+                similarities = Arrays.copyOf(similarities, newCapacity);
+            }
+            set(size, entityId1, entityId2, similarity);
+            siftUp(size++);
+            return true;
+        }
+
+        if (similarities[0] < similarity) {
+            set(0, entityId1, entityId2, similarity);
+            siftDown(0, size);
+            return true;
+        }
+        return false;
+    }
+
+    public int getEntityId1(int index) {
+        return entityIds1[index];
+    }
+
+    public int getEntityId2(int index) {
+        return entityIds2[index];
+    }
+
+    /**
+     * @return the lowest retained similarity once k pairs have been added, or
+     * 0 otherwise
+     */
+    public float getMinimumSimilarity() {
+        return size < capacity ? 0 : similarities[0];
+    }
+
+    public float getSimilarity(int index) {
+        return similarities[index];
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Arranges the retained pairs in decreasing similarity, in place. The heap
+     * accepts no more pairs afterwards.
+     */
+    public void sortBySimilarity() {
+        if (sorted) {
+            return;
+        }
+
+        sorted = true;
+        for (int last = size - 1; 0 < last; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+    }
+
+    private void set(int index, int entityId1, int entityId2, float similarity) {
+        entityIds1[index] = entityId1;
+        entityIds2[index] = entityId2;
+        similarities[index] = similarity;
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && similarities[left] < similarities[smallest]) {
+                smallest = left;
+            }
+            if (right < heapSize && similarities[right] < similarities[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void siftUp(int index) {
+        while (0 < index) {
+            int parent = (index - 1) / 2;
+            if (similarities[parent] <= similarities[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tempId = entityIds1[i];
+        entityIds1[i] = entityIds1[j];
+        entityIds1[j] = tempId;
+
+        tempId = entityIds2[i];
+        entityIds2[i] = entityIds2[j];
+        entityIds2[j] = tempId;
+
+        float tempSimilarity = similarities[i];
+        similarities[i] = similarities[j];
+        similarities[j] = tempSimilarity;
+    }
+}
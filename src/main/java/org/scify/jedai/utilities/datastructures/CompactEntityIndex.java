@@ -0,0 +1,281 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.datastructures;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.set.TIntSet;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.BilateralBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.UnilateralBlock;
+
+/**
+ * An immutable index from every entity to the blocks that contain it, stored
+ * in compressed sparse rows: the blocks of entity i are blockIds[offsets[i]]
+ * to blockIds[offsets[i + 1] - 1]. The id of every block is its position in
+ * the given list, so the blocks of every entity are sorted in the order the
+ * blocks are processed, e.g., in the order of a block-centric schedule,
+ * regardless of their block indices. The entities of the second dataset
+ * follow those of the first one, starting from the dataset limit.
+ *
+ * The blocks shared by two entities are found through galloping intersection,
+ * which skips the blocks of the entity with many blocks that precede the next
+ * block of the entity with few blocks. The index is not modified after its
+ * construction, so it can be shared by multiple methods and threads.
+ *
+ * @author G.A.P. II
+ */
+public final class CompactEntityIndex implements Serializable {
+
+    private static final long serialVersionUID = 2370581834598126L;
+
+    private final boolean cleanCleanER;
+    private final int datasetLimit;
+    private final int noOfBlocks;
+    private final int noOfEntities;
+
+    private final int[] blockIds;
+    private final int[] offsets;
+
+    public CompactEntityIndex(List<AbstractBlock> blocks) {
+        this(blocks, null);
+    }
+
+    /**
+     * @param indexedEntities the entities whose blocks are indexed, with the
+     * entities of the second dataset shifted by the dataset limit, or null if
+     * all entities are indexed; the rest appear in no block
+     */
+    public CompactEntityIndex(List<AbstractBlock> blocks, TIntSet indexedEntities) {
+        if (blocks.isEmpty()) {
+            throw new IllegalArgumentException("Entity index received an empty block collection as input!");
+        }
+        if (blocks.get(0) instanceof DecomposedBlock) {
+            throw new IllegalArgumentException("The entity index is incompatible with a set of decomposed blocks!");
+        }
+
+        cleanCleanER = blocks.get(0) instanceof BilateralBlock;
+        noOfBlocks = blocks.size();
+
+        int maxId1 = -1;
+        int maxId2 = -1;
+        for (AbstractBlock block : blocks) {
+            if (cleanCleanER) {
+                final BilateralBlock bilBlock = (BilateralBlock) block;
+                for (int id1 : bilBlock.getIndex1Entities()) {
+                    maxId1 = Math.max(maxId1, id1);
+                }
+                for (int id2 : bilBlock.getIndex2Entities()) {
+                    maxId2 = Math.max(maxId2, id2);
+                }
+            } else {
+                for (int id : ((UnilateralBlock) block).getEntities()) {
+                    maxId1 = Math.max(maxId1, id);
+                }
+            }
+        }
+        datasetLimit = cleanCleanER ? maxId1 + 1 : 0;
+        noOfEntities = maxId1 + 1 + maxId2 + 1;
+
+        //count blocks per entity
+        offsets = new int[noOfEntities + 1];
+        for (AbstractBlock block : blocks) {
+            forEachEntity(block, indexedEntities, entity -> offsets[entity + 1]++);
+        }
+        for (int i = 0; i < noOfEntities; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        //build inverted index
+        blockIds = new int[offsets[noOfEntities]];
+        final int[] counters = Arrays.copyOf(offsets, noOfEntities);
+        int blockId = 0;
+        for (AbstractBlock block : blocks) {
+            final int currentId = blockId++;
+            forEachEntity(block, indexedEntities, entity -> blockIds[counters[entity]++] = currentId);
+        }
+    }
+
+    private void forEachEntity(AbstractBlock block, TIntSet indexedEntities, IntConsumer action) {
+        if (cleanCleanER) {
+            final BilateralBlock bilBlock = (BilateralBlock) block;
+            for (int id1 : bilBlock.getIndex1Entities()) {
+                if (indexedEntities == null || indexedEntities.contains(id1)) {
+                    action.accept(id1);
+                }
+            }
+            for (int id2 : bilBlock.getIndex2Entities()) {
+                int entityId = datasetLimit + id2;
+                if (indexedEntities == null || indexedEntities.contains(entityId)) {
+                    action.accept(entityId);
+                }
+            }
+        } else {
+            for (int id : ((UnilateralBlock) block).getEntities()) {
+                if (indexedEntities == null || indexedEntities.contains(id)) {
+                    action.accept(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds to the given list the ids of the blocks shared by the entities of
+     * the comparison, in increasing order.
+     */
+    public void getCommonBlocks(Comparison comparison, TIntList commonBlocks) {
+        final int entity1 = comparison.getEntityId1();
+        final int entity2 = comparison.getEntityId2() + datasetLimit;
+        int i = offsets[entity1];
+        int j = offsets[entity2];
+        final int end1 = offsets[entity1 + 1];
+        final int end2 = offsets[entity2 + 1];
+        while (i < end1 && j < end2) {
+            if (blockIds[i] < blockIds[j]) {
+                i = gallop(i + 1, end1, blockIds[j]);
+            } else if (blockIds[j] < blockIds[i]) {
+                j = gallop(j + 1, end2, blockIds[i]);
+            } else {
+                commonBlocks.add(blockIds[i]);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    public int getDatasetLimit() {
+        return datasetLimit;
+    }
+
+    /**
+     * @return a copy of the ids of the blocks that contain the given entity, or
+     * null if the entity exceeds the indexed ones
+     */
+    public int[] getEntityBlocks(int entityId, int useDLimit) {
+        entityId += useDLimit * datasetLimit;
+        if (noOfEntities <= entityId) {
+            return null;
+        }
+        return Arrays.copyOfRange(blockIds, offsets[entityId], offsets[entityId + 1]);
+    }
+
+    /**
+     * @return the smallest id of the blocks shared by the entities of the
+     * comparison, or -1 if they share no block
+     */
+    public int getLeastCommonBlock(Comparison comparison) {
+        final int entity1 = comparison.getEntityId1();
+        final int entity2 = comparison.getEntityId2() + datasetLimit;
+        int i = offsets[entity1];
+        int j = offsets[entity2];
+        final int end1 = offsets[entity1 + 1];
+        final int end2 = offsets[entity2 + 1];
+        while (i < end1 && j < end2) {
+            if (blockIds[i] < blockIds[j]) {
+                i = gallop(i + 1, end1, blockIds[j]);
+            } else if (blockIds[j] < blockIds[i]) {
+                j = gallop(j + 1, end2, blockIds[i]);
+            } else {
+                return blockIds[i];
+            }
+        }
+        return -1;
+    }
+
+    public int getNoOfBlocks() {
+        return noOfBlocks;
+    }
+
+    public int getNoOfCommonBlocks(Comparison comparison) {
+        final int entity1 = comparison.getEntityId1();
+        final int entity2 = comparison.getEntityId2() + datasetLimit;
+        int i = offsets[entity1];
+        int j = offsets[entity2];
+        final int end1 = offsets[entity1 + 1];
+        final int end2 = offsets[entity2 + 1];
+        int commonBlocks = 0;
+        while (i < end1 && j < end2) {
+            if (blockIds[i] < blockIds[j]) {
+                i = gallop(i + 1, end1, blockIds[j]);
+            } else if (blockIds[j] < blockIds[i]) {
+                j = gallop(j + 1, end2, blockIds[i]);
+            } else {
+                commonBlocks++;
+                i++;
+                j++;
+            }
+        }
+        return commonBlocks;
+    }
+
+    public int getNoOfEntities() {
+        return noOfEntities;
+    }
+
+    public int getNoOfEntityBlocks(int entityId, int useDLimit) {
+        entityId += useDLimit * datasetLimit;
+        return offsets[entityId + 1] - offsets[entityId];
+    }
+
+    /**
+     * @return the first position in [from, to) whose block id is not smaller
+     * than the given one, or to if there is none
+     */
+    private int gallop(int from, int to, int blockId) {
+        if (to <= from || blockId <= blockIds[from]) {
+            return from;
+        }
+
+        // blockIds[low] < blockId, while the steps double until they overshoot it
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < to && blockIds[high] < blockId) {
+            low = high;
+            step <<= 1;
+            high = low + step;
+        }
+        high = Math.min(high, to);
+
+        while (low + 1 < high) {
+            int middle = (low + high) >>> 1;
+            if (blockIds[middle] < blockId) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    public boolean isCleanCleanER() {
+        return cleanCleanER;
+    }
+
+    /**
+     * @return true if the entities of the comparison share a block that
+     * precedes the given one, where the comparison has already been considered
+     */
+    public boolean isRepeated(int blockId, Comparison comparison) {
+        final int leastCommonBlock = getLeastCommonBlock(comparison);
+        return 0 <= leastCommonBlock && leastCommonBlock != blockId;
+    }
+}
@@ -20,7 +20,6 @@ import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.DecomposedBlock;
 import org.scify.jedai.datamodel.IdDuplicates;
-import org.scify.jedai.datamodel.UnilateralBlock;
 
 import com.esotericsoftware.minlog.Log;
 import gnu.trove.list.TIntList;
@@ -31,15 +30,15 @@ import java.util.List;
 import java.util.Set;
 
 /**
+ * Indexes the blocks of the entities that participate in the ground truth,
+ * through a CompactEntityIndex. The block index of every block is set to its
+ * position in the given list.
  *
  * @author gap2
  */
 public class GroundTruthIndex {
 
-    private int datasetLimit;
-    private int noOfEntities;
-    private int[][] entityBlocks;
-    private Set<IdDuplicates> duplicates;
+    private CompactEntityIndex entityIndex;
 
     public GroundTruthIndex(List<AbstractBlock> blocks, Set<IdDuplicates> matches) {
         if (blocks.isEmpty()) {
@@ -53,10 +52,19 @@ public class GroundTruthIndex {
             return;
         }
 
-        duplicates = matches;
         enumerateBlocks(blocks);
-        setNoOfEntities(blocks);
-        indexEntities(blocks);
+        entityIndex = new CompactEntityIndex(blocks, getMatchingEntities(blocks, matches));
+    }
+
+    /**
+     * @return true if the given entities share at least one block
+     */
+    public boolean areCooccurring(int entityId1, int entityId2) {
+        final int entity2 = entityId2 + entityIndex.getDatasetLimit();
+        if (entityIndex.getNoOfEntities() <= entityId1 || entityIndex.getNoOfEntities() <= entity2) {
+            return false;
+        }
+        return 0 <= entityIndex.getLeastCommonBlock(new Comparison(entityIndex.isCleanCleanER(), entityId1, entityId2));
     }
 
     private void enumerateBlocks(List<AbstractBlock> blocks) {
@@ -67,313 +75,78 @@ public class GroundTruthIndex {
     }
 
     public TIntList getCommonBlockIndices(int blockIndex, Comparison comparison) {
-        final int[] blocks1 = entityBlocks[comparison.getEntityId1()];
-        final int[] blocks2 = entityBlocks[comparison.getEntityId2() + datasetLimit];
-
-        boolean firstCommonIndex = false;
-        final TIntList indices = new TIntArrayList();
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    if (!firstCommonIndex) {
-                        firstCommonIndex = true;
-                        if (item != blockIndex) {
-                            return null;
-                        }
-                    }
-                    indices.add(item);
-                }
-            }
+        final int leastCommonBlock = entityIndex.getLeastCommonBlock(comparison);
+        if (0 <= leastCommonBlock && leastCommonBlock != blockIndex) {
+            return null;
         }
 
+        final TIntList indices = new TIntArrayList();
+        entityIndex.getCommonBlocks(comparison, indices);
         return indices;
     }
 
     public int getDatasetLimit() {
-        return datasetLimit;
+        return entityIndex.getDatasetLimit();
     }
 
     public int[] getEntityBlocks(int entityId, int useDLimit) {
-        entityId += useDLimit * datasetLimit;
-        if (noOfEntities <= entityId) {
-            return null;
-        }
-        return entityBlocks[entityId];
-    }
-
-    public int getNoOfCommonBlocks(int blockIndex, Comparison comparison) {
-        final int[] blocks1 = entityBlocks[comparison.getEntityId1()];
-        final int[] blocks2 = entityBlocks[comparison.getEntityId2() + datasetLimit];
-
-        int commonBlocks = 0;
-        boolean firstCommonIndex = false;
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    commonBlocks++;
-                    if (!firstCommonIndex) {
-                        firstCommonIndex = true;
-                        if (item != blockIndex) {
-                            return -1;
-                        }
-                    }
-                }
-            }
-        }
-
-        return commonBlocks;
+        return entityIndex.getEntityBlocks(entityId, useDLimit);
     }
 
-    public int getNoOfEntities() {
-        return noOfEntities;
+    public CompactEntityIndex getEntityIndex() {
+        return entityIndex;
     }
 
-    public int getNoOfEntityBlocks(int entityId, int useDLimit) {
-        entityId += useDLimit * datasetLimit;
-        if (entityBlocks[entityId] == null) {
-            return -1;
-        }
-
-        return entityBlocks[entityId].length;
-    }
-
-    public TIntList getTotalCommonIndices(Comparison comparison) {
-        final TIntList indices = new TIntArrayList();
-
-        final int[] blocks1 = entityBlocks[comparison.getEntityId1()];
-        final int[] blocks2 = entityBlocks[comparison.getEntityId2() + datasetLimit];
-        if (blocks1 == null || blocks2 == null) {
-            return indices;
-        }
-        
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    indices.add(item);
-                }
-            }
-        }
-
-        return indices;
-    }
-
-    public int getTotalNoOfCommonBlocks(Comparison comparison) {
-        final int[] blocks1 = entityBlocks[comparison.getEntityId1()];
-        final int[] blocks2 = entityBlocks[comparison.getEntityId2() + datasetLimit];
-        if (blocks1 == null || blocks2 == null) {
-            return 0;
-        }
-
-        int commonBlocks = 0;
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    commonBlocks++;
+    private TIntSet getMatchingEntities(List<AbstractBlock> blocks, Set<IdDuplicates> matches) {
+        int datasetLimit = 0;
+        if (blocks.get(0) instanceof BilateralBlock) {
+            for (AbstractBlock block : blocks) {
+                for (int id1 : ((BilateralBlock) block).getIndex1Entities()) {
+                    datasetLimit = Math.max(datasetLimit, id1 + 1);
                 }
             }
         }
 
-        return commonBlocks;
-    }
-
-    private void indexBilateralEntities(List<AbstractBlock> blocks) {
-        //find matching entities
         final TIntSet matchingEntities = new TIntHashSet();
-        duplicates.stream().map((pair) -> {
+        for (IdDuplicates pair : matches) {
             matchingEntities.add(pair.getEntityId1());
-            return pair;
-        }).forEachOrdered((pair) -> {
             matchingEntities.add(pair.getEntityId2() + datasetLimit);
-        });
-
-        //count blocks per matching entity
-        final int[] counters = new int[noOfEntities];
-        blocks.stream().map((block) -> (BilateralBlock) block).map((bilBlock) -> {
-            for (int id1 : bilBlock.getIndex1Entities()) {
-                if (matchingEntities.contains(id1)) {
-                    counters[id1]++;
-                }
-            }
-            return bilBlock;
-        }).forEachOrdered((bilBlock) -> {
-            for (int id2 : bilBlock.getIndex2Entities()) {
-                int entityId = datasetLimit + id2;
-                if (matchingEntities.contains(entityId)) {
-                    counters[entityId]++;
-                }
-            }
-        });
-
-        //initialize inverted index
-        entityBlocks = new int[noOfEntities][];
-        for (int i = 0; i < noOfEntities; i++) {
-            entityBlocks[i] = new int[counters[i]];
-            counters[i] = 0;
         }
-
-        //build inverted index
-        blocks.forEach((block) -> {
-            BilateralBlock bilBlock = (BilateralBlock) block;
-            for (int id1 : bilBlock.getIndex1Entities()) {
-                if (matchingEntities.contains(id1)) {
-                    entityBlocks[id1][counters[id1]] = block.getBlockIndex();
-                    counters[id1]++;
-                }
-            }
-
-            for (int id2 : bilBlock.getIndex2Entities()) {
-                int entityId = datasetLimit + id2;
-                if (matchingEntities.contains(entityId)) {
-                    entityBlocks[entityId][counters[entityId]] = block.getBlockIndex();
-                    counters[entityId]++;
-                }
-            }
-        });
+        return matchingEntities;
     }
 
-    private void indexEntities(List<AbstractBlock> blocks) {
-        if (blocks.get(0) instanceof BilateralBlock) {
-            indexBilateralEntities(blocks);
-        } else if (blocks.get(0) instanceof UnilateralBlock) {
-            indexUnilateralEntities(blocks);
+    public int getNoOfCommonBlocks(int blockIndex, Comparison comparison) {
+        final int leastCommonBlock = entityIndex.getLeastCommonBlock(comparison);
+        if (0 <= leastCommonBlock && leastCommonBlock != blockIndex) {
+            return -1;
         }
+        return entityIndex.getNoOfCommonBlocks(comparison);
     }
 
-    private void indexUnilateralEntities(List<AbstractBlock> blocks) {
-        //find matching entities
-        final TIntSet matchingEntities = new TIntHashSet();
-        duplicates.stream().map((pair) -> {
-            matchingEntities.add(pair.getEntityId1());
-            return pair;
-        }).forEachOrdered((pair) -> {
-            matchingEntities.add(pair.getEntityId2());
-        });
-
-        //count blocks per matching entity
-        final int[] counters = new int[noOfEntities];
-        blocks.stream().map((block) -> (UnilateralBlock) block).forEachOrdered((uniBlock) -> {
-            for (int id : uniBlock.getEntities()) {
-                if (matchingEntities.contains(id)) {
-                    counters[id]++;
-                }
-            }
-        });
-
-        //initialize inverted index
-        entityBlocks = new int[noOfEntities][];
-        for (int i = 0; i < noOfEntities; i++) {
-            entityBlocks[i] = new int[counters[i]];
-            counters[i] = 0;
-        }
-
-        //build inverted index
-        blocks.forEach((block) -> {
-            UnilateralBlock uniBlock = (UnilateralBlock) block;
-            for (int id : uniBlock.getEntities()) {
-                if (matchingEntities.contains(id)) {
-                    entityBlocks[id][counters[id]] = block.getBlockIndex();
-                    counters[id]++;
-                }
-            }
-        });
+    public int getNoOfEntities() {
+        return entityIndex.getNoOfEntities();
     }
 
-    public boolean isRepeated(int blockIndex, Comparison comparison) {
-        final int[] blocks1 = entityBlocks[comparison.getEntityId1()];
-        final int[] blocks2 = entityBlocks[comparison.getEntityId2() + datasetLimit];
-
-        for (int item : blocks1) {
-            for (int value : blocks2) {
-                if (value < item) {
-                    continue;
-                }
-
-                if (item < value) {
-                    break;
-                }
-
-                if (item == value) {
-                    return item != blockIndex;
-                }
-            }
-        }
-
-        Log.error("Error!!!!");
-        return false;
+    public int getNoOfEntityBlocks(int entityId, int useDLimit) {
+        return entityIndex.getNoOfEntityBlocks(entityId, useDLimit);
     }
 
-    private void setNoOfEntities(List<AbstractBlock> blocks) {
-        if (blocks.get(0) instanceof UnilateralBlock) {
-            setNoOfUnilateralEntities(blocks);
-        } else if (blocks.get(0) instanceof BilateralBlock) {
-            setNoOfBilateralEntities(blocks);
-        }
+    public TIntList getTotalCommonIndices(Comparison comparison) {
+        final TIntList indices = new TIntArrayList();
+        entityIndex.getCommonBlocks(comparison, indices);
+        return indices;
     }
 
-    private void setNoOfBilateralEntities(List<AbstractBlock> blocks) {
-        noOfEntities = Integer.MIN_VALUE;
-        datasetLimit = Integer.MIN_VALUE;
-        blocks.stream().map((block) -> (BilateralBlock) block).map((bilBlock) -> {
-            for (int id1 : bilBlock.getIndex1Entities()) {
-                if (noOfEntities < id1 + 1) {
-                    noOfEntities = id1 + 1;
-                }
-            }
-            return bilBlock;
-        }).forEachOrdered((bilBlock) -> {
-            for (int id2 : bilBlock.getIndex2Entities()) {
-                if (datasetLimit < id2 + 1) {
-                    datasetLimit = id2 + 1;
-                }
-            }
-        });
-
-        int temp = noOfEntities;
-        noOfEntities += datasetLimit;
-        datasetLimit = temp;
+    public int getTotalNoOfCommonBlocks(Comparison comparison) {
+        return entityIndex.getNoOfCommonBlocks(comparison);
     }
 
-    private void setNoOfUnilateralEntities(List<AbstractBlock> blocks) {
-        noOfEntities = Integer.MIN_VALUE;
-        datasetLimit = 0;
-        blocks.stream().map((block) -> (UnilateralBlock) block).forEachOrdered((bilBlock) -> {
-            for (int id : bilBlock.getEntities()) {
-                if (noOfEntities < id + 1) {
-                    noOfEntities = id + 1;
-                }
-            }
-        });
+    public boolean isRepeated(int blockIndex, Comparison comparison) {
+        final int leastCommonBlock = entityIndex.getLeastCommonBlock(comparison);
+        if (leastCommonBlock < 0) {
+            Log.error("Error!!!!");
+            return false;
+        }
+        return leastCommonBlock != blockIndex;
     }
 }
@@ -0,0 +1,109 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.datastructures;
+
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+import java.util.Arrays;
+
+/**
+ * The candidate matches of every entity of one Clean-Clean ER dataset, stored
+ * in compressed sparse row arrays. The candidates of every entity are sorted
+ * in decreasing similarity, with ties broken by ascending entity id, so that
+ * the matching algorithms that scan them are deterministic.
+ *
+ * @author G.A.P. II
+ */
+public class PreferenceLists {
+
+    private final int[] candidates;
+    private final int[] firstIndex; // the candidates of entity i lie in [firstIndex[i], firstIndex[i+1])
+    private final float[] similarities;
+
+    /**
+     * @param simPairs the similarity pairs of a Clean-Clean ER task
+     * @param threshold only the pairs with a higher similarity are retained
+     * @param ofFirstDataset true for the preference lists of the entities in
+     * the first dataset, false for those of the second dataset
+     * @param noOfEntities the number of entities in the selected dataset
+     */
+    public PreferenceLists(SimilarityPairs simPairs, float threshold, boolean ofFirstDataset, int noOfEntities) {
+        final int[] entityIds = ofFirstDataset ? simPairs.getEntityIds1() : simPairs.getEntityIds2();
+        final int[] candidateIds = ofFirstDataset ? simPairs.getEntityIds2() : simPairs.getEntityIds1();
+        final float[] pairSimilarities = simPairs.getSimilarities();
+
+        firstIndex = new int[noOfEntities + 1];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < pairSimilarities[i]) {
+                firstIndex[entityIds[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < noOfEntities; i++) {
+            firstIndex[i + 1] += firstIndex[i];
+        }
+
+        // every candidate is encoded as a long that sorts by decreasing similarity and then by increasing id
+        final int[] nextIndex = Arrays.copyOf(firstIndex, noOfEntities);
+        final long[] sortKeys = new long[firstIndex[noOfEntities]];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < pairSimilarities[i]) {
+                sortKeys[nextIndex[entityIds[i]]++] = getSortKey(candidateIds[i], pairSimilarities[i]);
+            }
+        }
+
+        candidates = new int[sortKeys.length];
+        similarities = new float[sortKeys.length];
+        for (int i = 0; i < noOfEntities; i++) {
+            Arrays.sort(sortKeys, firstIndex[i], firstIndex[i + 1]);
+        }
+        for (int i = 0; i < sortKeys.length; i++) {
+            candidates[i] = (int) sortKeys[i];
+            int sortableBits = ~(int) (sortKeys[i] >>> 32);
+            similarities[i] = Float.intBitsToFloat(sortableBits ^ ((sortableBits >> 31) & 0x7fffffff));
+        }
+    }
+
+    private static long getSortKey(int candidateId, float similarity) {
+        int bits = Float.floatToIntBits(similarity);
+        int sortableBits = bits ^ ((bits >> 31) & 0x7fffffff); // increases with the similarity, when compared as a signed int
+        return ((long) ~sortableBits << 32) | (candidateId & 0xffffffffL);
+    }
+
+    public int getCandidate(int index) {
+        return candidates[index];
+    }
+
+    public int getFirstIndex(int entityId) {
+        return firstIndex[entityId];
+    }
+
+    // exclusive
+    public int getLastIndex(int entityId) {
+        return firstIndex[entityId + 1];
+    }
+
+    public int getNoOfEntities() {
+        return firstIndex.length - 1;
+    }
+
+    public float getSimilarity(int index) {
+        return similarities[index];
+    }
+
+    public boolean isEmpty(int entityId) {
+        return firstIndex[entityId] == firstIndex[entityId + 1];
+    }
+}
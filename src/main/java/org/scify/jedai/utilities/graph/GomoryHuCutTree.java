@@ -0,0 +1,193 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.graph;
+
+/**
+ * ****************************************************************************
+ *
+ * The Gomory-Hu (minimum cut) tree of an undirected, weighted graph, built
+ * with Gusfield's algorithm. The graph is stored in compressed sparse row
+ * arrays and every maximum flow is computed with Dinic's algorithm, so no
+ * object is allocated per vertex or per edge.
+ *
+ *****************************************************************************
+ */
+public class GomoryHuCutTree {
+
+    private static final double EPSILON = 1e-9;
+
+    private final int V;
+    private final int[] arcHead;     // arcHead[a] = target vertex of arc a
+    private final int[] arcReverse;  // arcReverse[a] = the opposite arc of a
+    private final int[] firstArc;    // arcs of vertex v lie in [firstArc[v], firstArc[v+1])
+    private final double[] capacity;
+
+    private final double[] residual;
+    private final int[] currentArc;
+    private final int[] level;
+    private final int[] path;
+    private final int[] queue;
+
+    /**
+     * Initializes the tree over the given undirected, weighted graph.
+     *
+     * @param V the number of vertices
+     * @param source the first endpoint of every edge
+     * @param target the second endpoint of every edge
+     * @param weight the weight (capacity) of every edge
+     * @param E the number of edges
+     */
+    public GomoryHuCutTree(int V, int[] source, int[] target, float[] weight, int E) {
+        if (V < 1) {
+            throw new IllegalArgumentException("Number of vertices must be positive");
+        }
+        this.V = V;
+
+        firstArc = new int[V + 1];
+        for (int e = 0; e < E; e++) {
+            firstArc[source[e] + 1]++;
+            firstArc[target[e] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            firstArc[v + 1] += firstArc[v];
+        }
+
+        // every undirected edge corresponds to two arcs that are each other's reverse
+        final int[] nextArc = new int[V];
+        System.arraycopy(firstArc, 0, nextArc, 0, V);
+        arcHead = new int[2 * E];
+        arcReverse = new int[2 * E];
+        capacity = new double[2 * E];
+        for (int e = 0; e < E; e++) {
+            int a1 = nextArc[source[e]]++;
+            int a2 = nextArc[target[e]]++;
+            arcHead[a1] = target[e];
+            arcHead[a2] = source[e];
+            arcReverse[a1] = a2;
+            arcReverse[a2] = a1;
+            capacity[a1] = weight[e];
+            capacity[a2] = weight[e];
+        }
+
+        residual = new double[2 * E];
+        currentArc = new int[V];
+        level = new int[V];
+        path = new int[V];
+        queue = new int[V];
+    }
+
+    // the vertices with a non-negative level after the last, unsuccessful BFS form the source side of the minimum cut
+    private boolean buildLevelGraph(int s, int t) {
+        for (int v = 0; v < V; v++) {
+            level[v] = -1;
+        }
+
+        int head = 0;
+        int tail = 0;
+        level[s] = 0;
+        queue[tail++] = s;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int a = firstArc[v]; a < firstArc[v + 1]; a++) {
+                int w = arcHead[a];
+                if (level[w] < 0 && EPSILON < residual[a]) {
+                    level[w] = level[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return 0 <= level[t];
+    }
+
+    // non-recursive search for an augmenting path in the level graph
+    private double augment(int s, int t) {
+        int depth = 0;
+        int v = s;
+        while (true) {
+            if (v == t) {
+                double bottleneck = Double.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    bottleneck = Math.min(bottleneck, residual[path[i]]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    residual[path[i]] -= bottleneck;
+                    residual[arcReverse[path[i]]] += bottleneck;
+                }
+                return bottleneck;
+            }
+
+            boolean advanced = false;
+            for (; currentArc[v] < firstArc[v + 1]; currentArc[v]++) {
+                int a = currentArc[v];
+                int w = arcHead[a];
+                if (level[w] == level[v] + 1 && EPSILON < residual[a]) {
+                    path[depth++] = a;
+                    v = w;
+                    advanced = true;
+                    break;
+                }
+            }
+
+            if (!advanced) {
+                if (depth == 0) {
+                    return 0;
+                }
+                level[v] = -1; // dead end
+                v = arcHead[arcReverse[path[--depth]]];
+                currentArc[v]++;
+            }
+        }
+    }
+
+    private double getMaxFlow(int s, int t) {
+        System.arraycopy(capacity, 0, residual, 0, capacity.length);
+
+        double flow = 0;
+        while (buildLevelGraph(s, t)) {
+            System.arraycopy(firstArc, 0, currentArc, 0, V);
+            double pathFlow;
+            while (EPSILON < (pathFlow = augment(s, t))) {
+                flow += pathFlow;
+            }
+        }
+        return flow;
+    }
+
+    /**
+     * Computes the cut tree with Gusfield's algorithm, i.e., with V-1 maximum
+     * flow computations.
+     *
+     * @return the parent of every vertex in the cut tree; vertex 0 is the root
+     * and its own parent
+     */
+    public int[] getParents() {
+        final int[] parent = new int[V];
+        for (int s = 1; s < V; s++) {
+            int t = parent[s];
+            getMaxFlow(s, t);
+            for (int v = 0; v < V; v++) {
+                if (v != s && 0 <= level[v] && parent[v] == t) {
+                    parent[v] = s;
+                }
+            }
+            if (0 <= level[parent[t]]) {
+                parent[s] = parent[t];
+                parent[t] = s;
+            }
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,152 @@
+package org.scify.jedai.datagenerator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.IdDuplicates;
+import org.scify.jedai.datareader.entityreader.EntityCSVReader;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.datareader.groundtruthreader.GtCSVReader;
+import org.scify.jedai.datareader.groundtruthreader.GtSerializationReader;
+
+/** Verifies the functionality of {@link SyntheticDataGenerator}. */
+class SyntheticDataGeneratorTest {
+
+  private static final List<EntityProfile> SEED_PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+
+  @Test
+  void testDirtyErGroundTruth() {
+    final SyntheticDataGenerator generator =
+        new SyntheticDataGenerator(SEED_PROFILES, 5000, 0, 0.2f, 0.05f, 0.1f, 1.0f, 1);
+    final List<EntityProfile> profiles = generator.getEntityProfilesD1();
+    assertThat(profiles.size(), equalTo(5000));
+
+    // every duplicate shares most of its tokens with the profiles of its cluster
+    final Set<IdDuplicates> duplicates = generator.getDuplicatePairs();
+    assertThat(duplicates.size(), greaterThan(500));
+    int similarPairs = 0;
+    for (IdDuplicates pair : duplicates) {
+      if (0.5 < getJaccard(profiles.get(pair.getEntityId1()), profiles.get(pair.getEntityId2()))) {
+        similarPairs++;
+      }
+    }
+    assertThat(similarPairs, greaterThan(duplicates.size() * 3 / 4));
+  }
+
+  @Test
+  void testCleanCleanErGroundTruth() {
+    final SyntheticDataGenerator generator =
+        new SyntheticDataGenerator(SEED_PROFILES, 2000, 3000, 0.3f, 0.05f, 0.1f, 1.0f, 1);
+    final Set<IdDuplicates> duplicates = generator.getDuplicatePairs();
+    assertThat(duplicates.size(), greaterThan(800));
+    assertThat(duplicates.size(), lessThan(1000));
+
+    // one-to-one matches between the two datasets
+    final Set<Integer> ids1 = new HashSet<>();
+    final Set<Integer> ids2 = new HashSet<>();
+    for (IdDuplicates pair : duplicates) {
+      assertThat(ids1.add(pair.getEntityId1()), equalTo(true));
+      assertThat(ids2.add(pair.getEntityId2()), equalTo(true));
+    }
+  }
+
+  @Test
+  void testDeterminism() {
+    final List<EntityProfile> profiles1 =
+        new SyntheticDataGenerator(SEED_PROFILES, 1000, 1000).getEntityProfilesD2();
+    final List<EntityProfile> profiles2 =
+        new SyntheticDataGenerator(SEED_PROFILES, 1000, 1000).getEntityProfilesD2();
+    assertThat(profiles1, equalTo(profiles2));
+  }
+
+  @Test
+  void testKeySkew() {
+    final int uniformMaxFrequency = getMaxTokenFrequency(
+        new SyntheticDataGenerator(SEED_PROFILES, 2000, 0, 0.1f, 0, 0, 0, 1).getEntityProfilesD1());
+    final int skewedMaxFrequency = getMaxTokenFrequency(
+        new SyntheticDataGenerator(SEED_PROFILES, 2000, 0, 0.1f, 0, 0, 1.5f, 1).getEntityProfilesD1());
+    assertThat(skewedMaxFrequency, greaterThan(2 * uniformMaxFrequency));
+  }
+
+  @Test
+  void testCsvFormats() throws IOException {
+    final SyntheticDataGenerator generator = new SyntheticDataGenerator(SEED_PROFILES, 500, 700);
+    final File directory = Files.createTempDirectory("synthetic").toFile();
+    final String pathD1 = new File(directory, "d1.csv").getPath();
+    final String pathD2 = new File(directory, "d2.csv").getPath();
+    final String gtPath = new File(directory, "gt.csv").getPath();
+    generator.writeEntityCSV(pathD1, false);
+    generator.writeEntityCSV(pathD2, true);
+    generator.writeGroundTruthCSV(gtPath);
+
+    final List<EntityProfile> profilesD1 = readCsv(pathD1);
+    final List<EntityProfile> profilesD2 = readCsv(pathD2);
+    assertThat(profilesD1.size(), equalTo(500));
+    assertThat(profilesD2.size(), equalTo(700));
+    assertThat(new GtCSVReader(gtPath).getDuplicatePairs(profilesD1, profilesD2),
+        equalTo(generator.getDuplicatePairs()));
+  }
+
+  @Test
+  void testSerializedFormats() throws IOException {
+    final SyntheticDataGenerator generator = new SyntheticDataGenerator(SEED_PROFILES, 800, 0);
+    final File directory = Files.createTempDirectory("synthetic").toFile();
+    final String profilesPath = new File(directory, "profiles").getPath();
+    final String gtPath = new File(directory, "gt").getPath();
+    generator.writeSerializedProfiles(profilesPath, false);
+    generator.writeSerializedGroundTruth(gtPath);
+
+    final List<EntityProfile> profiles =
+        new EntitySerializationReader(profilesPath).getEntityProfiles();
+    assertThat(profiles, equalTo(generator.getEntityProfilesD1()));
+    assertThat(new GtSerializationReader(gtPath).getDuplicatePairs(profiles),
+        equalTo(generator.getDuplicatePairs()));
+  }
+
+  private static double getJaccard(EntityProfile profile1, EntityProfile profile2) {
+    final Set<String> tokens1 = getTokens(profile1);
+    final Set<String> tokens2 = getTokens(profile2);
+    final Set<String> intersection = new HashSet<>(tokens1);
+    intersection.retainAll(tokens2);
+    return intersection.size() / (double) (tokens1.size() + tokens2.size() - intersection.size());
+  }
+
+  private static int getMaxTokenFrequency(List<EntityProfile> profiles) {
+    final Map<String, Integer> frequencies = new HashMap<>();
+    for (EntityProfile profile : profiles) {
+      for (String token : getTokens(profile)) {
+        frequencies.merge(token, 1, Integer::sum);
+      }
+    }
+    return frequencies.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+  }
+
+  private static Set<String> getTokens(EntityProfile profile) {
+    final Set<String> tokens = new HashSet<>();
+    profile.getAttributes().forEach(a -> tokens.addAll(Arrays.asList(a.getValue().split("\\s+"))));
+    return tokens;
+  }
+
+  private static List<EntityProfile> readCsv(String path) {
+    final EntityCSVReader reader = new EntityCSVReader(path);
+    reader.setAttributeNamesInFirstRow(true);
+    reader.setIdIndex(0);
+    reader.setAttributesToExclude(new int[] {0});
+    return new ArrayList<>(reader.getEntityProfiles());
+  }
+}
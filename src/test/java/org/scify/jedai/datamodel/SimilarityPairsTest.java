@@ -0,0 +1,57 @@
+package org.scify.jedai.datamodel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.jupiter.api.Test;
+
+/** Verifies the chunked storage of {@link SimilarityPairs}. */
+class SimilarityPairsTest {
+
+  private static final int NO_OF_PAIRS = 100000;
+
+  @Test
+  void testChunkedPairs() {
+    for (SimilarityPairs simPairs : new SimilarityPairs[]{new SimilarityPairs(true), new SimilarityPairs(true, 1000)}) {
+      for (int i = 0; i < NO_OF_PAIRS / 2; i++) {
+        simPairs.addComparison(i, 2 * i, i / 4f);
+      }
+      assertThat(simPairs.getEntityIds1().length, equalTo(NO_OF_PAIRS / 2));
+
+      // the pairs added after the arrays have been retrieved follow them
+      for (int i = NO_OF_PAIRS / 2; i < NO_OF_PAIRS; i++) {
+        simPairs.addComparison(i, 2 * i, i / 4f);
+      }
+      assertThat(simPairs.getNoOfComparisons(), equalTo(NO_OF_PAIRS));
+      for (int i = 0; i < NO_OF_PAIRS; i++) {
+        assertThat(simPairs.getEntityId1(i), equalTo(i));
+        assertThat(simPairs.getEntityId2(i), equalTo(2 * i));
+        assertThat(simPairs.getSimilarity(i), equalTo(i / 4f));
+      }
+
+      final int[] entityIds1 = simPairs.getEntityIds1();
+      final int[] entityIds2 = simPairs.getEntityIds2();
+      final float[] similarities = simPairs.getSimilarities();
+      assertThat(entityIds1.length, equalTo(NO_OF_PAIRS));
+      assertThat(entityIds2.length, equalTo(NO_OF_PAIRS));
+      assertThat(similarities.length, equalTo(NO_OF_PAIRS));
+      for (int i = 0; i < NO_OF_PAIRS; i++) {
+        assertThat(entityIds1[i], equalTo(i));
+        assertThat(entityIds2[i], equalTo(2 * i));
+        assertThat(similarities[i], equalTo(i / 4f));
+      }
+    }
+  }
+
+  @Test
+  void testExactCapacity() {
+    final SimilarityPairs simPairs = new SimilarityPairs(false, 3);
+    simPairs.addComparison(0, 1, 0.5f);
+    simPairs.addComparison(1, 2, 0.25f);
+    assertThat(simPairs.getEntityIds1(), equalTo(new int[]{0, 1}));
+
+    simPairs.addComparison(2, 3, 0.75f);
+    assertThat(simPairs.getEntityIds2(), equalTo(new int[]{1, 2, 3}));
+    assertThat(simPairs.getSimilarities(), equalTo(new float[]{0.5f, 0.25f, 0.75f}));
+  }
+}
@@ -0,0 +1,51 @@
+package org.scify.jedai.datamodel.joins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.similarityjoins.tokenbased.PPJoin;
+
+/** Verifies the functionality of {@link TokenizedColumn}. */
+class TokenizedColumnTest {
+
+  @Test
+  void testTokenization() {
+    final EntityProfile profile1 = new EntityProfile("p1");
+    profile1.addAttribute("Name", "The_Quick  brown-fox");
+    profile1.addAttribute("other", "ignored");
+    final EntityProfile profile2 = new EntityProfile("p2");
+    profile2.addAttribute("name", "brown Fox, the fox");
+
+    final TokenizedColumn column = new TokenizedColumn(Arrays.asList(profile1, profile2), "name");
+    assertThat(column.getSize(), equalTo(2));
+    assertThat(column.getValue(0), equalTo("the quick brown fox"));
+    assertThat(column.getValue(1), equalTo("brown fox the fox"));
+    assertThat(column.getNoOfTokens(), equalTo(4));
+    assertThat(column.getTokenIds(0), equalTo(new int[] {0, 1, 2, 3}));
+    assertThat(column.getTokenIds(1), equalTo(new int[] {2, 3, 0, 3}));
+  }
+
+  @Test
+  void testJoinOverColumn() {
+    final List<EntityProfile> profiles =
+        new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+    final TokenizedColumn column = new TokenizedColumn(profiles, "name");
+    assertThat(column.isColumnOf(profiles, "name"), equalTo(true));
+    for (int i = 0; i < profiles.size(); i++) {
+      assertThat(column.getValue(i), equalTo(TokenizedColumn.getAttributeValue("name", profiles.get(i))));
+    }
+
+    final SimilarityPairs columnPairs = new PPJoin(0.5f).executeFiltering(column);
+    final SimilarityPairs profilePairs = new PPJoin(0.5f).executeFiltering("name", profiles);
+    final int noOfPairs = profilePairs.getNoOfComparisons();
+    assertThat(columnPairs.getNoOfComparisons(), equalTo(noOfPairs));
+    assertThat(columnPairs.getEntityIds1(), equalTo(profilePairs.getEntityIds1()));
+    assertThat(columnPairs.getEntityIds2(), equalTo(profilePairs.getEntityIds2()));
+  }
+}
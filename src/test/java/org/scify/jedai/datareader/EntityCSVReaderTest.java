@@ -0,0 +1,54 @@
+package org.scify.jedai.datareader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntityCSVReader;
+
+/** Verifies the parallel mode of {@link EntityCSVReader}. */
+class EntityCSVReaderTest {
+
+  private static final String ACM_PATH = "data/cleanCleanErDatasets/DBLP-ACM/ACM.csv";
+
+  @Test
+  void testParallelReading() {
+    final List<EntityProfile> expected = read(ACM_PATH, true, 0, false);
+    assertThat(expected.size(), greaterThan(2000));
+    assertThat(read(ACM_PATH, true, 0, true), equalTo(expected));
+  }
+
+  @Test
+  void testQuotedLineBreaksAndMalformedLines(@TempDir Path directory) throws IOException {
+    final StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      content.append("value").append(i).append(",\"multi\nline, \\\"quoted\\\" ").append(i).append("\",x\n");
+      if (i % 7 == 0) {
+        content.append("malformed,line,with,too,many,values\n");
+      }
+    }
+    final Path file = directory.resolve("entities.csv");
+    Files.write(file, content.toString().getBytes(Charset.defaultCharset()));
+
+    final List<EntityProfile> expected = read(file.toString(), false, -1, false);
+    assertThat(expected.size(), equalTo(200));
+    assertThat(read(file.toString(), false, -1, true), equalTo(expected));
+  }
+
+  private static List<EntityProfile> read(String path, boolean attributeNamesInFirstRow, int idIndex, boolean parallel) {
+    final EntityCSVReader reader = new EntityCSVReader(path);
+    reader.setAttributeNamesInFirstRow(attributeNamesInFirstRow);
+    reader.setIdIndex(idIndex);
+    reader.setParallel(parallel);
+    reader.setChunkSize(1024);
+    return reader.getEntityProfiles();
+  }
+}
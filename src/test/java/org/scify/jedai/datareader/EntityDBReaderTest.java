@@ -0,0 +1,77 @@
+package org.scify.jedai.datareader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntityDBReader;
+
+/** Verifies the streaming and the parallel modes of {@link EntityDBReader} against an embedded H2 database. */
+class EntityDBReaderTest {
+
+  private static final int NO_OF_ROWS = 1000;
+  private static final String URL = "h2:mem:entities;DB_CLOSE_DELAY=-1";
+
+  private static Connection connection;
+
+  @BeforeAll
+  static void createTable() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:" + URL, "sa", "");
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE TABLE products (id INT PRIMARY KEY, title VARCHAR(100), brand VARCHAR(100))");
+    }
+    try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO products VALUES (?, ?, ?)")) {
+      for (int i = 0; i < NO_OF_ROWS; i++) {
+        // the gaps in the keys leave some partitions sparser than others
+        stmt.setInt(1, i * i % 7919);
+        stmt.setString(2, "product " + i);
+        stmt.setString(3, i % 3 == 0 ? null : "brand " + (i % 10));
+        stmt.addBatch();
+      }
+      stmt.executeBatch();
+    }
+  }
+
+  @AfterAll
+  static void dropTable() throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE products");
+    }
+    connection.close();
+  }
+
+  @Test
+  void testStreamingAndParallelReading() {
+    final EntityDBReader reader = getReader();
+    reader.setPartitions("id", 1);
+    final List<EntityProfile> expected = reader.getEntityProfiles();
+    assertThat(expected.size(), equalTo(NO_OF_ROWS));
+
+    final EntityDBReader streamingReader = getReader();
+    streamingReader.setFetchSize(64);
+    assertThat(streamingReader.getEntityProfiles().size(), equalTo(NO_OF_ROWS));
+
+    final EntityDBReader parallelReader = getReader();
+    parallelReader.setFetchSize(64);
+    parallelReader.setPartitions("id", 5);
+    assertThat(parallelReader.getEntityProfiles(), equalTo(expected));
+  }
+
+  private static EntityDBReader getReader() {
+    final EntityDBReader reader = new EntityDBReader(URL);
+    reader.setTable("products");
+    reader.setUser("sa");
+    reader.setPassword("");
+    reader.setSSL(false);
+    return reader;
+  }
+}
@@ -0,0 +1,156 @@
+package org.scify.jedai.entityclustering;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.in;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+/**
+ * Verifies that the {@link IIncrementalEntityClustering} implementations end up with the same
+ * clusters as their batch counterparts, no matter how the pairs are split into batches.
+ */
+class IncrementalEntityClusteringTest {
+
+  @Test
+  void testConnectedComponentsClustering() {
+    assertSameClusters(false, new ConnectedComponentsClustering(0.5f),
+        new IncrementalConnectedComponentsClustering(0.5f));
+  }
+
+  @Test
+  void testCenterClustering() {
+    assertSameClusters(false, new CenterClustering(0.5f), new IncrementalCenterClustering(0.5f));
+  }
+
+  @Test
+  void testUniqueMappingClustering() {
+    assertSameClusters(true, new UniqueMappingClustering(0.1f),
+        new IncrementalUniqueMappingClustering(0.1f));
+  }
+
+  @Test
+  void testSnapshotRestore() {
+    final Random random = new Random(7);
+    final List<Comparison> pairs = generatePairs(true, random);
+    final IncrementalUniqueMappingClustering clustering = new IncrementalUniqueMappingClustering(0.1f);
+    clustering.updateClusters(toSimilarityPairs(true, pairs.subList(0, pairs.size() / 2)));
+    final IncrementalClusteringState snapshot = clustering.getSnapshot();
+    final Set<String> expected = toStrings(clustering.getClusters());
+
+    clustering.updateClusters(toSimilarityPairs(true, pairs.subList(pairs.size() / 2, pairs.size())));
+    clustering.restoreSnapshot(snapshot);
+    assertThat(toStrings(clustering.getClusters()), equalTo(expected));
+  }
+
+  @Test
+  void testSkippedEntityIds() {
+    assertReportsNewEntities(false, new IncrementalConnectedComponentsClustering(0.5f));
+    assertReportsNewEntities(false, new IncrementalCenterClustering(0.5f));
+    assertReportsNewEntities(true, new IncrementalUniqueMappingClustering(0.1f));
+  }
+
+  // a batch that raises the maximum entity ids reports all new entities, including those of no pair
+  private static void assertReportsNewEntities(boolean ccer, IIncrementalEntityClustering incremental) {
+    final List<Comparison> firstBatch = new ArrayList<>();
+    firstBatch.add(getPair(ccer, 0, 1, 0.9f));
+    firstBatch.add(getPair(ccer, 1, 3, 0.8f));
+    final List<Comparison> secondBatch = new ArrayList<>();
+    secondBatch.add(getPair(ccer, 2, 8, 0.9f));
+    secondBatch.add(getPair(ccer, 6, 3, 0.7f));
+
+    final Set<String> before = toStrings(incremental.getDuplicates(toSimilarityPairs(ccer, firstBatch)));
+    final Set<String> changed = toStrings(incremental.updateClusters(toSimilarityPairs(ccer, secondBatch)));
+    final Set<String> after = toStrings(incremental.getClusters());
+    assertThat(changed, everyItem(in(after)));
+    after.removeAll(before);
+    assertThat(after, everyItem(in(changed)));
+    assertThat("[5]|[]", in(changed));
+    if (ccer) {
+      assertThat("[]|[7]", in(changed));
+    }
+  }
+
+  private static Comparison getPair(boolean ccer, int entityId1, int entityId2, float similarity) {
+    final Comparison comparison = ccer ? new Comparison(true, entityId1, entityId2)
+        : new Comparison(false, Math.min(entityId1, entityId2), Math.max(entityId1, entityId2));
+    comparison.setUtilityMeasure(similarity);
+    return comparison;
+  }
+
+  private static void assertSameClusters(boolean ccer, IEntityClustering batch,
+      IIncrementalEntityClustering incremental) {
+    for (int iteration = 0; iteration < 20; iteration++) {
+      final Random random = new Random(iteration);
+      final List<Comparison> pairs = generatePairs(ccer, random);
+
+      // the initial clustering covers two thirds of the pairs and the batch the rest,
+      // along with new similarities for some of the initial pairs
+      int split = 2 * pairs.size() / 3;
+      final List<Comparison> firstBatch = new ArrayList<>(pairs.subList(0, split));
+      final List<Comparison> secondBatch = new ArrayList<>(pairs.subList(split, pairs.size()));
+      for (int i = 0; i < split; i += 5) {
+        final Comparison updated = new Comparison(ccer, pairs.get(i).getEntityId1(), pairs.get(i).getEntityId2());
+        updated.setUtilityMeasure(random.nextFloat());
+        pairs.set(i, updated);
+        secondBatch.add(updated);
+      }
+
+      incremental.getDuplicates(toSimilarityPairs(ccer, firstBatch));
+      final EquivalenceCluster[] changedClusters = incremental.updateClusters(toSimilarityPairs(ccer, secondBatch));
+      final Set<String> expected = toStrings(batch.getDuplicates(toSimilarityPairs(ccer, pairs)));
+      assertThat(toStrings(incremental.getClusters()), equalTo(expected));
+      assertThat(toStrings(changedClusters), everyItem(in(expected)));
+      assertThat(toStrings(incremental.getDuplicates(toSimilarityPairs(ccer, pairs))), equalTo(expected));
+    }
+  }
+
+  private static List<Comparison> generatePairs(boolean ccer, Random random) {
+    final Set<String> existingPairs = new HashSet<>();
+    final List<Comparison> pairs = new ArrayList<>();
+    while (pairs.size() < 150) {
+      int entityId1 = random.nextInt(60);
+      int entityId2 = random.nextInt(60);
+      if ((!ccer && entityId1 == entityId2) || !existingPairs.add(Math.min(entityId1, entityId2) + "_" + Math.max(entityId1, entityId2))) {
+        continue;
+      }
+      final Comparison comparison = ccer ? new Comparison(true, entityId1, entityId2)
+          : new Comparison(false, Math.min(entityId1, entityId2), Math.max(entityId1, entityId2));
+      comparison.setUtilityMeasure(random.nextFloat());
+      pairs.add(comparison);
+    }
+    return pairs;
+  }
+
+  private static SimilarityPairs toSimilarityPairs(boolean ccer, List<Comparison> pairs) {
+    final SimilarityPairs simPairs = new SimilarityPairs(ccer, pairs.size());
+    pairs.forEach(simPairs::addComparison);
+    return simPairs;
+  }
+
+  private static Set<String> toStrings(EquivalenceCluster[] clusters) {
+    final Set<String> strings = new HashSet<>();
+    for (EquivalenceCluster cluster : clusters) {
+      strings.add(toString(cluster.getEntityIdsD1()) + "|" + toString(cluster.getEntityIdsD2()));
+    }
+    return strings;
+  }
+
+  private static String toString(TIntList ids) {
+    final int[] sortedIds = new TIntArrayList(ids).toArray();
+    Arrays.sort(sortedIds);
+    return Arrays.toString(sortedIds);
+  }
+}
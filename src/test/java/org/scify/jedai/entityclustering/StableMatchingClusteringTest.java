@@ -0,0 +1,68 @@
+package org.scify.jedai.entityclustering;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+import gnu.trove.list.TIntList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+/**
+ * Verifies {@link ExactClustering} and {@link KiralyMSMApproxClustering} on a small Clean-Clean ER
+ * fixture, whose clusters are computed by hand.
+ */
+class StableMatchingClusteringTest {
+
+  /**
+   * The candidates of every entity of the first dataset, in decreasing similarity:
+   * 0: 0 (0.8)
+   * 1: 0 (0.9), 1 (0.5)
+   * 2: 1 (0.7), 2 (0.7), where the tie is broken by id
+   * 3: 2 (0.6), while its pair with 3 falls below the threshold
+   * 4: 1 (0.7)
+   */
+  private static SimilarityPairs getSimilarityPairs() {
+    final SimilarityPairs simPairs = new SimilarityPairs(true);
+    simPairs.addComparison(0, 0, 0.8f);
+    simPairs.addComparison(1, 0, 0.9f);
+    simPairs.addComparison(1, 1, 0.5f);
+    simPairs.addComparison(2, 2, 0.7f);
+    simPairs.addComparison(2, 1, 0.7f);
+    simPairs.addComparison(3, 2, 0.6f);
+    simPairs.addComparison(3, 3, 0.05f);
+    simPairs.addComparison(4, 1, 0.7f);
+    return simPairs;
+  }
+
+  @Test
+  void testExactClustering() {
+    // 1-0 is reciprocal, although 0 is processed first and also prefers 0;
+    // 2-1 is reciprocal, because both 2 and 4 are equally similar to 1, but 2 has the smaller id
+    assertThat(toStrings(new ExactClustering(0.1f).getDuplicates(getSimilarityPairs())),
+        containsInAnyOrder("[1]|[0]", "[2]|[1]", "[0]|[]", "[3]|[]", "[4]|[]", "[]|[2]", "[]|[3]"));
+  }
+
+  @Test
+  void testKiralyClustering() {
+    // 1 takes 0 from 0, who ends up an old bachelor; 4 takes 1 from 2 in the tie, since 2 is
+    // uncertain with 2 equally similar, and 2 then takes 2 from 3
+    assertThat(toStrings(new KiralyMSMApproxClustering(0.1f).getDuplicates(getSimilarityPairs())),
+        containsInAnyOrder("[1]|[0]", "[4]|[1]", "[2]|[2]", "[0]|[]", "[3]|[]", "[]|[3]"));
+  }
+
+  private static List<String> toStrings(EquivalenceCluster[] clusters) {
+    final List<String> strings = new ArrayList<>();
+    for (EquivalenceCluster cluster : clusters) {
+      strings.add(toString(cluster.getEntityIdsD1()) + "|" + toString(cluster.getEntityIdsD2()));
+    }
+    return strings;
+  }
+
+  private static String toString(TIntList ids) {
+    ids.sort();
+    return ids.toString().replace('{', '[').replace('}', ']');
+  }
+}
@@ -0,0 +1,88 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.prioritization.utilities.AdaptiveComparisonQueue;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies the functionality of {@link AdaptivePrioritization}. */
+class AdaptivePrioritizationTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+
+  @Test
+  void testScheduleWithoutMatches() {
+    final IPrioritization original = new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS);
+    original.developBlockBasedSchedule(BLOCKS);
+    final IPrioritization adaptive =
+        new AdaptivePrioritization(BUDGET, new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS), 100);
+    adaptive.developBlockBasedSchedule(BLOCKS);
+
+    assertThat(getSchedule(adaptive), equalTo(getSchedule(original)));
+  }
+
+  @Test
+  void testDirtyERFeedback() {
+    final AdaptiveComparisonQueue queue = new AdaptiveComparisonQueue(10, false);
+    queue.offer(0, 1, 0, 0);
+    queue.offer(2, 3, 0, 1);
+    queue.offer(1, 2, 0, 2);
+    queue.offer(4, 5, 0, 3);
+    queue.offer(0, 2, 0, 4);
+    queue.offer(3, 5, 0, 5);
+
+    assertThat(toString(queue.poll()), equalTo("0_1"));
+    queue.reportMatch(0, 1);
+    assertThat(toString(queue.poll()), equalTo("1_2"));
+    queue.reportMatch(1, 2);
+    // 0_2 is redundant, while 2_3 is boosted over 4_5
+    assertThat(toString(queue.poll()), equalTo("2_3"));
+    assertThat(toString(queue.poll()), equalTo("4_5"));
+    assertThat(toString(queue.poll()), equalTo("3_5"));
+    assertThat(queue.poll(), nullValue());
+    assertThat(queue.getSkippedComparisons(), equalTo(1L));
+    assertThat(queue.offer(0, 2, 0, 6), equalTo(false));
+  }
+
+  @Test
+  void testCleanCleanERFeedback() {
+    final AdaptiveComparisonQueue queue = new AdaptiveComparisonQueue(4, true);
+    queue.offer(0, 0, 0, 0);
+    queue.offer(0, 1, 0, 1);
+    queue.offer(1, 0, 0, 2);
+    queue.offer(1, 1, 0, 3);
+
+    assertThat(toString(queue.poll()), equalTo("0_0"));
+    queue.reportMatch(0, 0);
+    assertThat(toString(queue.poll()), equalTo("1_1"));
+    assertThat(toString(queue.poll()), equalTo("0_1"));
+    assertThat(toString(queue.poll()), equalTo("1_0"));
+    assertThat(queue.isEmpty(), equalTo(true));
+  }
+
+  private static List<String> getSchedule(IPrioritization prioritization) {
+    final List<String> comparisons = new ArrayList<>();
+    while (prioritization.hasNext()) {
+      final Comparison comparison = prioritization.next();
+      comparisons.add(toString(comparison) + "_" + comparison.getUtilityMeasure());
+    }
+    return comparisons;
+  }
+
+  private static String toString(Comparison comparison) {
+    return comparison.getEntityId1() + "_" + comparison.getEntityId2();
+  }
+}
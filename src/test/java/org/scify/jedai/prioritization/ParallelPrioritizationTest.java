@@ -0,0 +1,58 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies that the parallel mode of the hash-based prioritizations yields the sequential schedule. */
+class ParallelPrioritizationTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+
+  @Test
+  void testGlobalTopComparisons() {
+    assertSameSchedule(() -> new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.ARCS));
+  }
+
+  @Test
+  void testLocalTopComparisons() {
+    assertSameSchedule(() -> new ProgressiveLocalTopComparisons(BUDGET, WeightingScheme.JS));
+  }
+
+  @Test
+  void testEntityScheduling() {
+    assertSameSchedule(() -> new ProgressiveEntityScheduling(BUDGET, WeightingScheme.EJS));
+  }
+
+  private static void assertSameSchedule(Supplier<AbstractHashBasedPrioritization> prioritizationSupplier) {
+    final List<String> sequentialSchedule = getSchedule(prioritizationSupplier.get());
+    final AbstractHashBasedPrioritization parallelPrioritization = prioritizationSupplier.get();
+    parallelPrioritization.setParallel(true);
+    assertThat(sequentialSchedule.size(), greaterThan(0));
+    assertThat(getSchedule(parallelPrioritization), equalTo(sequentialSchedule));
+  }
+
+  private static List<String> getSchedule(AbstractHashBasedPrioritization prioritization) {
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    final List<String> comparisons = new ArrayList<>();
+    while (prioritization.hasNext()) {
+      final Comparison comparison = prioritization.next();
+      comparisons.add(comparison.getEntityId1() + "_" + comparison.getEntityId2() + "_" + comparison.getUtilityMeasure());
+    }
+    return comparisons;
+  }
+}
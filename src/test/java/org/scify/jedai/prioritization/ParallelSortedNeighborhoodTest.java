@@ -0,0 +1,81 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.ExtendedSortedNeighborhoodBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.UnilateralBlock;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.utilities.enumerations.ProgressiveWeightingScheme;
+
+/** Verifies that the parallel mode of the sorted neighborhood methods yields the sequential output. */
+class ParallelSortedNeighborhoodTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+
+  @Test
+  void testExtendedSortedNeighborhood() {
+    final List<AbstractBlock> sequentialBlocks = new ExtendedSortedNeighborhoodBlocking(3).getBlocks(PROFILES);
+    final ExtendedSortedNeighborhoodBlocking parallelBlocking = new ExtendedSortedNeighborhoodBlocking(3);
+    parallelBlocking.setParallel(true);
+    final List<AbstractBlock> parallelBlocks = parallelBlocking.getBlocks(PROFILES);
+
+    assertThat(sequentialBlocks.size(), greaterThan(0));
+    assertThat(parallelBlocks.size(), equalTo(sequentialBlocks.size()));
+    for (int i = 0; i < sequentialBlocks.size(); i++) {
+      assertThat(getSortedEntities(parallelBlocks.get(i)), equalTo(getSortedEntities(sequentialBlocks.get(i))));
+    }
+  }
+
+  @Test
+  void testGlobalProgressiveSortedNeighborhood() {
+    assertSameSchedule(() -> new GlobalProgressiveSortedNeighborhood(BUDGET, ProgressiveWeightingScheme.NCF));
+  }
+
+  @Test
+  void testLocalProgressiveSortedNeighborhood() {
+    assertSameSchedule(() -> new LocalProgressiveSortedNeighborhood(BUDGET, ProgressiveWeightingScheme.ACF));
+  }
+
+  private static void assertSameSchedule(Supplier<AbstractSimilarityBasedPrioritization> prioritizationSupplier) {
+    final AbstractSimilarityBasedPrioritization sequentialPrioritization = prioritizationSupplier.get();
+    sequentialPrioritization.developEntityBasedSchedule(PROFILES);
+    final AbstractSimilarityBasedPrioritization parallelPrioritization = prioritizationSupplier.get();
+    parallelPrioritization.setParallel(true);
+    parallelPrioritization.developEntityBasedSchedule(PROFILES);
+
+    // the entities with the same blocking key are shuffled, so both schedules scan the same list
+    parallelPrioritization.sortedEntityIds = sequentialPrioritization.sortedEntityIds;
+    parallelPrioritization.positionIndex = sequentialPrioritization.positionIndex;
+
+    final List<String> sequentialSchedule = getSchedule(sequentialPrioritization);
+    assertThat(sequentialSchedule.size(), equalTo(BUDGET));
+    assertThat(getSchedule(parallelPrioritization), equalTo(sequentialSchedule));
+  }
+
+  private static List<String> getSchedule(AbstractSimilarityBasedPrioritization prioritization) {
+    final List<String> comparisons = new ArrayList<>();
+    while (prioritization.hasNext()) {
+      final Comparison comparison = prioritization.next();
+      comparisons.add(comparison.getEntityId1() + "_" + comparison.getEntityId2() + "_" + comparison.getUtilityMeasure());
+    }
+    return comparisons;
+  }
+
+  private static int[] getSortedEntities(AbstractBlock block) {
+    final int[] entities = ((UnilateralBlock) block).getEntities().clone();
+    Arrays.sort(entities);
+    return entities;
+  }
+}
@@ -0,0 +1,103 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies the functionality of {@link ProgressiveEntityScheduling}. */
+class ProgressiveEntitySchedulingTest {
+
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+
+  @Test
+  void testPrefetchedSchedule() {
+    final List<String> expected = getSchedule(Integer.MAX_VALUE, 0);
+    assertThat(expected.size(), greaterThan(1000));
+    assertThat(getSchedule(Integer.MAX_VALUE, 3), equalTo(expected));
+    assertThat(getSchedule(1000, 3), equalTo(expected.subList(0, 1000)));
+  }
+
+  @Test
+  void testTerminateThenResume() {
+    final List<String> expected = getSchedule(Integer.MAX_VALUE, 0);
+    final AtomicInteger emitted = new AtomicInteger();
+    final ProgressiveEntityScheduling prioritization = new ProgressiveEntityScheduling(Integer.MAX_VALUE, WeightingScheme.JS);
+    prioritization.setLookahead(3);
+    prioritization.setTerminationCondition(() -> 500 <= emitted.get());
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    final List<String> schedule = getSchedule(prioritization, emitted);
+    assertThat(schedule, equalTo(expected.subList(0, 500)));
+
+    // the entities prefetched before the termination are not skipped once it is lifted
+    prioritization.setTerminationCondition(null);
+    schedule.addAll(getSchedule(prioritization, emitted));
+    assertThat(schedule.size(), equalTo(expected.size()));
+    assertThat(schedule, equalTo(expected));
+    assertThat(getNoOfPrefetchers(), equalTo(0L));
+  }
+
+  @Test
+  void testAbandonedSchedule() {
+    final AtomicInteger emitted = new AtomicInteger();
+    final ProgressiveEntityScheduling prioritization = new ProgressiveEntityScheduling(Integer.MAX_VALUE, WeightingScheme.JS);
+    prioritization.setLookahead(3);
+    prioritization.setTerminationCondition(() -> 500 <= emitted.get());
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    assertThat(getSchedule(prioritization, emitted).size(), equalTo(500));
+    prioritization.stopPrefetching();
+    assertThat(getNoOfPrefetchers(), equalTo(0L));
+  }
+
+  @Test
+  void testRedevelopedSchedule() {
+    final List<String> expected = getSchedule(Integer.MAX_VALUE, 0);
+    final ProgressiveEntityScheduling prioritization = new ProgressiveEntityScheduling(Integer.MAX_VALUE, WeightingScheme.JS);
+    prioritization.setLookahead(3);
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    for (int i = 0; i < 500 && prioritization.hasNext(); i++) {
+      prioritization.next();
+    }
+
+    // the prefetcher of the abandoned schedule does not consume the entities of the new one
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    assertThat(getNoOfPrefetchers(), equalTo(1L));
+    assertThat(getSchedule(prioritization, new AtomicInteger()), equalTo(expected));
+    assertThat(getNoOfPrefetchers(), equalTo(0L));
+  }
+
+  private static long getNoOfPrefetchers() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.isAlive() && thread.getName().equals("progressive-entity-scheduling"))
+        .count();
+  }
+
+  private static List<String> getSchedule(int budget, int lookahead) {
+    final ProgressiveEntityScheduling prioritization = new ProgressiveEntityScheduling(budget, WeightingScheme.JS);
+    prioritization.setLookahead(lookahead);
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    return getSchedule(prioritization, new AtomicInteger());
+  }
+
+  private static List<String> getSchedule(IPrioritization prioritization, AtomicInteger emitted) {
+    final List<String> comparisons = new ArrayList<>();
+    while (prioritization.hasNext()) {
+      emitted.incrementAndGet();
+      final Comparison comparison = prioritization.next();
+      comparisons.add(comparison.getEntityId1() + "_" + comparison.getEntityId2() + "_" + comparison.getUtilityMeasure());
+    }
+    return comparisons;
+  }
+}
@@ -0,0 +1,72 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.prioritization.utilities.ProgressiveCEP;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies the functionality of {@link ProgressiveGlobalTopComparisons}. */
+class ProgressiveGlobalTopComparisonsTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+
+  @Test
+  void testIncrementalTopComparisons() {
+    final ProgressiveCEP pcep = new ProgressiveCEP(BUDGET, WeightingScheme.JS);
+    pcep.refineBlocks(BLOCKS);
+    final List<Float> expected = new ArrayList<>();
+    for (Comparison comparison : pcep.getTopComparisons()) {
+      expected.add(comparison.getUtilityMeasure());
+    }
+
+    final List<Float> emitted = new ArrayList<>();
+    final List<String> pairs = new ArrayList<>();
+    final Iterator<Comparison> iterator = pcep.getIncrementalTopComparisons(7);
+    while (iterator.hasNext()) {
+      final Comparison comparison = iterator.next();
+      emitted.add(comparison.getUtilityMeasure());
+      pairs.add(comparison.getEntityId1() + "_" + comparison.getEntityId2());
+    }
+
+    assertThat(expected.size(), equalTo(BUDGET));
+    assertThat(emitted, equalTo(expected));
+    assertThat(pairs.stream().distinct().count(), equalTo((long) BUDGET));
+  }
+
+  @Test
+  void testTerminationCondition() {
+    final List<Comparison> emitted = new ArrayList<>();
+    final ProgressiveGlobalTopComparisons prioritization = new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS);
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    prioritization.setTerminationCondition(() -> emitted.size() == 100);
+    while (prioritization.hasNext()) {
+      emitted.add(prioritization.next());
+    }
+    assertThat(emitted.size(), equalTo(100));
+
+    prioritization.setTerminationCondition(null);
+    prioritization.setTimeBudget(0, TimeUnit.SECONDS);
+    assertThat(prioritization.hasNext(), equalTo(false));
+
+    prioritization.setTimeBudget(1, TimeUnit.HOURS);
+    while (prioritization.hasNext()) {
+      emitted.add(prioritization.next());
+    }
+    assertThat(emitted.size(), greaterThan(100));
+  }
+}
@@ -0,0 +1,148 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.entitymatching.IEntityMatching;
+import org.scify.jedai.entitymatching.ProfileMatcher;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies the functionality of {@link ProgressiveMatchingEngine}. */
+class ProgressiveMatchingEngineTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+  private static final IEntityMatching MATCHER = new ProfileMatcher(PROFILES);
+
+  @Test
+  void testScheduleOrder() {
+    final IPrioritization sequentialSchedule = getSchedule();
+    final List<String> expected = new ArrayList<>();
+    while (sequentialSchedule.hasNext()) {
+      final Comparison comparison = sequentialSchedule.next();
+      final float similarity = MATCHER.executeComparison(comparison);
+      if (0.5f <= similarity) {
+        expected.add(comparison.getEntityId1() + "_" + comparison.getEntityId2() + "_" + similarity);
+      }
+    }
+
+    final List<String> reported = new ArrayList<>();
+    final ProgressiveMatchingEngine engine = new ProgressiveMatchingEngine(getSchedule(), MATCHER, 0.5f);
+    engine.setBatchSize(37);
+    engine.setNoOfWorkers(4);
+    engine.setMaxPendingBatches(3);
+    final long executed = engine.execute((id1, id2, sim) -> reported.add(id1 + "_" + id2 + "_" + sim));
+
+    assertThat(executed, equalTo((long) BUDGET));
+    assertThat(expected.size(), greaterThan(0));
+    assertThat(reported, equalTo(expected));
+  }
+
+  @Test
+  void testComparisonsBudget() {
+    final ProgressiveMatchingEngine engine = new ProgressiveMatchingEngine(getSchedule(), MATCHER, 0);
+    engine.setBatchSize(100);
+    engine.setComparisonsBudget(1234);
+    final List<String> reported = new ArrayList<>();
+    assertThat(engine.execute((id1, id2, sim) -> reported.add(id1 + "_" + id2)), equalTo(1234L));
+    assertThat(reported.size(), equalTo(1234));
+  }
+
+  @Test
+  void testTimeBudget() {
+    final IEntityMatching slowMatcher = new ProfileMatcher(PROFILES) {
+      @Override
+      public float executeComparison(Comparison comparison) {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return super.executeComparison(comparison);
+      }
+    };
+
+    final ProgressiveMatchingEngine engine = new ProgressiveMatchingEngine(getSchedule(), slowMatcher, 0);
+    engine.setBatchSize(10);
+    engine.setNoOfWorkers(2);
+    engine.setTimeBudget(200, TimeUnit.MILLISECONDS);
+    final List<String> reported = new ArrayList<>();
+    final long executed = engine.execute((id1, id2, sim) -> reported.add(id1 + "_" + id2));
+    assertThat(executed, greaterThan(0L));
+    assertThat(executed, lessThan((long) BUDGET));
+    assertThat((long) reported.size(), equalTo(executed));
+    assertThat(getNoOfPipelineThreads(), equalTo(0L));
+  }
+
+  @Test
+  void testMatchingFailure() {
+    final AtomicInteger executions = new AtomicInteger();
+    final IEntityMatching failingMatcher = new ProfileMatcher(PROFILES) {
+      @Override
+      public float executeComparison(Comparison comparison) {
+        if (executions.incrementAndGet() == 1000) {
+          throw new IllegalArgumentException("matching failure");
+        }
+        return super.executeComparison(comparison);
+      }
+    };
+
+    final ProgressiveMatchingEngine engine = new ProgressiveMatchingEngine(getSchedule(), failingMatcher, 0);
+    engine.setBatchSize(50);
+    engine.setMaxPendingBatches(2);
+    final IllegalStateException failure = assertThrows(IllegalStateException.class, () -> engine.execute((id1, id2, sim) -> {}));
+    assertThat(failure.getCause().getMessage(), equalTo("matching failure"));
+    assertThat(getNoOfPipelineThreads(), equalTo(0L));
+  }
+
+  @Test
+  void testScheduleFailure() {
+    final ProgressiveGlobalTopComparisons failingSchedule = new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS) {
+      private int emitted;
+
+      @Override
+      public Comparison next() {
+        if (++emitted == 1000) {
+          throw new IllegalArgumentException("schedule failure");
+        }
+        return super.next();
+      }
+    };
+    failingSchedule.developBlockBasedSchedule(BLOCKS);
+
+    final ProgressiveMatchingEngine engine = new ProgressiveMatchingEngine(failingSchedule, MATCHER, 0);
+    engine.setBatchSize(50);
+    engine.setMaxPendingBatches(2);
+    final IllegalStateException failure = assertThrows(IllegalStateException.class, () -> engine.execute((id1, id2, sim) -> {}));
+    assertThat(failure.getCause().getMessage(), equalTo("schedule failure"));
+    assertThat(getNoOfPipelineThreads(), equalTo(0L));
+  }
+
+  private static long getNoOfPipelineThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.isAlive()
+            && (thread.getName().equals("progressive-matching") || thread.getName().equals("progressive-schedule")))
+        .count();
+  }
+
+  private static IPrioritization getSchedule() {
+    final IPrioritization prioritization = new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS);
+    prioritization.developBlockBasedSchedule(BLOCKS);
+    return prioritization;
+  }
+}
@@ -0,0 +1,112 @@
+package org.scify.jedai.prioritization;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.prioritization.utilities.ScheduleCheckpoint;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+/** Verifies the functionality of {@link ResumablePrioritization}. */
+class ResumablePrioritizationTest {
+
+  private static final int BUDGET = 5000;
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+  private static final List<AbstractBlock> BLOCKS = new StandardBlocking().getBlocks(PROFILES);
+
+  @Test
+  void testResumeAfterRestart() throws IOException {
+    final IPrioritization original = new ProgressiveEntityScheduling(BUDGET, WeightingScheme.JS);
+    original.developBlockBasedSchedule(BLOCKS);
+    final List<String> expected = getSchedule(original, Integer.MAX_VALUE);
+
+    final ResumablePrioritization resumable =
+        new ResumablePrioritization(BUDGET, new ProgressiveEntityScheduling(BUDGET, WeightingScheme.JS));
+    resumable.developBlockBasedSchedule(BLOCKS);
+    final List<String> schedule = getSchedule(resumable, 1234);
+
+    final ResumablePrioritization resumed = new ResumablePrioritization(BUDGET, copy(resumable.getCheckpoint()));
+    schedule.addAll(getSchedule(resumed, Integer.MAX_VALUE));
+    assertThat(schedule, equalTo(expected));
+    assertThat(resumed.getCheckpoint().getExecutedComparisons(), equalTo((long) expected.size()));
+  }
+
+  @Test
+  void testExtendedBudget() throws IOException {
+    final IPrioritization original = new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS);
+    original.developBlockBasedSchedule(BLOCKS);
+    final List<String> expected = getSchedule(original, Integer.MAX_VALUE);
+
+    final ResumablePrioritization resumable =
+        new ResumablePrioritization(1000, new ProgressiveGlobalTopComparisons(BUDGET, WeightingScheme.JS));
+    resumable.developBlockBasedSchedule(BLOCKS);
+    final List<String> schedule = getSchedule(resumable, Integer.MAX_VALUE);
+    assertThat(schedule.size(), equalTo(1000));
+
+    final ScheduleCheckpoint checkpoint = copy(resumable.getCheckpoint());
+    assertThat(checkpoint.getRemainingComparisons(), equalTo(BUDGET - 1000));
+    schedule.addAll(getSchedule(new ResumablePrioritization(3000, checkpoint), Integer.MAX_VALUE));
+    assertThat(schedule, equalTo(expected.subList(0, 3000)));
+  }
+
+  @Test
+  void testCorruptedCheckpoint() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new ScheduleCheckpoint(false, new int[] {0, 0, 1}, new int[] {1, 2, 2}, new float[] {3, 2, 1}, 0, 3, 0).write(output);
+    final byte[] valid = output.toByteArray();
+    assertThat(ScheduleCheckpoint.read(new ByteArrayInputStream(valid), "valid").getRemainingComparisons(), equalTo(3));
+
+    assertRejected(withSize(valid, -1), "negative number of comparisons");
+    assertRejected(withSize(valid, Integer.MAX_VALUE), "truncated");
+    assertRejected(Arrays.copyOf(valid, valid.length - 1), "truncated");
+
+    output.reset();
+    new ScheduleCheckpoint(false, new int[] {0, 0, 0}, new int[] {1, 1, 1}, new float[] {3, 2, 1}, 0, 3, 0).write(output);
+    assertRejected(output.toByteArray(), "more than the pairs");
+  }
+
+  // the number of comparisons follows the magic number, the version, the type of ER and the executed comparisons
+  private static byte[] withSize(byte[] checkpoint, int size) {
+    final byte[] modified = checkpoint.clone();
+    ByteBuffer.wrap(modified, 17, 4).putInt(size);
+    return modified;
+  }
+
+  private static void assertRejected(byte[] checkpoint, String reason) {
+    final IOException ex = assertThrows(IOException.class,
+        () -> ScheduleCheckpoint.read(new ByteArrayInputStream(checkpoint), "corrupted.ckpt"));
+    assertThat(ex.getMessage(), containsString("corrupted.ckpt"));
+    assertThat(ex.getMessage(), containsString(reason));
+  }
+
+  private static ScheduleCheckpoint copy(ScheduleCheckpoint checkpoint) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    checkpoint.write(output);
+    assertThat(output.size(), equalTo(21 + 12 * checkpoint.getRemainingComparisons()));
+    return ScheduleCheckpoint.read(new ByteArrayInputStream(output.toByteArray()));
+  }
+
+  private static List<String> getSchedule(IPrioritization prioritization, int limit) {
+    final List<String> comparisons = new ArrayList<>();
+    while (comparisons.size() < limit && prioritization.hasNext()) {
+      final Comparison comparison = prioritization.next();
+      comparisons.add(comparison.getEntityId1() + "_" + comparison.getEntityId2() + "_" + comparison.getUtilityMeasure());
+    }
+    return comparisons;
+  }
+}
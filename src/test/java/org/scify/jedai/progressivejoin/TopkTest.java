@@ -0,0 +1,84 @@
+package org.scify.jedai.progressivejoin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+
+/** Verifies the functionality of {@link Topk}. */
+class TopkTest {
+
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+
+  @Test
+  void testTopkMatchesExhaustiveSearch() {
+    final TokenizedColumn column = new TokenizedColumn(PROFILES, "name");
+    final List<Double> similarities = new ArrayList<>();
+    for (int i = 0; i < column.getSize(); i++) {
+      for (int j = i + 1; j < column.getSize(); j++) {
+        similarities.add(getJaccard(column, i, j));
+      }
+    }
+    similarities.sort(Collections.reverseOrder());
+
+    final Topk topk = new Topk(0, 1000);
+    topk.developEntityBasedSchedule(column);
+    final Set<Comparison> comparisons = new HashSet<>();
+    double previous = 1.0;
+    while (topk.hasNext()) {
+      final Comparison comparison = topk.next();
+      final double similarity = comparison.getUtilityMeasure();
+      assertThat(similarity, closeTo(getJaccard(column, comparison.getEntityId1(), comparison.getEntityId2()), 1e-6));
+      assertThat(similarity, closeTo(similarities.get(comparisons.size()), 1e-6));
+      assertThat(similarity, lessThan(previous + 1e-6));
+      assertThat(comparisons.add(comparison), equalTo(true));
+      previous = similarity;
+    }
+    assertThat(comparisons.size(), equalTo(1000));
+    assertThrows(NoSuchElementException.class, topk::next);
+  }
+
+  @Test
+  void testThreshold() {
+    final Topk topk = new Topk(0.5f, 1000);
+    topk.developEntityBasedSchedule("name", PROFILES);
+    int counter = 0;
+    while (topk.hasNext()) {
+      assertThat(topk.next().getUtilityMeasure(), greaterThanOrEqualTo(0.5f));
+      counter++;
+    }
+    assertThat(counter, lessThan(1000));
+  }
+
+  private static double getJaccard(TokenizedColumn column, int recordId1, int recordId2) {
+    final Set<Integer> tokens1 = new HashSet<>();
+    for (int tokenId : column.getTokenIds(recordId1)) {
+      tokens1.add(tokenId);
+    }
+    final Set<Integer> tokens2 = new HashSet<>();
+    for (int tokenId : column.getTokenIds(recordId2)) {
+      tokens2.add(tokenId);
+    }
+    final Set<Integer> intersection = new HashSet<>(tokens1);
+    intersection.retainAll(tokens2);
+    if (intersection.isEmpty()) {
+      return 0;
+    }
+    return intersection.size() / (double) (tokens1.size() + tokens2.size() - intersection.size());
+  }
+}
@@ -0,0 +1,87 @@
+package org.scify.jedai.similarityjoins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.similarityjoins.characterbased.PassJoin;
+import org.scify.jedai.similarityjoins.tokenbased.PPJoin;
+import org.scify.jedai.similarityjoins.tokenbased.SilkMoth;
+
+/** Verifies the functionality of {@link MultiAttributeJoin}. */
+class MultiAttributeJoinTest {
+
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+
+  @Test
+  void testConjunction() {
+    final Set<String> namePairs = toSet(new PPJoin(0.5f).executeFiltering("name", PROFILES));
+    final Set<String> cityPairs = toSet(new PassJoin(2).executeFiltering("city", PROFILES));
+    namePairs.retainAll(cityPairs);
+
+    final MultiAttributeJoin join = new MultiAttributeJoin(MultiAttributeJoin.Operator.AND,
+        new JoinPredicate("city", new PassJoin(2)), new JoinPredicate("name", new PPJoin(0.5f)));
+    final SimilarityPairs pairs = join.executeFiltering(PROFILES);
+    assertThat(namePairs.size(), greaterThan(0));
+    assertThat(namePairs.size(), lessThan(cityPairs.size()));
+    assertThat(pairs.getNoOfComparisons(), equalTo(namePairs.size()));
+    assertThat(toSet(pairs), equalTo(namePairs));
+  }
+
+  @Test
+  void testDisjunction() {
+    final Set<String> namePairs = toSet(new PPJoin(0.8f).executeFiltering("name", PROFILES));
+    final Set<String> phonePairs = toSet(new PassJoin(1).executeFiltering("phone", PROFILES));
+    namePairs.addAll(phonePairs);
+
+    final MultiAttributeJoin join = new MultiAttributeJoin(MultiAttributeJoin.Operator.OR,
+        new JoinPredicate("name", new PPJoin(0.8f)), new JoinPredicate("phone", new PassJoin(1)));
+    final SimilarityPairs pairs = join.executeFiltering(PROFILES);
+    assertThat(pairs.getNoOfComparisons(), equalTo(namePairs.size()));
+    assertThat(toSet(pairs), equalTo(namePairs));
+  }
+
+  @Test
+  void testFuzzySetPredicates() {
+    // SilkMoth is verified with the fuzzy Jaccard similarity whether it is indexed or not
+    final Set<String> namePairs = toSet(new PPJoin(0.3f).executeFiltering("name", PROFILES));
+    final Set<String> addressPairs = toSet(new SilkMoth(3, 0.6f).executeFiltering("addr", PROFILES));
+    assertThat(addressPairs.size(), greaterThan(0));
+
+    final Set<String> conjunction = new HashSet<>(namePairs);
+    conjunction.retainAll(addressPairs);
+    assertThat(conjunction.size(), greaterThan(0));
+    for (MultiAttributeJoin join : new MultiAttributeJoin[]{
+        new MultiAttributeJoin(MultiAttributeJoin.Operator.AND,
+            new JoinPredicate("name", new PPJoin(0.3f)), new JoinPredicate("addr", new SilkMoth(3, 0.6f))),
+        new MultiAttributeJoin(MultiAttributeJoin.Operator.AND,
+            new JoinPredicate("addr", new SilkMoth(3, 0.6f)), new JoinPredicate("name", new PPJoin(0.3f)))}) {
+      assertThat(toSet(join.executeFiltering(PROFILES)), equalTo(conjunction));
+    }
+
+    final Set<String> disjunction = new HashSet<>(namePairs);
+    disjunction.addAll(addressPairs);
+    final MultiAttributeJoin join = new MultiAttributeJoin(MultiAttributeJoin.Operator.OR,
+        new JoinPredicate("addr", new SilkMoth(3, 0.6f)), new JoinPredicate("name", new PPJoin(0.3f)));
+    final SimilarityPairs pairs = join.executeFiltering(PROFILES);
+    assertThat(pairs.getNoOfComparisons(), equalTo(disjunction.size()));
+    assertThat(toSet(pairs), equalTo(disjunction));
+  }
+
+  private static Set<String> toSet(SimilarityPairs pairs) {
+    final Set<String> set = new HashSet<>();
+    for (int i = 0; i < pairs.getNoOfComparisons(); i++) {
+      set.add(pairs.getEntityIds1()[i] + "_" + pairs.getEntityIds2()[i]);
+    }
+    return set;
+  }
+}
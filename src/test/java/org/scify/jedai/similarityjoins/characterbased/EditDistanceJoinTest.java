@@ -0,0 +1,155 @@
+package org.scify.jedai.similarityjoins.characterbased;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datamodel.joins.TokenizedColumn;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
+
+/**
+ * Verifies the functionality of {@link PassJoin}, {@link EdJoin}, {@link AllPairs}, {@link FastSS} and
+ * {@link MyersEditDistance}.
+ */
+class EditDistanceJoinTest {
+
+  private static final String RESTAURANT_NAME_1 = "http://www.okkam.org/ontology_restaurant1.owl#name";
+  private static final String RESTAURANT_NAME_2 = "http://www.okkam.org/ontology_restaurant2.owl#name";
+
+  private static final TokenizedColumn COLUMN1 = new TokenizedColumn(
+      new EntitySerializationReader("data/cleanCleanErDatasets/restaurant1Profiles").getEntityProfiles(),
+      RESTAURANT_NAME_1);
+  private static final TokenizedColumn COLUMN2 = new TokenizedColumn(
+      new EntitySerializationReader("data/cleanCleanErDatasets/restaurant2Profiles").getEntityProfiles(),
+      RESTAURANT_NAME_2);
+
+  @Test
+  void testBitParallelEditDistance() {
+    final MyersEditDistance editDistance = new MyersEditDistance();
+    final Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      final String s1 = getRandomString(random, random.nextInt(i % 2 == 0 ? 10 : 150));
+      final String s2 = mutate(random, s1);
+      final int threshold = random.nextInt(6);
+      final int expected = Math.min(getEditDistance(s1, s2), threshold + 1);
+      assertThat(editDistance.getDistance(s1, 0, s1.length(), s2, 0, s2.length(), threshold), equalTo(expected));
+    }
+  }
+
+  @Test
+  void testPassJoin() {
+    for (int threshold = 1; threshold <= 3; threshold++) {
+      final int t = threshold;
+      assertExactOutput(() -> new PassJoin(t), threshold);
+    }
+  }
+
+  @Test
+  void testEdJoin() {
+    for (int threshold = 1; threshold <= 3; threshold++) {
+      final int t = threshold;
+      assertExactOutput(() -> new EdJoin(t), threshold);
+    }
+  }
+
+  @Test
+  void testAllPairs() {
+    for (int q = 2; q <= 3; q++) {
+      for (int threshold = 1; threshold <= 3; threshold++) {
+        final int qSize = q;
+        final int t = threshold;
+        assertExactOutput(() -> new AllPairs(qSize, t), threshold);
+      }
+    }
+  }
+
+  @Test
+  void testFastSS() {
+    for (int threshold = 1; threshold <= 3; threshold++) {
+      final int t = threshold;
+      assertExactOutput(() -> new FastSS(t), threshold);
+    }
+
+    // the same instance is reused, e.g., during grid search
+    final FastSS join = new FastSS(2);
+    final List<String> firstPairs = toSortedList(join.executeFiltering(COLUMN1, COLUMN2));
+    assertThat(toSortedList(join.executeFiltering(COLUMN1, COLUMN2)), equalTo(firstPairs));
+  }
+
+  private static void assertExactOutput(Supplier<AbstractSimilarityJoin> joinSupplier, int threshold) {
+    final List<String> expectedPairs = new ArrayList<>();
+    for (int i = 0; i < COLUMN1.getSize(); i++) {
+      for (int j = 0; j < COLUMN2.getSize(); j++) {
+        int distance = getEditDistance(COLUMN1.getValue(i), COLUMN2.getValue(j));
+        if (distance <= threshold) {
+          expectedPairs.add(i + "," + j + "," + (1 - (float) distance / threshold));
+        }
+      }
+    }
+    Collections.sort(expectedPairs);
+
+    for (boolean parallel : new boolean[] {false, true}) {
+      final AbstractSimilarityJoin join = joinSupplier.get();
+      join.setParallel(parallel);
+      assertThat(toSortedList(join.executeFiltering(COLUMN1, COLUMN2)), equalTo(expectedPairs));
+    }
+  }
+
+  private static int getEditDistance(String s1, String s2) {
+    int[] previous = new int[s2.length() + 1];
+    int[] current = new int[s2.length() + 1];
+    for (int j = 0; j <= s2.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= s1.length(); i++) {
+      current[0] = i;
+      for (int j = 1; j <= s2.length(); j++) {
+        int substitution = previous[j - 1] + (s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1);
+        current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+      }
+      final int[] temp = previous;
+      previous = current;
+      current = temp;
+    }
+    return previous[s2.length()];
+  }
+
+  private static String getRandomString(Random random, int length) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      // mostly two ASCII letters, so that long matches arise, and a few non-ASCII ones
+      builder.append(random.nextInt(10) == 0 ? (char) ('\u00e0' + random.nextInt(3)) : (char) ('a' + random.nextInt(2)));
+    }
+    return builder.toString();
+  }
+
+  private static String mutate(Random random, String value) {
+    final StringBuilder builder = new StringBuilder(value);
+    for (int edits = random.nextInt(8); 0 < edits; edits--) {
+      int position = random.nextInt(builder.length() + 1);
+      if (random.nextBoolean() || builder.length() == position) {
+        builder.insert(position, (char) ('a' + random.nextInt(3)));
+      } else {
+        builder.deleteCharAt(position);
+      }
+    }
+    return builder.toString();
+  }
+
+  private static List<String> toSortedList(SimilarityPairs pairs) {
+    final List<String> list = new ArrayList<>();
+    for (int i = 0; i < pairs.getNoOfComparisons(); i++) {
+      list.add(pairs.getEntityIds1()[i] + "," + pairs.getEntityIds2()[i] + "," + pairs.getSimilarities()[i]);
+    }
+    Collections.sort(list);
+    return list;
+  }
+}
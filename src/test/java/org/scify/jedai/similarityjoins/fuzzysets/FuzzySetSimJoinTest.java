@@ -0,0 +1,50 @@
+package org.scify.jedai.similarityjoins.fuzzysets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Verifies the functionality of {@link FuzzySetSimJoin}. */
+class FuzzySetSimJoinTest {
+
+  private static final int[][][] COLLECTION = {
+    {{0, 1}, {2, 3}},
+    {{4}},
+    {{0, 1}, {2}, {5, 6}}
+  };
+
+  @Test
+  void testMaximumWeightMatching() {
+    final TIntFloatMap matches = new TIntFloatHashMap();
+    new FuzzySetSimJoin(COLLECTION, 7, 0.5f).search(7, new int[][]{{2}, {0, 1}},
+        (queryId, setId, sim) -> matches.put(setId, sim));
+
+    // {0, 1} is matched with similarity 1, and {2} with similarity 0.5 and 1, respectively
+    assertThat(toList(matches.keys()), containsInAnyOrder(0, 2));
+    assertThat((double) matches.get(0), closeTo(1.5 / 2.5, 1e-6));
+    assertThat((double) matches.get(2), closeTo(2.0 / 3.0, 1e-6));
+  }
+
+  @Test
+  void testEmptyQuerySet() {
+    final List<String> matches = new ArrayList<>();
+    new FuzzySetSimJoin(COLLECTION, 7, 0.1f).join(new int[][][]{{}, {{6}}},
+        (queryId, setId, sim) -> matches.add(queryId + "_" + setId));
+    assertThat(matches, contains("1_2"));
+  }
+
+  private static List<Integer> toList(int[] ids) {
+    final List<Integer> list = new ArrayList<>();
+    for (int id : ids) {
+      list.add(id);
+    }
+    return list;
+  }
+}
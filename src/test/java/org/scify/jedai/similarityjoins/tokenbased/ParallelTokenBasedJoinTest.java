@@ -0,0 +1,68 @@
+package org.scify.jedai.similarityjoins.tokenbased;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
+
+/** Verifies that the parallel and the streaming mode of the prefix-filtering joins yield the sequential output. */
+class ParallelTokenBasedJoinTest {
+
+  private static final List<EntityProfile> PROFILES =
+      new EntitySerializationReader("data/dirtyErDatasets/restaurantProfiles").getEntityProfiles();
+
+  @Test
+  void testAllPairs() {
+    assertSameOutput(() -> new AllPairs(0.5f));
+  }
+
+  @Test
+  void testPPJoin() {
+    assertSameOutput(() -> new PPJoin(0.5f));
+  }
+
+  @Test
+  void testPartEnumJoin() {
+    assertSameOutput(() -> new PartEnumJoin(0.5f));
+  }
+
+  @Test
+  void testSilkMoth() {
+    assertSameOutput(() -> new SilkMoth(3, 0.5f));
+  }
+
+  @Test
+  void testStreamingOutput() {
+    final PPJoin join = new PPJoin(0.5f);
+    join.setParallel(true);
+    final SimilarityPairs streamedPairs = new SimilarityPairs(false);
+    join.executeFiltering("name", PROFILES, streamedPairs::addComparison);
+
+    final SimilarityPairs sequentialPairs = new PPJoin(0.5f).executeFiltering("name", PROFILES);
+    assertSamePairs(streamedPairs, sequentialPairs);
+  }
+
+  private static void assertSameOutput(Supplier<AbstractSimilarityJoin> joinSupplier) {
+    final SimilarityPairs sequentialPairs = joinSupplier.get().executeFiltering("name", PROFILES);
+    final AbstractSimilarityJoin parallelJoin = joinSupplier.get();
+    parallelJoin.setParallel(true);
+    final SimilarityPairs parallelPairs = parallelJoin.executeFiltering("name", PROFILES);
+    assertSamePairs(parallelPairs, sequentialPairs);
+  }
+
+  private static void assertSamePairs(SimilarityPairs parallelPairs, SimilarityPairs sequentialPairs) {
+    final int noOfPairs = sequentialPairs.getNoOfComparisons();
+    assertThat(noOfPairs, greaterThan(0));
+    assertThat(parallelPairs.getNoOfComparisons(), equalTo(noOfPairs));
+    assertThat(parallelPairs.getEntityIds1(), equalTo(sequentialPairs.getEntityIds1()));
+    assertThat(parallelPairs.getEntityIds2(), equalTo(sequentialPairs.getEntityIds2()));
+    assertThat(parallelPairs.getSimilarities(), equalTo(sequentialPairs.getSimilarities()));
+  }
+}
@@ -0,0 +1,81 @@
+package org.scify.jedai.utilities.datastructures;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.BilateralBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.UnilateralBlock;
+
+/** Verifies the functionality of {@link CompactEntityIndex}. */
+class CompactEntityIndexTest {
+
+  @Test
+  void testDirtyERIntersections() {
+    final Random random = new Random(42);
+    final List<AbstractBlock> blocks = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      // a few large blocks make the block lists of some entities much longer than others
+      blocks.add(new UnilateralBlock(getEntities(random, i % 50 == 0 ? 40 : 2 + random.nextInt(4), 50)));
+    }
+
+    final CompactEntityIndex index = new CompactEntityIndex(blocks);
+    assertThat(index.isCleanCleanER(), equalTo(false));
+    assertThat(index.getNoOfBlocks(), equalTo(300));
+    for (int id1 = 0; id1 < index.getNoOfEntities(); id1++) {
+      for (int id2 = id1 + 1; id2 < index.getNoOfEntities(); id2++) {
+        final Comparison comparison = new Comparison(false, id1, id2);
+        final TIntList expected = new TIntArrayList();
+        for (int blockId = 0; blockId < blocks.size(); blockId++) {
+          final TIntList entities = new TIntArrayList(((UnilateralBlock) blocks.get(blockId)).getEntities());
+          if (entities.contains(id1) && entities.contains(id2)) {
+            expected.add(blockId);
+          }
+        }
+
+        final TIntList commonBlocks = new TIntArrayList();
+        index.getCommonBlocks(comparison, commonBlocks);
+        assertThat(commonBlocks, equalTo(expected));
+        assertThat(index.getNoOfCommonBlocks(comparison), equalTo(expected.size()));
+        assertThat(index.getLeastCommonBlock(comparison), equalTo(expected.isEmpty() ? -1 : expected.get(0)));
+      }
+    }
+  }
+
+  @Test
+  void testCleanCleanERIndex() {
+    final List<AbstractBlock> blocks = new ArrayList<>();
+    blocks.add(new BilateralBlock(new int[]{0, 1}, new int[]{0}));
+    blocks.add(new BilateralBlock(new int[]{1, 2}, new int[]{0, 1}));
+    blocks.add(new BilateralBlock(new int[]{1}, new int[]{0}));
+
+    final CompactEntityIndex index = new CompactEntityIndex(blocks);
+    assertThat(index.isCleanCleanER(), equalTo(true));
+    assertThat(index.getDatasetLimit(), equalTo(3));
+    assertThat(index.getNoOfEntities(), equalTo(5));
+    assertThat(index.getEntityBlocks(0, 1), equalTo(new int[]{0, 1, 2}));
+    assertThat(index.getNoOfEntityBlocks(1, 0), equalTo(3));
+    assertThat(index.getNoOfCommonBlocks(new Comparison(true, 1, 0)), equalTo(3));
+    assertThat(index.isRepeated(0, new Comparison(true, 1, 0)), equalTo(false));
+    assertThat(index.isRepeated(2, new Comparison(true, 1, 0)), equalTo(true));
+    assertThat(index.getLeastCommonBlock(new Comparison(true, 0, 1)), equalTo(-1));
+  }
+
+  private static int[] getEntities(Random random, int size, int noOfEntities) {
+    final TIntList entities = new TIntArrayList();
+    while (entities.size() < size) {
+      int entityId = random.nextInt(noOfEntities);
+      if (!entities.contains(entityId)) {
+        entities.add(entityId);
+      }
+    }
+    return entities.toArray();
+  }
+}
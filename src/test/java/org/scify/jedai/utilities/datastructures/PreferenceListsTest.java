@@ -0,0 +1,50 @@
+package org.scify.jedai.utilities.datastructures;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+/** Verifies the ordering of {@link PreferenceLists}. */
+class PreferenceListsTest {
+
+  @Test
+  void testOrdering() {
+    final SimilarityPairs simPairs = new SimilarityPairs(true);
+    simPairs.addComparison(0, 3, 0.25f);
+    simPairs.addComparison(0, 1, 0.75f);
+    simPairs.addComparison(0, 2, 0.75f);
+    simPairs.addComparison(0, 0, 0.1f);
+    simPairs.addComparison(2, 1, 0.5f);
+    simPairs.addComparison(2, 0, 1.0f);
+    simPairs.addComparison(2, 3, 0.0f);
+
+    // the candidates are sorted in decreasing similarity, with ties broken by id,
+    // and those with a similarity up to the threshold are excluded
+    final PreferenceLists preferences1 = new PreferenceLists(simPairs, 0.1f, true, 3);
+    assertThat(preferences1.getNoOfEntities(), equalTo(3));
+    assertThat(getList(preferences1, 0), equalTo(Arrays.asList("1:0.75", "2:0.75", "3:0.25")));
+    assertThat(preferences1.isEmpty(1), equalTo(true));
+    assertThat(getList(preferences1, 1), equalTo(Collections.emptyList()));
+    assertThat(getList(preferences1, 2), equalTo(Arrays.asList("0:1.0", "1:0.5")));
+
+    final PreferenceLists preferences2 = new PreferenceLists(simPairs, 0.1f, false, 4);
+    assertThat(getList(preferences2, 0), equalTo(Arrays.asList("2:1.0")));
+    assertThat(getList(preferences2, 1), equalTo(Arrays.asList("0:0.75", "2:0.5")));
+    assertThat(getList(preferences2, 2), equalTo(Arrays.asList("0:0.75")));
+    assertThat(getList(preferences2, 3), equalTo(Arrays.asList("0:0.25")));
+  }
+
+  private static List<String> getList(PreferenceLists preferences, int entityId) {
+    final List<String> list = new ArrayList<>();
+    for (int i = preferences.getFirstIndex(entityId); i < preferences.getLastIndex(entityId); i++) {
+      list.add(preferences.getCandidate(i) + ":" + preferences.getSimilarity(i));
+    }
+    return list;
+  }
+}
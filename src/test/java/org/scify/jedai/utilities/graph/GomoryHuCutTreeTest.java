@@ -0,0 +1,74 @@
+package org.scify.jedai.utilities.graph;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Verifies the functionality of {@link GomoryHuCutTree}. */
+class GomoryHuCutTreeTest {
+
+  /**
+   * Every tree edge (v, parent[v]) must split the graph into two sides whose cut weight equals
+   * the minimum cut between v and its parent.
+   */
+  @Test
+  void testTreeEdgesAreMinimumCuts() {
+    final Random random = new Random(42);
+    for (int iteration = 0; iteration < 200; iteration++) {
+      int noOfVertices = 3 + random.nextInt(8);
+      int[] source = new int[noOfVertices * noOfVertices];
+      int[] target = new int[noOfVertices * noOfVertices];
+      float[] weight = new float[noOfVertices * noOfVertices];
+      int noOfEdges = 0;
+      for (int i = 0; i < noOfVertices; i++) {
+        for (int j = i + 1; j < noOfVertices; j++) {
+          if (random.nextDouble() < 0.4) {
+            source[noOfEdges] = i;
+            target[noOfEdges] = j;
+            weight[noOfEdges++] = 1 + random.nextInt(10);
+          }
+        }
+      }
+
+      int[] parent = new GomoryHuCutTree(noOfVertices, source, target, weight, noOfEdges).getParents();
+      for (int v = 1; v < noOfVertices; v++) {
+        boolean[] belowV = new boolean[noOfVertices];
+        for (int x = 0; x < noOfVertices; x++) {
+          int ancestor = x;
+          while (ancestor != 0 && ancestor != v) {
+            ancestor = parent[ancestor];
+          }
+          belowV[x] = ancestor == v;
+        }
+
+        double treeCut = 0;
+        for (int e = 0; e < noOfEdges; e++) {
+          if (belowV[source[e]] != belowV[target[e]]) {
+            treeCut += weight[e];
+          }
+        }
+        double minCut = bruteForceMinCut(noOfVertices, source, target, weight, noOfEdges, v, parent[v]);
+        assertThat(treeCut, closeTo(minCut, 1e-6));
+      }
+    }
+  }
+
+  private static double bruteForceMinCut(int noOfVertices, int[] source, int[] target, float[] weight,
+      int noOfEdges, int s, int t) {
+    double minCut = Double.MAX_VALUE;
+    for (int mask = 0; mask < (1 << noOfVertices); mask++) {
+      if ((mask >> s & 1) == 1 && (mask >> t & 1) == 0) {
+        double cut = 0;
+        for (int e = 0; e < noOfEdges; e++) {
+          if ((mask >> source[e] & 1) != (mask >> target[e] & 1)) {
+            cut += weight[e];
+          }
+        }
+        minCut = Math.min(minCut, cut);
+      }
+    }
+    return minCut;
+  }
+}